@@ -0,0 +1,79 @@
+package com.gloogie.mshpoa.benchmarks;
+
+import com.gloogie.mshpoa.generator.DatasetGenerator;
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.importer.impl.MappedFileImporter;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inputs of the benchmarks: the configuration of mshpoa-importer.properties and generated files of measures
+ */
+final class BenchmarkData
+{
+    static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return the measure types T, P and H
+     */
+    static List<MeasureType> measureTypes() {
+        final List<MeasureType> measureTypes = new ArrayList<>();
+        measureTypes.add(measureType("T", "temperature"));
+        measureTypes.add(measureType("P", "pressure"));
+        measureTypes.add(measureType("H", "humidity"));
+        return measureTypes;
+    }
+
+    /**
+     * @param mapped true for the importer which maps the files and parses them in parallel
+     * @return a file importer with the fields of the default configuration
+     */
+    static FileImporter fileImporter(final boolean mapped) {
+        final Map<String, List<MeasureField>> fieldsPerType = new LinkedHashMap<>();
+        fieldsPerType.put("T", Arrays.asList(MeasureField.UNIT, MeasureField.VALUE));
+        fieldsPerType.put("P", Arrays.asList(MeasureField.UNIT, MeasureField.DATE, MeasureField.VALUE));
+        fieldsPerType.put("H", Arrays.asList(MeasureField.VALUE));
+        if (mapped) {
+            return new MappedFileImporter(measureTypes(), "#", "yyyy-MM-dd", ",", fieldsPerType);
+        }
+        return new FileImporter(measureTypes(), "#", "yyyy-MM-dd", ",", fieldsPerType);
+    }
+
+    /**
+     * Generate a file of measures in the default format, always the same for the same arguments
+     *
+     * @param stations  number of stations, each with 2 to 10 measures
+     * @param errorRate fraction of the measures which are not valid
+     * @return the generated file, deleted when the JVM exits
+     * @throws IOException if the file cannot be written
+     */
+    static File generateFile(final int stations, final double errorRate) throws IOException {
+        final File file = File.createTempFile("mshpoa-benchmark-", ".txt");
+        file.deleteOnExit();
+        final DatasetGenerator generator = new DatasetGenerator(fileImporter(false), SEED);
+        generator.setStationNames(stations);
+        generator.setUnit("T", "C");
+        generator.setUnit("P", "BAR");
+        generator.setErrorRate(errorRate);
+        generator.generateStations(file.toPath(), stations);
+        return file;
+    }
+
+    private static MeasureType measureType(final String code, final String name) {
+        final MeasureType measureType = new MeasureType();
+        measureType.setCode(code);
+        measureType.setName(name);
+        return measureType;
+    }
+}
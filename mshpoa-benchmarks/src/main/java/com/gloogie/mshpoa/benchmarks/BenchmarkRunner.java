@@ -0,0 +1,40 @@
+package com.gloogie.mshpoa.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Class to run the benchmarks, with the options of the JMH command line. Unless other options are given, the results
+ * are written in JSON to jmh-result.json and the allocation rate is measured with the GC profiler (-prof gc).
+ * <p>
+ * For example, to run the benchmarks of the import only: java -jar benchmarks.jar FileImporterBenchmark
+ */
+public class BenchmarkRunner
+{
+    public static final String RESULT_FILE = "jmh-result.json";
+
+    public static void main(final String[] args) throws Exception {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()) {
+            // The help and the list of the benchmarks are given by the JMH main
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            options.result(RESULT_FILE);
+        }
+        if (commandLineOptions.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.gloogie.mshpoa.benchmarks;
+
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.model.WeatherStation;
+import com.gloogie.mshpoa.report.SourceStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the import of generated files of several sizes and error rates, into a list of stations or directly
+ * into stats
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileImporterBenchmark
+{
+    @Param({"1000", "10000", "100000"})
+    private int stations;
+
+    @Param({"0", "0.05"})
+    private double errorRate;
+
+    private File file;
+    private FileImporter fileImporter;
+    private FileImporter mappedFileImporter;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = BenchmarkData.generateFile(stations, errorRate);
+        fileImporter = BenchmarkData.fileImporter(false);
+        mappedFileImporter = BenchmarkData.fileImporter(true);
+    }
+
+    @Benchmark
+    public List<WeatherStation> consumeStations() throws Exception {
+        return fileImporter.consume(file);
+    }
+
+    @Benchmark
+    public SourceStats consumeStats() throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        fileImporter.consume(file, sourceStats);
+        return sourceStats;
+    }
+
+    @Benchmark
+    public SourceStats consumeStatsMapped() throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        mappedFileImporter.consume(file, sourceStats);
+        return sourceStats;
+    }
+}
@@ -0,0 +1,55 @@
+package com.gloogie.mshpoa.benchmarks;
+
+import com.gloogie.mshpoa.importer.parser.NumberParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the parsing of the values of the measures, compared to Double.parseDouble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberParserBenchmark
+{
+    private static final int VALUES = 1024;
+
+    private final String[] values = new String[VALUES];
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(BenchmarkData.SEED);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = String.format("%.1f", random.nextGaussian() * 500);
+        }
+    }
+
+    @Benchmark
+    public void numberParser(final Blackhole blackhole) {
+        for (final String value : values) {
+            blackhole.consume(NumberParser.parseDouble(value, 0, value.length()));
+        }
+    }
+
+    @Benchmark
+    public void doubleParseDouble(final Blackhole blackhole) {
+        for (final String value : values) {
+            blackhole.consume(Double.parseDouble(value));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.gloogie.mshpoa.benchmarks;
+
+import com.gloogie.mshpoa.importer.CompositeSink;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.Reporter;
+import com.gloogie.mshpoa.report.SourceStats;
+import com.gloogie.mshpoa.report.StatsComputer;
+import com.gloogie.mshpoa.report.format.CsvFormat;
+import com.gloogie.mshpoa.report.format.JsonLinesFormat;
+import com.gloogie.mshpoa.report.format.ReportFormat;
+import com.gloogie.mshpoa.report.format.TextFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the writing of a report in each format, without breakdown or with a breakdown by type and day, to a
+ * writer which discards the lines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReporterBenchmark
+{
+    @Param({"NONE", "TYPE,DAY"})
+    private String groupBy;
+
+    @Param({"TEXT", "JSONL", "CSV"})
+    private String format;
+
+    private StatsComputer statsComputer;
+    private ReportFormat reportFormat;
+    private GroupBy groups;
+
+    @Setup
+    public void setUp() throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        if ("NONE".equals(groupBy)) {
+            BenchmarkData.fileImporter(false).consume(BenchmarkData.generateFile(10000, 0.01), sourceStats);
+        } else {
+            final Set<GroupDimension> dimensions = EnumSet.noneOf(GroupDimension.class);
+            for (final String dimension : groupBy.split(",")) {
+                dimensions.add(GroupDimension.valueOf(dimension));
+            }
+            groups = new GroupBy(dimensions);
+            BenchmarkData.fileImporter(false).consume(BenchmarkData.generateFile(10000, 0.01),
+                                                      new CompositeSink(Arrays.asList(sourceStats, groups)));
+        }
+        statsComputer = StatsComputer.of(BenchmarkData.measureTypes(), sourceStats);
+        reportFormat = "JSONL".equals(format) ? new JsonLinesFormat()
+                                              : "CSV".equals(format) ? new CsvFormat() : new TextFormat();
+    }
+
+    @Benchmark
+    public void writeReport(final Blackhole blackhole) {
+        new Reporter(statsComputer, blackhole::consume, reportFormat).writeReport("benchmark.txt", groups);
+    }
+}
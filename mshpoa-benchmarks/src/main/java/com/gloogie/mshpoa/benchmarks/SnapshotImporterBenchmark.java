@@ -0,0 +1,81 @@
+package com.gloogie.mshpoa.benchmarks;
+
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.importer.impl.SnapshotImporter;
+import com.gloogie.mshpoa.importer.impl.SnapshotWriter;
+import com.gloogie.mshpoa.report.SourceStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the import into stats of a snapshot, compared with the import of the text file it was written from,
+ * without the start-up of the JVM and the computation of the stats which are the same for both
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotImporterBenchmark
+{
+    @Param({"10000", "100000"})
+    private int stations;
+
+    @Param({"0", "0.05"})
+    private double errorRate;
+
+    private File file;
+    private File snapshot;
+    private FileImporter fileImporter;
+    private FileImporter mappedFileImporter;
+    private SnapshotImporter snapshotImporter;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = BenchmarkData.generateFile(stations, errorRate);
+        fileImporter = BenchmarkData.fileImporter(false);
+        mappedFileImporter = BenchmarkData.fileImporter(true);
+        snapshotImporter = new SnapshotImporter(BenchmarkData.measureTypes());
+
+        snapshot = new File(file.getPath() + SnapshotWriter.EXTENSION);
+        snapshot.deleteOnExit();
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter()) {
+            fileImporter.consume(file, snapshotWriter);
+            snapshotWriter.writeTo(snapshot);
+        }
+    }
+
+    @Benchmark
+    public SourceStats consumeText() throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        fileImporter.consume(file, sourceStats);
+        return sourceStats;
+    }
+
+    @Benchmark
+    public SourceStats consumeTextMapped() throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        mappedFileImporter.consume(file, sourceStats);
+        return sourceStats;
+    }
+
+    @Benchmark
+    public SourceStats consumeSnapshot() throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        snapshotImporter.consume(snapshot, sourceStats);
+        return sourceStats;
+    }
+}
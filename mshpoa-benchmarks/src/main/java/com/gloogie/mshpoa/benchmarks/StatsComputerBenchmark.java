@@ -0,0 +1,68 @@
+package com.gloogie.mshpoa.benchmarks;
+
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.WeatherStation;
+import com.gloogie.mshpoa.report.StatsComputer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the getters of StatsComputer on imported stations, at growing station counts: the first getter
+ * aggregates all the measures, the next ones only look the stats up
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsComputerBenchmark
+{
+    @Param({"100", "10000", "100000"})
+    private int stations;
+
+    private List<MeasureType> measureTypes;
+    private List<WeatherStation> weatherStations;
+    private StatsComputer computed;
+
+    @Setup
+    public void setUp() throws Exception {
+        measureTypes = BenchmarkData.measureTypes();
+        weatherStations = BenchmarkData.fileImporter(false).consume(BenchmarkData.generateFile(stations, 0));
+        computed = new StatsComputer(measureTypes, weatherStations);
+        computed.computeStats();
+    }
+
+    @Benchmark
+    public void computeAndGet(final Blackhole blackhole) {
+        getAll(new StatsComputer(measureTypes, weatherStations), blackhole);
+    }
+
+    @Benchmark
+    public void getComputed(final Blackhole blackhole) {
+        getAll(computed, blackhole);
+    }
+
+    private void getAll(final StatsComputer statsComputer, final Blackhole blackhole) {
+        blackhole.consume(statsComputer.getNumberOfWeatherStations());
+        blackhole.consume(statsComputer.getNumberOfSensorsInError());
+        for (final MeasureType type : measureTypes) {
+            blackhole.consume(statsComputer.getMinValue(type.getCode()));
+            blackhole.consume(statsComputer.getMaxValue(type.getCode()));
+            blackhole.consume(statsComputer.getMeanValue(type.getCode()));
+        }
+    }
+}
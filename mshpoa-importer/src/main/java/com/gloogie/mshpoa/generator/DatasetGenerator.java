@@ -0,0 +1,356 @@
+package com.gloogie.mshpoa.generator;
+
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generator of files of measures in the format of a FileImporter, to test the import at realistic volumes.
+ * <p>
+ * The files are made of station lines followed by their measures lines. The stations are named "Station-n", with a
+ * configurable number of distinct names: once they are all used, the names are used again, so a station may have
+ * several station lines in a file. The types of the measures are drawn with a configurable weight per type, and a
+ * configurable fraction of the measures lines is not valid: wrong value, wrong date, unsupported type or wrong number
+ * of fields. Comment lines are added with a configurable probability before each line.
+ * <p>
+ * The output only depends on the configuration and the seed, so a generated file is always the same.
+ */
+public class DatasetGenerator
+{
+    public static final String STATION_PREFIX = "Station-";
+    public static final String UNSUPPORTED_TYPE = "UNSUPPORTED";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2014, 1, 1);
+    private static final int DAYS = 365;
+
+    private final FileImporter format;
+    private final long seed;
+    private final Map<String, Integer> typeWeights = new HashMap<>();
+    private final Map<String, String> units = new HashMap<>();
+    private int stationNames = 10000;
+    private int minMeasures = 2;
+    private int maxMeasures = 10;
+    private double errorRate;
+    private double commentRate;
+
+    /**
+     * Constructor for DatasetGenerator
+     *
+     * @param format the importer which gives the format of the files: measure types, fields, separator, date pattern
+     *               and prefix of the comments
+     * @param seed   seed of the random values
+     */
+    public DatasetGenerator(final FileImporter format, final long seed) {
+        Validate.notNull(format, "Format cannot be null");
+        Validate.notEmpty(format.getMeasureTypes(), "Measure types of the format cannot be empty");
+        this.format = format;
+        this.seed = seed;
+        for (final MeasureType type : format.getMeasureTypes()) {
+            typeWeights.put(type.getCode(), 1);
+            units.put(type.getCode(), type.getCode());
+        }
+    }
+
+    /**
+     * Set the number of distinct station names, 10000 by default
+     *
+     * @param stationNames number of distinct station names
+     */
+    public void setStationNames(final int stationNames) {
+        Validate.isTrue(stationNames > 0, "Number of station names must be positive");
+        this.stationNames = stationNames;
+    }
+
+    /**
+     * Set the range of the number of measures lines of a station, 2 to 10 by default
+     *
+     * @param minMeasures minimum number of measures lines of a station
+     * @param maxMeasures maximum number of measures lines of a station
+     */
+    public void setMeasuresPerStation(final int minMeasures, final int maxMeasures) {
+        Validate.isTrue(minMeasures >= 0, "Minimum number of measures cannot be negative");
+        Validate.isTrue(maxMeasures >= minMeasures, "Maximum number of measures cannot be less than the minimum");
+        this.minMeasures = minMeasures;
+        this.maxMeasures = maxMeasures;
+    }
+
+    /**
+     * Set the weight of a measure type, the types have the same weight by default
+     *
+     * @param code   code of the measure type
+     * @param weight relative weight of the type in the measures, 0 for no measure of this type
+     */
+    public void setTypeWeight(final String code, final int weight) {
+        Validate.isTrue(typeWeights.containsKey(code), "Unknown measure type: %s", code);
+        Validate.isTrue(weight >= 0, "Weight cannot be negative");
+        typeWeights.put(code, weight);
+    }
+
+    /**
+     * Set the unit of the measures of a type which have a unit, the code of the type by default
+     *
+     * @param code code of the measure type
+     * @param unit unit of the measures
+     */
+    public void setUnit(final String code, final String unit) {
+        Validate.isTrue(units.containsKey(code), "Unknown measure type: %s", code);
+        Validate.notBlank(unit, "Unit cannot be blank");
+        units.put(code, unit);
+    }
+
+    /**
+     * Set the fraction of the measures lines which are not valid, 0 by default
+     *
+     * @param errorRate fraction of the measures lines which are not valid, between 0 and 1
+     */
+    public void setErrorRate(final double errorRate) {
+        Validate.inclusiveBetween(0.0, 1.0, errorRate, "Error rate must be between 0 and 1");
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Set the probability of a comment line before each line, 0 by default
+     *
+     * @param commentRate probability of a comment line before each line, between 0 and 1
+     */
+    public void setCommentRate(final double commentRate) {
+        Validate.inclusiveBetween(0.0, 1.0, commentRate, "Comment rate must be between 0 and 1");
+        this.commentRate = commentRate;
+    }
+
+    /**
+     * Generate a file of at least the specified size: the last station is complete, so the file is a bit bigger
+     *
+     * @param file file to write, replaced if it exists
+     * @param size minimum size of the file in bytes
+     * @return the content of the generated file
+     * @throws IOException if the file cannot be written
+     */
+    public Summary generate(final Path file, final long size) throws IOException {
+        Validate.isTrue(size >= 0, "Size cannot be negative");
+        return generate(file, size, Long.MAX_VALUE);
+    }
+
+    /**
+     * Generate a file with the specified number of station lines
+     *
+     * @param file     file to write, replaced if it exists
+     * @param stations number of station lines
+     * @return the content of the generated file
+     * @throws IOException if the file cannot be written
+     */
+    public Summary generateStations(final Path file, final long stations) throws IOException {
+        Validate.isTrue(stations >= 0, "Number of stations cannot be negative");
+        return generate(file, Long.MAX_VALUE, stations);
+    }
+
+    private Summary generate(final Path file, final long size, final long stations) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        final List<TypeFormat> types = buildTypes();
+        Validate.isTrue(!types.isEmpty(), "At least one measure type must have a positive weight");
+
+        final Random random = new Random(seed);
+        final Summary summary = new Summary();
+        final StringBuilder line = new StringBuilder(128);
+        final String separator = format.getFieldsSeparator();
+        try (BufferedWriter writer = new BufferedWriter(
+            new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            while (summary.bytes < size && summary.stations < stations) {
+                final int measures = minMeasures + random.nextInt(maxMeasures - minMeasures + 1);
+                line.setLength(0);
+                line.append(STATION_PREFIX).append(summary.stations % stationNames).append(separator).append(measures);
+                writeLine(writer, random, line, summary);
+                summary.stations++;
+
+                for (int i = 0; i < measures; i++) {
+                    line.setLength(0);
+                    final TypeFormat type = pickType(types, random);
+                    if (random.nextDouble() < errorRate) {
+                        appendFailedMeasure(line, type, random);
+                        summary.failedMeasures++;
+                    } else {
+                        appendMeasure(line, type, random, null);
+                        summary.measures++;
+                    }
+                    writeLine(writer, random, line, summary);
+                }
+            }
+        }
+        return summary;
+    }
+
+    private List<TypeFormat> buildTypes() {
+        final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format.getDatePattern());
+        final String[] dates = new String[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            dates[i] = formatter.format(FIRST_DATE.plusDays(i).atStartOfDay(ZoneId.systemDefault()));
+        }
+
+        final List<TypeFormat> types = new ArrayList<>();
+        int totalWeight = 0;
+        for (final MeasureType type : format.getMeasureTypes()) {
+            final int weight = typeWeights.get(type.getCode());
+            if (weight > 0) {
+                totalWeight += weight;
+                types.add(new TypeFormat(type.getCode(), format.getFieldsPerType().get(type.getCode()),
+                                         units.get(type.getCode()), dates, totalWeight));
+            }
+        }
+        return types;
+    }
+
+    private static TypeFormat pickType(final List<TypeFormat> types, final Random random) {
+        final int weight = random.nextInt(types.get(types.size() - 1).cumulativeWeight);
+        for (final TypeFormat type : types) {
+            if (weight < type.cumulativeWeight) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("No type for the weight " + weight);
+    }
+
+    private void appendMeasure(final StringBuilder line, final TypeFormat type, final Random random,
+                               final MeasureField invalidField) {
+        final String separator = format.getFieldsSeparator();
+        line.append(type.code);
+        for (final MeasureField field : type.fields) {
+            line.append(separator);
+            switch (field) {
+                case VALUE:
+                    if (field == invalidField) {
+                        line.append('x');
+                    }
+                    appendValue(line, random);
+                    break;
+                case UNIT:
+                    line.append(type.unit);
+                    break;
+                case DATE:
+                    line.append(field == invalidField ? "invalid" : type.dates[random.nextInt(DAYS)]);
+                    break;
+            }
+        }
+    }
+
+    private void appendFailedMeasure(final StringBuilder line, final TypeFormat type, final Random random) {
+        final int kind = random.nextInt(4);
+        if (kind == 0 && type.fields.contains(MeasureField.VALUE)) {
+            appendMeasure(line, type, random, MeasureField.VALUE);
+        } else if (kind == 1 && type.fields.contains(MeasureField.DATE)) {
+            appendMeasure(line, type, random, MeasureField.DATE);
+        } else if (kind == 3) {
+            appendMeasure(line, type, random, null);
+            line.append(format.getFieldsSeparator()).append(random.nextInt(100));
+        } else {
+            // Also used for the types without the invalid field
+            line.append(UNSUPPORTED_TYPE).append(format.getFieldsSeparator()).append(random.nextInt(100));
+        }
+    }
+
+    private static void appendValue(final StringBuilder line, final Random random) {
+        // A value with one decimal, mostly between -100 and 100
+        final long tenths = Math.round(random.nextGaussian() * 300);
+        if (tenths < 0) {
+            line.append('-');
+        }
+        line.append(Math.abs(tenths) / 10).append('.').append(Math.abs(tenths) % 10);
+    }
+
+    private void writeLine(final BufferedWriter writer, final Random random, final StringBuilder line,
+                           final Summary summary) throws IOException {
+        if (commentRate > 0 && random.nextDouble() < commentRate) {
+            final String comment = format.getPrefixComment() + " Comment " + summary.commentLines + "\n";
+            writer.write(comment);
+            summary.bytes += comment.length();
+            summary.commentLines++;
+        }
+        line.append('\n');
+        writer.append(line);
+        summary.bytes += line.length();
+    }
+
+    /**
+     * Format of the measures lines of a type
+     */
+    private static final class TypeFormat
+    {
+        private final String code;
+        private final List<MeasureField> fields;
+        private final String unit;
+        private final String[] dates;
+        private final int cumulativeWeight;
+
+        private TypeFormat(final String code, final List<MeasureField> fields, final String unit,
+                           final String[] dates, final int cumulativeWeight) {
+            this.code = code;
+            this.fields = fields;
+            this.unit = unit;
+            this.dates = dates;
+            this.cumulativeWeight = cumulativeWeight;
+        }
+    }
+
+    /**
+     * Content of a generated file
+     */
+    public static final class Summary
+    {
+        private long bytes;
+        private long stations;
+        private long measures;
+        private long failedMeasures;
+        private long commentLines;
+
+        /**
+         * @return the size of the file in bytes, the station names and units being ASCII
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the number of station lines
+         */
+        public long getStations() {
+            return stations;
+        }
+
+        /**
+         * @return the number of valid measures lines
+         */
+        public long getMeasures() {
+            return measures;
+        }
+
+        /**
+         * @return the number of measures lines which are not valid
+         */
+        public long getFailedMeasures() {
+            return failedMeasures;
+        }
+
+        /**
+         * @return the number of comment lines
+         */
+        public long getCommentLines() {
+            return commentLines;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.gloogie.mshpoa.importer;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Immutable position in a source at the start of a station, from which an import can be resumed: all the stations
+ * before the position are complete.
+ */
+public final class Checkpoint
+{
+    public static final Checkpoint START = new Checkpoint(0, 0, 0);
+
+    private final long offset;
+    private final long lineNumber;
+    private final long recordedFailures;
+
+    /**
+     * Constructor for Checkpoint
+     *
+     * @param offset           position in bytes of the start of the station line
+     * @param lineNumber       number of the lines before the position
+     * @param recordedFailures number of failed measures recorded before the position
+     */
+    public Checkpoint(final long offset, final long lineNumber, final long recordedFailures) {
+        Validate.isTrue(offset >= 0, "Offset cannot be negative");
+        Validate.isTrue(lineNumber >= 0, "Line number cannot be negative");
+        Validate.isTrue(recordedFailures >= 0, "Number of recorded failures cannot be negative");
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.recordedFailures = recordedFailures;
+    }
+
+    /**
+     * @return the position in bytes of the start of the station line
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the number of the lines before the position
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the number of failed measures recorded before the position, to apply the limit of recorded failures
+     */
+    public long getRecordedFailures() {
+        return recordedFailures;
+    }
+}
@@ -0,0 +1,18 @@
+package com.gloogie.mshpoa.importer;
+
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+
+/**
+ * Listener called by an importer at the start of a station, when the sink has received all the previous stations
+ */
+@FunctionalInterface
+public interface CheckpointListener
+{
+    /**
+     * Called at a checkpoint, to save the state of the sink with the checkpoint
+     *
+     * @param checkpoint the position from which the import can be resumed
+     * @throws ImporterException if the checkpoint cannot be saved, which stops the import
+     */
+    void onCheckpoint(Checkpoint checkpoint) throws ImporterException;
+}
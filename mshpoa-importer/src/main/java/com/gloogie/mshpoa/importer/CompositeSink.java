@@ -0,0 +1,55 @@
+package com.gloogie.mshpoa.importer;
+
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureType;
+import org.apache.commons.lang3.Validate;
+
+import java.util.List;
+
+/**
+ * Sink which gives each call to several sinks, in order, so that a source is imported once for all of them
+ */
+public class CompositeSink implements MeasureSink
+{
+    private final MeasureSink[] sinks;
+
+    /**
+     * Constructor for CompositeSink
+     *
+     * @param sinks the sinks to call
+     */
+    public CompositeSink(final List<? extends MeasureSink> sinks) {
+        Validate.notNull(sinks, "List of sinks cannot be null");
+        Validate.noNullElements(sinks, "Sink cannot be null");
+        this.sinks = sinks.toArray(new MeasureSink[0]);
+    }
+
+    @Override
+    public void onStationStart(final String name, final int declaredMeasures) {
+        for (final MeasureSink sink : sinks) {
+            sink.onStationStart(name, declaredMeasures);
+        }
+    }
+
+    @Override
+    public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        for (final MeasureSink sink : sinks) {
+            sink.onMeasure(type, value, dateMillis, unit);
+        }
+    }
+
+    @Override
+    public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+        for (final MeasureSink sink : sinks) {
+            sink.onFailedMeasure(reason, failedMeasure);
+        }
+    }
+
+    @Override
+    public void onStationEnd() {
+        for (final MeasureSink sink : sinks) {
+            sink.onStationEnd();
+        }
+    }
+}
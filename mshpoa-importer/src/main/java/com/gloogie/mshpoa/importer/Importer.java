@@ -1,16 +1,32 @@
 package com.gloogie.mshpoa.importer;
 
 import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.MeasureColumns;
 import com.gloogie.mshpoa.model.MeasureType;
 import com.gloogie.mshpoa.model.WeatherStation;
+import org.apache.commons.lang3.Validate;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Interface for importers
+ * Interface for importers.
+ * <p>
+ * An importer overrides at least one of the two consume methods: each one is implemented with the other. An importer
+ * written for the list of stations only overrides consume(source), and can still be given a sink.
  */
 public abstract class Importer<SourceType>
 {
+    // Whether an importer class overrides one of the consume methods, found with reflection once per class
+    private static final ClassValue<Boolean> OVERRIDES_CONSUME = new ClassValue<Boolean>()
+    {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return overrides(type, Object.class) || overrides(type, Object.class, MeasureSink.class);
+        }
+    };
+
     List<MeasureType> measureTypes;
 
     public List<MeasureType> getMeasureTypes() {
@@ -22,11 +38,68 @@ public abstract class Importer<SourceType>
     }
 
     /**
-     * Parse the specified source which contains measures of weather stations
+     * Parse the specified source which contains measures of weather stations. By default the stations are collected
+     * from consume(source, sink).
      *
      * @param source source which contains the measures
      * @return the list of weather stations parsed
      * @throws ImporterException if an error occurred
      */
-    public abstract List<WeatherStation> consume(SourceType source) throws ImporterException;
+    public List<WeatherStation> consume(final SourceType source) throws ImporterException {
+        final List<WeatherStation> stations = new ArrayList<>();
+        checkOverrides();
+        consume(source, new WeatherStationCollector(stations::add));
+        return stations;
+    }
+
+    /**
+     * Parse the specified source which contains measures of weather stations, giving its content to the sink while
+     * it is parsed. By default the stations are parsed with consume(source), then given to the sink: the measures of
+     * the stations are not given as they are parsed, and only the recorded failed measures are given. A station does
+     * not keep its declared number of measures, so the sink is given its number of measures and failed measures,
+     * which is the declared number of a station whose lines are all in the source.
+     *
+     * @param source source which contains the measures
+     * @param sink   sink receiving the stations and their measures
+     * @throws ImporterException if an error occurred
+     */
+    public void consume(final SourceType source, final MeasureSink sink) throws ImporterException {
+        Validate.notNull(sink, "Sink cannot be null");
+        checkOverrides();
+        final List<WeatherStation> stations = consume(source);
+        for (final WeatherStation station : stations) {
+            final MeasureColumns columns = station.getMeasureColumns();
+            final List<FailedMeasure> failedMeasures = station.getFailedMeasures();
+            final long lines = (columns == null ? 0 : columns.size()) + station.getNumberOfFailedMeasures();
+            sink.onStationStart(station.getName(), (int) Math.min(lines, Integer.MAX_VALUE));
+            if (columns != null) {
+                for (int i = 0; i < columns.size(); i++) {
+                    sink.onMeasure(columns.getType(i), columns.getValue(i), columns.getDateMillis(i),
+                                   columns.getUnit(i));
+                }
+            }
+            if (failedMeasures != null) {
+                for (final FailedMeasure failedMeasure : failedMeasures) {
+                    sink.onFailedMeasure(failedMeasure.getReason(), failedMeasure);
+                }
+            }
+            sink.onStationEnd();
+        }
+    }
+
+    /**
+     * Check that one of the consume methods is overridden, as each one would otherwise call the other back
+     */
+    private void checkOverrides() {
+        Validate.validState(OVERRIDES_CONSUME.get(getClass()), "%s must override one of the consume methods",
+                            getClass().getName());
+    }
+
+    private static boolean overrides(final Class<?> type, final Class<?>... parameterTypes) {
+        try {
+            return type.getMethod("consume", parameterTypes).getDeclaringClass() != Importer.class;
+        } catch (final NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
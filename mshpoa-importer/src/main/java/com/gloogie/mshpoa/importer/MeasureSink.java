@@ -0,0 +1,45 @@
+package com.gloogie.mshpoa.importer;
+
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureType;
+
+/**
+ * Receiver of the content of a source, called by the importer while the source is parsed.
+ * <p>
+ * The measures are given as primitive values, so a sink which aggregates them does not need any Measure object. The
+ * calls for a source are made by a single thread, in the order of the source.
+ */
+public interface MeasureSink
+{
+    /**
+     * Called at the start of a weather station, before its measures
+     *
+     * @param name             name of the station
+     * @param declaredMeasures number of measures declared for the station, there may be less at the end of the source
+     */
+    void onStationStart(String name, int declaredMeasures);
+
+    /**
+     * Called for each valid measure of the current station
+     *
+     * @param type       type of the measure
+     * @param value      value of the measure, NaN if the type has no value field
+     * @param dateMillis date of the measure as milliseconds since the epoch, Measure.NO_DATE if it has no date
+     * @param unit       unit of the measure, null if the type has no unit field
+     */
+    void onMeasure(MeasureType type, double value, long dateMillis, String unit);
+
+    /**
+     * Called for each measure of the current station which could not be parsed
+     *
+     * @param reason        reason of the failure
+     * @param failedMeasure details of the failure, null if the importer does not record it (only counting it)
+     */
+    void onFailedMeasure(FailureReason reason, FailedMeasure failedMeasure);
+
+    /**
+     * Called at the end of the current weather station, after its measures
+     */
+    void onStationEnd();
+}
@@ -0,0 +1,62 @@
+package com.gloogie.mshpoa.importer;
+
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureType;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sink which only gives to another sink the stations with some names, and their measures
+ */
+public class StationFilterSink implements MeasureSink
+{
+    private final Set<String> stationNames;
+    private final MeasureSink sink;
+    private boolean accepted;
+
+    /**
+     * Constructor for StationFilterSink
+     *
+     * @param stationNames names of the stations to give to the sink
+     * @param sink         sink receiving the stations
+     */
+    public StationFilterSink(final Collection<String> stationNames, final MeasureSink sink) {
+        Validate.notNull(stationNames, "Station names cannot be null");
+        Validate.notNull(sink, "Sink cannot be null");
+        this.stationNames = new HashSet<>(stationNames);
+        this.sink = sink;
+    }
+
+    @Override
+    public void onStationStart(final String name, final int declaredMeasures) {
+        accepted = stationNames.contains(name);
+        if (accepted) {
+            sink.onStationStart(name, declaredMeasures);
+        }
+    }
+
+    @Override
+    public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        if (accepted) {
+            sink.onMeasure(type, value, dateMillis, unit);
+        }
+    }
+
+    @Override
+    public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+        if (accepted) {
+            sink.onFailedMeasure(reason, failedMeasure);
+        }
+    }
+
+    @Override
+    public void onStationEnd() {
+        if (accepted) {
+            sink.onStationEnd();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.gloogie.mshpoa.importer;
+
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureColumns;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.WeatherStation;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sink which builds the weather stations of a source and gives each of them to a consumer when it is complete. The
+ * measures are stored in columns, without any Measure object.
+ */
+public class WeatherStationCollector implements MeasureSink
+{
+    private final Consumer<WeatherStation> consumer;
+    private WeatherStation station;
+    private MeasureColumns measures;
+    private List<FailedMeasure> failedMeasures;
+    private long numberOfFailedMeasures;
+
+    /**
+     * Constructor for WeatherStationCollector
+     *
+     * @param consumer consumer called for each complete weather station
+     */
+    public WeatherStationCollector(final Consumer<WeatherStation> consumer) {
+        Validate.notNull(consumer, "Consumer cannot be null");
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void onStationStart(final String name, final int declaredMeasures) {
+        station = new WeatherStation();
+        station.setName(name);
+        measures = new MeasureColumns(Math.max(0, Math.min(declaredMeasures, 1024)));
+        failedMeasures = new ArrayList<>();
+        numberOfFailedMeasures = 0;
+    }
+
+    @Override
+    public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        measures.add(type, value, dateMillis, unit);
+    }
+
+    @Override
+    public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+        numberOfFailedMeasures++;
+        if (failedMeasure != null) {
+            failedMeasures.add(failedMeasure);
+        }
+    }
+
+    @Override
+    public void onStationEnd() {
+        measures.trimToSize();
+        station.setMeasureColumns(measures);
+        station.setFailedMeasures(failedMeasures);
+        station.setNumberOfFailedMeasures(numberOfFailedMeasures);
+        consumer.accept(station);
+        station = null;
+        measures = null;
+        failedMeasures = null;
+    }
+}
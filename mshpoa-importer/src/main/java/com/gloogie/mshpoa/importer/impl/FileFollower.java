@@ -0,0 +1,297 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Incremental import of a file which grows: each poll only parses the lines appended since the previous poll.
+ * <p>
+ * The follower remembers the offset and number of the first line not parsed yet, and the station whose measures
+ * lines are still expected, so a station may be appended in several parts. A line is only parsed once its line
+ * terminator is written, the bytes after the last terminator are parsed by a next poll. If the file becomes smaller
+ * than the offset, it is considered truncated and is parsed again from its start, in a new sink given by the supplier
+ * of sinks: the poll then returns TRUNCATED, so that the caller can drop what it built from the old content. A file
+ * replaced by another one, detected by the file key of its attributes when the file system has one, is handled as a
+ * truncation.
+ * <p>
+ * A file which is missing, like during a log rotation which moves the file before creating a new one, is closed and
+ * polled without new lines until it exists again: the file which then exists is a new file, so it is handled as a
+ * truncation even if its file key cannot be compared.
+ * <p>
+ * The file is kept open between two polls, and a poll only reads the bytes appended since the previous one: the last
+ * line terminator is searched backwards from the end of the file, and the lines before it are read in a buffer of
+ * bounded size. The file is closed by finish.
+ * <p>
+ * A follower is not thread-safe.
+ */
+public class FileFollower
+{
+    private static final int TAIL_BLOCK_SIZE = 8192;
+
+    private final FileImporter importer;
+    private final File file;
+    private final Supplier<? extends MeasureSink> sinks;
+    private final byte[] tail = new byte[TAIL_BLOCK_SIZE];
+    private FileImporter.StationParser parser;
+    private FileChannel channel;
+    private Object fileKey;
+    private long offset;
+    private long lineNumber;
+    private boolean skipLineFeed;
+    private boolean missing;
+
+    /**
+     * Constructor for FileFollower, starting at the start of the file. The same sink receives the stations of the
+     * file parsed again after a truncation.
+     *
+     * @param importer importer which gives the format of the file
+     * @param file     file to follow
+     * @param sink     sink receiving the stations and their measures as they are appended
+     */
+    public FileFollower(final FileImporter importer, final File file, final MeasureSink sink) {
+        this(importer, file, () -> sink);
+    }
+
+    /**
+     * Constructor for FileFollower, starting at the start of the file
+     *
+     * @param importer importer which gives the format of the file
+     * @param file     file to follow
+     * @param sinks    supplier of the sink receiving the stations and their measures as they are appended, called
+     *                 at the start and each time the file is truncated
+     */
+    public FileFollower(final FileImporter importer, final File file, final Supplier<? extends MeasureSink> sinks) {
+        Validate.notNull(importer, "Importer cannot be null");
+        Validate.notNull(file, "File cannot be null");
+        Validate.notNull(sinks, "Sinks cannot be null");
+        this.importer = importer;
+        this.file = file;
+        this.sinks = sinks;
+        this.parser = newParser();
+    }
+
+    /**
+     * @return the followed file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the offset of the first byte not parsed yet
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the number of lines parsed
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Parse the complete lines appended to the file since the previous poll
+     *
+     * @return the result of the poll, NO_NEW_LINES while the file is missing
+     * @throws ImporterException if the file cannot be read or a station line is not valid
+     */
+    public PollResult poll() throws ImporterException {
+        final Path path = Paths.get(file.getPath());
+
+        try {
+            final BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (final NoSuchFileException e) {
+                // The old file may be deleted after a rotation, it is not kept open
+                missing = true;
+                closeChannel();
+                return PollResult.NO_NEW_LINES;
+            }
+            final boolean truncated = attributes.size() < offset || missing && offset > 0
+                                      || channel != null && !Objects.equals(fileKey, attributes.fileKey());
+            missing = false;
+            if (truncated) {
+                // The file was truncated or replaced: the current station is lost, parse the file again
+                parser.finish();
+                parser = newParser();
+                offset = 0;
+                lineNumber = 0;
+                skipLineFeed = false;
+                closeChannel();
+            }
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                fileKey = attributes.fileKey();
+            }
+
+            final long size = channel.size();
+            long start = offset;
+
+            // The \n of a \r\n terminator may have been appended after the \r
+            if (skipLineFeed && start < size) {
+                if (readByte(start) == '\n') {
+                    start++;
+                }
+                skipLineFeed = false;
+            }
+
+            final long end = lastLineEnd(start, size);
+            if (end <= start) {
+                offset = start;
+                return truncated ? PollResult.TRUNCATED : PollResult.NO_NEW_LINES;
+            }
+
+            final LineSource source = new StreamLineSource(new RangeInputStream(channel, start, end), start,
+                                                           lineNumber);
+            parser.parse(source);
+            lineNumber = source.getLineNumber();
+            offset = end;
+            skipLineFeed = readByte(end - 1) == '\r';
+            return truncated ? PollResult.TRUNCATED : PollResult.NEW_LINES;
+
+        } catch (final IOException e) {
+            final String message = String.format("An error occurred while reading the file [%s]", file.getPath());
+            throw new ImporterException(message, e);
+        }
+    }
+
+    /**
+     * End the station which is still expecting measures lines and close the file, when the file is not followed
+     * anymore
+     */
+    public void finish() {
+        parser.finish();
+        try {
+            closeChannel();
+        } catch (final IOException e) {
+            // The file was only read, nothing is lost
+        }
+    }
+
+    private FileImporter.StationParser newParser() {
+        return importer.new StationParser(Validate.notNull(sinks.get(), "Sink cannot be null"));
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            final FileChannel closed = channel;
+            channel = null;
+            fileKey = null;
+            closed.close();
+        }
+    }
+
+    private byte readByte(final long position) throws IOException {
+        read(position, 1);
+        return tail[0];
+    }
+
+    /**
+     * Read the specified number of bytes of the file at the start of the tail buffer
+     */
+    private void read(final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(tail, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("The file was truncated while it was read");
+            }
+        }
+    }
+
+    /**
+     * Find the position after the last line terminator of the range, reading the file backwards by blocks
+     *
+     * @param start position of the start of the range
+     * @param end   position after the end of the range
+     * @return the position after the last line terminator, or the start if the range has no terminator
+     * @throws IOException if the file cannot be read
+     */
+    private long lastLineEnd(final long start, final long end) throws IOException {
+        long blockEnd = end;
+        while (blockEnd > start) {
+            final long blockStart = Math.max(start, blockEnd - TAIL_BLOCK_SIZE);
+            final int length = (int) (blockEnd - blockStart);
+            read(blockStart, length);
+            for (int i = length - 1; i >= 0; i--) {
+                final byte b = tail[i];
+                if (b == '\n' || b == '\r') {
+                    return blockStart + i + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return start;
+    }
+
+    /**
+     * Stream of a range of a file, read with absolute positions so that the position of the channel is not used
+     */
+    private static final class RangeInputStream extends InputStream
+    {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private RangeInputStream(final FileChannel channel, final long start, final long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (read < 0) {
+                throw new IOException("The file was truncated while it was read");
+            }
+            position += read;
+            return read;
+        }
+    }
+
+    /**
+     * Result of a poll
+     */
+    public enum PollResult
+    {
+        /**
+         * No complete line was appended since the previous poll
+         */
+        NO_NEW_LINES,
+        /**
+         * The lines appended since the previous poll were parsed
+         */
+        NEW_LINES,
+        /**
+         * The file was truncated or replaced: it was parsed again from its start, in a new sink
+         */
+        TRUNCATED
+    }
+}
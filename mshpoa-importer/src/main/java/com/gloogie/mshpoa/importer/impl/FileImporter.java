@@ -1,21 +1,28 @@
 package com.gloogie.mshpoa.importer.impl;
 
+import com.gloogie.mshpoa.importer.Checkpoint;
+import com.gloogie.mshpoa.importer.CheckpointListener;
 import com.gloogie.mshpoa.importer.Importer;
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.importer.WeatherStationCollector;
 import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.importer.parser.DateParser;
+import com.gloogie.mshpoa.importer.parser.FieldTokenizer;
+import com.gloogie.mshpoa.importer.parser.NumberParser;
 import com.gloogie.mshpoa.model.*;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
 
 /**
  * Implementation class of Importer for files
@@ -24,13 +31,13 @@ public class FileImporter extends Importer<File>
 {
     public static final int NUMBER_FIELDS_OF_LINE_FOR_WEATHER_STATION = 2;
 
-    private final String datePattern;
-    private final DateFormat dateFormat;
+    private final DateParser dateParser;
 
-    private final Map<String, MeasureType> measureTypesPerCode;
     private final String prefixComment;
     private final String fieldsSeparator;
     private final Map<String, List<MeasureField>> fieldsPerType;
+    private final ParsePlanTable parsePlans;
+    private long maxRecordedFailures = -1;
 
     /**
      * Constructor for FileImporter
@@ -51,168 +58,530 @@ public class FileImporter extends Importer<File>
         Validate.notNull(fieldsPerType, "Fields per type cannot be null");
 
         setMeasureTypes(measureTypes);
-        this.measureTypesPerCode = new LinkedHashMap<>();
+        final Map<String, MeasureType> measureTypesPerCode = new LinkedHashMap<>();
 
         // Check that fieldsPerType contains all provided measure types and build the map of measure types indexed by code
         for (final MeasureType type : measureTypes) {
             if (!fieldsPerType.containsKey(type.getCode())) {
                 throw new IllegalArgumentException("fieldsPerType does not contain the key [" + type.getCode() + "]");
             }
-            this.measureTypesPerCode.put(type.getCode(), type);
+            measureTypesPerCode.put(type.getCode(), type);
         }
 
         this.prefixComment = prefixComment;
-        this.datePattern = datePattern;
-        this.dateFormat = new SimpleDateFormat(datePattern);
+        this.dateParser = new DateParser(datePattern);
         this.fieldsSeparator = fieldsSeparator;
         this.fieldsPerType = fieldsPerType;
+        // The configuration is compiled once, the measures lines are then parsed with the plan of their type
+        this.parsePlans = new ParsePlanTable(measureTypesPerCode.values(), fieldsPerType, dateParser);
+    }
+
+    /**
+     * @return the maximum number of failed measures recorded per file, -1 if there is no limit
+     */
+    public long getMaxRecordedFailures() {
+        return maxRecordedFailures;
+    }
+
+    /**
+     * Set the maximum number of failed measures recorded per file. The failed measures over this limit are only
+     * counted in their station, so the memory used by files with many bad lines stays bounded.
+     *
+     * @param maxRecordedFailures the maximum number of recorded failed measures, 0 to only count them, -1 for no limit
+     */
+    public void setMaxRecordedFailures(final long maxRecordedFailures) {
+        Validate.isTrue(maxRecordedFailures >= -1, "Maximum number of recorded failures cannot be less than -1");
+        this.maxRecordedFailures = maxRecordedFailures;
+    }
+
+    /**
+     * @return the prefix of the lines which are ignored in the file
+     */
+    public String getPrefixComment() {
+        return prefixComment;
+    }
+
+    /**
+     * @return the pattern of the dates in the measures lines
+     */
+    public String getDatePattern() {
+        return dateParser.getPattern();
+    }
+
+    /**
+     * @return the separator of the fields in the lines
+     */
+    public String getFieldsSeparator() {
+        return fieldsSeparator;
+    }
+
+    /**
+     * @return the fields of the measures lines per measure type code, after the code
+     */
+    public Map<String, List<MeasureField>> getFieldsPerType() {
+        return Collections.unmodifiableMap(fieldsPerType);
+    }
+
+    /**
+     * Parse the specified file in a single pass and give each weather station to the consumer as soon as all its
+     * measures are parsed. Only the station being parsed is kept in memory, whatever the size of the file.
+     *
+     * @param file     file which contains the measures
+     * @param consumer consumer called for each parsed weather station, in the order of the file
+     * @throws ImporterException if an error occurred
+     */
+    public void consume(final File file, final Consumer<WeatherStation> consumer) throws ImporterException {
+        Validate.notNull(consumer, "Consumer cannot be null");
+        consume(file, new WeatherStationCollector(consumer));
     }
 
     @Override
-    public List<WeatherStation> consume(final File file) throws ImporterException {
+    public void consume(final File file, final MeasureSink sink) throws ImporterException {
 
-        if (file == null) {
-            throw new ImporterException("File cannot be null");
-        }
+        checkFile(file);
+        Validate.notNull(sink, "Sink cannot be null");
 
-        if (!file.exists()) {
-            throw new ImporterException(String.format("File [%s] is not found", file.getPath()));
+        try (InputStream inputStream = Files.newInputStream(Paths.get(file.getPath()))) {
+            parseWeatherStations(new StreamLineSource(inputStream), sink);
+        } catch (final IOException e) {
+            final String message = String.format("An error occurred while reading the file [%s]", file.getPath());
+            throw new ImporterException(message, e);
         }
+    }
 
-        final List<WeatherStation> stations = new ArrayList<>();
-        final List<String> lines;
-        try (Stream<String> stream = Files.lines(Paths.get(file.getPath()))) {
+    /**
+     * Parse the specified file from a checkpoint, calling the listener at the start of a station each time the
+     * specified number of bytes is parsed. An import which is stopped can then be resumed from the last checkpoint,
+     * with the sink in the state it had at this checkpoint.
+     *
+     * @param file     file which contains the measures
+     * @param sink     sink receiving the stations and their measures, in the order of the file
+     * @param start    checkpoint from which the file is parsed, Checkpoint.START to parse the whole file
+     * @param interval minimum number of bytes between two checkpoints
+     * @param listener listener called at each checkpoint
+     * @throws ImporterException if an error occurred
+     */
+    public void consume(final File file, final MeasureSink sink, final Checkpoint start, final long interval,
+                        final CheckpointListener listener) throws ImporterException {
 
-            lines = stream.filter(line -> StringUtils.isNotBlank(line) && !line.startsWith(prefixComment))
-                          .collect(Collectors.toList());
+        checkFile(file);
+        Validate.notNull(sink, "Sink cannot be null");
+        Validate.notNull(start, "Checkpoint cannot be null");
+        Validate.isTrue(interval > 0, "Checkpoint interval must be positive");
+        Validate.notNull(listener, "Checkpoint listener cannot be null");
 
+        try (FileChannel channel = FileChannel.open(Paths.get(file.getPath()), StandardOpenOption.READ)) {
+            if (start.getOffset() > channel.size()) {
+                throw new ImporterException(String.format("Checkpoint offset %d is after the end of the file [%s]",
+                                                          start.getOffset(), file.getPath()));
+            }
+            channel.position(start.getOffset());
+            final StationParser parser = new StationParser(sink);
+            parser.setCheckpoints(start, interval, listener);
+            parser.parse(new StreamLineSource(Channels.newInputStream(channel), start.getOffset(),
+                                              start.getLineNumber()));
+            parser.finish();
         } catch (final IOException e) {
             final String message = String.format("An error occurred while reading the file [%s]", file.getPath());
             throw new ImporterException(message, e);
         }
-        for (int i = 0; i < lines.size(); i++) {
-            final WeatherStation station = parseWeatherStation(lines, i);
-            stations.add(station);
-            // Skip all lines of measures of the current station to parse the next station
-            i += station.getMeasures().size() + station.getFailedMeasures().size();
+    }
+
+    /**
+     * Parse the specified file and build the index of its stations
+     *
+     * @param file file which contains the measures
+     * @param sink sink receiving the stations and their measures, in the order of the file
+     * @return the index of the stations of the file, to write next to it
+     * @throws ImporterException if an error occurred
+     */
+    public StationIndex index(final File file, final MeasureSink sink) throws ImporterException {
+
+        checkFile(file);
+        Validate.notNull(sink, "Sink cannot be null");
+
+        // The size and modification time are taken before the parse, a change during the parse invalidates the index
+        final StationIndex index = new StationIndex(file);
+        try (InputStream inputStream = Files.newInputStream(Paths.get(file.getPath()))) {
+            final StationParser parser = new StationParser(sink);
+            parser.setIndex(index);
+            parser.parse(new StreamLineSource(inputStream));
+            parser.finish();
+        } catch (final IOException e) {
+            final String message = String.format("An error occurred while reading the file [%s]", file.getPath());
+            throw new ImporterException(message, e);
         }
-        return stations;
+        return index;
     }
 
-    private WeatherStation parseWeatherStation(final List<String> lines, final int index) throws ImporterException {
-        final WeatherStation station = new WeatherStation();
-        final String[] fields = lines.get(index).split(fieldsSeparator);
-        if (fields.length != NUMBER_FIELDS_OF_LINE_FOR_WEATHER_STATION) {
-            final String message = String.format(
-                "The line [%s] is not a valid line for the station. Expected number of fields was %d, actual number is %d",
-                lines.get(index), NUMBER_FIELDS_OF_LINE_FOR_WEATHER_STATION, fields.length);
-            throw new ImporterException(message);
+    /**
+     * Parse only some stations of the specified file, reading their lines directly at the positions given by the
+     * index of the file
+     *
+     * @param file         file which contains the measures
+     * @param index        index of the stations of the file
+     * @param stationNames names of the stations to parse
+     * @param sink         sink receiving the stations and their measures, in the order of the file
+     * @throws ImporterException if the index does not match the file or an error occurred
+     */
+    public void consumeStations(final File file, final StationIndex index, final Collection<String> stationNames,
+                                final MeasureSink sink) throws ImporterException {
+
+        checkFile(file);
+        Validate.notNull(index, "Index cannot be null");
+        Validate.notNull(stationNames, "Station names cannot be null");
+        Validate.notNull(sink, "Sink cannot be null");
+
+        if (!index.matches(file)) {
+            throw new ImporterException(
+                String.format("The index of the file [%s] does not match its size or modification time",
+                              file.getPath()));
         }
-        station.setName(fields[0]);
-        final int nbMeasures;
+
         try {
-            nbMeasures = parseNumberOfMeasures(fields[1], station.getName());
-        } catch (final NumberFormatException e) {
-            final String message = String.format("Number of measures [%s] is not valid for station [%s]", fields[1],
-                                                 fields[0]);
+            final MappedFile mappedFile = MappedFile.map(Paths.get(file.getPath()));
+            final StationParser parser = new StationParser(sink);
+            for (final int station : index.find(stationNames)) {
+                final LineSource source = mappedFile.lines(index.getOffset(station), mappedFile.size(),
+                                                           index.getLineNumber(station) - 1);
+                parser.parseStation(source);
+                parser.finish();
+            }
+        } catch (final IOException e) {
+            final String message = String.format("An error occurred while reading the file [%s]", file.getPath());
             throw new ImporterException(message, e);
         }
-        final int start = index + 1;
-        final int end = Math.min(lines.size(), index + nbMeasures + 1);
-        final List<String> measuresLines = lines.subList(start, end);
-        parseAndAddMeasuresOfStation(station, measuresLines);
-        return station;
     }
 
-    private void parseAndAddMeasuresOfStation(final WeatherStation station, final List<String> lines)
-        throws ImporterException {
-        final List<Measure> measures = new ArrayList<>();
-        final List<FailedMeasure> failedMeasures = new ArrayList<>();
-        for (final String line : lines) {
-            try {
-                measures.add(parseMeasure(line));
-            } catch (final ImporterException e) {
-                final FailedMeasure failedMeasure = new FailedMeasure();
-                failedMeasure.setException(e);
-                failedMeasure.setValue(line);
-                failedMeasures.add(failedMeasure);
-            }
+    /**
+     * Check that the specified file can be consumed
+     *
+     * @param file file to check
+     * @throws ImporterException if the file is null or does not exist
+     */
+    protected void checkFile(final File file) throws ImporterException {
+
+        if (file == null) {
+            throw new ImporterException("File cannot be null");
         }
-        station.setMeasures(measures);
-        station.setFailedMeasures(failedMeasures);
+
+        if (!file.exists()) {
+            throw new ImporterException(String.format("File [%s] is not found", file.getPath()));
+        }
+    }
+
+    /**
+     * Parse all the weather stations of the specified source of lines
+     *
+     * @param source source of the lines to parse
+     * @param sink   sink receiving the stations and their measures, in the order of the source
+     * @throws ImporterException if a station line is not valid
+     * @throws IOException       if the source cannot be read
+     */
+    void parseWeatherStations(final LineSource source, final MeasureSink sink) throws ImporterException, IOException {
+        parseWeatherStations(source, sink, new SymbolTable());
+    }
+
+    /**
+     * Parse all the weather stations of the specified source of lines, with a table of symbols shared with the
+     * parses of the other parts of the same file
+     *
+     * @param source  source of the lines to parse
+     * @param sink    sink receiving the stations and their measures, in the order of the source
+     * @param symbols table of the station names and units of the file
+     * @throws ImporterException if a station line is not valid
+     * @throws IOException       if the source cannot be read
+     */
+    void parseWeatherStations(final LineSource source, final MeasureSink sink, final SymbolTable symbols)
+        throws ImporterException, IOException {
+        final StationParser parser = new StationParser(sink, symbols);
+        parser.parse(source);
+        parser.finish();
+    }
+
+    /**
+     * @return a new tokenizer for the lines of the file, to use in a single thread
+     */
+    FieldTokenizer newTokenizer() {
+        return new FieldTokenizer(fieldsSeparator);
+    }
+
+    /**
+     * Read the next line to parse, skipping blank lines and comments
+     *
+     * @param source source of the lines
+     * @return the next line to parse or null if the end of the source is reached
+     * @throws IOException if the source cannot be read
+     */
+    private CharSequence readLine(final LineSource source) throws IOException {
+        CharSequence line;
+        do {
+            line = source.nextLine();
+        } while (line != null && (StringUtils.isBlank(line) || StringUtils.startsWith(line, prefixComment)));
+        return line;
     }
 
-    private Measure parseMeasure(final String line) throws ImporterException {
-        final String[] fieldsValues = line.split(fieldsSeparator);
+    /**
+     * Parser of the lines of a source which keeps its state between two calls, so that a source can be parsed in
+     * several parts, a station possibly starting in one part and ending in another one. A parser is used by a single
+     * thread.
+     * <p>
+     * The station names and units are read through a table of symbols which lives as long as the parser, or as the
+     * parsers of the parts of a file when they share it, so the distinct values of a file are not kept after its
+     * parse.
+     */
+    final class StationParser
+    {
+        private final ParseContext context;
+        private final MeasureSink sink;
+        private String station;
+        private int remainingMeasures;
+        private CheckpointListener checkpointListener;
+        private long checkpointInterval;
+        private long lastCheckpoint;
+        private StationIndex index;
 
-        final String typeField = fieldsValues[0].trim();
-        final MeasureType type = measureTypesPerCode.get(typeField);
+        /**
+         * Constructor for StationParser
+         *
+         * @param sink sink receiving the stations and their measures
+         */
+        StationParser(final MeasureSink sink) {
+            this(sink, new SymbolTable());
+        }
 
-        if (type == null) {
-            throw new ImporterException(String.format("Unsupported measure type: %s", typeField));
+        /**
+         * Constructor for StationParser
+         *
+         * @param sink    sink receiving the stations and their measures
+         * @param symbols table of the station names and units, which may be shared with the parsers of other threads
+         */
+        StationParser(final MeasureSink sink, final SymbolTable symbols) {
+            this.sink = sink;
+            this.context = new ParseContext(fieldsSeparator, symbols);
         }
 
-        final List<MeasureField> fields = fieldsPerType.get(type.getCode());
+        /**
+         * Resume the parse from a checkpoint and call the listener at the start of a station each time the specified
+         * number of bytes is parsed
+         *
+         * @param start    checkpoint from which the parse is resumed
+         * @param interval minimum number of bytes between two checkpoints
+         * @param listener listener called at each checkpoint
+         */
+        void setCheckpoints(final Checkpoint start, final long interval, final CheckpointListener listener) {
+            context.setRecordedFailures(start.getRecordedFailures());
+            this.lastCheckpoint = start.getOffset();
+            this.checkpointInterval = interval;
+            this.checkpointListener = listener;
+        }
 
-        final Measure measure = new Measure();
-        if (fieldsValues.length != fields.size() + 1) {
-            final String message = String.format(
-                "The line [%s] is not a valid line for the measure of type %s. Expected number of fields was %d, actual number is %d",
-                line, type.getName(), fields.size() + 1, fieldsValues.length);
-            throw new ImporterException(message);
+        /**
+         * Add the station lines to an index while they are parsed
+         *
+         * @param index index of the source
+         */
+        void setIndex(final StationIndex index) {
+            this.index = index;
         }
-        measure.setType(type);
 
-        // Fill each configured field on the measure
-        int i = 1;
-        for (final MeasureField field : fields) {
-            switch (field) {
-                case VALUE: {
-                    measure.setValue(parseValue(fieldsValues[i], line));
-                    break;
-                }
-                case UNIT: {
-                    measure.setUnit(fieldsValues[i]);
-                    break;
-                }
-                case DATE: {
-                    measure.setDate(parseDate(fieldsValues[i], line));
-                    break;
+        /**
+         * Parse all the lines of the specified source, continuing the station of the previous source if it is not
+         * complete
+         *
+         * @param source source of the lines to parse
+         * @throws ImporterException if a station line is not valid
+         * @throws IOException       if the source cannot be read
+         */
+        void parse(final LineSource source) throws ImporterException, IOException {
+            CharSequence line;
+            while ((line = readLine(source)) != null) {
+                if (station == null) {
+                    if (checkpointListener != null && source.getOffset() - lastCheckpoint >= checkpointInterval) {
+                        // All the stations before this station line are complete
+                        lastCheckpoint = source.getOffset();
+                        checkpointListener.onCheckpoint(new Checkpoint(source.getOffset(), source.getLineNumber() - 1,
+                                                                       context.getRecordedFailures()));
+                    }
+                    startStation(source, line);
+                } else {
+                    parseMeasureLine(source, line);
                 }
             }
-            i++;
         }
 
-        return measure;
-    }
+        /**
+         * Parse the station starting at the next line of the specified source, the source has to start at a station
+         * line
+         *
+         * @param source source of the lines to parse
+         * @throws ImporterException if the station line is not valid
+         * @throws IOException       if the source cannot be read
+         */
+        void parseStation(final LineSource source) throws ImporterException, IOException {
+            CharSequence line = readLine(source);
+            if (line == null) {
+                return;
+            }
+            startStation(source, line);
+            while (station != null && (line = readLine(source)) != null) {
+                parseMeasureLine(source, line);
+            }
+        }
 
-    private int parseNumberOfMeasures(final String field, final String stationName) throws ImporterException {
-        try {
-            return Integer.parseInt(field.trim());
-        } catch (final NumberFormatException e) {
-            final String message = String.format("Number of measures [%s] is not valid for station [%s]", field,
-                                                 stationName);
-            throw new ImporterException(message, e);
+        /**
+         * End the current station, the last station of a file may have less lines than expected
+         */
+        void finish() {
+            if (station != null) {
+                endStation();
+            }
+        }
+
+        /**
+         * @return the name of the station whose measures lines are expected, null if a station line is expected
+         */
+        String getStation() {
+            return station;
+        }
+
+        /**
+         * @return the number of measures lines expected for the current station
+         */
+        int getRemainingMeasures() {
+            return remainingMeasures;
+        }
+
+        private void startStation(final LineSource source, final CharSequence line) throws ImporterException {
+            final FieldTokenizer tokenizer = context.getTokenizer();
+            tokenizeWeatherStationLine(tokenizer, line);
+            final int nbMeasures = parseNumberOfMeasures(tokenizer);
+            final String name = context.getSymbol(0);
+            if (index != null) {
+                index.add(name, source.getOffset(), source.getLineNumber(), nbMeasures);
+            }
+            sink.onStationStart(name, nbMeasures);
+            station = name;
+            remainingMeasures = nbMeasures;
+            if (remainingMeasures <= 0) {
+                endStation();
+            }
+        }
+
+        private void parseMeasureLine(final LineSource source, final CharSequence line) {
+            final FailureReason reason = parseMeasure(context, line);
+            if (reason == null) {
+                sink.onMeasure(context.getType(), context.getValue(), context.getDateMillis(), context.getUnit());
+            } else if (maxRecordedFailures < 0 || context.getRecordedFailures() < maxRecordedFailures) {
+                context.incrementRecordedFailures();
+                sink.onFailedMeasure(reason, buildFailedMeasure(context, reason, source));
+            } else {
+                sink.onFailedMeasure(reason, null);
+            }
+            if (--remainingMeasures == 0) {
+                endStation();
+            }
+        }
+
+        private void endStation() {
+            sink.onStationEnd();
+            station = null;
+            remainingMeasures = 0;
         }
     }
 
-    private double parseValue(final String field, final String line) throws ImporterException {
-        try {
-            return Double.parseDouble(field.trim());
-        } catch (final NumberFormatException e) {
+    /**
+     * Split a station line in its fields (name and number of measures)
+     *
+     * @param tokenizer tokenizer used to split the line
+     * @param line      station line
+     * @throws ImporterException if the line does not have the expected number of fields
+     */
+    void tokenizeWeatherStationLine(final FieldTokenizer tokenizer, final CharSequence line)
+        throws ImporterException {
+        final int nbFields = tokenizer.reset(line);
+        if (nbFields != NUMBER_FIELDS_OF_LINE_FOR_WEATHER_STATION) {
             final String message = String.format(
-                "Value of measure [%s] in the line [%s] is not a valid double", field, line);
-            throw new ImporterException(message, e);
+                "The line [%s] is not a valid line for the station. Expected number of fields was %d, actual number is %d",
+                line, NUMBER_FIELDS_OF_LINE_FOR_WEATHER_STATION, nbFields);
+            throw new ImporterException(message);
         }
     }
 
-    private Date parseDate(final String field, final String line) throws ImporterException {
+    /**
+     * Parse a measure line into the fields of the context, with the parse plan of its type. The failures are returned
+     * as a reason instead of an exception, as they can be frequent.
+     *
+     * @param context context of the parse, holding the fields of the measure if it is parsed
+     * @param line    measure line
+     * @return null if the line was parsed, the reason of the failure otherwise
+     */
+    private FailureReason parseMeasure(final ParseContext context, final CharSequence line) {
+        final FieldTokenizer tokenizer = context.getTokenizer();
+        final int nbFields = tokenizer.reset(line);
+        context.clearMeasure();
+
+        final ParsePlan plan = nbFields > 0 ? parsePlans.find(tokenizer) : null;
+        if (plan == null) {
+            return FailureReason.UNSUPPORTED_TYPE;
+        }
+        return plan.parse(context, line);
+    }
+
+    /**
+     * Build the failed measure of the line which could not be parsed, still held by the tokenizer of the context
+     *
+     * @param context context of the parse
+     * @param reason  reason of the failure
+     * @param source  source of the line
+     * @return the failed measure
+     */
+    private FailedMeasure buildFailedMeasure(final ParseContext context, final FailureReason reason,
+                                             final LineSource source) {
+        final FieldTokenizer tokenizer = context.getTokenizer();
+        final String line = tokenizer.getLine().toString();
+        final FailedMeasure failedMeasure = new FailedMeasure();
+        failedMeasure.setReason(reason);
+        failedMeasure.setValue(line);
+        failedMeasure.setLineNumber(source.getLineNumber());
+        failedMeasure.setOffset(source.getOffset());
+        switch (reason) {
+            case UNSUPPORTED_TYPE: {
+                failedMeasure.setArguments(tokenizer.getFieldCount() > 0 ? tokenizer.getTrimmedField(0) : "");
+                break;
+            }
+            case WRONG_NUMBER_OF_FIELDS: {
+                final ParsePlan plan = parsePlans.find(tokenizer);
+                failedMeasure.setArguments(line, plan.getType().getName(), plan.getFieldCount(),
+                                           tokenizer.getFieldCount());
+                break;
+            }
+            case INVALID_VALUE: {
+                failedMeasure.setArguments(tokenizer.getField(context.getFailedField()), line);
+                break;
+            }
+            case INVALID_DATE: {
+                failedMeasure.setArguments(tokenizer.getField(context.getFailedField()), line,
+                                           dateParser.getPattern());
+                break;
+            }
+        }
+        return failedMeasure;
+    }
+
+    /**
+     * Parse the number of measures of a station line split by the tokenizer
+     *
+     * @param tokenizer tokenizer holding the station line
+     * @return the number of measures lines of the station
+     * @throws ImporterException if the number is not valid
+     */
+    int parseNumberOfMeasures(final FieldTokenizer tokenizer) throws ImporterException {
         try {
-            return dateFormat.parse(field.trim());
-        } catch (final ParseException e) {
-            final String message = String.format(
-                "Date of measure [%s] in the line [%s] is not a valid date (Expected format is %s)", field,
-                line, datePattern);
+            return NumberParser.parseInt(tokenizer.getLine(), tokenizer.getStart(1), tokenizer.getEnd(1));
+        } catch (final NumberFormatException e) {
+            final String message = String.format("Number of measures [%s] is not valid for station [%s]",
+                                                 tokenizer.getField(1), tokenizer.getField(0));
             throw new ImporterException(message, e);
         }
     }
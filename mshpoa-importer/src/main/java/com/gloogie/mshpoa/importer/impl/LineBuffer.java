@@ -0,0 +1,77 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable buffer of characters holding one line, so that reading a line does not allocate a new string
+ */
+final class LineBuffer implements CharSequence
+{
+    private char[] chars = new char[256];
+    private int length;
+
+    /**
+     * Fill the buffer with the specified UTF-8 bytes
+     *
+     * @param bytes  array containing the bytes
+     * @param offset position of the first byte in the array
+     * @param count  number of bytes
+     */
+    void setBytes(final byte[] bytes, final int offset, final int count) {
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            final byte b = bytes[offset + i];
+            if (b < 0) {
+                // Non ASCII character: decode the whole line
+                setString(new String(bytes, offset, count, StandardCharsets.UTF_8));
+                return;
+            }
+            chars[i] = (char) b;
+        }
+        length = count;
+    }
+
+    /**
+     * Fill the buffer with the specified string
+     *
+     * @param value the string to copy
+     */
+    void setString(final String value) {
+        ensureCapacity(value.length());
+        value.getChars(0, value.length(), chars, 0);
+        length = value.length();
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of the line of length " + length);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + "] is out of the line of length "
+                                                + length);
+        }
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (chars.length < capacity) {
+            chars = new char[Math.max(capacity, 2 * chars.length)];
+        }
+    }
+}
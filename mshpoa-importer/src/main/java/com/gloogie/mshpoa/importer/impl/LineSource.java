@@ -0,0 +1,28 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import java.io.IOException;
+
+/**
+ * Source of the lines of a file, read one at a time
+ */
+interface LineSource
+{
+    /**
+     * Read the next line of the source
+     *
+     * @return the next line without its line terminator or null if the end of the source is reached. The line may be
+     * a buffer reused by the source, so it is only valid until the next call.
+     * @throws IOException if the source cannot be read
+     */
+    CharSequence nextLine() throws IOException;
+
+    /**
+     * @return the number of the last line read, starting at 1
+     */
+    long getLineNumber();
+
+    /**
+     * @return the position in bytes of the start of the last line read
+     */
+    long getOffset();
+}
@@ -0,0 +1,359 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File mapped in memory as a sequence of regions, so that files bigger than 2 GB can be read with a long position.
+ * Reads use absolute positions only, so a mapped file can be read by several threads at the same time. The bulk copies
+ * need a view of a region with its own position: each thread copies through its own Reader, which keeps a view of
+ * each region for all its copies.
+ */
+final class MappedFile
+{
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_SIZE = 1L << REGION_SHIFT;
+    private static final long REGION_MASK = REGION_SIZE - 1;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LINE_FEEDS = '\n' * ONES;
+    private static final long CARRIAGE_RETURNS = '\r' * ONES;
+
+    private final MappedByteBuffer[] regions;
+    private final long size;
+
+    private MappedFile(final MappedByteBuffer[] regions, final long size) {
+        this.regions = regions;
+        this.size = size;
+    }
+
+    /**
+     * Map the specified file in memory in read only mode
+     *
+     * @param path path of the file
+     * @return the mapped file
+     * @throws IOException if the file cannot be mapped
+     */
+    static MappedFile map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_SHIFT)];
+            for (int i = 0; i < regions.length; i++) {
+                final long position = i * REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                         Math.min(REGION_SIZE, size - position));
+            }
+            return new MappedFile(regions, size);
+        }
+    }
+
+    /**
+     * @return the size of the file in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * @param position position in the file
+     * @return the byte at the specified position
+     */
+    byte get(final long position) {
+        return regions[(int) (position >>> REGION_SHIFT)].get((int) (position & REGION_MASK));
+    }
+
+    /**
+     * @param position position in the file
+     * @return the big-endian short at the specified position
+     */
+    short getShort(final long position) {
+        final int offset = (int) (position & REGION_MASK);
+        if (offset <= REGION_SIZE - Short.BYTES) {
+            return regions[(int) (position >>> REGION_SHIFT)].getShort(offset);
+        }
+        return (short) getBytes(position, Short.BYTES);
+    }
+
+    /**
+     * @param position position in the file
+     * @return the big-endian int at the specified position
+     */
+    int getInt(final long position) {
+        final int offset = (int) (position & REGION_MASK);
+        if (offset <= REGION_SIZE - Integer.BYTES) {
+            return regions[(int) (position >>> REGION_SHIFT)].getInt(offset);
+        }
+        return (int) getBytes(position, Integer.BYTES);
+    }
+
+    /**
+     * @param position position in the file
+     * @return the big-endian long at the specified position
+     */
+    long getLong(final long position) {
+        final int offset = (int) (position & REGION_MASK);
+        if (offset <= REGION_SIZE - Long.BYTES) {
+            return regions[(int) (position >>> REGION_SHIFT)].getLong(offset);
+        }
+        return getBytes(position, Long.BYTES);
+    }
+
+    /**
+     * @param position position in the file
+     * @return the big-endian double at the specified position
+     */
+    double getDouble(final long position) {
+        return Double.longBitsToDouble(getLong(position));
+    }
+
+    /**
+     * Find the end of the line starting at the specified position. The bytes are read eight at a time in each region,
+     * so that the long lines of a file are scanned without checking each byte.
+     *
+     * @param start position of the start of the line
+     * @param limit position after which the search stops
+     * @return the position of the line terminator or the limit if the line is not terminated
+     */
+    long lineEnd(final long start, final long limit) {
+        long position = start;
+        while (position < limit) {
+            final MappedByteBuffer region = regions[(int) (position >>> REGION_SHIFT)];
+            final long regionStart = position & ~REGION_MASK;
+            final int regionLimit = (int) Math.min(REGION_SIZE, limit - regionStart);
+            int offset = (int) (position & REGION_MASK);
+            while (offset <= regionLimit - Long.BYTES && !hasLineTerminator(region.getLong(offset))) {
+                offset += Long.BYTES;
+            }
+            for (; offset < regionLimit; offset++) {
+                final byte b = region.get(offset);
+                if (b == '\n' || b == '\r') {
+                    return regionStart + offset;
+                }
+            }
+            position = regionStart + regionLimit;
+        }
+        return limit;
+    }
+
+    /**
+     * @param position a position in the file
+     * @return the position of the start of the first line starting at or after the position
+     */
+    long lineStartAtOrAfter(final long position) {
+        if (position <= 0 || position >= size) {
+            return Math.max(0, Math.min(position, size));
+        }
+        final byte previous = get(position - 1);
+        if (previous == '\n' || previous == '\r' && get(position) != '\n') {
+            return position;
+        }
+        return nextLineStart(lineEnd(position, size), size);
+    }
+
+    /**
+     * Skip the line terminator at the specified position (\n, \r or \r\n)
+     *
+     * @param lineEnd position of the line terminator
+     * @param limit   position after which nothing is read
+     * @return the position of the start of the next line
+     */
+    long nextLineStart(final long lineEnd, final long limit) {
+        if (lineEnd >= limit) {
+            return limit;
+        }
+        if (get(lineEnd) == '\r' && lineEnd + 1 < limit && get(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    /**
+     * Check if the bytes between the specified positions start with the specified prefix
+     *
+     * @param start  position of the first byte
+     * @param end    position after the last byte
+     * @param prefix prefix to look for
+     * @return true if the range starts with the prefix
+     */
+    boolean startsWith(final long start, final long end, final byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the bytes between the specified positions are only whitespaces
+     *
+     * @param start position of the first byte
+     * @param end   position after the last byte
+     * @return true if the range is blank
+     */
+    boolean isBlank(final long start, final long end) {
+        for (long position = start; position < end; position++) {
+            final byte b = get(position);
+            if (b < 0) {
+                // Non ASCII character: decode the range to check for unicode whitespaces
+                return StringUtils.isBlank(decode(start, end, new byte[(int) (end - start)]));
+            }
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the bytes between the specified positions as an UTF-8 string, with a reader used only for this range
+     *
+     * @param start   position of the first byte
+     * @param end     position after the last byte
+     * @param scratch buffer used to copy the bytes, must be at least as long as the range
+     * @return the decoded string
+     */
+    String decode(final long start, final long end, final byte[] scratch) {
+        return newReader().decode(start, end, scratch);
+    }
+
+    /**
+     * @return a new reader of the file, to be used by a single thread
+     */
+    Reader newReader() {
+        return new Reader();
+    }
+
+    /**
+     * Build a source of the lines between the specified positions. The lines are decoded in a buffer reused for each
+     * line.
+     *
+     * @param start      position of the start of the first line
+     * @param end        position after the end of the last line
+     * @param lineNumber number of the lines before the start position
+     * @return the source of lines
+     */
+    LineSource lines(final long start, final long end, final long lineNumber) {
+        return new LineSource()
+        {
+            private final LineBuffer line = new LineBuffer();
+            private final Reader reader = newReader();
+            private long position = start;
+            private long offset = start;
+            private long currentLineNumber = lineNumber;
+            private byte[] scratch = new byte[256];
+
+            @Override
+            public CharSequence nextLine() {
+                if (position >= end) {
+                    return null;
+                }
+                final long lineEnd = lineEnd(position, end);
+                if (lineEnd - position > scratch.length) {
+                    scratch = new byte[(int) Math.max(lineEnd - position, 2L * scratch.length)];
+                }
+                line.setBytes(scratch, 0, reader.copy(position, lineEnd, scratch));
+                offset = position;
+                currentLineNumber++;
+                position = nextLineStart(lineEnd, end);
+                return line;
+            }
+
+            @Override
+            public long getLineNumber() {
+                return currentLineNumber;
+            }
+
+            @Override
+            public long getOffset() {
+                return offset;
+            }
+        };
+    }
+
+    /**
+     * Read a big-endian number whose bytes are in two regions
+     */
+    private long getBytes(final long position, final int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (get(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * @return true if one of the eight bytes of the word is a \n or a \r
+     */
+    private static boolean hasLineTerminator(final long word) {
+        final long lineFeeds = word ^ LINE_FEEDS;
+        final long carriageReturns = word ^ CARRIAGE_RETURNS;
+        // A byte is zero after the xor when it is the searched byte, (x - 1) & ~x sets the high bit of a zero byte
+        return ((((lineFeeds - ONES) & ~lineFeeds) | ((carriageReturns - ONES) & ~carriageReturns)) & HIGH_BITS) != 0;
+    }
+
+    /**
+     * Reader of the bytes of the file for a single thread, which copies them in bulk through a view of each region
+     * duplicated on its first use, instead of a view duplicated for each copy
+     */
+    final class Reader
+    {
+        private final ByteBuffer[] views = new ByteBuffer[regions.length];
+
+        private Reader() {
+        }
+
+        /**
+         * Copy the bytes between the specified positions, in bulk for each region
+         *
+         * @param start   position of the first byte
+         * @param end     position after the last byte
+         * @param scratch buffer receiving the bytes, must be at least as long as the range
+         * @return the number of bytes copied
+         */
+        int copy(final long start, final long end, final byte[] scratch) {
+            int copied = 0;
+            long position = start;
+            while (position < end) {
+                final int index = (int) (position >>> REGION_SHIFT);
+                final int offset = (int) (position & REGION_MASK);
+                final int length = (int) Math.min(end - position, REGION_SIZE - offset);
+                ByteBuffer view = views[index];
+                if (view == null) {
+                    view = regions[index].duplicate();
+                    views[index] = view;
+                }
+                // Called through Buffer, whose position(int) is the one of Java 8
+                ((Buffer) view).position(offset);
+                view.get(scratch, copied, length);
+                copied += length;
+                position += length;
+            }
+            return copied;
+        }
+
+        /**
+         * Decode the bytes between the specified positions as an UTF-8 string
+         *
+         * @param start   position of the first byte
+         * @param end     position after the last byte
+         * @param scratch buffer used to copy the bytes, must be at least as long as the range
+         * @return the decoded string
+         */
+        String decode(final long start, final long end, final byte[] scratch) {
+            final int length = copy(start, end, scratch);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
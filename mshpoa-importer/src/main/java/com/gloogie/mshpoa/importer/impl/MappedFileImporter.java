@@ -0,0 +1,422 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.importer.parser.FieldTokenizer;
+import com.gloogie.mshpoa.importer.parser.NumberParser;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.SymbolTable;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Implementation class of Importer for big files, which maps the file in memory and parses it in parallel.
+ * <p>
+ * The file is first scanned to find the start of the stations, which only parses the station lines and counts the
+ * measures lines: the segments of the file are scanned in parallel, then chained in order. The file is then split in
+ * chunks of whole stations which are parsed on a fork-join pool into recordings, which are replayed on the sink in the
+ * order of the file. Only a few chunks per thread are parsed ahead of the replay, so the memory used by the recordings
+ * does not depend on the size of the file.
+ * <p>
+ * Unlike FileImporter, an invalid station line is detected before any station is given to the sink.
+ */
+public class MappedFileImporter extends FileImporter
+{
+    public static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    public static final long MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+    public static final int CHUNKS_PER_THREAD = 4;
+    public static final int SPECULATED_MEASURES = 64;
+
+    private static final int INVALID_STATION = Integer.MIN_VALUE;
+
+    private final ForkJoinPool pool;
+    private final byte[] prefixCommentBytes;
+    private long chunkSize;
+
+    /**
+     * Constructor for MappedFileImporter using the common fork-join pool
+     *
+     * @param measureTypes    the list of possible measure types
+     * @param prefixComment   the prefix for comments (lines starting with this prefix are ignored in the file)
+     * @param datePattern     date pattern uased to parse dates in measures lines
+     * @param fieldsSeparator separator used between each fields in measures lines
+     * @param fieldsPerType   list of measure fields per measure type
+     */
+    public MappedFileImporter(final List<MeasureType> measureTypes, final String prefixComment,
+                              final String datePattern, final String fieldsSeparator,
+                              final Map<String, List<MeasureField>> fieldsPerType) {
+        this(measureTypes, prefixComment, datePattern, fieldsSeparator, fieldsPerType, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for MappedFileImporter
+     *
+     * @param measureTypes    the list of possible measure types
+     * @param prefixComment   the prefix for comments (lines starting with this prefix are ignored in the file)
+     * @param datePattern     date pattern uased to parse dates in measures lines
+     * @param fieldsSeparator separator used between each fields in measures lines
+     * @param fieldsPerType   list of measure fields per measure type
+     * @param pool            the pool on which the chunks of the file are parsed
+     */
+    public MappedFileImporter(final List<MeasureType> measureTypes, final String prefixComment,
+                              final String datePattern, final String fieldsSeparator,
+                              final Map<String, List<MeasureField>> fieldsPerType, final ForkJoinPool pool) {
+        super(measureTypes, prefixComment, datePattern, fieldsSeparator, fieldsPerType);
+        Validate.notNull(pool, "Pool cannot be null");
+        this.pool = pool;
+        this.prefixCommentBytes = prefixComment.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the minimum size in bytes of the chunks parsed in parallel, 0 if it is computed from the file size
+     */
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize the minimum size in bytes of the chunks parsed in parallel, 0 to compute it from the file size
+     */
+    public void setChunkSize(final long chunkSize) {
+        Validate.isTrue(chunkSize >= 0, "Chunk size cannot be negative");
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void consume(final File file, final MeasureSink sink) throws ImporterException {
+
+        checkFile(file);
+        Validate.notNull(sink, "Sink cannot be null");
+
+        try {
+            final MappedFile mappedFile = MappedFile.map(Paths.get(file.getPath()));
+            final List<Chunk> chunks = splitInChunks(mappedFile);
+            parseChunks(mappedFile, chunks, sink);
+
+        } catch (final IOException e) {
+            final String message = String.format("An error occurred while reading the file [%s]", file.getPath());
+            throw new ImporterException(message, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String message = String.format("The import of the file [%s] was interrupted", file.getPath());
+            throw new ImporterException(message, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof ImporterException) {
+                throw (ImporterException) e.getCause();
+            }
+            final String message = String.format("An error occurred while parsing the file [%s]", file.getPath());
+            throw new ImporterException(message, e);
+        }
+    }
+
+    /**
+     * Parse the chunks of the file in parallel and replay them on the sink in the order of the file. At most
+     * CHUNKS_PER_THREAD chunks per thread of the pool are parsed ahead of the chunk being replayed: a recording is
+     * dropped once replayed, so the heap used by the recordings is bounded by the size of this window and not by the
+     * size of the file.
+     *
+     * @param mappedFile the mapped file
+     * @param chunks     the chunks of the file
+     * @param sink       the sink receiving the content of the file
+     * @throws InterruptedException if the thread is interrupted while waiting for a chunk
+     * @throws ExecutionException   if the parse of a chunk failed
+     */
+    private void parseChunks(final MappedFile mappedFile, final List<Chunk> chunks, final MeasureSink sink)
+        throws InterruptedException, ExecutionException {
+
+        // The chunks share the symbols of the file, so equal names and units are a single String
+        final SymbolTable symbols = new SymbolTable();
+
+        // Each chunk records failed measures up to the limit: keep the first ones of the file, like FileImporter
+        final long maxRecordedFailures = getMaxRecordedFailures();
+        long recordedFailures = 0;
+        final int window = pool.getParallelism() * CHUNKS_PER_THREAD;
+        final Deque<Future<RecordingSink>> results = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (next < chunks.size() || !results.isEmpty()) {
+                while (next < chunks.size() && results.size() < window) {
+                    final Chunk chunk = chunks.get(next);
+                    final long end = next + 1 < chunks.size() ? chunks.get(next + 1).start : mappedFile.size();
+                    results.add(pool.submit(() -> {
+                        final RecordingSink recording = new RecordingSink();
+                        parseWeatherStations(mappedFile.lines(chunk.start, end, chunk.lineNumber), recording, symbols);
+                        return recording;
+                    }));
+                    next++;
+                }
+                final long maxFailures = maxRecordedFailures < 0 ? -1 : maxRecordedFailures - recordedFailures;
+                recordedFailures += results.poll().get().replay(sink, maxFailures);
+            }
+        } finally {
+            // The chunks parsed ahead are useless once the import failed
+            for (final Future<RecordingSink> result : results) {
+                result.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Split the file in chunks which only contain whole stations.
+     * <p>
+     * A line of the file cannot be recognized as a station line by itself, as a station line may also be a valid
+     * measure line: the stations are found by walking the file from its start. The walk is done in parallel on
+     * segments of the file, starting at line starts, by speculating on the number of measures lines of the last
+     * station of the previous segment which are at the start of the segment. The walks of the speculated numbers merge
+     * after a few stations, so a segment is scanned about once. The segments are then chained in order, each one
+     * giving the number of measures lines expected at the start of the next one.
+     *
+     * @param mappedFile the mapped file
+     * @return the chunks of the file
+     * @throws ImporterException    if a station line is not valid
+     * @throws InterruptedException if the thread is interrupted
+     * @throws ExecutionException   if the scan of a segment failed
+     */
+    private List<Chunk> splitInChunks(final MappedFile mappedFile)
+        throws ImporterException, InterruptedException, ExecutionException {
+        final long size = mappedFile.size();
+        final long minChunkSize = chunkSize > 0 ? chunkSize : Math.min(MAX_CHUNK_SIZE, Math.max(
+            MIN_CHUNK_SIZE, size / (pool.getParallelism() * CHUNKS_PER_THREAD)));
+        final long segmentSize = Math.min(minChunkSize, MAX_CHUNK_SIZE);
+
+        final List<Future<Segment>> segments = new ArrayList<>();
+        try {
+            long start = 0;
+            while (start < size) {
+                final long segmentStart = start;
+                final long segmentEnd = mappedFile.lineStartAtOrAfter(start + segmentSize);
+                segments.add(pool.submit(() -> scanSegment(mappedFile, segmentStart, segmentEnd, 0,
+                                                           SPECULATED_MEASURES)));
+                start = segmentEnd;
+            }
+
+            final List<Chunk> chunks = new ArrayList<>();
+            chunks.add(new Chunk(0, 0));
+            long chunkSegmentStart = 0;
+            long expectedMeasures = 0;
+            long lineNumber = 0;
+            for (final Future<Segment> future : segments) {
+                Segment segment = future.get();
+                if (expectedMeasures >= segment.parsedLines) {
+                    // The segment only contains measures lines of the current station
+                    expectedMeasures -= segment.parsedLines;
+                } else {
+                    if (!segment.isSpeculated(expectedMeasures)) {
+                        segment = scanSegment(mappedFile, segment.start, segment.end, expectedMeasures, 1);
+                    }
+                    final int index = (int) (expectedMeasures - segment.firstSpeculated);
+                    if (segment.invalidStations[index] >= 0) {
+                        throw invalidStationLine(mappedFile, segment.invalidStations[index]);
+                    }
+                    // A chunk starts in a segment once the segments of the previous chunk reach the chunk size
+                    if (segment.start - chunkSegmentStart >= minChunkSize) {
+                        chunks.add(new Chunk(segment.stationStarts[index],
+                                             lineNumber + segment.stationLineNumbers[index]));
+                        chunkSegmentStart = segment.start;
+                    }
+                    expectedMeasures = segment.nextExpectedMeasures[index];
+                }
+                lineNumber += segment.lines;
+            }
+            return chunks;
+        } finally {
+            for (final Future<Segment> future : segments) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Walk the stations of a segment of the file for each speculated number of measures lines expected at its start
+     *
+     * @param mappedFile      the mapped file
+     * @param start           position of the start of the segment, at the start of a line
+     * @param end             position after the end of the segment, at the start of a line or at the end of the file
+     * @param firstSpeculated first number of measures lines expected at the start of the segment
+     * @param nbSpeculated    count of numbers of measures lines speculated
+     * @return the result of the walks
+     */
+    private Segment scanSegment(final MappedFile mappedFile, final long start, final long end,
+                                final long firstSpeculated, final int nbSpeculated) {
+        final Segment segment = new Segment(start, end, firstSpeculated, nbSpeculated);
+        final FieldTokenizer tokenizer = newTokenizer();
+        final LineBuffer line = new LineBuffer();
+        final MappedFile.Reader reader = mappedFile.newReader();
+        byte[] scratch = new byte[256];
+
+        // Index among the parsed lines of the segment of the next station line of each walk. A walk which reaches the
+        // next station line of another walk merges into it, and only the walk of the lowest number goes on: the walks
+        // going on are the active ones, and they all have a different next station line.
+        final long[] nextStations = new long[nbSpeculated];
+        final int[] mergedInto = new int[nbSpeculated];
+        final int[] active = new int[nbSpeculated];
+        int nbActive = nbSpeculated;
+        for (int i = 0; i < nbSpeculated; i++) {
+            nextStations[i] = firstSpeculated + i;
+            mergedInto[i] = i;
+            active[i] = i;
+        }
+        long nextStation = firstSpeculated;
+
+        long parsedLines = 0;
+        long position = start;
+        while (position < end) {
+            final long lineEnd = mappedFile.lineEnd(position, end);
+            if (!mappedFile.isBlank(position, lineEnd) && !mappedFile.startsWith(position, lineEnd,
+                                                                                 prefixCommentBytes)) {
+                final long speculated = parsedLines - firstSpeculated;
+                if (speculated >= 0 && speculated < nbSpeculated) {
+                    segment.stationStarts[(int) speculated] = position;
+                    segment.stationLineNumbers[(int) speculated] = segment.lines;
+                }
+
+                if (parsedLines == nextStation) {
+                    if (lineEnd - position > scratch.length) {
+                        scratch = new byte[(int) (lineEnd - position)];
+                    }
+                    line.setBytes(scratch, 0, reader.copy(position, lineEnd, scratch));
+                    final int nbMeasures = parseNumberOfMeasures(tokenizer, line);
+
+                    int current = 0;
+                    while (nextStations[active[current]] != parsedLines) {
+                        current++;
+                    }
+                    final int walk = active[current];
+                    if (nbMeasures == INVALID_STATION) {
+                        segment.invalidStations[walk] = position;
+                        active[current] = active[--nbActive];
+                    } else {
+                        nextStations[walk] = parsedLines + 1 + Math.max(0, nbMeasures);
+                        for (int i = 0; i < nbActive; i++) {
+                            final int other = active[i];
+                            if (other != walk && nextStations[other] == nextStations[walk]) {
+                                mergedInto[Math.max(other, walk)] = Math.min(other, walk);
+                                active[other > walk ? i : current] = active[--nbActive];
+                                break;
+                            }
+                        }
+                    }
+
+                    nextStation = Long.MAX_VALUE;
+                    for (int i = 0; i < nbActive; i++) {
+                        nextStation = Math.min(nextStation, nextStations[active[i]]);
+                    }
+                }
+                parsedLines++;
+            }
+            segment.lines++;
+            position = mappedFile.nextLineStart(lineEnd, end);
+        }
+        segment.parsedLines = parsedLines;
+
+        for (int i = 0; i < nbSpeculated; i++) {
+            int walk = i;
+            while (mergedInto[walk] != walk) {
+                walk = mergedInto[walk];
+            }
+            segment.invalidStations[i] = segment.invalidStations[walk];
+            segment.nextExpectedMeasures[i] = nextStations[walk] - parsedLines;
+        }
+        return segment;
+    }
+
+    /**
+     * Parse the number of measures of a station line, without building an exception when the line is not valid
+     *
+     * @return the number of measures, or INVALID_STATION if the line is not a valid station line
+     */
+    private static int parseNumberOfMeasures(final FieldTokenizer tokenizer, final CharSequence line) {
+        if (tokenizer.reset(line) != NUMBER_FIELDS_OF_LINE_FOR_WEATHER_STATION) {
+            return INVALID_STATION;
+        }
+        try {
+            return NumberParser.parseInt(line, tokenizer.getStart(1), tokenizer.getEnd(1));
+        } catch (final NumberFormatException e) {
+            return INVALID_STATION;
+        }
+    }
+
+    /**
+     * Build the exception of an invalid station line, as FileImporter reports it
+     *
+     * @param mappedFile the mapped file
+     * @param position   position of the start of the station line
+     * @return the exception
+     */
+    private ImporterException invalidStationLine(final MappedFile mappedFile, final long position) {
+        final long lineEnd = mappedFile.lineEnd(position, mappedFile.size());
+        final FieldTokenizer tokenizer = newTokenizer();
+        try {
+            tokenizeWeatherStationLine(tokenizer, mappedFile.decode(position, lineEnd,
+                                                                    new byte[(int) (lineEnd - position)]));
+            parseNumberOfMeasures(tokenizer);
+        } catch (final ImporterException e) {
+            return e;
+        }
+        throw new IllegalStateException("The station line at position " + position + " is valid");
+    }
+
+    /**
+     * Chunk of the file, starting at the start of a station
+     */
+    private static final class Chunk
+    {
+        private final long start;
+        private final long lineNumber;
+
+        private Chunk(final long start, final long lineNumber) {
+            this.start = start;
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    /**
+     * Result of the walks of the stations of a segment, for each speculated number of measures lines expected at its
+     * start
+     */
+    private static final class Segment
+    {
+        private final long start;
+        private final long end;
+        private final long firstSpeculated;
+        private final long[] stationStarts;
+        private final long[] stationLineNumbers;
+        private final long[] invalidStations;
+        private final long[] nextExpectedMeasures;
+        private long lines;
+        private long parsedLines;
+
+        private Segment(final long start, final long end, final long firstSpeculated, final int nbSpeculated) {
+            this.start = start;
+            this.end = end;
+            this.firstSpeculated = firstSpeculated;
+            this.stationStarts = new long[nbSpeculated];
+            this.stationLineNumbers = new long[nbSpeculated];
+            this.invalidStations = new long[nbSpeculated];
+            this.nextExpectedMeasures = new long[nbSpeculated];
+            Arrays.fill(invalidStations, -1);
+        }
+
+        /**
+         * @param expectedMeasures number of measures lines expected at the start of the segment
+         * @return true if the walk of this number was done
+         */
+        private boolean isSpeculated(final long expectedMeasures) {
+            return expectedMeasures >= firstSpeculated && expectedMeasures - firstSpeculated < stationStarts.length;
+        }
+    }
+}
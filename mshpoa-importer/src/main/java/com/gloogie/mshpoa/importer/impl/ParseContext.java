@@ -0,0 +1,120 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.parser.FieldTokenizer;
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.SymbolTable;
+
+/**
+ * State of the parse of one source of lines, reused for all its lines. It holds the fields of the last parsed
+ * measure, so that parsing a measure does not allocate any object: the units and the station names are read through
+ * a cache of the symbol table of the parse. A context is used by a single thread.
+ */
+final class ParseContext
+{
+    private final FieldTokenizer tokenizer;
+    private final SymbolTable.Cache symbols;
+    private MeasureType type;
+    private double value;
+    private long dateMillis;
+    private String unit;
+    private int failedField;
+    private long recordedFailures;
+
+    /**
+     * Constructor for ParseContext
+     *
+     * @param fieldsSeparator separator used between each fields in the lines
+     * @param symbols         the table of the units and station names
+     */
+    ParseContext(final String fieldsSeparator, final SymbolTable symbols) {
+        this.tokenizer = new FieldTokenizer(fieldsSeparator);
+        this.symbols = symbols.newCache();
+    }
+
+    /**
+     * @return the tokenizer of the lines
+     */
+    FieldTokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    /**
+     * Give the symbol of a field of the current line, as it is in the line
+     *
+     * @param index index of the field
+     * @return the field, the same String instance for all the equal fields
+     */
+    String getSymbol(final int index) {
+        return symbols.symbol(tokenizer.getLine(), tokenizer.getUntrimmedStart(index),
+                              tokenizer.getUntrimmedEnd(index));
+    }
+
+    /**
+     * Clear the fields of the last parsed measure
+     */
+    void clearMeasure() {
+        type = null;
+        value = Double.NaN;
+        dateMillis = Measure.NO_DATE;
+        unit = null;
+    }
+
+    MeasureType getType() {
+        return type;
+    }
+
+    void setType(final MeasureType type) {
+        this.type = type;
+    }
+
+    double getValue() {
+        return value;
+    }
+
+    void setValue(final double value) {
+        this.value = value;
+    }
+
+    long getDateMillis() {
+        return dateMillis;
+    }
+
+    void setDateMillis(final long dateMillis) {
+        this.dateMillis = dateMillis;
+    }
+
+    String getUnit() {
+        return unit;
+    }
+
+    void setUnit(final String unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @return the index of the field which could not be parsed in the last failed measure
+     */
+    int getFailedField() {
+        return failedField;
+    }
+
+    void setFailedField(final int failedField) {
+        this.failedField = failedField;
+    }
+
+    /**
+     * @return the number of failed measures recorded since the start of the source
+     */
+    long getRecordedFailures() {
+        return recordedFailures;
+    }
+
+    void incrementRecordedFailures() {
+        recordedFailures++;
+    }
+
+    void setRecordedFailures(final long recordedFailures) {
+        this.recordedFailures = recordedFailures;
+    }
+}
@@ -0,0 +1,112 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.parser.DateParser;
+import com.gloogie.mshpoa.importer.parser.FieldTokenizer;
+import com.gloogie.mshpoa.importer.parser.NumberParser;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Immutable plan of the parse of the measures lines of a type, compiled once from the configuration of the importer.
+ * <p>
+ * The fields of the type are compiled into a flat array of operations, decoded in order by a switch on constants: a
+ * line is parsed without looking up the configuration and without allocating anything, and the sequence of branches
+ * is the same for all the lines of the type.
+ */
+final class ParsePlan
+{
+    private static final byte VALUE = 0;
+    private static final byte UNIT = 1;
+    private static final byte DATE = 2;
+
+    private final MeasureType type;
+    private final String code;
+    private final byte[] operations;
+    private final DateParser dateParser;
+
+    /**
+     * Constructor for ParsePlan
+     *
+     * @param type       the measure type
+     * @param fields     the fields of the measures lines of the type, after the code of the type
+     * @param dateParser the parser of the dates
+     */
+    ParsePlan(final MeasureType type, final List<MeasureField> fields, final DateParser dateParser) {
+        this.type = type;
+        this.code = type.getCode();
+        this.operations = new byte[fields.size()];
+        for (int i = 0; i < operations.length; i++) {
+            switch (fields.get(i)) {
+                case VALUE:
+                    operations[i] = VALUE;
+                    break;
+                case UNIT:
+                    operations[i] = UNIT;
+                    break;
+                case DATE:
+                    operations[i] = DATE;
+                    break;
+            }
+        }
+        this.dateParser = dateParser;
+    }
+
+    MeasureType getType() {
+        return type;
+    }
+
+    String getCode() {
+        return code;
+    }
+
+    /**
+     * @return the number of fields of the measures lines of the type, including the code of the type
+     */
+    int getFieldCount() {
+        return operations.length + 1;
+    }
+
+    /**
+     * Parse the fields of a measure line of the type, already split by the tokenizer of the context
+     *
+     * @param context context of the parse, which receives the fields of the measure if it is parsed
+     * @param line    measure line
+     * @return null if the line was parsed, the reason of the failure otherwise
+     */
+    FailureReason parse(final ParseContext context, final CharSequence line) {
+        final FieldTokenizer tokenizer = context.getTokenizer();
+        if (tokenizer.getFieldCount() != operations.length + 1) {
+            return FailureReason.WRONG_NUMBER_OF_FIELDS;
+        }
+        context.setType(type);
+
+        for (int i = 1; i <= operations.length; i++) {
+            switch (operations[i - 1]) {
+                case VALUE:
+                    try {
+                        context.setValue(NumberParser.parseDouble(line, tokenizer.getStart(i), tokenizer.getEnd(i)));
+                    } catch (final NumberFormatException e) {
+                        context.setFailedField(i);
+                        return FailureReason.INVALID_VALUE;
+                    }
+                    break;
+                case UNIT:
+                    context.setUnit(context.getSymbol(i));
+                    break;
+                case DATE:
+                    try {
+                        context.setDateMillis(dateParser.parse(line, tokenizer.getStart(i), tokenizer.getEnd(i)));
+                    } catch (final DateTimeParseException e) {
+                        context.setFailedField(i);
+                        return FailureReason.INVALID_DATE;
+                    }
+                    break;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,96 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.parser.DateParser;
+import com.gloogie.mshpoa.importer.parser.FieldTokenizer;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table of the parse plans of the measure types, which finds the plan of a measure line from the code of
+ * its type.
+ * <p>
+ * The plans are indexed by the first character of their code when it is ASCII: the codes are usually a single
+ * character, so a lookup is an array access and a length check. The codes starting with another character are
+ * compared one by one.
+ */
+final class ParsePlanTable
+{
+    private static final int ASCII = 128;
+    private static final ParsePlan[] NO_PLAN = new ParsePlan[0];
+
+    private final ParsePlan[][] plansPerFirstChar = new ParsePlan[ASCII][];
+    private final ParsePlan[] otherPlans;
+    private final ParsePlan emptyCodePlan;
+
+    /**
+     * Constructor for ParsePlanTable, which compiles the plans of the types
+     *
+     * @param measureTypes  the measure types, with distinct codes
+     * @param fieldsPerType the fields of the measures lines per code of measure type
+     * @param dateParser    the parser of the dates
+     */
+    ParsePlanTable(final Collection<MeasureType> measureTypes, final Map<String, List<MeasureField>> fieldsPerType,
+                   final DateParser dateParser) {
+        final List<List<ParsePlan>> asciiPlans = new ArrayList<>(ASCII);
+        for (int i = 0; i < ASCII; i++) {
+            asciiPlans.add(new ArrayList<>());
+        }
+        final List<ParsePlan> others = new ArrayList<>();
+        ParsePlan empty = null;
+        for (final MeasureType type : measureTypes) {
+            final ParsePlan plan = new ParsePlan(type, fieldsPerType.get(type.getCode()), dateParser);
+            if (plan.getCode().isEmpty()) {
+                empty = plan;
+            } else if (plan.getCode().charAt(0) < ASCII) {
+                asciiPlans.get(plan.getCode().charAt(0)).add(plan);
+            } else {
+                others.add(plan);
+            }
+        }
+        for (int i = 0; i < ASCII; i++) {
+            plansPerFirstChar[i] = asciiPlans.get(i).toArray(NO_PLAN);
+        }
+        this.otherPlans = others.toArray(NO_PLAN);
+        this.emptyCodePlan = empty;
+    }
+
+    /**
+     * Find the plan of the line split by the tokenizer, from its first field without leading and trailing whitespaces
+     *
+     * @param tokenizer the tokenizer of the line, with at least one field
+     * @return the plan of the type of the line, null if the type is not supported
+     */
+    ParsePlan find(final FieldTokenizer tokenizer) {
+        final int start = tokenizer.getStart(0);
+        final int end = tokenizer.getEnd(0);
+        if (start == end) {
+            return emptyCodePlan;
+        }
+        final CharSequence line = tokenizer.getLine();
+        final char first = line.charAt(start);
+        final ParsePlan[] plans = first < ASCII ? plansPerFirstChar[first] : otherPlans;
+        for (final ParsePlan plan : plans) {
+            if (matches(plan.getCode(), line, start, end)) {
+                return plan;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(final String code, final CharSequence line, final int start, final int end) {
+        if (end - start != code.length()) {
+            return false;
+        }
+        for (int i = 0; i < code.length(); i++) {
+            if (line.charAt(start + i) != code.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
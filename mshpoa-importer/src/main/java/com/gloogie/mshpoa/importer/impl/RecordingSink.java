@@ -0,0 +1,128 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sink which records the calls made on it, to replay them later on another sink.
+ * <p>
+ * It is used to parse the chunks of a file in parallel and give their content to the sink in the order of the file.
+ * The values of the measures are kept in primitive arrays, so recording a measure does not create any object.
+ */
+final class RecordingSink implements MeasureSink
+{
+    private static final byte STATION_START = 0;
+    private static final byte MEASURE = 1;
+    private static final byte FAILED_MEASURE = 2;
+    private static final byte STATION_END = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private byte[] events = new byte[INITIAL_CAPACITY];
+    private int nbEvents;
+
+    private double[] values = new double[INITIAL_CAPACITY];
+    private long[] dates = new long[INITIAL_CAPACITY];
+    private int[] ints = new int[INITIAL_CAPACITY];
+    private int nbMeasures;
+    private final List<Object> objects = new ArrayList<>();
+
+    @Override
+    public void onStationStart(final String name, final int declaredMeasures) {
+        addEvent(STATION_START);
+        objects.add(name);
+        addMeasure(Double.NaN, 0, declaredMeasures);
+    }
+
+    @Override
+    public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        addEvent(MEASURE);
+        objects.add(type);
+        objects.add(unit);
+        addMeasure(value, dateMillis, 0);
+    }
+
+    @Override
+    public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+        addEvent(FAILED_MEASURE);
+        objects.add(reason);
+        objects.add(failedMeasure);
+    }
+
+    @Override
+    public void onStationEnd() {
+        addEvent(STATION_END);
+    }
+
+    /**
+     * Replay the recorded calls on the specified sink, in the order they were made
+     *
+     * @param sink                sink to call
+     * @param maxRecordedFailures maximum number of failed measures to give to the sink, -1 for no limit: the others
+     *                            are given without details
+     * @return the number of failed measures given with details
+     */
+    long replay(final MeasureSink sink, final long maxRecordedFailures) {
+        long recordedFailures = 0;
+        int object = 0;
+        int measure = 0;
+        for (int i = 0; i < nbEvents; i++) {
+            switch (events[i]) {
+                case STATION_START: {
+                    sink.onStationStart((String) objects.get(object++), ints[measure++]);
+                    break;
+                }
+                case MEASURE: {
+                    final MeasureType type = (MeasureType) objects.get(object++);
+                    final String unit = (String) objects.get(object++);
+                    sink.onMeasure(type, values[measure], dates[measure], unit);
+                    measure++;
+                    break;
+                }
+                case FAILED_MEASURE: {
+                    final FailureReason reason = (FailureReason) objects.get(object++);
+                    FailedMeasure failedMeasure = (FailedMeasure) objects.get(object++);
+                    if (failedMeasure != null) {
+                        if (maxRecordedFailures < 0 || recordedFailures < maxRecordedFailures) {
+                            recordedFailures++;
+                        } else {
+                            failedMeasure = null;
+                        }
+                    }
+                    sink.onFailedMeasure(reason, failedMeasure);
+                    break;
+                }
+                default: {
+                    sink.onStationEnd();
+                    break;
+                }
+            }
+        }
+        return recordedFailures;
+    }
+
+    private void addEvent(final byte event) {
+        if (nbEvents == events.length) {
+            events = Arrays.copyOf(events, nbEvents * 2);
+        }
+        events[nbEvents++] = event;
+    }
+
+    private void addMeasure(final double value, final long dateMillis, final int intValue) {
+        if (nbMeasures == values.length) {
+            values = Arrays.copyOf(values, nbMeasures * 2);
+            dates = Arrays.copyOf(dates, nbMeasures * 2);
+            ints = Arrays.copyOf(ints, nbMeasures * 2);
+        }
+        values[nbMeasures] = value;
+        dates[nbMeasures] = dateMillis;
+        ints[nbMeasures] = intValue;
+        nbMeasures++;
+    }
+}
@@ -0,0 +1,227 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.Importer;
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailedMeasureException;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureType;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Importer of the snapshots written by SnapshotWriter.
+ * <p>
+ * The snapshot is mapped in memory and its columns are read at absolute positions, so importing a snapshot does not
+ * parse any text except the names of the stations, the dictionaries and the recorded failed measures. The measures of
+ * a station are given to the sink before its failed measures.
+ * <p>
+ * The types of the snapshot are the measure types of the importer with the same codes, or types built from the
+ * snapshot for the other codes.
+ */
+public class SnapshotImporter extends Importer<File>
+{
+    private static final FailureReason[] REASONS = FailureReason.values();
+
+    /**
+     * Constructor for SnapshotImporter
+     *
+     * @param measureTypes measure types given to the sink for the codes of the snapshot
+     */
+    public SnapshotImporter(final List<MeasureType> measureTypes) {
+        Validate.notNull(measureTypes, "Measure types cannot be null");
+        setMeasureTypes(measureTypes);
+    }
+
+    @Override
+    public void consume(final File file, final MeasureSink sink) throws ImporterException {
+
+        if (file == null) {
+            throw new ImporterException("File cannot be null");
+        }
+        if (!file.exists()) {
+            throw new ImporterException(String.format("File [%s] is not found", file.getPath()));
+        }
+        Validate.notNull(sink, "Sink cannot be null");
+
+        final MappedFile mappedFile;
+        try {
+            mappedFile = MappedFile.map(Paths.get(file.getPath()));
+        } catch (final IOException e) {
+            final String message = String.format("An error occurred while reading the file [%s]", file.getPath());
+            throw new ImporterException(message, e);
+        }
+
+        try {
+            read(mappedFile, sink);
+        } catch (final IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new ImporterException(String.format("File [%s] is not a valid snapshot", file.getPath()), e);
+        }
+    }
+
+    private void read(final MappedFile mappedFile, final MeasureSink sink) throws ImporterException {
+        final Cursor cursor = new Cursor(mappedFile);
+        if (cursor.readInt() != SnapshotWriter.MAGIC || cursor.readInt() != SnapshotWriter.VERSION) {
+            throw new IllegalArgumentException("Unknown header");
+        }
+
+        final String[] names = new String[cursor.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = cursor.readString();
+        }
+
+        final Map<String, MeasureType> typesPerCode = new HashMap<>();
+        for (final MeasureType type : getMeasureTypes()) {
+            typesPerCode.put(type.getCode(), type);
+        }
+        final MeasureType[] types = new MeasureType[cursor.readInt()];
+        for (int i = 0; i < types.length; i++) {
+            final String code = cursor.readString();
+            final String name = cursor.readString();
+            types[i] = typesPerCode.get(code);
+            if (types[i] == null) {
+                types[i] = new MeasureType();
+                types[i].setCode(code);
+                types[i].setName(name);
+            }
+        }
+        final String[] units = new String[cursor.readInt()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = cursor.readString();
+        }
+        final long[] dates = new long[cursor.readInt()];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = cursor.readLong();
+        }
+
+        // The stations are read first, to find the positions of the columns which follow them
+        final int nbStations = cursor.readInt();
+        final int nameWidth = SnapshotWriter.indexWidth(names.length);
+        final int countWidth = cursor.readByte();
+        if (countWidth != Byte.BYTES && countWidth != Short.BYTES && countWidth != Integer.BYTES) {
+            throw new IllegalArgumentException("Unknown width of the counts");
+        }
+        final int[] stationInts = new int[4 * nbStations];
+        for (int i = 0; i < stationInts.length; i++) {
+            stationInts[i] = cursor.readNarrowed(i % 4 == 0 ? nameWidth : countWidth);
+        }
+
+        final long nbMeasures = cursor.readLong();
+        final int dateWidth = SnapshotWriter.indexWidth(dates.length);
+        final int unitWidth = SnapshotWriter.indexWidth(units.length);
+        final int typeWidth = SnapshotWriter.indexWidth(types.length);
+        final long valuesStart = cursor.position;
+        final long datesStart = valuesStart + nbMeasures * Double.BYTES;
+        final long unitsStart = datesStart + nbMeasures * dateWidth;
+        final long typesStart = unitsStart + nbMeasures * unitWidth;
+        cursor.position = typesStart + nbMeasures * typeWidth;
+        final long nbFailed = cursor.readLong();
+
+        long measure = 0;
+        long failed = 0;
+        for (int i = 0; i < nbStations; i++) {
+            sink.onStationStart(names[stationInts[4 * i]], stationInts[4 * i + 1]);
+
+            final long end = measure + stationInts[4 * i + 2];
+            for (; measure < end; measure++) {
+                final int type = getIndex(mappedFile, typesStart, typeWidth, measure);
+                final int date = getIndex(mappedFile, datesStart, dateWidth, measure);
+                final int unit = getIndex(mappedFile, unitsStart, unitWidth, measure);
+                sink.onMeasure(type == SnapshotWriter.NO_INDEX ? null : types[type],
+                               mappedFile.getDouble(valuesStart + measure * Double.BYTES),
+                               date == SnapshotWriter.NO_INDEX ? Measure.NO_DATE : dates[date],
+                               unit == SnapshotWriter.NO_INDEX ? null : units[unit]);
+            }
+
+            for (int j = 0; j < stationInts[4 * i + 3]; j++) {
+                final FailureReason reason = REASONS[cursor.readByte()];
+                FailedMeasure failedMeasure = null;
+                if (cursor.readByte() != 0) {
+                    failedMeasure = new FailedMeasure();
+                    failedMeasure.setReason(reason);
+                    failedMeasure.setLineNumber(cursor.readLong());
+                    failedMeasure.setOffset(cursor.readLong());
+                    failedMeasure.setValue(cursor.readString());
+                    failedMeasure.setException(new FailedMeasureException(cursor.readString()));
+                }
+                sink.onFailedMeasure(reason, failedMeasure);
+                failed++;
+            }
+
+            sink.onStationEnd();
+        }
+
+        if (measure != nbMeasures || failed != nbFailed) {
+            throw new IllegalArgumentException("The counts of the stations do not match the content");
+        }
+    }
+
+    private static int getIndex(final MappedFile mappedFile, final long start, final int width, final long measure) {
+        if (width == Byte.BYTES) {
+            return mappedFile.get(start + measure);
+        }
+        if (width == Short.BYTES) {
+            return mappedFile.getShort(start + measure * Short.BYTES);
+        }
+        return mappedFile.getInt(start + measure * Integer.BYTES);
+    }
+
+    /**
+     * Sequential reader of the variable length parts of a snapshot
+     */
+    private static final class Cursor
+    {
+        private final MappedFile mappedFile;
+        private final MappedFile.Reader reader;
+        private long position;
+        private byte[] scratch = new byte[64];
+
+        private Cursor(final MappedFile mappedFile) {
+            this.mappedFile = mappedFile;
+            this.reader = mappedFile.newReader();
+        }
+
+        private byte readByte() {
+            return mappedFile.get(position++);
+        }
+
+        private int readInt() {
+            final int value = mappedFile.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        private int readNarrowed(final int width) {
+            final int value = getIndex(mappedFile, position, width, 0);
+            position += width;
+            return value;
+        }
+
+        private long readLong() {
+            final long value = mappedFile.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        private String readString() {
+            final int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            }
+            final String value = reader.decode(position, position + length, scratch);
+            position += length;
+            return value;
+        }
+    }
+}
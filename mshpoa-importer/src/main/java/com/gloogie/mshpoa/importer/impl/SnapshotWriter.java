@@ -0,0 +1,435 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.SymbolTable;
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sink which receives the parsed stations to write them in a snapshot, a binary file read back by SnapshotImporter
+ * without any text parsing.
+ * <p>
+ * A snapshot is made of:
+ * <ul>
+ * <li>a header with a magic number and the version of the format</li>
+ * <li>the dictionaries of the station names, of the types (code and name), of the units and of the dates</li>
+ * <li>the width of the counts of the stations, then the stations: index of the name, declared number of measures,
+ * number of measures and number of failed measures</li>
+ * <li>the columns of the measures of all the stations, in the order of the stations: values, then the indexes of the
+ * dates, units and types in their dictionary</li>
+ * <li>the failed measures, in the order of the stations: reason, and for the recorded ones their line number, offset,
+ * line and message</li>
+ * </ul>
+ * An index is written on 1, 2 or 4 bytes depending on the size of its dictionary, -1 for no date, unit or type, and
+ * the counts of the stations on 1, 2 or 4 bytes depending on their range. A source has few distinct types, units
+ * and dates and few measures per station, so a measure usually takes 11 bytes and a station 4 to 7 bytes plus its
+ * name. The value of a measure is kept as a double, which is about as long as its text, so a snapshot is faster to
+ * read than its text file but hardly smaller: about 93% of it for the files of GeneratorRunner, where each station
+ * has its own name. All the numbers are big-endian and the strings are written as their length in bytes (-1 for
+ * null) followed by their UTF-8 bytes.
+ * <p>
+ * Only the dictionaries are kept in heap while the source is received: the stations, the columns of the measures and
+ * the failed measures are streamed to temporary files as they are received, and concatenated behind the dictionaries
+ * when the snapshot is written. The indexes and the counts are kept on 4 bytes in their temporary files, as the size
+ * of their dictionary and the range of the counts are only known at the end. The heap used by the writer then
+ * depends on the number of distinct station names, units and dates, not on the number of measures; the temporary
+ * files take about twice the size of the snapshot, and are deleted when the writer is closed.
+ * <p>
+ * The snapshot is written in a temporary file which is then moved, so that a crash while writing it leaves the
+ * previous snapshot, and SnapshotImporter never reads a partial one.
+ */
+public final class SnapshotWriter implements MeasureSink, Closeable
+{
+    public static final String EXTENSION = ".snap";
+
+    static final int MAGIC = 0x4D534E53;
+    static final int VERSION = 2;
+    static final int NO_INDEX = -1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final List<MeasureType> types = new ArrayList<>();
+    private final Map<String, Integer> typeIndexes = new HashMap<>();
+    private final SymbolTable units = new SymbolTable();
+    private long[] dates = new long[64];
+    private final Map<Long, Integer> dateIndexes = new HashMap<>();
+    private final SymbolTable stationNames = new SymbolTable();
+
+    private final List<Column> columns = new ArrayList<>();
+    private final Column stations;
+    private final Column values;
+    private final Column measureDates;
+    private final Column measureUnits;
+    private final Column measureTypes;
+    private final Column failedMeasures;
+
+    // Counts of the current station, written with the station when it is complete
+    private boolean inStation;
+    private int stationName;
+    private int declaredMeasures;
+    private int stationMeasures;
+    private int stationFailedMeasures;
+
+    private int nbStations;
+    private int minCount;
+    private int maxCount;
+    private long nbMeasures;
+    private long nbFailedMeasures;
+
+    // Type and date of the last measure, as the measures of a type or a date are often consecutive
+    private MeasureType lastType;
+    private int lastTypeIndex = NO_INDEX;
+    private long lastDate = Measure.NO_DATE;
+    private int lastDateIndex = NO_INDEX;
+
+    /**
+     * Constructor for SnapshotWriter, with its temporary files in the default temporary directory
+     *
+     * @throws IOException if the temporary files cannot be created
+     */
+    public SnapshotWriter() throws IOException {
+        this(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Constructor for SnapshotWriter
+     *
+     * @param directory directory of the temporary files, usually the directory of the snapshot
+     * @throws IOException if the temporary files cannot be created
+     */
+    public SnapshotWriter(final File directory) throws IOException {
+        Validate.notNull(directory, "Directory cannot be null");
+        try {
+            stations = newColumn(directory);
+            values = newColumn(directory);
+            measureDates = newColumn(directory);
+            measureUnits = newColumn(directory);
+            measureTypes = newColumn(directory);
+            failedMeasures = newColumn(directory);
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void onStationStart(final String name, final int declaredMeasures) {
+        endStation();
+        this.inStation = true;
+        this.stationName = stationNames.intern(name);
+        this.declaredMeasures = declaredMeasures;
+        this.stationMeasures = 0;
+        this.stationFailedMeasures = 0;
+    }
+
+    @Override
+    public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        try {
+            values.output.writeDouble(value);
+            measureDates.output.writeInt(dateIndex(dateMillis));
+            measureUnits.output.writeInt(unitIndex(unit));
+            measureTypes.output.writeInt(typeIndex(type));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nbMeasures++;
+        stationMeasures++;
+    }
+
+    @Override
+    public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+        try {
+            final DataOutputStream output = failedMeasures.output;
+            output.writeByte(reason.ordinal());
+            output.writeBoolean(failedMeasure != null);
+            if (failedMeasure != null) {
+                output.writeLong(failedMeasure.getLineNumber());
+                output.writeLong(failedMeasure.getOffset());
+                writeString(output, failedMeasure.getValue());
+                writeString(output, failedMeasure.getMessage());
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nbFailedMeasures++;
+        stationFailedMeasures++;
+    }
+
+    @Override
+    public void onStationEnd() {
+        endStation();
+    }
+
+    /**
+     * @return the number of stations received
+     */
+    public int getNumberOfStations() {
+        return nbStations + (inStation ? 1 : 0);
+    }
+
+    /**
+     * Write the snapshot of the stations received. The writer can still receive stations after it, to write a later
+     * snapshot.
+     *
+     * @param file file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(final File file) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        endStation();
+        for (final Column column : columns) {
+            column.output.flush();
+        }
+
+        final Path path = Paths.get(file.getPath());
+        final Path temporary = Paths.get(path + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+
+            output.writeInt(stationNames.size());
+            for (int i = 0; i < stationNames.size(); i++) {
+                writeString(output, stationNames.get(i));
+            }
+            output.writeInt(types.size());
+            for (final MeasureType type : types) {
+                writeString(output, type.getCode());
+                writeString(output, type.getName());
+            }
+            output.writeInt(units.size());
+            for (int i = 0; i < units.size(); i++) {
+                writeString(output, units.get(i));
+            }
+            output.writeInt(dateIndexes.size());
+            for (int i = 0; i < dateIndexes.size(); i++) {
+                output.writeLong(dates[i]);
+            }
+
+            output.writeInt(nbStations);
+            writeStations(output);
+
+            output.writeLong(nbMeasures);
+            Files.copy(values.path, output);
+            writeIndexes(output, measureDates, dateIndexes.size());
+            writeIndexes(output, measureUnits, units.size());
+            writeIndexes(output, measureTypes, types.size());
+
+            output.writeLong(nbFailedMeasures);
+            Files.copy(failedMeasures.path, output);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Delete the temporary files of the writer
+     *
+     * @throws IOException if a temporary file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (final Column column : columns) {
+            try {
+                column.output.close();
+                Files.deleteIfExists(column.path);
+            } catch (final IOException e) {
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        columns.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private Column newColumn(final File directory) throws IOException {
+        final Column column = new Column(Files.createTempFile(directory.toPath(), "mshpoa-snapshot-", ".tmp"));
+        columns.add(column);
+        return column;
+    }
+
+    private void endStation() {
+        if (!inStation) {
+            return;
+        }
+        try {
+            stations.output.writeInt(stationName);
+            stations.output.writeInt(declaredMeasures);
+            stations.output.writeInt(stationMeasures);
+            stations.output.writeInt(stationFailedMeasures);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        minCount = Math.min(minCount, declaredMeasures);
+        maxCount = Math.max(maxCount, Math.max(declaredMeasures, Math.max(stationMeasures, stationFailedMeasures)));
+        inStation = false;
+        nbStations++;
+    }
+
+    private int typeIndex(final MeasureType type) {
+        if (type == null) {
+            return NO_INDEX;
+        }
+        if (type != lastType) {
+            Integer index = typeIndexes.get(type.getCode());
+            if (index == null) {
+                index = types.size();
+                types.add(type);
+                typeIndexes.put(type.getCode(), index);
+            }
+            lastType = type;
+            lastTypeIndex = index;
+        }
+        return lastTypeIndex;
+    }
+
+    private int dateIndex(final long dateMillis) {
+        if (dateMillis == Measure.NO_DATE) {
+            return NO_INDEX;
+        }
+        if (dateMillis != lastDate) {
+            Integer index = dateIndexes.get(dateMillis);
+            if (index == null) {
+                index = dateIndexes.size();
+                if (index == dates.length) {
+                    dates = Arrays.copyOf(dates, index * 2);
+                }
+                dates[index] = dateMillis;
+                dateIndexes.put(dateMillis, index);
+            }
+            lastDate = dateMillis;
+            lastDateIndex = index;
+        }
+        return lastDateIndex;
+    }
+
+    private int unitIndex(final String unit) {
+        if (unit == null) {
+            return NO_INDEX;
+        }
+        return units.intern(unit);
+    }
+
+    /**
+     * @param dictionarySize number of values of a dictionary
+     * @return the number of bytes of the indexes in the dictionary
+     */
+    static int indexWidth(final int dictionarySize) {
+        if (dictionarySize <= Byte.MAX_VALUE) {
+            return Byte.BYTES;
+        }
+        return dictionarySize <= Short.MAX_VALUE ? Short.BYTES : Integer.BYTES;
+    }
+
+    /**
+     * @param min smallest count of the stations
+     * @param max largest count of the stations
+     * @return the number of bytes of the counts of the stations
+     */
+    static int countWidth(final int min, final int max) {
+        if (min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE) {
+            return Byte.BYTES;
+        }
+        return min >= Short.MIN_VALUE && max <= Short.MAX_VALUE ? Short.BYTES : Integer.BYTES;
+    }
+
+    /**
+     * Copy the column of the stations kept on 4 bytes, narrowing the indexes of their name to the width of the
+     * dictionary and their counts to the width of the largest count
+     */
+    private void writeStations(final DataOutputStream output) throws IOException {
+        final int nameWidth = indexWidth(stationNames.size());
+        final int countWidth = countWidth(minCount, maxCount);
+        output.writeByte(countWidth);
+        try (DataInputStream input = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(stations.path), BUFFER_SIZE))) {
+            for (int i = 0; i < nbStations; i++) {
+                writeNarrowed(output, input.readInt(), nameWidth);
+                for (int j = 0; j < 3; j++) {
+                    writeNarrowed(output, input.readInt(), countWidth);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy a column of indexes kept on 4 bytes, narrowing them to the width of their dictionary
+     */
+    private static void writeIndexes(final DataOutputStream output, final Column column, final int dictionarySize)
+        throws IOException {
+        final int width = indexWidth(dictionarySize);
+        if (width == Integer.BYTES) {
+            Files.copy(column.path, output);
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(column.path), BUFFER_SIZE))) {
+            final long size = Files.size(column.path) / Integer.BYTES;
+            for (long i = 0; i < size; i++) {
+                writeNarrowed(output, input.readInt(), width);
+            }
+        }
+    }
+
+    private static void writeNarrowed(final DataOutputStream output, final int value, final int width)
+        throws IOException {
+        if (width == Byte.BYTES) {
+            output.writeByte(value);
+        } else if (width == Short.BYTES) {
+            output.writeShort(value);
+        } else {
+            output.writeInt(value);
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Temporary file of a column, written while the source is received
+     */
+    private static final class Column
+    {
+        private final Path path;
+        private final DataOutputStream output;
+
+        private Column(final Path path) throws IOException {
+            this.path = path;
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index of the stations of a file: for each station line, the name of the station, the position of the line, its
+ * number and the declared number of measures. It is built while the file is imported, and lets FileImporter parse only
+ * some stations of the file.
+ * <p>
+ * The index is stored next to the file with the extension .idx. It records the size and the modification time the file
+ * had when it was imported, an index whose file has changed since is not valid anymore.
+ */
+public final class StationIndex
+{
+    public static final String EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x4D534958;
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long fileSize;
+    private final long lastModified;
+    private final List<String> names = new ArrayList<>();
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    private long[] lineNumbers = new long[INITIAL_CAPACITY];
+    private int[] declaredMeasures = new int[INITIAL_CAPACITY];
+
+    /**
+     * Constructor for StationIndex, for the current state of a file
+     *
+     * @param file the indexed file
+     */
+    StationIndex(final File file) {
+        this(file.length(), file.lastModified());
+    }
+
+    private StationIndex(final long fileSize, final long lastModified) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Add a station line, the lines are added in the order of the file
+     *
+     * @param name             name of the station
+     * @param offset           position of the station line
+     * @param lineNumber       number of the station line, starting at 1
+     * @param declaredMeasures declared number of measures of the station
+     */
+    void add(final String name, final long offset, final long lineNumber, final int declaredMeasures) {
+        final int station = names.size();
+        if (station == offsets.length) {
+            offsets = Arrays.copyOf(offsets, station * 2);
+            lineNumbers = Arrays.copyOf(lineNumbers, station * 2);
+            this.declaredMeasures = Arrays.copyOf(this.declaredMeasures, station * 2);
+        }
+        names.add(name);
+        offsets[station] = offset;
+        lineNumbers[station] = lineNumber;
+        this.declaredMeasures[station] = declaredMeasures;
+    }
+
+    /**
+     * @return the number of station lines of the file
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @param station index of the station line
+     * @return the name of the station
+     */
+    public String getName(final int station) {
+        return names.get(station);
+    }
+
+    /**
+     * @param station index of the station line
+     * @return the position in bytes of the station line
+     */
+    public long getOffset(final int station) {
+        return offsets[station];
+    }
+
+    /**
+     * @param station index of the station line
+     * @return the number of the station line, starting at 1
+     */
+    public long getLineNumber(final int station) {
+        return lineNumbers[station];
+    }
+
+    /**
+     * @param station index of the station line
+     * @return the declared number of measures of the station
+     */
+    public int getDeclaredMeasures(final int station) {
+        return declaredMeasures[station];
+    }
+
+    /**
+     * Find the station lines of some stations, a station may have several lines in a file
+     *
+     * @param stationNames names of the stations
+     * @return the indexes of their station lines, in the order of the file
+     */
+    public List<Integer> find(final Collection<String> stationNames) {
+        Validate.notNull(stationNames, "Station names cannot be null");
+        final List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (stationNames.contains(names.get(i))) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param file a file
+     * @return true if the file has the size and modification time it had when it was indexed
+     */
+    public boolean matches(final File file) {
+        return file.length() == fileSize && file.lastModified() == lastModified;
+    }
+
+    /**
+     * @param file an indexed file
+     * @return the path of the index of the file
+     */
+    public static Path pathOf(final File file) {
+        return Paths.get(file.getPath() + EXTENSION);
+    }
+
+    /**
+     * Write the index next to its file, unless the file changed while it was indexed
+     *
+     * @param file the indexed file
+     * @return true if the index was written
+     * @throws IOException if the index cannot be written
+     */
+    public boolean writeFor(final File file) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        if (!matches(file)) {
+            return false;
+        }
+
+        final Path path = pathOf(file);
+        final Path temporary = Paths.get(path + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(fileSize);
+            output.writeLong(lastModified);
+            output.writeInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                output.writeUTF(names.get(i));
+                output.writeLong(offsets[i]);
+                output.writeLong(lineNumbers[i]);
+                output.writeInt(declaredMeasures[i]);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    /**
+     * Read the index stored next to a file
+     *
+     * @param file the indexed file
+     * @return the index, null if the file has no index or has changed since it was indexed
+     * @throws IOException if the index cannot be read
+     */
+    public static StationIndex readFor(final File file) throws IOException {
+        Validate.notNull(file, "File cannot be null");
+        final Path path = pathOf(file);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("The file [" + path + "] is not a station index of this version");
+            }
+            final StationIndex index = new StationIndex(input.readLong(), input.readLong());
+            if (!index.matches(file)) {
+                return null;
+            }
+            final int size = input.readInt();
+            for (int i = 0; i < size; i++) {
+                index.add(input.readUTF(), input.readLong(), input.readLong(), input.readInt());
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Source of the lines of an UTF-8 input stream. The bytes are read in a large buffer and each line is decoded in a
+ * reused buffer, so reading a line does not allocate anything.
+ */
+final class StreamLineSource implements LineSource
+{
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final LineBuffer line = new LineBuffer();
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    private boolean endOfStream;
+    private boolean skipLineFeed;
+    private long lineNumber;
+    private long offset;
+
+    /**
+     * Constructor for StreamLineSource
+     *
+     * @param inputStream stream to read, which is not closed by the source
+     */
+    StreamLineSource(final InputStream inputStream) {
+        this(inputStream, 0, 0);
+    }
+
+    /**
+     * Constructor for StreamLineSource starting in the middle of a file
+     *
+     * @param inputStream stream to read, positioned at the start of a line
+     * @param offset      position in bytes of the stream in the file
+     * @param lineNumber  number of the lines before the position of the stream
+     */
+    StreamLineSource(final InputStream inputStream, final long offset, final long lineNumber) {
+        this.inputStream = inputStream;
+        this.bufferOffset = offset;
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public CharSequence nextLine() throws IOException {
+        if (skipLineFeed) {
+            // The previous line ended with \r at the end of the buffer: skip the \n of a \r\n terminator
+            if (position == limit) {
+                fill();
+            }
+            if (position < limit && buffer[position] == '\n') {
+                position++;
+            }
+            skipLineFeed = false;
+        }
+
+        if (position == limit && !fill()) {
+            return null;
+        }
+
+        int end = position;
+        while (true) {
+            while (end < limit && buffer[end] != '\n' && buffer[end] != '\r') {
+                end++;
+            }
+            if (end < limit || endOfStream) {
+                break;
+            }
+            // The line continues after the buffer: read more bytes and continue the search
+            final int scanned = end - position;
+            fill();
+            end = position + scanned;
+        }
+
+        line.setBytes(buffer, position, end - position);
+        offset = bufferOffset + position;
+        lineNumber++;
+
+        if (end < limit) {
+            if (buffer[end] == '\r') {
+                if (end + 1 < limit) {
+                    if (buffer[end + 1] == '\n') {
+                        end++;
+                    }
+                } else {
+                    skipLineFeed = true;
+                }
+            }
+            end++;
+        }
+        position = end;
+        return line;
+    }
+
+    @Override
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Move the unread bytes at the start of the buffer, growing it if it is full, and read more bytes after them
+     *
+     * @return true if bytes were read, false if the end of the stream is reached
+     * @throws IOException if the stream cannot be read
+     */
+    private boolean fill() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            bufferOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            final byte[] newBuffer = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, newBuffer, 0, limit);
+            buffer = newBuffer;
+        }
+        final int read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
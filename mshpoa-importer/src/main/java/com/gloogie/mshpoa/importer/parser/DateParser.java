@@ -0,0 +1,183 @@
+package com.gloogie.mshpoa.importer.parser;
+
+import org.apache.commons.lang3.Validate;
+
+import java.text.Format;
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+
+/**
+ * Thread-safe parser of dates into epoch milliseconds.
+ * <p>
+ * A file only contains a few distinct dates, so the last parsed dates are kept in a small cache indexed by the hash
+ * of their text: a date already seen costs a lookup in place in the line instead of a parse. The entries of the cache
+ * are immutable, so threads sharing a parser can at worst overwrite each other's entries.
+ * <p>
+ * A text is parsed once, through the java.text.Format of the formatter, which returns null for an invalid text
+ * instead of throwing. Texts which do not match the pattern, or which match it but are not a valid date like
+ * 2014-13-45, are rejected with an exception without stack trace, and are kept in the cache too: an invalid date
+ * repeated in a file is only parsed once.
+ */
+public final class DateParser
+{
+    public static final int CACHE_SIZE = 256;
+
+    private final String pattern;
+    // The format of a DateTimeFormatter is immutable, so it is thread-safe like the formatter
+    private final Format format;
+    private final ZoneId zone;
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    /**
+     * Constructor for DateParser, using the default time zone for dates without zone
+     *
+     * @param pattern date pattern, as defined by DateTimeFormatter
+     */
+    public DateParser(final String pattern) {
+        this(pattern, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructor for DateParser
+     *
+     * @param pattern date pattern, as defined by DateTimeFormatter
+     * @param zone    time zone of the dates which do not contain a zone
+     */
+    public DateParser(final String pattern, final ZoneId zone) {
+        Validate.notBlank(pattern, "Date pattern cannot be blank");
+        Validate.notNull(zone, "Zone cannot be null");
+        this.pattern = pattern;
+        this.format = DateTimeFormatter.ofPattern(pattern).toFormat();
+        this.zone = zone;
+    }
+
+    /**
+     * @return the date pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Parse a date between the specified positions. A date without time is the start of the day.
+     *
+     * @param value string containing the date
+     * @param start position of the first character
+     * @param end   position after the last character
+     * @return the number of milliseconds since the epoch
+     * @throws DateTimeParseException if the characters are not a valid date
+     */
+    public long parse(final CharSequence value, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+
+        final int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        final Entry entry = cache[index];
+        if (entry != null && entry.hash == hash && entry.matches(value, start, end)) {
+            return entry.millis();
+        }
+
+        final String text = value.subSequence(start, end).toString();
+        try {
+            final long millis = parse(text);
+            cache[index] = new Entry(text, hash, millis, null, 0);
+            return millis;
+        } catch (final InvalidDateException e) {
+            cache[index] = new Entry(text, hash, 0, e.getMessage(), e.getErrorIndex());
+            throw e;
+        }
+    }
+
+    private long parse(final String text) {
+        final ParsePosition position = new ParsePosition(0);
+        final TemporalAccessor parsed = (TemporalAccessor) format.parseObject(text, position);
+        if (parsed == null && position.getIndex() == text.length() && !text.isEmpty()) {
+            // The whole text matches the pattern, but its fields are not a valid date
+            throw new InvalidDateException("Text '" + text + "' is not a valid date", text, 0);
+        }
+        if (parsed == null || position.getIndex() != text.length()) {
+            final int errorIndex = Math.max(position.getErrorIndex(), position.getIndex());
+            throw new InvalidDateException("Text '" + text + "' could not be parsed at index " + errorIndex, text,
+                                           errorIndex);
+        }
+        return toEpochMillis(parsed, text);
+    }
+
+    private long toEpochMillis(final TemporalAccessor parsed, final String text) {
+        if (parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return Instant.from(parsed).toEpochMilli();
+        }
+        final LocalDate date = parsed.query(TemporalQueries.localDate());
+        if (date == null) {
+            throw new InvalidDateException("Text '" + text + "' does not contain a date", text, 0);
+        }
+        final LocalTime time = parsed.query(TemporalQueries.localTime());
+        return LocalDateTime.of(date, time == null ? LocalTime.MIDNIGHT : time).atZone(zone).toInstant()
+                            .toEpochMilli();
+    }
+
+    /**
+     * Entry of the cache, the date of a valid text or the error of an invalid one
+     */
+    private static final class Entry
+    {
+        private final String text;
+        private final int hash;
+        private final long millis;
+        private final String error;
+        private final int errorIndex;
+
+        private Entry(final String text, final int hash, final long millis, final String error, final int errorIndex) {
+            this.text = text;
+            this.hash = hash;
+            this.millis = millis;
+            this.error = error;
+            this.errorIndex = errorIndex;
+        }
+
+        private long millis() {
+            if (error != null) {
+                throw new InvalidDateException(error, text, errorIndex);
+            }
+            return millis;
+        }
+
+        private boolean matches(final CharSequence value, final int start, final int end) {
+            if (end - start != text.length()) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (value.charAt(start + i) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Exception for invalid dates, without stack trace
+     */
+    private static final class InvalidDateException extends DateTimeParseException
+    {
+        private InvalidDateException(final String message, final CharSequence text, final int errorIndex) {
+            super(message, text, errorIndex);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
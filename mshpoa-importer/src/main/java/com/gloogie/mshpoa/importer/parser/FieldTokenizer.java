@@ -0,0 +1,196 @@
+package com.gloogie.mshpoa.importer.parser;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Tokenizer which splits a line in fields without allocating anything: only the bounds of the fields are kept, and
+ * the fields are read in place in the line.
+ * <p>
+ * The fields are split like String.split with a literal separator: trailing empty fields are removed and a line
+ * without separator has a single field. A tokenizer is meant to be reused for all the lines of a source, so it is not
+ * thread-safe.
+ */
+public final class FieldTokenizer
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String separator;
+    private CharSequence line;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Constructor for FieldTokenizer
+     *
+     * @param separator separator between the fields, used as a literal string
+     */
+    public FieldTokenizer(final String separator) {
+        Validate.notEmpty(separator, "Separator cannot be empty");
+        this.separator = separator;
+    }
+
+    /**
+     * Split the specified line in fields
+     *
+     * @param line line to split
+     * @return the number of fields of the line
+     */
+    public int reset(final CharSequence line) {
+        this.line = line;
+        this.count = 0;
+
+        final int length = line.length();
+        final char first = separator.charAt(0);
+        final int separatorLength = separator.length();
+        int start = 0;
+        int i = 0;
+        while (i <= length - separatorLength) {
+            if (line.charAt(i) == first && matchesSeparator(i)) {
+                add(start, i);
+                i += separatorLength;
+                start = i;
+            } else {
+                i++;
+            }
+        }
+        add(start, length);
+
+        // Remove the trailing empty fields like String.split, unless there is no separator in the line
+        if (count > 1) {
+            while (count > 0 && starts[count - 1] == ends[count - 1]) {
+                count--;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the line currently split
+     */
+    public CharSequence getLine() {
+        return line;
+    }
+
+    /**
+     * @return the number of fields of the current line
+     */
+    public int getFieldCount() {
+        return count;
+    }
+
+    /**
+     * @param index index of the field
+     * @return the position in the line of the first character of the field, without leading whitespaces
+     */
+    public int getStart(final int index) {
+        checkIndex(index);
+        int start = starts[index];
+        final int end = ends[index];
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * @param index index of the field
+     * @return the position in the line after the last character of the field, without trailing whitespaces
+     */
+    public int getEnd(final int index) {
+        checkIndex(index);
+        final int start = starts[index];
+        int end = ends[index];
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        // A field made only of whitespaces is empty at the position returned by getStart
+        return end == start ? ends[index] : end;
+    }
+
+    /**
+     * @param index index of the field
+     * @return the position in the line of the first character of the field, including leading whitespaces
+     */
+    public int getUntrimmedStart(final int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * @param index index of the field
+     * @return the position in the line after the last character of the field, including trailing whitespaces
+     */
+    public int getUntrimmedEnd(final int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    /**
+     * @param index index of the field
+     * @return the field as it is in the line
+     */
+    public String getField(final int index) {
+        checkIndex(index);
+        return line.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * @param index index of the field
+     * @return the field without leading and trailing whitespaces
+     */
+    public String getTrimmedField(final int index) {
+        return line.subSequence(getStart(index), getEnd(index)).toString();
+    }
+
+    /**
+     * Compare the specified field, without leading and trailing whitespaces, to a value
+     *
+     * @param index index of the field
+     * @param value value to compare
+     * @return true if the trimmed field is equal to the value
+     */
+    public boolean trimmedFieldEquals(final int index, final String value) {
+        final int start = getStart(index);
+        final int end = getEnd(index);
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (line.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesSeparator(final int position) {
+        for (int j = 1; j < separator.length(); j++) {
+            if (line.charAt(position + j) != separator.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(final int start, final int end) {
+        if (count == starts.length) {
+            final int[] newStarts = new int[count * 2];
+            final int[] newEnds = new int[count * 2];
+            System.arraycopy(starts, 0, newStarts, 0, count);
+            System.arraycopy(ends, 0, newEnds, 0, count);
+            starts = newStarts;
+            ends = newEnds;
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Field " + index + " does not exist, the line has " + count
+                                                + " fields");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.gloogie.mshpoa.importer.parser;
+
+/**
+ * Parser of numbers reading the characters in place, without allocating a string.
+ * <p>
+ * Short decimal literals like 20.5, 1014 or -50 are computed directly. They give the same double as
+ * Double.parseDouble: when the digits fit in 53 bits and there are at most 22 decimals, both the digits and the power
+ * of ten are exact doubles, so their division is correctly rounded. Any other input (exponent, too many digits,
+ * NaN, hexadecimal...) falls back to the parsers of the JDK.
+ * <p>
+ * Invalid inputs with characters which cannot appear in a number are rejected with an exception without stack trace,
+ * which is cheap enough for files with many bad lines.
+ */
+public final class NumberParser
+{
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final String DOUBLE_CHARACTERS = "0123456789+-.eExXpPabcdfABCDFNIinty";
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                                                   1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parse a double between the specified positions
+     *
+     * @param value string containing the double
+     * @param start position of the first character
+     * @param end   position after the last character
+     * @return the parsed double, identical to the result of Double.parseDouble
+     * @throws NumberFormatException if the characters are not a valid double
+     */
+    public static double parseDouble(final CharSequence value, final int start, final int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (value.charAt(position) == '-' || value.charAt(position) == '+')) {
+            negative = value.charAt(position) == '-';
+            position++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; position < end; position++) {
+            final char c = value.charAt(position);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return Double.parseDouble(value.subSequence(start, end).toString());
+                }
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (DOUBLE_CHARACTERS.indexOf(c) < 0) {
+                throw new InvalidNumberException(value.subSequence(start, end).toString());
+            } else {
+                return Double.parseDouble(value.subSequence(start, end).toString());
+            }
+        }
+
+        if (digits == 0 || decimals >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(value.subSequence(start, end).toString());
+        }
+
+        final double result = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : (double) mantissa;
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parse an int between the specified positions
+     *
+     * @param value string containing the int
+     * @param start position of the first character
+     * @param end   position after the last character
+     * @return the parsed int, identical to the result of Integer.parseInt
+     * @throws NumberFormatException if the characters are not a valid int
+     */
+    public static int parseInt(final CharSequence value, final int start, final int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (value.charAt(position) == '-' || value.charAt(position) == '+')) {
+            negative = value.charAt(position) == '-';
+            position++;
+        }
+
+        // More than 9 digits may overflow: let the JDK check it
+        if (position == end || end - position > 9) {
+            return Integer.parseInt(value.subSequence(start, end).toString());
+        }
+
+        int result = 0;
+        for (; position < end; position++) {
+            final char c = value.charAt(position);
+            if (c < '0' || c > '9') {
+                throw new InvalidNumberException(value.subSequence(start, end).toString());
+            }
+            result = result * 10 + (c - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Exception for invalid numbers, without stack trace
+     */
+    private static final class InvalidNumberException extends NumberFormatException
+    {
+        private InvalidNumberException(final String value) {
+            super("For input string: \"" + value + "\"");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
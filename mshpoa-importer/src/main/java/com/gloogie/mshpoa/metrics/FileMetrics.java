@@ -0,0 +1,262 @@
+package com.gloogie.mshpoa.metrics;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.SourceStats;
+import com.gloogie.mshpoa.report.StatsAccumulator;
+import org.apache.commons.lang3.Validate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metrics of the processing of a file by a single thread: time of each phase, size of the file, bytes allocated by
+ * the thread, and counts of the imported stations, measures per type and failed measures per reason.
+ * <p>
+ * The stations and measures are counted by the stats of the file, so the import is not slowed down by another sink:
+ * only the failed measures are counted per reason by a sink wrapping the sink of the file. The allocated bytes are
+ * measured with the ThreadMXBean of the JVM when it supports it, -1 otherwise. The metrics are not thread-safe, they
+ * are added to ImportMetrics once the file is processed.
+ */
+public final class FileMetrics
+{
+    private static final Phase[] PHASES = Phase.values();
+    private static final FailureReason[] REASONS = FailureReason.values();
+
+    private final String source;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final long[] failures = new long[REASONS.length];
+    private final Map<String, Long> measuresPerType = new LinkedHashMap<>();
+    private long bytes;
+    private long stations;
+    private boolean cached;
+    private boolean failed;
+
+    private Phase phase;
+    private long phaseStart;
+    private final long allocationStart = currentThreadAllocatedBytes();
+    private long allocatedBytes = -1;
+
+    /**
+     * Constructor for FileMetrics, which starts to measure the bytes allocated by the current thread
+     *
+     * @param source name of the processed file
+     */
+    public FileMetrics(final String source) {
+        this.source = source;
+    }
+
+    /**
+     * End the current phase, if any, and start the specified phase
+     *
+     * @param next the phase which starts
+     */
+    public void startPhase(final Phase next) {
+        final long now = System.nanoTime();
+        if (phase != null) {
+            phaseNanos[phase.ordinal()] += now - phaseStart;
+        }
+        phase = next;
+        phaseStart = now;
+    }
+
+    /**
+     * End the current phase and the measure of the allocated bytes, the thread which created the metrics has to
+     * call it
+     */
+    public void finish() {
+        startPhase(null);
+        final long allocationEnd = currentThreadAllocatedBytes();
+        allocatedBytes = allocationStart < 0 || allocationEnd < 0 ? -1 : allocationEnd - allocationStart;
+    }
+
+    /**
+     * @param bytes the size of the file in bytes
+     */
+    public void setBytes(final long bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Mark the stats of the file as read from the cache instead of imported
+     */
+    public void setCached() {
+        this.cached = true;
+    }
+
+    /**
+     * Mark the file as not processed because of an error
+     */
+    public void setFailed() {
+        this.failed = true;
+    }
+
+    /**
+     * Wrap the sink of the file to count its failed measures per reason
+     *
+     * @param sink the sink of the file
+     * @return the sink to give to the importer
+     */
+    public MeasureSink countFailures(final MeasureSink sink) {
+        Validate.notNull(sink, "Sink cannot be null");
+        return new FailureCountingSink(sink);
+    }
+
+    /**
+     * Add the counts of the imported stations and measures
+     *
+     * @param sourceStats the stats of the imported file
+     */
+    public void addStats(final SourceStats sourceStats) {
+        Validate.notNull(sourceStats, "Source stats cannot be null");
+        stations += sourceStats.getNumberOfWeatherStations();
+        for (final Map.Entry<String, StatsAccumulator> entry : sourceStats.getAccumulators().entrySet()) {
+            measuresPerType.merge(entry.getKey(), entry.getValue().getCount(), Long::sum);
+        }
+    }
+
+    /**
+     * @return the name of the processed file
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @param phase a phase
+     * @return the time spent in the phase in nanoseconds
+     */
+    public long getPhaseNanos(final Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the size of the file in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of imported stations
+     */
+    public long getStations() {
+        return stations;
+    }
+
+    /**
+     * @return the number of imported measures per type code
+     */
+    public Map<String, Long> getMeasuresPerType() {
+        return Collections.unmodifiableMap(measuresPerType);
+    }
+
+    /**
+     * @return the number of imported measures
+     */
+    public long getMeasures() {
+        long measures = 0;
+        for (final long count : measuresPerType.values()) {
+            measures += count;
+        }
+        return measures;
+    }
+
+    /**
+     * @param reason a reason of failure
+     * @return the number of failed measures for this reason
+     */
+    public long getFailedMeasures(final FailureReason reason) {
+        return failures[reason.ordinal()];
+    }
+
+    /**
+     * @return the number of failed measures
+     */
+    public long getFailedMeasures() {
+        long failedMeasures = 0;
+        for (final long count : failures) {
+            failedMeasures += count;
+        }
+        return failedMeasures;
+    }
+
+    /**
+     * @return the number of parsed lines: station lines, measures lines and failed measures lines
+     */
+    public long getLines() {
+        return stations + getMeasures() + getFailedMeasures();
+    }
+
+    /**
+     * @return the number of bytes allocated by the thread which processed the file, -1 if it is not measured
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return true if the stats of the file were read from the cache
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * @return true if the file was not processed because of an error
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread, -1 if the JVM does not measure it
+     */
+    static long currentThreadAllocatedBytes() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+                return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sink which counts the failed measures per reason and gives all the calls to the sink of the file
+     */
+    private final class FailureCountingSink implements MeasureSink
+    {
+        private final MeasureSink sink;
+
+        private FailureCountingSink(final MeasureSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void onStationStart(final String name, final int declaredMeasures) {
+            sink.onStationStart(name, declaredMeasures);
+        }
+
+        @Override
+        public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+            sink.onMeasure(type, value, dateMillis, unit);
+        }
+
+        @Override
+        public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+            failures[reason.ordinal()]++;
+            sink.onFailedMeasure(reason, failedMeasure);
+        }
+
+        @Override
+        public void onStationEnd() {
+            sink.onStationEnd();
+        }
+    }
+}
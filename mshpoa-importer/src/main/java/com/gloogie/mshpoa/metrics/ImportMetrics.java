@@ -0,0 +1,222 @@
+package com.gloogie.mshpoa.metrics;
+
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.writer.Writer;
+import org.apache.commons.lang3.Validate;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of all the files processed by a runner, which can be read through JMX and written as a summary.
+ * <p>
+ * The metrics of a file are added once it is processed, so the import itself only fills the FileMetrics of its
+ * thread. The allocated bytes are those of the threads which process the files: the allocations of the threads of
+ * MappedFileImporter are not included. The metrics are thread-safe.
+ */
+public final class ImportMetrics implements ImportMetricsMXBean
+{
+    public static final String OBJECT_NAME = "com.gloogie.mshpoa:type=ImportMetrics";
+
+    private static final double MB = 1024 * 1024;
+
+    private long files;
+    private long cachedFiles;
+    private long failedFiles;
+    private long bytes;
+    private long stations;
+    private final Map<String, Long> measuresPerType = new TreeMap<>();
+    private final long[] failures = new long[FailureReason.values().length];
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long allocatedBytes;
+    private boolean allocationMeasured = true;
+
+    /**
+     * Add the metrics of a processed file
+     *
+     * @param fileMetrics the metrics of the file
+     */
+    public synchronized void add(final FileMetrics fileMetrics) {
+        Validate.notNull(fileMetrics, "File metrics cannot be null");
+        files++;
+        if (fileMetrics.isCached()) {
+            cachedFiles++;
+        } else if (!fileMetrics.isFailed()) {
+            bytes += fileMetrics.getBytes();
+        }
+        if (fileMetrics.isFailed()) {
+            failedFiles++;
+        }
+        stations += fileMetrics.getStations();
+        for (final Map.Entry<String, Long> entry : fileMetrics.getMeasuresPerType().entrySet()) {
+            measuresPerType.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+        for (final FailureReason reason : FailureReason.values()) {
+            failures[reason.ordinal()] += fileMetrics.getFailedMeasures(reason);
+        }
+        for (final Phase phase : Phase.values()) {
+            phaseNanos[phase.ordinal()] += fileMetrics.getPhaseNanos(phase);
+        }
+        if (fileMetrics.getAllocatedBytes() < 0) {
+            allocationMeasured = false;
+        } else {
+            allocatedBytes += fileMetrics.getAllocatedBytes();
+        }
+    }
+
+    @Override
+    public synchronized long getFiles() {
+        return files;
+    }
+
+    @Override
+    public synchronized long getCachedFiles() {
+        return cachedFiles;
+    }
+
+    @Override
+    public synchronized long getFailedFiles() {
+        return failedFiles;
+    }
+
+    @Override
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized long getLines() {
+        long lines = stations;
+        for (final long measures : measuresPerType.values()) {
+            lines += measures;
+        }
+        for (final long failed : failures) {
+            lines += failed;
+        }
+        return lines;
+    }
+
+    @Override
+    public synchronized long getStations() {
+        return stations;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getMeasuresPerType() {
+        return new TreeMap<>(measuresPerType);
+    }
+
+    @Override
+    public synchronized Map<String, Long> getFailedMeasuresPerReason() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final FailureReason reason : FailureReason.values()) {
+            result.put(reason.name(), failures[reason.ordinal()]);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getPhaseMillis() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final Phase phase : Phase.values()) {
+            result.put(phase.name(), TimeUnit.NANOSECONDS.toMillis(phaseNanos[phase.ordinal()]));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized double getBytesPerSecond() {
+        return perSecondOfImport(bytes);
+    }
+
+    @Override
+    public synchronized double getLinesPerSecond() {
+        return perSecondOfImport(getLines());
+    }
+
+    @Override
+    public synchronized long getAllocatedBytes() {
+        return allocationMeasured ? allocatedBytes : -1;
+    }
+
+    @Override
+    public synchronized void reset() {
+        files = 0;
+        cachedFiles = 0;
+        failedFiles = 0;
+        bytes = 0;
+        stations = 0;
+        measuresPerType.clear();
+        Arrays.fill(failures, 0);
+        Arrays.fill(phaseNanos, 0);
+        allocatedBytes = 0;
+        allocationMeasured = true;
+    }
+
+    /**
+     * Register the metrics in the platform MBean server
+     *
+     * @throws JMException if the metrics cannot be registered, for example if metrics are already registered
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Write the metrics of a file on a line
+     *
+     * @param fileMetrics the metrics of the file
+     * @param writer      the writer of the line
+     */
+    public static void writeFileMetrics(final FileMetrics fileMetrics, final Writer writer) {
+        final long importNanos = fileMetrics.getPhaseNanos(Phase.IMPORT);
+        final StringBuilder line = new StringBuilder("Metrics of ").append(fileMetrics.getSource()).append(": ");
+        if (fileMetrics.isCached()) {
+            line.append("read from the cache, ");
+        } else {
+            line.append(String.format("%.1f MB, %d lines, %.1f MB/s, %.0f lines/s, ", fileMetrics.getBytes() / MB,
+                                      fileMetrics.getLines(), perSecond(fileMetrics.getBytes(), importNanos) / MB,
+                                      perSecond(fileMetrics.getLines(), importNanos)));
+        }
+        for (final Phase phase : Phase.values()) {
+            line.append(phase.name().toLowerCase()).append(' ')
+                .append(TimeUnit.NANOSECONDS.toMillis(fileMetrics.getPhaseNanos(phase))).append(" ms, ");
+        }
+        line.append("allocated ").append(allocated(fileMetrics.getAllocatedBytes()));
+        writer.write(line.toString());
+    }
+
+    /**
+     * Write the summary of the metrics
+     *
+     * @param writer the writer of the summary
+     */
+    public synchronized void writeSummary(final Writer writer) {
+        writer.write(String.format("Metrics: %d files (%d from the cache, %d failed), %.1f MB, %d lines, %d stations",
+                                   files, cachedFiles, failedFiles, bytes / MB, getLines(), stations));
+        writer.write(String.format("Import: %.1f MB/s, %.0f lines/s", getBytesPerSecond() / MB,
+                                   getLinesPerSecond()));
+        writer.write("Time per phase (ms): " + getPhaseMillis());
+        writer.write("Measures per type: " + measuresPerType);
+        writer.write("Failed measures per reason: " + getFailedMeasuresPerReason());
+        writer.write("Allocated by the processing threads: " + allocated(getAllocatedBytes()));
+    }
+
+    private double perSecondOfImport(final long count) {
+        return perSecond(count, phaseNanos[Phase.IMPORT.ordinal()]);
+    }
+
+    private static double perSecond(final long count, final long nanos) {
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    private static String allocated(final long allocatedBytes) {
+        return allocatedBytes < 0 ? "not measured" : String.format("%.1f MB", allocatedBytes / MB);
+    }
+}
@@ -0,0 +1,75 @@
+package com.gloogie.mshpoa.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of the imports, registered in the platform MBean server under
+ * ImportMetrics.OBJECT_NAME
+ */
+public interface ImportMetricsMXBean
+{
+    /**
+     * @return the number of processed files, including the files read from the cache and the failed files
+     */
+    long getFiles();
+
+    /**
+     * @return the number of files whose stats were read from the cache
+     */
+    long getCachedFiles();
+
+    /**
+     * @return the number of files which could not be processed
+     */
+    long getFailedFiles();
+
+    /**
+     * @return the total size in bytes of the imported files
+     */
+    long getBytes();
+
+    /**
+     * @return the number of parsed lines of the imported files, comments and blank lines excluded
+     */
+    long getLines();
+
+    /**
+     * @return the number of imported stations
+     */
+    long getStations();
+
+    /**
+     * @return the number of imported measures per type code
+     */
+    Map<String, Long> getMeasuresPerType();
+
+    /**
+     * @return the number of failed measures per reason
+     */
+    Map<String, Long> getFailedMeasuresPerReason();
+
+    /**
+     * @return the time spent in each phase in milliseconds, summed over the files
+     */
+    Map<String, Long> getPhaseMillis();
+
+    /**
+     * @return the number of bytes imported per second of the import phase
+     */
+    double getBytesPerSecond();
+
+    /**
+     * @return the number of lines parsed per second of the import phase
+     */
+    double getLinesPerSecond();
+
+    /**
+     * @return the number of bytes allocated by the threads processing the files, -1 if it is not measured
+     */
+    long getAllocatedBytes();
+
+    /**
+     * Reset all the metrics
+     */
+    void reset();
+}
@@ -0,0 +1,24 @@
+package com.gloogie.mshpoa.metrics;
+
+/**
+ * Enum for the phases of the processing of a file
+ */
+public enum Phase
+{
+    /**
+     * Computation of the key of the file and lookup or store of its stats in the cache
+     */
+    CACHE,
+    /**
+     * Reading and parsing of the file, the stats being aggregated by the sinks in the same single pass
+     */
+    IMPORT,
+    /**
+     * Computation of the stats of the file from the aggregated values
+     */
+    STATS,
+    /**
+     * Writing of the report of the file
+     */
+    REPORT
+}
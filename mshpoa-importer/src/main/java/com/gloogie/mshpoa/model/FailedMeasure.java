@@ -1,14 +1,78 @@
 package com.gloogie.mshpoa.model;
 
 /**
- * Model for measures of sensors
+ * Model for measures of sensors which could not be parsed.
+ * <p>
+ * A failed measure only records the reason of the failure and where it is in the source. The message, and the
+ * exception holding it, are built on demand.
  */
 public class FailedMeasure
 {
+    private FailureReason reason;
+    private Object[] arguments = new Object[0];
+    private long lineNumber;
+    private long offset;
     private Exception exception;
     private String value;
 
+    public FailureReason getReason() {
+        return reason;
+    }
+
+    public void setReason(final FailureReason reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * @return the arguments of the message template of the reason
+     */
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    public void setArguments(final Object... arguments) {
+        this.arguments = arguments;
+    }
+
+    /**
+     * @return the number of the line of the measure in the source, starting at 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public void setLineNumber(final long lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * @return the position in bytes of the line of the measure in the source
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(final long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * @return the message explaining the failure
+     */
+    public String getMessage() {
+        if (exception != null) {
+            return exception.getMessage();
+        }
+        return reason == null ? null : String.format(reason.getTemplate(), arguments);
+    }
+
+    /**
+     * @return the exception of the failure, built from the reason without stack trace if it was not set
+     */
     public Exception getException() {
+        if (exception == null && reason != null) {
+            exception = new FailedMeasureException(getMessage());
+        }
         return exception;
     }
 
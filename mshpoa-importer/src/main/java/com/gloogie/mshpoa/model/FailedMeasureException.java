@@ -0,0 +1,11 @@
+package com.gloogie.mshpoa.model;
+
+/**
+ * Exception of a failed measure, built without stack trace as a source may have many failed measures
+ */
+public class FailedMeasureException extends Exception
+{
+    public FailedMeasureException(final String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,26 @@
+package com.gloogie.mshpoa.model;
+
+/**
+ * Enum for the reasons of failed measures, with the template of their message
+ */
+public enum FailureReason
+{
+    UNSUPPORTED_TYPE("Unsupported measure type: %s"),
+    WRONG_NUMBER_OF_FIELDS(
+        "The line [%s] is not a valid line for the measure of type %s. Expected number of fields was %d, actual number is %d"),
+    INVALID_VALUE("Value of measure [%s] in the line [%s] is not a valid double"),
+    INVALID_DATE("Date of measure [%s] in the line [%s] is not a valid date (Expected format is %s)");
+
+    private final String template;
+
+    FailureReason(final String template) {
+        this.template = template;
+    }
+
+    /**
+     * @return the template of the message, to format with the arguments of the failure
+     */
+    public String getTemplate() {
+        return template;
+    }
+}
@@ -7,8 +7,10 @@ import java.util.Date;
  */
 public class Measure
 {
+    public static final long NO_DATE = Long.MIN_VALUE;
+
     private MeasureType type;
-    private Date date;
+    private long dateMillis = NO_DATE;
     private Double value;
     private String unit;
 
@@ -21,11 +23,22 @@ public class Measure
     }
 
     public Date getDate() {
-        return date;
+        return dateMillis == NO_DATE ? null : new Date(dateMillis);
     }
 
     public void setDate(final Date date) {
-        this.date = date;
+        this.dateMillis = date == null ? NO_DATE : date.getTime();
+    }
+
+    /**
+     * @return the date as milliseconds since the epoch, NO_DATE if the measure has no date
+     */
+    public long getDateMillis() {
+        return dateMillis;
+    }
+
+    public void setDateMillis(final long dateMillis) {
+        this.dateMillis = dateMillis;
     }
 
     public Double getValue() {
@@ -0,0 +1,265 @@
+package com.gloogie.mshpoa.model;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar store of the measures of a weather station.
+ * <p>
+ * Each measure is a row of primitive columns: the index of its type, its value, its date and the index of its unit.
+ * The types and units are dictionary encoded, as a station only has a few distinct ones. A measure takes about 22
+ * bytes instead of a Measure object with its boxed value, and the stats can scan the columns without any object.
+ * <p>
+ * The rows keep the order in which the measures were added. The store is not thread-safe.
+ */
+public final class MeasureColumns
+{
+    public static final int NO_UNIT = -1;
+    public static final int NO_TYPE = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<MeasureType> types = new ArrayList<>();
+    private final List<String> units = new ArrayList<>();
+    private final Map<String, Integer> unitIndexes = new HashMap<>();
+
+    private short[] typeIndexes;
+    private double[] values;
+    private long[] dates;
+    private int[] unitIndexesPerRow;
+    private int size;
+
+    /**
+     * Constructor for MeasureColumns
+     */
+    public MeasureColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor for MeasureColumns
+     *
+     * @param capacity initial number of measures which can be stored without growing the columns
+     */
+    public MeasureColumns(final int capacity) {
+        Validate.isTrue(capacity >= 0, "Capacity cannot be negative");
+        typeIndexes = new short[capacity];
+        values = new double[capacity];
+        dates = new long[capacity];
+        unitIndexesPerRow = new int[capacity];
+    }
+
+    /**
+     * Build the columns of a list of measures
+     *
+     * @param measures list of measures
+     * @return the columns holding the measures
+     */
+    public static MeasureColumns of(final List<Measure> measures) {
+        Validate.notNull(measures, "List of measures cannot be null");
+        final MeasureColumns columns = new MeasureColumns(measures.size());
+        for (final Measure measure : measures) {
+            columns.add(measure);
+        }
+        return columns;
+    }
+
+    /**
+     * Add a measure
+     *
+     * @param type       type of the measure, may be null
+     * @param value      value of the measure, NaN if it has no value
+     * @param dateMillis date of the measure as milliseconds since the epoch, Measure.NO_DATE if it has no date
+     * @param unit       unit of the measure, may be null
+     */
+    public void add(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        if (size == values.length) {
+            grow();
+        }
+        typeIndexes[size] = (short) typeIndex(type);
+        values[size] = value;
+        dates[size] = dateMillis;
+        unitIndexesPerRow[size] = unitIndex(unit);
+        size++;
+    }
+
+    /**
+     * Add a measure
+     *
+     * @param measure measure to add, a null value is stored as NaN
+     */
+    public void add(final Measure measure) {
+        Validate.notNull(measure, "Measure cannot be null");
+        add(measure.getType(), measure.getValue() == null ? Double.NaN : measure.getValue(), measure.getDateMillis(),
+            measure.getUnit());
+    }
+
+    /**
+     * @return the number of measures
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the distinct types of the measures, the index of a type in this list is its type index
+     */
+    public List<MeasureType> getTypes() {
+        return types;
+    }
+
+    /**
+     * Find the index of the type which has the specified code
+     *
+     * @param code code of the type
+     * @return the index of the type, NO_TYPE if no measure has this type
+     */
+    public int indexOfType(final String code) {
+        for (int i = 0; i < types.size(); i++) {
+            if (code.equals(types.get(i).getCode())) {
+                return i;
+            }
+        }
+        return NO_TYPE;
+    }
+
+    /**
+     * @param row index of the measure
+     * @return the index of the type of the measure, NO_TYPE if it has no type
+     */
+    public int getTypeIndex(final int row) {
+        checkRow(row);
+        return typeIndexes[row];
+    }
+
+    /**
+     * @param row index of the measure
+     * @return the type of the measure, null if it has no type
+     */
+    public MeasureType getType(final int row) {
+        final int typeIndex = getTypeIndex(row);
+        return typeIndex == NO_TYPE ? null : types.get(typeIndex);
+    }
+
+    /**
+     * @param row index of the measure
+     * @return the value of the measure, NaN if it has no value
+     */
+    public double getValue(final int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    /**
+     * @param row index of the measure
+     * @return the date of the measure as milliseconds since the epoch, Measure.NO_DATE if it has no date
+     */
+    public long getDateMillis(final int row) {
+        checkRow(row);
+        return dates[row];
+    }
+
+    /**
+     * @param row index of the measure
+     * @return the unit of the measure, null if it has no unit
+     */
+    public String getUnit(final int row) {
+        checkRow(row);
+        final int unitIndex = unitIndexesPerRow[row];
+        return unitIndex == NO_UNIT ? null : units.get(unitIndex);
+    }
+
+    /**
+     * Build a Measure object for a measure
+     *
+     * @param row index of the measure
+     * @return a new measure holding the values of the row
+     */
+    public Measure getMeasure(final int row) {
+        final Measure measure = new Measure();
+        measure.setType(getType(row));
+        measure.setValue(Double.isNaN(values[row]) ? null : values[row]);
+        measure.setDateMillis(dates[row]);
+        measure.setUnit(getUnit(row));
+        return measure;
+    }
+
+    /**
+     * @return a read-only view of the measures, which builds a Measure object for each accessed measure
+     */
+    public List<Measure> asList() {
+        return new AbstractList<Measure>()
+        {
+            @Override
+            public Measure get(final int index) {
+                return getMeasure(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Shrink the columns to the number of measures, once all the measures are added
+     */
+    public void trimToSize() {
+        if (size < values.length) {
+            typeIndexes = Arrays.copyOf(typeIndexes, size);
+            values = Arrays.copyOf(values, size);
+            dates = Arrays.copyOf(dates, size);
+            unitIndexesPerRow = Arrays.copyOf(unitIndexesPerRow, size);
+        }
+    }
+
+    private int typeIndex(final MeasureType type) {
+        if (type == null) {
+            return NO_TYPE;
+        }
+        // Types are shared by all the measures of an import, so they are compared by reference first
+        for (int i = 0; i < types.size(); i++) {
+            final MeasureType known = types.get(i);
+            if (known == type || known.getCode() != null && known.getCode().equals(type.getCode())) {
+                return i;
+            }
+        }
+        Validate.validState(types.size() < Short.MAX_VALUE, "Too many measure types for a station");
+        types.add(type);
+        return types.size() - 1;
+    }
+
+    private int unitIndex(final String unit) {
+        if (unit == null) {
+            return NO_UNIT;
+        }
+        final Integer index = unitIndexes.get(unit);
+        if (index != null) {
+            return index;
+        }
+        units.add(unit);
+        unitIndexes.put(unit, units.size() - 1);
+        return units.size() - 1;
+    }
+
+    private void grow() {
+        final int capacity = Math.max(INITIAL_CAPACITY, values.length + (values.length >> 1));
+        typeIndexes = Arrays.copyOf(typeIndexes, capacity);
+        values = Arrays.copyOf(values, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        unitIndexesPerRow = Arrays.copyOf(unitIndexesPerRow, capacity);
+    }
+
+    private void checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Measure " + row + " does not exist, there are " + size + " measures");
+        }
+    }
+}
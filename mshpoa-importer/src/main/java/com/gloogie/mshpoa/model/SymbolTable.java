@@ -0,0 +1,219 @@
+package com.gloogie.mshpoa.model;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+
+/**
+ * Table of symbols, like station names and units, which gives each distinct symbol a dense id 0, 1, 2... in the order
+ * the symbols are added, and a single String instance.
+ * <p>
+ * It is an open addressing table with linear probing on the hashes of the symbols, which are the hashes of String: a
+ * symbol is looked up in place in a line, and a String is only created the first time the symbol is seen. The heap
+ * used by the symbols is then proportional to the number of distinct symbols, and two symbols of the same table are
+ * equal if and only if they have the same id, or are the same String instance.
+ * <p>
+ * The table is never cleared and has no bound: it is meant to live as long as the parse of a source, and to be dropped
+ * with it, so that the distinct values of a source are not kept for the life of the process.
+ * <p>
+ * The table is thread-safe. A thread which looks up many symbols should do it through its own Cache, which keeps the
+ * last symbols without locking the table.
+ */
+public final class SymbolTable
+{
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int EMPTY = -1;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private String[] symbols = new String[INITIAL_CAPACITY / 2];
+    private int size;
+
+    /**
+     * Constructor for SymbolTable
+     */
+    public SymbolTable() {
+        Arrays.fill(ids, EMPTY);
+    }
+
+    /**
+     * Give the id of the specified symbol, adding the symbol if it is not in the table yet
+     *
+     * @param symbol symbol to look up
+     * @return the id of the symbol
+     */
+    public int intern(final String symbol) {
+        Validate.notNull(symbol, "Symbol cannot be null");
+        return intern(symbol, 0, symbol.length(), symbol.hashCode());
+    }
+
+    /**
+     * Give the id of a symbol read in place in a sequence of characters, adding the symbol if it is not in the table
+     * yet
+     *
+     * @param chars sequence of characters holding the symbol
+     * @param start position of the first character of the symbol
+     * @param end   position after the last character of the symbol
+     * @return the id of the symbol
+     */
+    public int intern(final CharSequence chars, final int start, final int end) {
+        Validate.notNull(chars, "Characters cannot be null");
+        return intern(chars, start, end, hash(chars, start, end));
+    }
+
+    /**
+     * @param id id of a symbol
+     * @return the symbol which has this id
+     */
+    public synchronized String get(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Symbol " + id + " does not exist, there are " + size + " symbols");
+        }
+        return symbols[id];
+    }
+
+    /**
+     * @return the number of distinct symbols
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return a new cache of the symbols of this table, to be used by a single thread
+     */
+    public Cache newCache() {
+        return new Cache();
+    }
+
+    private synchronized int intern(final CharSequence chars, final int start, final int end, final int hash) {
+        final int mask = ids.length - 1;
+        int slot = mix(hash) & mask;
+        while (ids[slot] != EMPTY) {
+            final String symbol = symbols[ids[slot]];
+            // The symbols given back by the table are found by reference, when the whole symbol is looked up
+            if (symbol == chars && start == 0 && end == symbol.length()
+                || symbol.hashCode() == hash && matches(symbol, chars, start, end)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Reuse the String of the caller when it is the whole symbol
+        final String symbol = chars instanceof String && start == 0 && end == chars.length()
+                              ? (String) chars : chars.subSequence(start, end).toString();
+        ids[slot] = size;
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+        }
+        symbols[size] = symbol;
+        size++;
+
+        // Keep the load factor under 1/2 so that the probe sequences stay short
+        if (size * 2 > ids.length) {
+            rehash(ids.length * 2);
+        }
+        return size - 1;
+    }
+
+    private void rehash(final int capacity) {
+        ids = new int[capacity];
+        Arrays.fill(ids, EMPTY);
+        final int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(symbols[i].hashCode()) & mask;
+            while (ids[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = i;
+        }
+    }
+
+    /**
+     * @return the hash of the characters, equal to the hash of the String holding them
+     */
+    private static int hash(final CharSequence chars, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int mix(final int hash) {
+        // The hashes of short symbols differ in their low bits only by a few values, spread them over the table
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(final String symbol, final CharSequence chars, final int start, final int end) {
+        if (symbol.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < symbol.length(); i++) {
+            if (symbol.charAt(i) != chars.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cache of the last symbols looked up by a thread in the table, indexed by their hash: the symbols which come
+     * back often, like the units, are found without locking the table. A cache is not thread-safe.
+     */
+    public final class Cache
+    {
+        private static final int CACHE_SIZE = 256;
+
+        private final String[] symbols = new String[CACHE_SIZE];
+        private final int[] ids = new int[CACHE_SIZE];
+
+        private Cache() {
+        }
+
+        /**
+         * Give the String instance of a symbol read in place in a sequence of characters, adding the symbol to the
+         * table if it is not in it yet
+         *
+         * @param chars sequence of characters holding the symbol
+         * @param start position of the first character of the symbol
+         * @param end   position after the last character of the symbol
+         * @return the symbol, the same instance for all the equal symbols of the table
+         */
+        public String symbol(final CharSequence chars, final int start, final int end) {
+            return symbols[lookup(chars, start, end)];
+        }
+
+        /**
+         * Give the id of a symbol read in place in a sequence of characters, adding the symbol to the table if it is
+         * not in it yet
+         *
+         * @param chars sequence of characters holding the symbol
+         * @param start position of the first character of the symbol
+         * @param end   position after the last character of the symbol
+         * @return the id of the symbol in the table
+         */
+        public int intern(final CharSequence chars, final int start, final int end) {
+            return ids[lookup(chars, start, end)];
+        }
+
+        /**
+         * @return the table of the cache
+         */
+        public SymbolTable getTable() {
+            return SymbolTable.this;
+        }
+
+        private int lookup(final CharSequence chars, final int start, final int end) {
+            final int hash = hash(chars, start, end);
+            final int slot = mix(hash) & (CACHE_SIZE - 1);
+            final String cached = symbols[slot];
+            if (cached == null || cached.hashCode() != hash || !matches(cached, chars, start, end)) {
+                final int id = SymbolTable.this.intern(chars, start, end, hash);
+                symbols[slot] = get(id);
+                ids[slot] = id;
+            }
+            return slot;
+        }
+    }
+}
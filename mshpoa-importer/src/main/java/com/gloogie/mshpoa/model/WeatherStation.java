@@ -1,5 +1,7 @@
 package com.gloogie.mshpoa.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -8,8 +10,10 @@ import java.util.List;
 public class WeatherStation
 {
     private String name;
+    private MeasureColumns measureColumns;
     private List<Measure> measures;
     private List<FailedMeasure> failedMeasures;
+    private long numberOfFailedMeasures;
 
     public String getName() {
         return name;
@@ -19,19 +23,68 @@ public class WeatherStation
         this.name = name;
     }
 
+    /**
+     * The measures are stored in columns: the Measure objects are built on the first call, which costs an object per
+     * measure, and the same list is returned by the next calls until the measures are set again. Prefer
+     * getMeasureColumns to read many stations.
+     *
+     * @return a read-only list of the measures, whose changes are not seen by getMeasureColumns
+     */
     public List<Measure> getMeasures() {
+        if (measures == null && measureColumns != null) {
+            final List<Measure> list = new ArrayList<>(measureColumns.size());
+            for (int i = 0; i < measureColumns.size(); i++) {
+                list.add(measureColumns.getMeasure(i));
+            }
+            measures = Collections.unmodifiableList(list);
+        }
         return measures;
     }
 
+    /**
+     * Set the measures, which are copied in columns
+     *
+     * @param measures the measures
+     */
     public void setMeasures(final List<Measure> measures) {
-        this.measures = measures;
+        this.measureColumns = measures == null ? null : MeasureColumns.of(measures);
+        this.measures = null;
+    }
+
+    /**
+     * @return the measures stored in columns
+     */
+    public MeasureColumns getMeasureColumns() {
+        return measureColumns;
+    }
+
+    public void setMeasureColumns(final MeasureColumns measureColumns) {
+        this.measureColumns = measureColumns;
+        this.measures = null;
     }
 
     public List<FailedMeasure> getFailedMeasures() {
         return failedMeasures;
     }
 
+    /**
+     * Set the recorded failed measures, and their number as the number of failed measures
+     *
+     * @param failedMeasures the recorded failed measures
+     */
     public void setFailedMeasures(final List<FailedMeasure> failedMeasures) {
         this.failedMeasures = failedMeasures;
+        this.numberOfFailedMeasures = failedMeasures == null ? 0 : failedMeasures.size();
+    }
+
+    /**
+     * @return the number of failed measures, which may be greater than the number of recorded failed measures
+     */
+    public long getNumberOfFailedMeasures() {
+        return numberOfFailedMeasures;
+    }
+
+    public void setNumberOfFailedMeasures(final long numberOfFailedMeasures) {
+        this.numberOfFailedMeasures = numberOfFailedMeasures;
     }
 }
@@ -0,0 +1,321 @@
+package com.gloogie.mshpoa.report;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureColumns;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.SymbolTable;
+import com.gloogie.mshpoa.model.WeatherStation;
+import org.apache.commons.lang3.Validate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aggregation of the values of the measures by group, a group being a combination of a station, a type and a day.
+ * <p>
+ * The key of a group is packed in a long (station index, type index and epoch day) and mapped to the index of the
+ * group by a primitive hash map; the count, min, max and sum of the groups are kept in primitive arrays. Aggregating a
+ * measure is a lookup in the map without any object creation, so the cost is linear in the number of measures.
+ * <p>
+ * The aggregation can be filled as a sink while a source is imported, or from already imported stations. It is not
+ * thread-safe.
+ */
+public final class GroupBy implements MeasureSink
+{
+    public static final int MAX_STATIONS = 1 << 24;
+    public static final int MAX_TYPES = 1 << 8;
+
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int INITIAL_GROUPS = 64;
+
+    private final boolean byStation;
+    private final boolean byType;
+    private final boolean byDay;
+    private final ZoneId zone;
+
+    private final SymbolTable stations = new SymbolTable();
+    private final List<MeasureType> types = new ArrayList<>();
+    private final Map<String, Integer> typeIndexes = new HashMap<>();
+    private final LongIndexMap groups = new LongIndexMap();
+
+    private long[] counts = new long[INITIAL_GROUPS];
+    private double[] mins = new double[INITIAL_GROUPS];
+    private double[] maxs = new double[INITIAL_GROUPS];
+    private double[] sums = new double[INITIAL_GROUPS];
+
+    private int currentStation;
+    private MeasureType lastType;
+    private int lastTypeIndex;
+    private long lastDateMillis = Measure.NO_DATE;
+    private int lastDay = NO_DAY;
+
+    /**
+     * Constructor for GroupBy, using the default time zone to find the day of the measures
+     *
+     * @param dimensions dimensions of the groups, no dimension gives a single group
+     */
+    public GroupBy(final Set<GroupDimension> dimensions) {
+        this(dimensions, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructor for GroupBy
+     *
+     * @param dimensions dimensions of the groups, no dimension gives a single group
+     * @param zone       time zone in which the day of the measures is found
+     */
+    public GroupBy(final Set<GroupDimension> dimensions, final ZoneId zone) {
+        Validate.notNull(dimensions, "Dimensions cannot be null");
+        Validate.notNull(zone, "Zone cannot be null");
+        this.byStation = dimensions.contains(GroupDimension.STATION);
+        this.byType = dimensions.contains(GroupDimension.TYPE);
+        this.byDay = dimensions.contains(GroupDimension.DAY);
+        this.zone = zone;
+    }
+
+    /**
+     * @return the dimensions of the groups
+     */
+    public Set<GroupDimension> getDimensions() {
+        final Set<GroupDimension> dimensions = EnumSet.noneOf(GroupDimension.class);
+        if (byStation) {
+            dimensions.add(GroupDimension.STATION);
+        }
+        if (byType) {
+            dimensions.add(GroupDimension.TYPE);
+        }
+        if (byDay) {
+            dimensions.add(GroupDimension.DAY);
+        }
+        return dimensions;
+    }
+
+    @Override
+    public void onStationStart(final String name, final int declaredMeasures) {
+        if (!byStation) {
+            return;
+        }
+        // Checked before the station is added, so that the table does not grow past the limit
+        Validate.validState(stations.size() < MAX_STATIONS, "Too many stations to group by station");
+        currentStation = stations.intern(name);
+    }
+
+    @Override
+    public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        long key = (long) currentStation << 40;
+        if (byType) {
+            key |= (long) typeIndex(type) << 32;
+        }
+        if (byDay) {
+            key |= day(dateMillis) & 0xFFFFFFFFL;
+        }
+
+        final int group = groups.indexOf(key);
+        if (group == counts.length) {
+            grow();
+        }
+        if (counts[group] == 0) {
+            mins[group] = value;
+            maxs[group] = value;
+        } else if (value < mins[group]) {
+            mins[group] = value;
+        } else if (value > maxs[group]) {
+            maxs[group] = value;
+        }
+        counts[group]++;
+        sums[group] += value;
+    }
+
+    @Override
+    public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+        // Nothing to do, the failed measures have no value
+    }
+
+    @Override
+    public void onStationEnd() {
+        // Nothing to do, the station is replaced at the start of the next one
+    }
+
+    /**
+     * Add the measures of an imported station
+     *
+     * @param station the station
+     */
+    public void addStation(final WeatherStation station) {
+        Validate.notNull(station, "Station cannot be null");
+        final MeasureColumns columns = station.getMeasureColumns();
+        onStationStart(station.getName(), columns == null ? 0 : columns.size());
+        if (columns != null) {
+            for (int i = 0; i < columns.size(); i++) {
+                onMeasure(columns.getType(i), columns.getValue(i), columns.getDateMillis(i), null);
+            }
+        }
+        onStationEnd();
+    }
+
+    /**
+     * Build the stats of the groups, ordered by station name, type code and day
+     *
+     * @return the stats of the groups
+     */
+    public List<GroupStats> getGroups() {
+        final List<GroupStats> result = new ArrayList<>(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            final long key = groups.keyAt(i);
+            final String station = byStation ? stations.get((int) (key >>> 40)) : null;
+            final MeasureType type = byType ? types.get((int) (key >>> 32) & (MAX_TYPES - 1)) : null;
+            final int day = (int) key;
+            final LocalDate date = byDay && day != NO_DAY ? LocalDate.ofEpochDay(day) : null;
+            result.add(new GroupStats(station, type, date, counts[i], mins[i], maxs[i], sums[i]));
+        }
+
+        result.sort(Comparator.comparing(GroupStats::getStation, Comparator.nullsFirst(Comparator.naturalOrder()))
+                              .thenComparing(stats -> stats.getType() == null ? null : stats.getType().getCode(),
+                                             Comparator.nullsFirst(Comparator.naturalOrder()))
+                              .thenComparing(GroupStats::getDay, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Write the aggregation, to read it back with readFrom
+     *
+     * @param output output to write to
+     * @throws IOException if the aggregation cannot be written
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        output.writeBoolean(byStation);
+        output.writeBoolean(byType);
+        output.writeBoolean(byDay);
+        output.writeUTF(zone.getId());
+        output.writeInt(stations.size());
+        for (int i = 0; i < stations.size(); i++) {
+            output.writeUTF(stations.get(i));
+        }
+        output.writeInt(types.size());
+        for (final MeasureType type : types) {
+            output.writeBoolean(type != null);
+            if (type != null) {
+                output.writeUTF(String.valueOf(type.getCode()));
+                output.writeUTF(String.valueOf(type.getName()));
+            }
+        }
+        output.writeInt(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            output.writeLong(groups.keyAt(i));
+            output.writeLong(counts[i]);
+            output.writeDouble(mins[i]);
+            output.writeDouble(maxs[i]);
+            output.writeDouble(sums[i]);
+        }
+    }
+
+    /**
+     * Read an aggregation written by writeTo. The types of the groups are read as new MeasureType objects, the
+     * measures of the same codes are added to the same groups.
+     *
+     * @param input input to read from
+     * @return the aggregation
+     * @throws IOException if the aggregation cannot be read
+     */
+    public static GroupBy readFrom(final DataInput input) throws IOException {
+        final Set<GroupDimension> dimensions = EnumSet.noneOf(GroupDimension.class);
+        if (input.readBoolean()) {
+            dimensions.add(GroupDimension.STATION);
+        }
+        if (input.readBoolean()) {
+            dimensions.add(GroupDimension.TYPE);
+        }
+        if (input.readBoolean()) {
+            dimensions.add(GroupDimension.DAY);
+        }
+        final GroupBy groupBy = new GroupBy(dimensions, ZoneId.of(input.readUTF()));
+
+        final int nbStations = input.readInt();
+        for (int i = 0; i < nbStations; i++) {
+            groupBy.stations.intern(input.readUTF());
+        }
+        final int nbTypes = input.readInt();
+        for (int i = 0; i < nbTypes; i++) {
+            MeasureType type = null;
+            if (input.readBoolean()) {
+                type = new MeasureType();
+                type.setCode(input.readUTF());
+                type.setName(input.readUTF());
+            }
+            groupBy.types.add(type);
+            groupBy.typeIndexes.put(type == null ? null : type.getCode(), i);
+        }
+        final int nbGroups = input.readInt();
+        for (int i = 0; i < nbGroups; i++) {
+            final int group = groupBy.groups.indexOf(input.readLong());
+            if (group == groupBy.counts.length) {
+                groupBy.grow();
+            }
+            groupBy.counts[group] = input.readLong();
+            groupBy.mins[group] = input.readDouble();
+            groupBy.maxs[group] = input.readDouble();
+            groupBy.sums[group] = input.readDouble();
+        }
+        return groupBy;
+    }
+
+    private int typeIndex(final MeasureType type) {
+        if (type == lastType) {
+            return lastTypeIndex;
+        }
+        final String code = type == null ? null : type.getCode();
+        Integer index = typeIndexes.get(code);
+        if (index == null) {
+            Validate.validState(types.size() < MAX_TYPES, "Too many measure types to group by type");
+            index = types.size();
+            types.add(type);
+            typeIndexes.put(code, index);
+        }
+        lastType = type;
+        lastTypeIndex = index;
+        return index;
+    }
+
+    private int day(final long dateMillis) {
+        if (dateMillis == Measure.NO_DATE) {
+            return NO_DAY;
+        }
+        // A source only has a few distinct dates, and the measures of a date are often consecutive
+        if (dateMillis != lastDateMillis) {
+            final Instant instant = Instant.ofEpochMilli(dateMillis);
+            final long offsetMillis = zone.getRules().getOffset(instant).getTotalSeconds() * 1000L;
+            lastDay = (int) Math.floorDiv(dateMillis + offsetMillis, MILLIS_PER_DAY);
+            lastDateMillis = dateMillis;
+        }
+        return lastDay;
+    }
+
+    private void grow() {
+        final int capacity = counts.length * 2;
+        counts = Arrays.copyOf(counts, capacity);
+        mins = Arrays.copyOf(mins, capacity);
+        maxs = Arrays.copyOf(maxs, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+    }
+}
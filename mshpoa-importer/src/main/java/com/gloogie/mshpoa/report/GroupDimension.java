@@ -0,0 +1,11 @@
+package com.gloogie.mshpoa.report;
+
+/**
+ * Enum for the dimensions by which the measures can be grouped
+ */
+public enum GroupDimension
+{
+    STATION,
+    TYPE,
+    DAY
+}
@@ -0,0 +1,76 @@
+package com.gloogie.mshpoa.report;
+
+import com.gloogie.mshpoa.model.MeasureType;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable stats of the values of a group of measures
+ */
+public final class GroupStats
+{
+    private final String station;
+    private final MeasureType type;
+    private final LocalDate day;
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double sum;
+
+    /**
+     * Constructor for GroupStats
+     *
+     * @param station name of the station of the group, null if the measures are not grouped by station
+     * @param type    type of the group, null if the measures are not grouped by type
+     * @param day     day of the group, null if the measures are not grouped by day or have no date
+     * @param count   number of values
+     * @param min     minimum value
+     * @param max     maximum value
+     * @param sum     sum of the values
+     */
+    public GroupStats(final String station, final MeasureType type, final LocalDate day, final long count,
+                      final double min, final double max, final double sum) {
+        this.station = station;
+        this.type = type;
+        this.day = day;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    public MeasureType getType() {
+        return type;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the mean value, 0 if there is no value
+     */
+    public double getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+}
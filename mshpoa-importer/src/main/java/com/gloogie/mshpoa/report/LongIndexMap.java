@@ -0,0 +1,92 @@
+package com.gloogie.mshpoa.report;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive long keys to dense indexes 0, 1, 2... given in the order the keys are added.
+ * <p>
+ * It is an open addressing table with linear probing, which keeps the keys in a long array: looking up a key does not
+ * create any object. It is not thread-safe.
+ */
+final class LongIndexMap
+{
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int EMPTY = -1;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] indexes = new int[INITIAL_CAPACITY];
+    private long[] keysPerIndex = new long[INITIAL_CAPACITY / 2];
+    private int size;
+
+    LongIndexMap() {
+        Arrays.fill(indexes, EMPTY);
+    }
+
+    /**
+     * Give the index of the specified key, adding the key if it is not in the map yet
+     *
+     * @param key key to look up
+     * @return the index of the key
+     */
+    int indexOf(final long key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (indexes[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        indexes[slot] = size;
+        if (size == keysPerIndex.length) {
+            keysPerIndex = Arrays.copyOf(keysPerIndex, size * 2);
+        }
+        keysPerIndex[size] = key;
+        size++;
+
+        // Keep the load factor under 1/2 so that the probe sequences stay short
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return size - 1;
+    }
+
+    /**
+     * @param index index of a key
+     * @return the key which has this index
+     */
+    long keyAt(final int index) {
+        return keysPerIndex[index];
+    }
+
+    /**
+     * @return the number of keys
+     */
+    int size() {
+        return size;
+    }
+
+    private void rehash(final int capacity) {
+        keys = new long[capacity];
+        indexes = new int[capacity];
+        Arrays.fill(indexes, EMPTY);
+        final int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(keysPerIndex[i]) & mask;
+            while (indexes[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = keysPerIndex[i];
+            indexes[slot] = i;
+        }
+    }
+
+    private static int hash(final long key) {
+        // Mix the bits of the key, as the packed keys differ in a few bits only
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+}
@@ -0,0 +1,117 @@
+package com.gloogie.mshpoa.report;
+
+/**
+ * Immutable stats of the values of the measures of a type
+ */
+public final class MeasureStats
+{
+    private final String type;
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double sum;
+    private final double variance;
+    private final QuantileSketch quantiles;
+
+    /**
+     * Constructor for MeasureStats
+     *
+     * @param type      code of the measure type
+     * @param count     number of values
+     * @param min       minimum value, ignored if there is no value
+     * @param max       maximum value, ignored if there is no value
+     * @param sum       sum of the values
+     * @param variance  population variance of the values
+     * @param quantiles sketch of the quantiles of the values, which must not be modified afterwards
+     */
+    public MeasureStats(final String type, final long count, final double min, final double max, final double sum,
+                        final double variance, final QuantileSketch quantiles) {
+        this.type = type;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.variance = variance;
+        this.quantiles = quantiles;
+    }
+
+    /**
+     * Build the stats of a type which has no value
+     *
+     * @param type code of the measure type
+     * @return the empty stats
+     */
+    public static MeasureStats empty(final String type) {
+        return new MeasureStats(type, 0, Double.MAX_VALUE, Double.MIN_VALUE, 0, 0, new QuantileSketch());
+    }
+
+    /**
+     * @return the code of the measure type
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the minimum value, Double.MAX_VALUE if there is no value
+     */
+    public double getMin() {
+        return count > 0 ? min : Double.MAX_VALUE;
+    }
+
+    /**
+     * @return the maximum value, Double.MIN_VALUE if there is no value
+     */
+    public double getMax() {
+        return count > 0 ? max : Double.MIN_VALUE;
+    }
+
+    /**
+     * @return the sum of the values
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the mean value, 0 if there is no value
+     */
+    public double getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    /**
+     * @return the population variance of the values, 0 if there is no value
+     */
+    public double getVariance() {
+        return variance;
+    }
+
+    /**
+     * @return the population standard deviation of the values, 0 if there is no value
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * Give the approximate quantile of the values, within the relative accuracy of QuantileSketch
+     *
+     * @param quantile quantile between 0 and 1, 0.5 for the median
+     * @return the value of the quantile, NaN if there is no value
+     */
+    public double getQuantile(final double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        // The middle of the bucket of the extreme values may be slightly out of the range of the values
+        return Math.max(min, Math.min(max, quantiles.getQuantile(quantile)));
+    }
+}
@@ -0,0 +1,324 @@
+package com.gloogie.mshpoa.report;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch giving approximate quantiles of a stream of values with a bounded memory.
+ * <p>
+ * The values are counted in logarithmic buckets (as in DDSketch): a bucket holds the values between gamma^(i-1) and
+ * gamma^i, where gamma = (1 + a) / (1 - a) for a relative accuracy a. The quantile returned for a rank is the middle
+ * of its bucket, so it is within a relative error a of the exact quantile of the values added. Negative values are
+ * counted in a second set of buckets on their absolute value, and values whose absolute value is under
+ * MIN_INDEXABLE_VALUE are counted as zero.
+ * <p>
+ * Each set of buckets is limited to a maximum number of buckets: past it, the lowest buckets are collapsed together,
+ * which only loses the accuracy of the smallest absolute values. With the default accuracy of 1% and 2048 buckets,
+ * the collapse only happens for values spanning more than 17 orders of magnitude, and a sketch takes at most 32 KB.
+ * <p>
+ * Merging two sketches with the same accuracy gives the same sketch as adding all the values to a single one. A
+ * sketch is not thread-safe.
+ */
+public final class QuantileSketch
+{
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+    public static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final int maxBuckets;
+    private final double gamma;
+    private final double logGamma;
+    private final Buckets positive;
+    private final Buckets negative;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Constructor for QuantileSketch with the default relative accuracy and number of buckets
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * Constructor for QuantileSketch
+     *
+     * @param relativeAccuracy relative error of the quantiles, between 0 and 1 excluded
+     * @param maxBuckets       maximum number of buckets for the positive values and for the negative values
+     */
+    public QuantileSketch(final double relativeAccuracy, final int maxBuckets) {
+        Validate.isTrue(relativeAccuracy > 0 && relativeAccuracy < 1, "Relative accuracy must be between 0 and 1");
+        Validate.isTrue(maxBuckets > 0, "Maximum number of buckets must be positive");
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.positive = new Buckets(maxBuckets);
+        this.negative = new Buckets(maxBuckets);
+    }
+
+    private QuantileSketch(final QuantileSketch sketch) {
+        this.relativeAccuracy = sketch.relativeAccuracy;
+        this.maxBuckets = sketch.maxBuckets;
+        this.gamma = sketch.gamma;
+        this.logGamma = sketch.logGamma;
+        this.positive = new Buckets(sketch.positive);
+        this.negative = new Buckets(sketch.negative);
+        this.zeroCount = sketch.zeroCount;
+        this.count = sketch.count;
+    }
+
+    /**
+     * Add a value, NaN and infinite values are ignored
+     *
+     * @param value value to add
+     */
+    public void add(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        if (value > MIN_INDEXABLE_VALUE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+    }
+
+    /**
+     * Merge the values of another sketch in this one
+     *
+     * @param other sketch to merge, which is not modified
+     */
+    public void merge(final QuantileSketch other) {
+        Validate.notNull(other, "Sketch cannot be null");
+        Validate.isTrue(other.relativeAccuracy == relativeAccuracy,
+                        "Sketches with different relative accuracies cannot be merged");
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * @return an independent copy of the sketch
+     */
+    public QuantileSketch copy() {
+        return new QuantileSketch(this);
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the relative error of the quantiles
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Give the approximate quantile of the values
+     *
+     * @param quantile quantile between 0 and 1, 0.5 for the median
+     * @return the value of the quantile, within the relative accuracy, NaN if there is no value
+     */
+    public double getQuantile(final double quantile) {
+        Validate.isTrue(quantile >= 0 && quantile <= 1, "Quantile must be between 0 and 1");
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        // Rank of the value, the values being ordered from the most negative one
+        final long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = negative.size() - 1; i >= 0; i--) {
+            seen += negative.countAt(i);
+            if (seen > rank) {
+                return -value(negative.indexAt(i));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.size(); i++) {
+            seen += positive.countAt(i);
+            if (seen > rank) {
+                return value(positive.indexAt(i));
+            }
+        }
+        return value(positive.indexAt(positive.size() - 1));
+    }
+
+    /**
+     * Write the sketch, to read it back with readFrom
+     *
+     * @param output output to write to
+     * @throws IOException if the sketch cannot be written
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        output.writeDouble(relativeAccuracy);
+        output.writeInt(maxBuckets);
+        output.writeLong(zeroCount);
+        output.writeLong(count);
+        positive.writeTo(output);
+        negative.writeTo(output);
+    }
+
+    /**
+     * Read a sketch written by writeTo
+     *
+     * @param input input to read from
+     * @return the sketch
+     * @throws IOException if the sketch cannot be read
+     */
+    public static QuantileSketch readFrom(final DataInput input) throws IOException {
+        final QuantileSketch sketch = new QuantileSketch(input.readDouble(), input.readInt());
+        sketch.zeroCount = input.readLong();
+        sketch.count = input.readLong();
+        sketch.positive.readFrom(input);
+        sketch.negative.readFrom(input);
+        return sketch;
+    }
+
+    private int index(final double absoluteValue) {
+        return (int) Math.ceil(Math.log(absoluteValue) / logGamma);
+    }
+
+    private double value(final int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * Dense counts of a contiguous range of bucket indexes
+     */
+    private static final class Buckets
+    {
+        private final int maxBuckets;
+        private long[] counts;
+        private int minIndex;
+        private int size;
+
+        private Buckets(final int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+            this.counts = new long[0];
+        }
+
+        private Buckets(final Buckets buckets) {
+            this.maxBuckets = buckets.maxBuckets;
+            this.counts = Arrays.copyOf(buckets.counts, buckets.size);
+            this.minIndex = buckets.minIndex;
+            this.size = buckets.size;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int indexAt(final int position) {
+            return minIndex + position;
+        }
+
+        private long countAt(final int position) {
+            return counts[position];
+        }
+
+        private void add(final int index, final long increment) {
+            if (size == 0) {
+                minIndex = index;
+                ensureCapacity(1);
+                size = 1;
+            } else if (index < minIndex) {
+                // Collapse in the lowest bucket if the range would exceed the maximum number of buckets
+                final int newMinIndex = Math.max(index, minIndex + size - maxBuckets);
+                if (newMinIndex < minIndex) {
+                    final int shift = minIndex - newMinIndex;
+                    ensureCapacity(size + shift);
+                    System.arraycopy(counts, 0, counts, shift, size);
+                    Arrays.fill(counts, 0, shift, 0);
+                    size += shift;
+                    minIndex = newMinIndex;
+                }
+            } else if (index >= minIndex + size) {
+                // Collapse the lowest buckets if the range would exceed the maximum number of buckets
+                if (index - minIndex + 1 > maxBuckets) {
+                    collapseTo(index - maxBuckets + 1);
+                }
+                ensureCapacity(index - minIndex + 1);
+                size = index - minIndex + 1;
+            }
+            counts[Math.max(index, minIndex) - minIndex] += increment;
+        }
+
+        private void merge(final Buckets other) {
+            for (int i = 0; i < other.size; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.minIndex + i, other.counts[i]);
+                }
+            }
+        }
+
+        /**
+         * Collapse all the buckets under the specified index in the bucket of this index
+         *
+         * @param newMinIndex the new lowest index
+         */
+        private void collapseTo(final int newMinIndex) {
+            final int shift = newMinIndex - minIndex;
+            final int collapsed = Math.min(shift + 1, size);
+            long sum = 0;
+            for (int i = 0; i < collapsed; i++) {
+                sum += counts[i];
+            }
+            if (shift < size) {
+                System.arraycopy(counts, shift, counts, 0, size - shift);
+                Arrays.fill(counts, size - shift, size, 0);
+                size -= shift;
+            } else {
+                Arrays.fill(counts, 0, size, 0);
+                size = 1;
+            }
+            counts[0] = sum;
+            minIndex = newMinIndex;
+        }
+
+        private void writeTo(final DataOutput output) throws IOException {
+            output.writeInt(minIndex);
+            output.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                output.writeLong(counts[i]);
+            }
+        }
+
+        private void readFrom(final DataInput input) throws IOException {
+            minIndex = input.readInt();
+            final int newSize = input.readInt();
+            if (newSize < 0 || newSize > maxBuckets) {
+                throw new IOException("Invalid number of buckets: " + newSize);
+            }
+            counts = new long[newSize];
+            for (int i = 0; i < newSize; i++) {
+                counts[i] = input.readLong();
+            }
+            size = newSize;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity > counts.length) {
+                counts = Arrays.copyOf(counts, Math.min(maxBuckets, Math.max(capacity, counts.length * 2)));
+            }
+        }
+    }
+}
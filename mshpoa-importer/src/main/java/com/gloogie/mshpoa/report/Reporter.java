@@ -1,6 +1,7 @@
 package com.gloogie.mshpoa.report;
 
-import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.format.ReportFormat;
+import com.gloogie.mshpoa.report.format.TextFormat;
 import com.gloogie.mshpoa.writer.Writer;
 import org.apache.commons.lang3.Validate;
 
@@ -11,39 +12,52 @@ public class Reporter
 {
     private final StatsComputer statsComputer;
     private final Writer writer;
+    private final ReportFormat format;
 
     /**
-     * Constructor for Reporter
+     * Constructor for Reporter, which writes the reports as text
      *
      * @param statsComputer the stats computer which give the stats to add in the report
      * @param writer        the writer to use to write the report
      */
     public Reporter(final StatsComputer statsComputer, final Writer writer) {
+        this(statsComputer, writer, new TextFormat());
+    }
+
+    /**
+     * Constructor for Reporter
+     *
+     * @param statsComputer the stats computer which give the stats to add in the report
+     * @param writer        the writer to use to write the report
+     * @param format        the format of the report
+     */
+    public Reporter(final StatsComputer statsComputer, final Writer writer, final ReportFormat format) {
         Validate.notNull(writer, "Writer cannot be null");
         Validate.notNull(statsComputer, "Stats computer cannot be null");
+        Validate.notNull(format, "Format cannot be null");
 
         this.statsComputer = statsComputer;
         this.writer = writer;
+        this.format = format;
     }
 
+    /**
+     * Write the report of a source
+     *
+     * @param sourceName name of the source
+     */
     public void writeReport(final String sourceName) {
-        writer.write("=====================================================");
-        writer.write(String.format("REPORT OF SOURCE %s", sourceName));
-        writer.write("=====================================================");
-        writer.write(String.format("Number of weather stations: %d", statsComputer.getNumberOfWeatherStations()));
-        writer.write(String.format("Number of failed measures: %d", statsComputer.getNumberOfSensorsInError()));
-
-        for (final MeasureType type : statsComputer.getMeasureTypes()) {
-            writer.write("=====================================================");
-            writer.write(String.format("Measures of type %s:", type.getName()));
-            writer.write(String.format("Min value: %s", statsComputer.getMinValue(type.getCode())));
-            writer.write(String.format("Max value: %s", statsComputer.getMaxValue(type.getCode())));
-            writer.write(String.format("Mean value: %s", statsComputer.getMeanValue(type.getCode())));
-        }
+        writeReport(sourceName, null);
+    }
 
-        writer.write("=====================================================");
-        writer.write(String.format("END REPORT OF SOURCE %s", sourceName));
-        writer.write("=====================================================");
-        writer.write("");
+    /**
+     * Write the report of a source with the breakdown of its measures by group, and flush the writer
+     *
+     * @param sourceName name of the source
+     * @param groupBy    aggregation of the measures of the source by group, null for no breakdown
+     */
+    public void writeReport(final String sourceName, final GroupBy groupBy) {
+        format.writeReport(sourceName, statsComputer, groupBy, writer);
+        writer.flush();
     }
 }
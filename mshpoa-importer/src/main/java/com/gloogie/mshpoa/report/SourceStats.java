@@ -0,0 +1,184 @@
+package com.gloogie.mshpoa.report;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureColumns;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.WeatherStation;
+import org.apache.commons.lang3.Validate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mergeable stats of a source: number of stations, number of failed measures and an accumulator per measure type.
+ * <p>
+ * The stats can be filled as a sink while the source is imported, without keeping its stations in memory, or from
+ * already imported stations. The stats of several sources (or chunks of a source) can then be merged into aggregated
+ * stats. The stats are not thread-safe.
+ */
+public final class SourceStats implements MeasureSink
+{
+    private final Map<String, StatsAccumulator> accumulators = new LinkedHashMap<>();
+    private long numberOfWeatherStations;
+    private long numberOfFailedMeasures;
+
+    // Accumulator of the last measure type, as the measures of a type are often consecutive
+    private MeasureType lastType;
+    private StatsAccumulator lastAccumulator;
+
+    @Override
+    public void onStationStart(final String name, final int declaredMeasures) {
+        numberOfWeatherStations++;
+    }
+
+    @Override
+    public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+        if (type == null) {
+            return;
+        }
+        if (type != lastType) {
+            lastAccumulator = accumulator(type.getCode());
+            lastType = type;
+        }
+        lastAccumulator.add(value);
+    }
+
+    @Override
+    public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+        numberOfFailedMeasures++;
+    }
+
+    @Override
+    public void onStationEnd() {
+        // Nothing to do, the stats do not depend on the stations
+    }
+
+    /**
+     * Add the measures of an imported station
+     *
+     * @param station the station
+     */
+    public void addStation(final WeatherStation station) {
+        Validate.notNull(station, "Station cannot be null");
+        numberOfWeatherStations++;
+        numberOfFailedMeasures += station.getNumberOfFailedMeasures();
+
+        final MeasureColumns columns = station.getMeasureColumns();
+        if (columns == null) {
+            return;
+        }
+
+        // Map the type indexes of the station to the accumulators
+        final List<MeasureType> types = columns.getTypes();
+        final StatsAccumulator[] accumulatorsPerTypeIndex = new StatsAccumulator[types.size()];
+        for (int i = 0; i < types.size(); i++) {
+            accumulatorsPerTypeIndex[i] = accumulator(types.get(i).getCode());
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            final int typeIndex = columns.getTypeIndex(i);
+            if (typeIndex != MeasureColumns.NO_TYPE) {
+                accumulatorsPerTypeIndex[typeIndex].add(columns.getValue(i));
+            }
+        }
+    }
+
+    /**
+     * Merge the stats of another source in these stats
+     *
+     * @param other stats to merge, which are not modified
+     */
+    public void merge(final SourceStats other) {
+        Validate.notNull(other, "Source stats cannot be null");
+        numberOfWeatherStations += other.numberOfWeatherStations;
+        numberOfFailedMeasures += other.numberOfFailedMeasures;
+        for (final Map.Entry<String, StatsAccumulator> entry : other.accumulators.entrySet()) {
+            accumulator(entry.getKey()).merge(entry.getValue());
+        }
+    }
+
+    /**
+     * @return the number of weather stations
+     */
+    public long getNumberOfWeatherStations() {
+        return numberOfWeatherStations;
+    }
+
+    /**
+     * @return the number of failed measures
+     */
+    public long getNumberOfFailedMeasures() {
+        return numberOfFailedMeasures;
+    }
+
+    /**
+     * @return the accumulators per type code, for all the types which have measures
+     */
+    public Map<String, StatsAccumulator> getAccumulators() {
+        return Collections.unmodifiableMap(accumulators);
+    }
+
+    /**
+     * Build the immutable stats of each type
+     *
+     * @return the stats per type code, for all the types which have measures
+     */
+    public Map<String, MeasureStats> computeStats() {
+        final Map<String, MeasureStats> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, StatsAccumulator> entry : accumulators.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toMeasureStats(entry.getKey()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Write the stats, to read them back with readFrom
+     *
+     * @param output output to write to
+     * @throws IOException if the stats cannot be written
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        output.writeLong(numberOfWeatherStations);
+        output.writeLong(numberOfFailedMeasures);
+        output.writeInt(accumulators.size());
+        for (final Map.Entry<String, StatsAccumulator> entry : accumulators.entrySet()) {
+            output.writeUTF(entry.getKey());
+            entry.getValue().writeTo(output);
+        }
+    }
+
+    /**
+     * Read stats written by writeTo
+     *
+     * @param input input to read from
+     * @return the stats
+     * @throws IOException if the stats cannot be read
+     */
+    public static SourceStats readFrom(final DataInput input) throws IOException {
+        final SourceStats stats = new SourceStats();
+        stats.numberOfWeatherStations = input.readLong();
+        stats.numberOfFailedMeasures = input.readLong();
+        final int nbTypes = input.readInt();
+        for (int i = 0; i < nbTypes; i++) {
+            final String type = input.readUTF();
+            stats.accumulators.put(type, StatsAccumulator.readFrom(input));
+        }
+        return stats;
+    }
+
+    private StatsAccumulator accumulator(final String type) {
+        StatsAccumulator accumulator = accumulators.get(type);
+        if (accumulator == null) {
+            accumulator = new StatsAccumulator();
+            accumulators.put(type, accumulator);
+        }
+        return accumulator;
+    }
+}
@@ -0,0 +1,178 @@
+package com.gloogie.mshpoa.report;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mergeable accumulator of the values of a measure type: count, sum, min, max, the mean and variance with the
+ * Welford algorithm, which stays accurate where a sum of squares would not, and a sketch of the quantiles.
+ * <p>
+ * Accumulators filled independently (per file, chunk or thread) can be merged in any order: merging is associative and
+ * gives the same count, sum, min and max as a single accumulator, and the same mean and variance up to rounding. An
+ * accumulator is not thread-safe.
+ */
+public final class StatsAccumulator
+{
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2;
+    private QuantileSketch quantiles = new QuantileSketch();
+
+    /**
+     * Add a value, NaN values are ignored
+     *
+     * @param value value to add
+     */
+    public void add(final double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        final double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        quantiles.add(value);
+    }
+
+    /**
+     * Merge the values of another accumulator in this one
+     *
+     * @param other accumulator to merge, which is not modified
+     */
+    public void merge(final StatsAccumulator other) {
+        Validate.notNull(other, "Accumulator cannot be null");
+        if (other.count == 0) {
+            return;
+        }
+        quantiles.merge(other.quantiles);
+        if (count == 0) {
+            count = other.count;
+            sum = other.sum;
+            min = other.min;
+            max = other.max;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+
+        // Parallel variant of the Welford algorithm (Chan et al.)
+        final long total = count + other.count;
+        final double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sum of the values
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the minimum value, positive infinity if there is no value
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the maximum value, negative infinity if there is no value
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean value, 0 if there is no value
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the population variance of the values, 0 if there is no value
+     */
+    public double getVariance() {
+        return count > 0 ? m2 / count : 0;
+    }
+
+    /**
+     * Give the approximate quantile of the values
+     *
+     * @param quantile quantile between 0 and 1
+     * @return the value of the quantile, within the relative accuracy of QuantileSketch, NaN if there is no value
+     */
+    public double getQuantile(final double quantile) {
+        return quantiles.getQuantile(quantile);
+    }
+
+    /**
+     * Build the immutable stats of the values
+     *
+     * @param type code of the measure type
+     * @return the stats
+     */
+    public MeasureStats toMeasureStats(final String type) {
+        return new MeasureStats(type, count, min, max, sum, getVariance(), quantiles.copy());
+    }
+
+    /**
+     * Write the accumulator, to read it back with readFrom
+     *
+     * @param output output to write to
+     * @throws IOException if the accumulator cannot be written
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        output.writeLong(count);
+        output.writeDouble(sum);
+        output.writeDouble(min);
+        output.writeDouble(max);
+        output.writeDouble(mean);
+        output.writeDouble(m2);
+        quantiles.writeTo(output);
+    }
+
+    /**
+     * Read an accumulator written by writeTo
+     *
+     * @param input input to read from
+     * @return the accumulator
+     * @throws IOException if the accumulator cannot be read
+     */
+    public static StatsAccumulator readFrom(final DataInput input) throws IOException {
+        final StatsAccumulator accumulator = new StatsAccumulator();
+        accumulator.count = input.readLong();
+        accumulator.sum = input.readDouble();
+        accumulator.min = input.readDouble();
+        accumulator.max = input.readDouble();
+        accumulator.mean = input.readDouble();
+        accumulator.m2 = input.readDouble();
+        accumulator.quantiles = QuantileSketch.readFrom(input);
+        return accumulator;
+    }
+}
@@ -1,23 +1,23 @@
 package com.gloogie.mshpoa.report;
 
-import com.gloogie.mshpoa.model.Measure;
 import com.gloogie.mshpoa.model.MeasureType;
 import com.gloogie.mshpoa.model.WeatherStation;
 import org.apache.commons.lang3.Validate;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
- * Class to compute some stats on sensors measures
+ * Class to compute some stats on sensors measures. The stats of all the types are aggregated in a single pass over
+ * the measure columns of the stations, or given already aggregated, and the getters then only look them up.
  */
 public class StatsComputer
 {
     private List<MeasureType> measureTypes = new ArrayList<>();
     private List<WeatherStation> stations = new ArrayList<>();
-    private final Comparator<Measure> measureComparator = (m1, m2) -> Double.compare(m1.getValue(), m2.getValue());
+    private SourceStats sourceStats;
+    private Map<String, MeasureStats> stats;
 
     /**
      * Constructor for StatsComputer
@@ -32,6 +32,25 @@ public class StatsComputer
         this.stations = stations;
     }
 
+    private StatsComputer(final List<MeasureType> measureTypes, final SourceStats sourceStats) {
+        this.measureTypes = measureTypes;
+        this.stations = null;
+        this.sourceStats = sourceStats;
+    }
+
+    /**
+     * Build a StatsComputer on stats already aggregated, for example while importing the sources
+     *
+     * @param measureTypes list of distincts measure types
+     * @param sourceStats  stats on which the results will be computed
+     * @return the stats computer
+     */
+    public static StatsComputer of(final List<MeasureType> measureTypes, final SourceStats sourceStats) {
+        Validate.notNull(measureTypes, "List of measure types cannot be null");
+        Validate.notNull(sourceStats, "Source stats cannot be null");
+        return new StatsComputer(measureTypes, sourceStats);
+    }
+
     /**
      * @return the list of measure types
      */
@@ -45,7 +64,7 @@ public class StatsComputer
      * @return the number of weather stations
      */
     public long getNumberOfWeatherStations() {
-        return stations.size();
+        return getSourceStats().getNumberOfWeatherStations();
     }
 
     /**
@@ -54,35 +73,61 @@ public class StatsComputer
      * @return the number of failed measures
      */
     public long getNumberOfSensorsInError() {
-        long result = 0;
-        for (final WeatherStation station : stations) {
-            result += station.getFailedMeasures().size();
+        return getSourceStats().getNumberOfFailedMeasures();
+    }
+
+    /**
+     * Give the mergeable stats of the stations, aggregated in a single pass over their measures on the first call. The
+     * stations must not change after the first call.
+     *
+     * @return the stats of the stations
+     */
+    public SourceStats getSourceStats() {
+        if (sourceStats == null) {
+            final SourceStats result = new SourceStats();
+            for (final WeatherStation station : stations) {
+                result.addStation(station);
+            }
+            sourceStats = result;
         }
-        return result;
+        return sourceStats;
     }
 
     /**
-     * Compute the minimum value for measures of the specified type
+     * Compute the stats of all the measure types in a single pass over the measures. The result is computed once and
+     * then reused, so the stations must not change after the first call.
+     *
+     * @return the immutable stats per type code, for all the types which have measures
+     */
+    public Map<String, MeasureStats> computeStats() {
+        if (stats == null) {
+            stats = getSourceStats().computeStats();
+        }
+        return stats;
+    }
+
+    /**
+     * Give the stats of the specified type
      *
      * @param type measure type
-     * @return the minimum value
+     * @return the stats of the type, empty if it has no measure
      */
-    public double getMinValue(final String type) {
+    public MeasureStats getStats(final String type) {
 
         Validate.notBlank(type, "type cannot be blank");
 
-        double result = Double.MAX_VALUE;
-        for (final WeatherStation station : stations) {
-            final Optional<Measure> min = station.getMeasures()
-                                                 .stream()
-                                                 .filter(measure -> measure.getType() != null && type.equals(
-                                                     measure.getType().getCode()))
-                                                 .min(measureComparator);
-            if (min.isPresent() && min.get().getValue() < result) {
-                result = min.get().getValue();
-            }
-        }
-        return result;
+        final MeasureStats result = computeStats().get(type);
+        return result != null ? result : MeasureStats.empty(type);
+    }
+
+    /**
+     * Compute the minimum value for measures of the specified type
+     *
+     * @param type measure type
+     * @return the minimum value
+     */
+    public double getMinValue(final String type) {
+        return getStats(type).getMin();
     }
 
     /**
@@ -92,21 +137,7 @@ public class StatsComputer
      * @return the maximum value
      */
     public double getMaxValue(final String type) {
-
-        Validate.notBlank(type, "type cannot be blank");
-
-        double result = Double.MIN_VALUE;
-        for (final WeatherStation station : stations) {
-            final Optional<Measure> max = station.getMeasures()
-                                                 .stream()
-                                                 .filter(measure -> measure.getType() != null && type.equals(
-                                                     measure.getType().getCode()))
-                                                 .max(measureComparator);
-            if (max.isPresent() && max.get().getValue() > result) {
-                result = max.get().getValue();
-            }
-        }
-        return result;
+        return getStats(type).getMax();
     }
 
     /**
@@ -116,25 +147,6 @@ public class StatsComputer
      * @return the mean value
      */
     public double getMeanValue(final String type) {
-
-        Validate.notBlank(type, "type cannot be blank");
-
-        double sum = 0;
-        int count = 0;
-        for (final WeatherStation station : stations) {
-            count += station.getMeasures()
-                            .stream()
-                            .filter(measure -> measure.getType() != null && type.equals(measure.getType().getCode()))
-                            .count();
-            sum += station.getMeasures()
-                          .stream()
-                          .filter(measure -> measure.getType() != null && type.equals(measure.getType().getCode()))
-                          .mapToDouble(Measure::getValue).sum();
-        }
-        if (count > 0) {
-            return sum / count;
-        } else {
-            return 0;
-        }
+        return getStats(type).getMean();
     }
 }
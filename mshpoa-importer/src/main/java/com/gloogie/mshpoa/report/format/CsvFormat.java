@@ -0,0 +1,122 @@
+package com.gloogie.mshpoa.report.format;
+
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.GroupStats;
+import com.gloogie.mshpoa.report.MeasureStats;
+import com.gloogie.mshpoa.writer.Writer;
+
+import java.util.Set;
+
+/**
+ * Format of the reports as CSV (RFC 4180): all the records have the columns of the header, empty when they do not
+ * apply to the kind of the record. The types are written with their code, and the stats of a type without values are
+ * empty, as are the values which are not finite.
+ */
+public class CsvFormat extends RecordFormat
+{
+    public static final String HEADER = "record,source,station,type,day,stations,failed_measures,count,min,max,mean,"
+                                        + "standard_deviation,p50,p95,p99,message";
+
+    @Override
+    public void writeHeader(final Writer writer) {
+        writer.write(HEADER);
+    }
+
+    @Override
+    protected void appendSource(final StringBuilder line, final String sourceName, final long stations,
+                                final long failedMeasures) {
+        start(line, SOURCE_RECORD, sourceName);
+        // No station, type and day
+        line.append(",,,,").append(stations).append(',').append(failedMeasures);
+        // No stats and message
+        line.append(",,,,,,,,,");
+    }
+
+    @Override
+    protected void appendType(final StringBuilder line, final String sourceName, final MeasureType type,
+                              final MeasureStats stats) {
+        start(line, TYPE_RECORD, sourceName);
+        // No station
+        line.append(",,");
+        appendString(line, type.getCode());
+        // No day, stations and failed measures
+        line.append(",,,,").append(stats.getCount());
+        final boolean empty = stats.getCount() == 0;
+        appendNumber(line, stats.getMin(), empty);
+        appendNumber(line, stats.getMax(), empty);
+        appendNumber(line, stats.getMean(), empty);
+        appendNumber(line, stats.getStandardDeviation(), empty);
+        appendNumber(line, stats.getQuantile(0.5), empty);
+        appendNumber(line, stats.getQuantile(0.95), empty);
+        appendNumber(line, stats.getQuantile(0.99), empty);
+        // No message
+        line.append(',');
+    }
+
+    @Override
+    protected void appendGroup(final StringBuilder line, final String sourceName, final GroupStats group,
+                               final Set<GroupDimension> dimensions) {
+        start(line, GROUP_RECORD, sourceName);
+        line.append(',');
+        appendString(line, group.getStation());
+        line.append(',');
+        appendString(line, group.getType() == null ? null : group.getType().getCode());
+        line.append(',');
+        if (group.getDay() != null) {
+            line.append(group.getDay());
+        }
+        // No stations and failed measures
+        line.append(",,,").append(group.getCount());
+        final boolean empty = group.getCount() == 0;
+        appendNumber(line, group.getMin(), empty);
+        appendNumber(line, group.getMax(), empty);
+        appendNumber(line, group.getMean(), empty);
+        // No standard deviation, quantiles and message
+        line.append(",,,,,");
+    }
+
+    @Override
+    protected void appendError(final StringBuilder line, final String sourceName, final String message) {
+        start(line, ERROR_RECORD, sourceName);
+        // Only the message
+        line.append(",,,,,,,,,,,,,,");
+        appendString(line, message);
+    }
+
+    private static void start(final StringBuilder line, final String record, final String sourceName) {
+        line.append(record).append(',');
+        appendString(line, sourceName);
+    }
+
+    private static void appendString(final StringBuilder line, final String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            final char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static void appendNumber(final StringBuilder line, final double value, final boolean empty) {
+        line.append(',');
+        if (!empty && !Double.isNaN(value) && !Double.isInfinite(value)) {
+            line.append(value);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.gloogie.mshpoa.report.format;
+
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.GroupStats;
+import com.gloogie.mshpoa.report.MeasureStats;
+
+import java.util.Set;
+
+/**
+ * Format of the reports as JSON Lines: each record is a JSON object on its own line, with a "record" field giving its
+ * kind. The stats of a type without values are null, as are the values which are not finite.
+ */
+public class JsonLinesFormat extends RecordFormat
+{
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Override
+    protected void appendSource(final StringBuilder line, final String sourceName, final long stations,
+                                final long failedMeasures) {
+        start(line, SOURCE_RECORD, sourceName);
+        line.append(",\"stations\":").append(stations);
+        line.append(",\"failedMeasures\":").append(failedMeasures);
+        line.append('}');
+    }
+
+    @Override
+    protected void appendType(final StringBuilder line, final String sourceName, final MeasureType type,
+                              final MeasureStats stats) {
+        start(line, TYPE_RECORD, sourceName);
+        appendString(line, "type", type.getCode());
+        appendString(line, "name", type.getName());
+        line.append(",\"count\":").append(stats.getCount());
+        final boolean empty = stats.getCount() == 0;
+        appendNumber(line, "min", stats.getMin(), empty);
+        appendNumber(line, "max", stats.getMax(), empty);
+        appendNumber(line, "mean", stats.getMean(), empty);
+        appendNumber(line, "standardDeviation", stats.getStandardDeviation(), empty);
+        appendNumber(line, "p50", stats.getQuantile(0.5), empty);
+        appendNumber(line, "p95", stats.getQuantile(0.95), empty);
+        appendNumber(line, "p99", stats.getQuantile(0.99), empty);
+        line.append('}');
+    }
+
+    @Override
+    protected void appendGroup(final StringBuilder line, final String sourceName, final GroupStats group,
+                               final Set<GroupDimension> dimensions) {
+        start(line, GROUP_RECORD, sourceName);
+        if (dimensions.contains(GroupDimension.STATION)) {
+            appendString(line, "station", group.getStation());
+        }
+        if (dimensions.contains(GroupDimension.TYPE)) {
+            appendString(line, "type", group.getType() == null ? null : group.getType().getCode());
+        }
+        if (dimensions.contains(GroupDimension.DAY)) {
+            line.append(",\"day\":");
+            if (group.getDay() == null) {
+                line.append("null");
+            } else {
+                line.append('"').append(group.getDay()).append('"');
+            }
+        }
+        line.append(",\"count\":").append(group.getCount());
+        final boolean empty = group.getCount() == 0;
+        appendNumber(line, "min", group.getMin(), empty);
+        appendNumber(line, "max", group.getMax(), empty);
+        appendNumber(line, "mean", group.getMean(), empty);
+        line.append('}');
+    }
+
+    @Override
+    protected void appendError(final StringBuilder line, final String sourceName, final String message) {
+        start(line, ERROR_RECORD, sourceName);
+        appendString(line, "message", message);
+        line.append('}');
+    }
+
+    private static void start(final StringBuilder line, final String record, final String sourceName) {
+        line.append("{\"record\":\"").append(record).append('"');
+        appendString(line, "source", sourceName);
+    }
+
+    private static void appendString(final StringBuilder line, final String name, final String value) {
+        line.append(",\"").append(name).append("\":");
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    private static void appendNumber(final StringBuilder line, final String name, final double value,
+                                     final boolean empty) {
+        line.append(",\"").append(name).append("\":");
+        if (empty || Double.isNaN(value) || Double.isInfinite(value)) {
+            line.append("null");
+        } else {
+            line.append(value);
+        }
+    }
+}
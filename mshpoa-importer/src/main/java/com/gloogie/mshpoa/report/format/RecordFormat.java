@@ -0,0 +1,105 @@
+package com.gloogie.mshpoa.report.format;
+
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.GroupStats;
+import com.gloogie.mshpoa.report.MeasureStats;
+import com.gloogie.mshpoa.report.StatsComputer;
+import com.gloogie.mshpoa.writer.Writer;
+
+import java.util.Set;
+
+/**
+ * Format of the reports as records for programs, one record per line:
+ * <ul>
+ * <li>a source record, with the number of weather stations and of failed measures of the source</li>
+ * <li>a type record per measure type, with the stats of its values</li>
+ * <li>a group record per group of the breakdown, for example per station, with the stats of its values</li>
+ * <li>an error record instead of the other records when the source could not be processed</li>
+ * </ul>
+ * The fields of each record are appended to a line reused for all the records of a report, which is given to the
+ * writer once complete.
+ */
+public abstract class RecordFormat implements ReportFormat
+{
+    public static final String SOURCE_RECORD = "source";
+    public static final String TYPE_RECORD = "type";
+    public static final String GROUP_RECORD = "group";
+    public static final String ERROR_RECORD = "error";
+
+    private static final int LINE_CAPACITY = 256;
+
+    @Override
+    public void writeReport(final String sourceName, final StatsComputer statsComputer, final GroupBy groupBy,
+                            final Writer writer) {
+        final StringBuilder line = new StringBuilder(LINE_CAPACITY);
+        appendSource(line, sourceName, statsComputer.getNumberOfWeatherStations(),
+                     statsComputer.getNumberOfSensorsInError());
+        write(line, writer);
+
+        for (final MeasureType type : statsComputer.getMeasureTypes()) {
+            appendType(line, sourceName, type, statsComputer.getStats(type.getCode()));
+            write(line, writer);
+        }
+
+        if (groupBy != null) {
+            for (final GroupStats group : groupBy.getGroups()) {
+                appendGroup(line, sourceName, group, groupBy.getDimensions());
+                write(line, writer);
+            }
+        }
+    }
+
+    @Override
+    public void writeError(final String sourceName, final String message, final Writer writer) {
+        final StringBuilder line = new StringBuilder(LINE_CAPACITY);
+        appendError(line, sourceName, message);
+        write(line, writer);
+    }
+
+    /**
+     * Append the source record
+     *
+     * @param line           the line of the record, empty
+     * @param sourceName     name of the source
+     * @param stations       number of weather stations of the source
+     * @param failedMeasures number of failed measures of the source
+     */
+    protected abstract void appendSource(StringBuilder line, String sourceName, long stations, long failedMeasures);
+
+    /**
+     * Append the record of a measure type
+     *
+     * @param line       the line of the record, empty
+     * @param sourceName name of the source
+     * @param type       the measure type
+     * @param stats      the stats of the values of the type
+     */
+    protected abstract void appendType(StringBuilder line, String sourceName, MeasureType type, MeasureStats stats);
+
+    /**
+     * Append the record of a group of the breakdown
+     *
+     * @param line       the line of the record, empty
+     * @param sourceName name of the source
+     * @param group      the stats of the group
+     * @param dimensions the dimensions of the breakdown
+     */
+    protected abstract void appendGroup(StringBuilder line, String sourceName, GroupStats group,
+                                        Set<GroupDimension> dimensions);
+
+    /**
+     * Append the error record
+     *
+     * @param line       the line of the record, empty
+     * @param sourceName name of the source
+     * @param message    the message of the error
+     */
+    protected abstract void appendError(StringBuilder line, String sourceName, String message);
+
+    private static void write(final StringBuilder line, final Writer writer) {
+        writer.write(line.toString());
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.gloogie.mshpoa.report.format;
+
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.StatsComputer;
+import com.gloogie.mshpoa.writer.Writer;
+
+/**
+ * Format of the reports written by a Reporter.
+ * <p>
+ * A format must be thread-safe: the reports of several sources may be written at the same time in different writers.
+ */
+public interface ReportFormat
+{
+    /**
+     * Write what comes once before all the reports in a writer, like the header of a table. Nothing by default
+     *
+     * @param writer the writer of the reports
+     */
+    default void writeHeader(final Writer writer) {
+    }
+
+    /**
+     * Write the report of a source
+     *
+     * @param sourceName    name of the source
+     * @param statsComputer the stats of the source
+     * @param groupBy       aggregation of the measures of the source by group, null for no breakdown
+     * @param writer        the writer of the report
+     */
+    void writeReport(String sourceName, StatsComputer statsComputer, GroupBy groupBy, Writer writer);
+
+    /**
+     * Write the error which occurred instead of the report of a source. The message is written as is by default
+     *
+     * @param sourceName name of the source
+     * @param message    the message of the error
+     * @param writer     the writer of the report
+     */
+    default void writeError(final String sourceName, final String message, final Writer writer) {
+        writer.write(message);
+    }
+}
@@ -0,0 +1,72 @@
+package com.gloogie.mshpoa.report.format;
+
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.GroupStats;
+import com.gloogie.mshpoa.report.MeasureStats;
+import com.gloogie.mshpoa.report.StatsComputer;
+import com.gloogie.mshpoa.writer.Writer;
+
+/**
+ * Format of the reports as text for humans, with a banner around each report
+ */
+public class TextFormat implements ReportFormat
+{
+    @Override
+    public void writeReport(final String sourceName, final StatsComputer statsComputer, final GroupBy groupBy,
+                            final Writer writer) {
+        writer.write("=====================================================");
+        writer.write(String.format("REPORT OF SOURCE %s", sourceName));
+        writer.write("=====================================================");
+        writer.write(String.format("Number of weather stations: %d", statsComputer.getNumberOfWeatherStations()));
+        writer.write(String.format("Number of failed measures: %d", statsComputer.getNumberOfSensorsInError()));
+
+        for (final MeasureType type : statsComputer.getMeasureTypes()) {
+            final MeasureStats stats = statsComputer.getStats(type.getCode());
+            writer.write("=====================================================");
+            writer.write(String.format("Measures of type %s:", type.getName()));
+            writer.write(String.format("Min value: %s", stats.getMin()));
+            writer.write(String.format("Max value: %s", stats.getMax()));
+            writer.write(String.format("Mean value: %s", stats.getMean()));
+            writer.write(String.format("Standard deviation: %s", stats.getStandardDeviation()));
+            writer.write(String.format("P50 value: %s", stats.getQuantile(0.5)));
+            writer.write(String.format("P95 value: %s", stats.getQuantile(0.95)));
+            writer.write(String.format("P99 value: %s", stats.getQuantile(0.99)));
+        }
+
+        if (groupBy != null) {
+            writeBreakdown(groupBy, writer);
+        }
+
+        writer.write("=====================================================");
+        writer.write(String.format("END REPORT OF SOURCE %s", sourceName));
+        writer.write("=====================================================");
+        writer.write("");
+    }
+
+    private static void writeBreakdown(final GroupBy groupBy, final Writer writer) {
+        final StringBuilder dimensions = new StringBuilder();
+        for (final GroupDimension dimension : groupBy.getDimensions()) {
+            dimensions.append(dimensions.length() == 0 ? "" : ", ").append(dimension.name().toLowerCase());
+        }
+        writer.write("=====================================================");
+        writer.write(String.format("Breakdown by %s:", dimensions));
+
+        for (final GroupStats group : groupBy.getGroups()) {
+            final StringBuilder name = new StringBuilder();
+            if (group.getStation() != null) {
+                name.append(group.getStation());
+            }
+            if (group.getType() != null) {
+                name.append(name.length() == 0 ? "" : " / ").append(group.getType().getName());
+            }
+            if (groupBy.getDimensions().contains(GroupDimension.DAY)) {
+                name.append(name.length() == 0 ? "" : " / ")
+                    .append(group.getDay() == null ? "no date" : group.getDay());
+            }
+            writer.write(String.format("%s: count %d, min %s, max %s, mean %s", name, group.getCount(),
+                                       group.getMin(), group.getMax(), group.getMean()));
+        }
+    }
+}
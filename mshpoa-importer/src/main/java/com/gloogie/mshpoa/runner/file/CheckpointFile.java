@@ -0,0 +1,219 @@
+package com.gloogie.mshpoa.runner.file;
+
+import com.gloogie.mshpoa.importer.Checkpoint;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.SourceStats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32;
+
+/**
+ * Sidecar file of an imported file, holding its last checkpoint with the stats aggregated before the checkpoint.
+ * <p>
+ * The sidecar is written next to the file with the extension .ckpt, in a temporary file which is then moved, so that
+ * a crash while writing it leaves the previous checkpoint.
+ * <p>
+ * A checkpoint can only be resumed if the file was not changed since the checkpoint, or was only appended to. The
+ * sidecar holds the size and the modification time of the file when the checkpoint was written, and a CRC of all the
+ * bytes before the offset of the checkpoint:
+ * <ul>
+ * <li>a file with the same size and modification time is resumed without being read again</li>
+ * <li>a file which grew, or was modified, is resumed only if its bytes before the offset still have the same CRC,
+ * which reads them once</li>
+ * <li>a file smaller than when the checkpoint was written is never resumed</li>
+ * </ul>
+ * The CRC of the bytes before the offset is extended from one checkpoint to the next, so writing the checkpoints of a
+ * file reads it once more in total. A file rewritten in place with the same size and modification time is not
+ * detected.
+ */
+final class CheckpointFile
+{
+    public static final String EXTENSION = ".ckpt";
+
+    private static final int MAGIC = 0x4D534350;
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Checkpoint checkpoint;
+    private final PrefixChecksum prefixChecksum;
+    private final SourceStats sourceStats;
+    private final GroupBy groupBy;
+
+    private CheckpointFile(final Checkpoint checkpoint, final PrefixChecksum prefixChecksum,
+                           final SourceStats sourceStats, final GroupBy groupBy) {
+        this.checkpoint = checkpoint;
+        this.prefixChecksum = prefixChecksum;
+        this.sourceStats = sourceStats;
+        this.groupBy = groupBy;
+    }
+
+    /**
+     * @return the checkpoint from which the import can be resumed
+     */
+    Checkpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return the checksum of the bytes before the checkpoint, to extend with the next checkpoints of the file
+     */
+    PrefixChecksum getPrefixChecksum() {
+        return prefixChecksum;
+    }
+
+    /**
+     * @return the stats of the stations before the checkpoint
+     */
+    SourceStats getSourceStats() {
+        return sourceStats;
+    }
+
+    /**
+     * @return the breakdown of the measures before the checkpoint, null if there is no breakdown
+     */
+    GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * @param file imported file
+     * @return the path of the sidecar of the file
+     */
+    static Path pathOf(final File file) {
+        return Paths.get(file.getPath() + EXTENSION);
+    }
+
+    /**
+     * Write the sidecar of a file
+     *
+     * @param file           imported file
+     * @param checkpoint     checkpoint of the import
+     * @param prefixChecksum checksum of the bytes of the file before the previous checkpoint, extended to this one
+     * @param sourceStats    stats of the stations before the checkpoint
+     * @param groupBy        breakdown of the measures before the checkpoint, null if there is no breakdown
+     * @throws IOException if the file cannot be read or the sidecar cannot be written
+     */
+    static void write(final File file, final Checkpoint checkpoint, final PrefixChecksum prefixChecksum,
+                      final SourceStats sourceStats, final GroupBy groupBy) throws IOException {
+        final Path path = pathOf(file);
+        final Path temporary = Paths.get(path + ".tmp");
+        // Read before the checksum, so that a change made while it is computed makes the resume check the content
+        final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        final long checksum = prefixChecksum.update(file, checkpoint.getOffset());
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(checkpoint.getOffset());
+            output.writeLong(checkpoint.getLineNumber());
+            output.writeLong(checkpoint.getRecordedFailures());
+            output.writeLong(checksum);
+            output.writeLong(attributes.size());
+            output.writeLong(attributes.lastModifiedTime().toMillis());
+            sourceStats.writeTo(output);
+            output.writeBoolean(groupBy != null);
+            if (groupBy != null) {
+                groupBy.writeTo(output);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read the sidecar of a file
+     *
+     * @param file imported file
+     * @return the content of the sidecar, null if the file has no sidecar
+     * @throws IOException if the sidecar cannot be read, or the file changed since the checkpoint other than by an
+     *                     append
+     */
+    static CheckpointFile read(final File file) throws IOException {
+        final Path path = pathOf(file);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("The file [" + path + "] is not a checkpoint file of this version");
+            }
+            final Checkpoint checkpoint = new Checkpoint(input.readLong(), input.readLong(), input.readLong());
+            final long checksum = input.readLong();
+            final long size = input.readLong();
+            final long lastModified = input.readLong();
+
+            final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            if (attributes.size() < size) {
+                throw new IOException("The file [" + file.getPath() + "] is smaller than at its checkpoint");
+            }
+            final PrefixChecksum prefixChecksum = new PrefixChecksum();
+            final boolean unchanged = attributes.size() == size
+                                      && attributes.lastModifiedTime().toMillis() == lastModified;
+            if (!unchanged && prefixChecksum.update(file, checkpoint.getOffset()) != checksum) {
+                throw new IOException("The checkpoint [" + path + "] does not match the content of the file");
+            }
+            final SourceStats sourceStats = SourceStats.readFrom(input);
+            final GroupBy groupBy = input.readBoolean() ? GroupBy.readFrom(input) : null;
+            return new CheckpointFile(checkpoint, prefixChecksum, sourceStats, groupBy);
+        }
+    }
+
+    /**
+     * Delete the sidecar of a file, once the file is completely imported
+     *
+     * @param file imported file
+     * @throws IOException if the sidecar cannot be deleted
+     */
+    static void delete(final File file) throws IOException {
+        Files.deleteIfExists(pathOf(file));
+    }
+
+    /**
+     * CRC of the bytes of a file before an offset, extended by reading only the bytes after the previous offset
+     */
+    static final class PrefixChecksum
+    {
+        private final CRC32 crc = new CRC32();
+        private long offset;
+
+        /**
+         * Extend the checksum to the bytes before an offset
+         *
+         * @param file   file to read
+         * @param offset offset to extend the checksum to
+         * @return the CRC of the bytes of the file before the offset
+         * @throws IOException if the file cannot be read or is smaller than the offset
+         */
+        long update(final File file, final long offset) throws IOException {
+            if (offset < this.offset) {
+                crc.reset();
+                this.offset = 0;
+            }
+            final byte[] bytes = new byte[BUFFER_SIZE];
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                while (this.offset < offset) {
+                    final int length = (int) Math.min(bytes.length, offset - this.offset);
+                    final int read = channel.read(ByteBuffer.wrap(bytes, 0, length), this.offset);
+                    if (read < 0) {
+                        throw new IOException("The file [" + file.getPath() + "] ends before the offset " + offset);
+                    }
+                    crc.update(bytes, 0, read);
+                    this.offset += read;
+                }
+            }
+            return crc.getValue();
+        }
+    }
+}
@@ -1,20 +1,48 @@
 package com.gloogie.mshpoa.runner.file;
 
+import com.gloogie.mshpoa.importer.Checkpoint;
+import com.gloogie.mshpoa.importer.CompositeSink;
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.importer.StationFilterSink;
+import com.gloogie.mshpoa.importer.exception.ImporterException;
 import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.importer.impl.MappedFileImporter;
+import com.gloogie.mshpoa.importer.impl.SnapshotImporter;
+import com.gloogie.mshpoa.importer.impl.SnapshotWriter;
+import com.gloogie.mshpoa.importer.impl.StationIndex;
+import com.gloogie.mshpoa.metrics.FileMetrics;
+import com.gloogie.mshpoa.metrics.ImportMetrics;
+import com.gloogie.mshpoa.metrics.Phase;
 import com.gloogie.mshpoa.model.MeasureField;
 import com.gloogie.mshpoa.model.MeasureType;
-import com.gloogie.mshpoa.model.WeatherStation;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
 import com.gloogie.mshpoa.report.Reporter;
+import com.gloogie.mshpoa.report.SourceStats;
 import com.gloogie.mshpoa.report.StatsComputer;
+import com.gloogie.mshpoa.report.format.CsvFormat;
+import com.gloogie.mshpoa.report.format.JsonLinesFormat;
+import com.gloogie.mshpoa.report.format.ReportFormat;
+import com.gloogie.mshpoa.report.format.TextFormat;
 import com.gloogie.mshpoa.runner.file.exception.FileRunnerException;
 import com.gloogie.mshpoa.writer.Writer;
+import com.gloogie.mshpoa.writer.impl.AsyncWriter;
+import com.gloogie.mshpoa.writer.impl.BufferedFileWriter;
 import com.gloogie.mshpoa.writer.impl.ConsoleWriter;
+import com.gloogie.mshpoa.writer.impl.MemoryWriter;
+import com.gloogie.mshpoa.writer.impl.OverflowPolicy;
 import org.apache.commons.lang3.Validate;
 
+import javax.management.JMException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Class to run the program
@@ -27,20 +55,49 @@ public class FileRunner
     public static final String FILE_FIELDS_PREFIXCOMMENT = FILE_FIELDS_PREFIX + "prefixcomment";
     public static final String FILE_FIELDS_DATEPATTERN = FILE_FIELDS_PREFIX + "datepattern";
     public static final String FILE_FIELDS_SEPARATOR = FILE_FIELDS_PREFIX + "separator";
+    public static final String FILE_IMPORTER_PARALLEL = "file.importer.parallel";
+    public static final String FILE_FAILURES_MAXRECORDED = "file.failures.maxrecorded";
+    public static final String RUNNER_THREADS = "runner.threads";
+    public static final String REPORT_GROUPBY = "report.groupby";
+    public static final String FILE_CHECKPOINT_INTERVAL = "file.checkpoint.interval";
+    public static final String FILE_SNAPSHOT = "file.snapshot";
+    public static final String REPORT_STATIONS = "report.stations";
+    public static final String REPORT_FORMAT = "report.format";
+    public static final String REPORT_OUTPUT = "report.output";
+    public static final String REPORT_ASYNC = "report.async";
+    public static final String REPORT_ASYNC_CAPACITY = REPORT_ASYNC + ".capacity";
+    public static final String REPORT_ASYNC_OVERFLOW = REPORT_ASYNC + ".overflow";
+    public static final String CACHE_PREFIX = "cache.";
+    public static final String CACHE_DIR = CACHE_PREFIX + "dir";
+    public static final String CACHE_MAXSIZE = CACHE_PREFIX + "maxsize";
+    public static final String CACHE_CONTENTHASH = CACHE_PREFIX + "contenthash";
+    public static final String METRICS_PREFIX = "metrics.";
+    public static final String METRICS_SUMMARY = METRICS_PREFIX + "summary";
+    public static final String METRICS_JMX = METRICS_PREFIX + "jmx";
     public static final String FIELDS_SEPARATOR = "\\|";
+    public static final String ALL_SOURCES = "ALL SOURCES";
 
     public static void main(final String[] args) {
 
-        boolean success = true;
+        boolean success;
 
         try {
-            final FileImporter fileImporter = buildFileImporter();
-            final Writer writer = new ConsoleWriter();
+            final Properties properties = loadProperties();
+            final FileImporter fileImporter = buildFileImporter(properties);
+            final int threads = getThreads(properties);
+            final Set<GroupDimension> groupDimensions = getGroupDimensions(properties);
+            final long checkpointInterval = getCheckpointInterval(properties);
+            final boolean writeSnapshots = Boolean.parseBoolean(properties.getProperty(FILE_SNAPSHOT));
+            final boolean metricsSummary = Boolean.parseBoolean(properties.getProperty(METRICS_SUMMARY));
+            final ProcessOptions options = new ProcessOptions(groupDimensions, checkpointInterval, writeSnapshots,
+                                                              getStations(properties), buildCache(properties),
+                                                              buildMetrics(properties), metricsSummary,
+                                                              buildReportFormat(properties));
 
             Validate.isTrue(args.length >= 1, "A not empty list of file paths should be passed in the arguments");
 
-            for (final String arg : args) {
-                success = processFile(fileImporter, writer, arg) && success;
+            try (Writer writer = buildWriter(properties)) {
+                success = processFiles(fileImporter, options, writer, args, threads);
             }
 
         } catch (final Exception e) {
@@ -51,22 +108,275 @@ public class FileRunner
         System.exit(success ? 0 : 1);
     }
 
-    private static boolean processFile(final FileImporter fileImporter, final Writer writer, final String filePath) {
+    /**
+     * Process the files and write their reports in the order of the file paths, followed by the report of all the
+     * files processed successfully when there are several files
+     *
+     * @param fileImporter the importer of the files
+     * @param options      the options of the processing
+     * @param writer       the writer of the reports
+     * @param filePaths    the paths of the files to process
+     * @param threads      the number of files processed at the same time
+     * @return true if all the files were processed successfully
+     * @throws InterruptedException if the thread is interrupted while waiting for the reports
+     * @throws ExecutionException   if a file could not be processed
+     */
+    private static boolean processFiles(final FileImporter fileImporter, final ProcessOptions options,
+                                        final Writer writer, final String[] filePaths, final int threads)
+        throws InterruptedException, ExecutionException {
+        final SourceStats allSources = new SourceStats();
+        boolean success = true;
+        options.reportFormat.writeHeader(writer);
+
+        if (threads <= 1) {
+            for (final String filePath : filePaths) {
+                final FileReport report = processFile(fileImporter, options, filePath);
+                success = report.writeTo(writer, options.reportFormat, allSources) && success;
+            }
+            writeAllSourcesReport(fileImporter, options, writer, filePaths, allSources);
+            writeMetricsSummary(options, writer);
+            return success;
+        }
+
+        // Start with the largest files, so that the batch does not end with a long file processed alone
+        final Integer[] order = new Integer[filePaths.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> new File(filePaths[i]).length()).reversed());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, filePaths.length));
         try {
+            final List<Future<FileReport>> reports = new ArrayList<>(Collections.nCopies(filePaths.length, null));
+            for (final Integer i : order) {
+                reports.set(i, executor.submit(() -> processFile(fileImporter, options, filePaths[i])));
+            }
+
+            // Write each report as soon as it and all the previous ones are done, so that reports are not mixed
+            for (final Future<FileReport> report : reports) {
+                success = report.get().writeTo(writer, options.reportFormat, allSources) && success;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        writeAllSourcesReport(fileImporter, options, writer, filePaths, allSources);
+        writeMetricsSummary(options, writer);
+        return success;
+    }
+
+    private static void writeAllSourcesReport(final FileImporter fileImporter, final ProcessOptions options,
+                                              final Writer writer, final String[] filePaths,
+                                              final SourceStats allSources) {
+        if (filePaths.length > 1) {
+            final StatsComputer statsComputer = StatsComputer.of(fileImporter.getMeasureTypes(), allSources);
+            new Reporter(statsComputer, writer, options.reportFormat).writeReport(ALL_SOURCES);
+        }
+    }
+
+    private static void writeMetricsSummary(final ProcessOptions options, final Writer writer) {
+        if (options.metrics != null && options.metricsSummary) {
+            options.metrics.writeSummary(writer);
+            writer.flush();
+        }
+    }
+
+    private static FileReport processFile(final FileImporter fileImporter, final ProcessOptions options,
+                                          final String filePath) {
+        final FileReport fileReport = new FileReport(filePath, options.metrics != null);
+        try {
+            // The stats are aggregated while the file is imported, so its stations are not kept in memory
             final File file = new File(filePath);
-            final List<WeatherStation> stations = fileImporter.consume(file);
-            final StatsComputer statsComputer = new StatsComputer(fileImporter.getMeasureTypes(), stations);
-            final Reporter reporter = new Reporter(statsComputer, writer);
-            reporter.writeReport(file.getName());
-            return true;
+            fileReport.startPhase(Phase.CACHE);
+            final String cacheKey = options.cache == null ? null : options.cache.key(file);
+            final ResultCache.Result cached = cacheKey == null ? null : getCached(options.cache, cacheKey, fileReport);
+            if (cached != null) {
+                fileReport.sourceStats = cached.getSourceStats();
+                fileReport.groupBy = cached.getGroupBy();
+                if (fileReport.metrics != null) {
+                    fileReport.metrics.setCached();
+                }
+            } else {
+                fileReport.startPhase(Phase.IMPORT);
+                final long length = file.length();
+                final long lastModified = file.lastModified();
+                if (file.getName().endsWith(SnapshotWriter.EXTENSION)) {
+                    importSnapshot(fileImporter, options, file, fileReport);
+                } else if (!options.stations.isEmpty()) {
+                    importStations(fileImporter, options, file, fileReport);
+                } else {
+                    importFile(fileImporter, options, file, fileReport);
+                }
+                if (fileReport.metrics != null) {
+                    fileReport.metrics.setBytes(length);
+                    fileReport.metrics.addStats(fileReport.sourceStats);
+                }
+                // The stats of a file which changed during its import do not match its key
+                if (cacheKey != null && file.length() == length && file.lastModified() == lastModified) {
+                    fileReport.startPhase(Phase.CACHE);
+                    putCached(options.cache, cacheKey, fileReport);
+                }
+            }
+            fileReport.startPhase(Phase.STATS);
+            final StatsComputer statsComputer = StatsComputer.of(fileImporter.getMeasureTypes(),
+                                                                 fileReport.sourceStats);
+            statsComputer.computeStats();
+            fileReport.startPhase(Phase.REPORT);
+            final Reporter reporter = new Reporter(statsComputer, fileReport.output, options.reportFormat);
+            reporter.writeReport(file.getName(), fileReport.groupBy);
         } catch (final Exception e) {
-            System.out.printf("An error occurred while processing the file %s%n", filePath);
-            e.printStackTrace();
-            return false;
+            fileReport.sourceStats = null;
+            fileReport.error = e;
+            if (fileReport.metrics != null) {
+                fileReport.metrics.setFailed();
+            }
+        }
+        if (fileReport.metrics != null) {
+            fileReport.metrics.finish();
+            options.metrics.add(fileReport.metrics);
+            if (options.metricsSummary) {
+                ImportMetrics.writeFileMetrics(fileReport.metrics, fileReport.output);
+            }
+        }
+        return fileReport;
+    }
+
+    /**
+     * Get the stats of a file from the cache. The cache is only an optimisation: an entry which cannot be read is a
+     * warning of the file, which is then imported.
+     */
+    private static ResultCache.Result getCached(final ResultCache cache, final String cacheKey,
+                                                final FileReport fileReport) {
+        try {
+            return cache.get(cacheKey);
+        } catch (final IOException e) {
+            fileReport.warn("The cache entry of the file " + fileReport.filePath + " cannot be read, the file is "
+                            + "imported: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Put the stats of an imported file in the cache. An entry which cannot be written is a warning of the file,
+     * whose stats are still reported.
+     */
+    private static void putCached(final ResultCache cache, final String cacheKey, final FileReport fileReport) {
+        try {
+            cache.put(cacheKey, fileReport.sourceStats, fileReport.groupBy);
+        } catch (final IOException e) {
+            fileReport.warn("The stats of the file " + fileReport.filePath + " cannot be put in the cache: "
+                            + e.getMessage());
         }
     }
 
-    private static FileImporter buildFileImporter() throws FileRunnerException {
+    /**
+     * Import a snapshot, which is already parsed so it is read again much faster than its text file
+     */
+    private static void importSnapshot(final FileImporter fileImporter, final ProcessOptions options, final File file,
+                                       final FileReport fileReport) throws ImporterException {
+        final MeasureSink sink = options.newSink(fileReport);
+        new SnapshotImporter(fileImporter.getMeasureTypes()).consume(
+            file, options.stations.isEmpty() ? sink : new StationFilterSink(options.stations, sink));
+    }
+
+    /**
+     * Import only some stations of a text file, with the index of the file. If the file has no valid index, the whole
+     * file is parsed once to build it.
+     */
+    private static void importStations(final FileImporter fileImporter, final ProcessOptions options, final File file,
+                                       final FileReport fileReport) throws ImporterException {
+        StationIndex index;
+        try {
+            index = StationIndex.readFor(file);
+        } catch (final IOException e) {
+            fileReport.warn("The index of the file " + file.getPath() + " cannot be used, it is built again: "
+                            + e.getMessage());
+            index = null;
+        }
+
+        final MeasureSink sink = options.newSink(fileReport);
+        if (index == null) {
+            index = fileImporter.index(file, new StationFilterSink(options.stations, sink));
+            writeIndex(index, file, fileReport);
+        } else {
+            fileImporter.consumeStations(file, index, options.stations, sink);
+        }
+    }
+
+    /**
+     * Write the index built while importing a file. An index which is not written is a warning of the file, whose
+     * stats are still reported, and the file is parsed again to build it the next time.
+     */
+    private static void writeIndex(final StationIndex index, final File file, final FileReport fileReport) {
+        try {
+            if (!index.writeFor(file)) {
+                fileReport.warn("The file " + file.getPath() + " changed while it was indexed, its index is not "
+                                + "written");
+            }
+        } catch (final IOException e) {
+            fileReport.warn("The index of the file " + file.getPath() + " cannot be written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Import a whole text file, from its last checkpoint if checkpoints are enabled
+     */
+    private static void importFile(final FileImporter fileImporter, final ProcessOptions options, final File file,
+                                   final FileReport fileReport) throws ImporterException, IOException {
+        final CheckpointFile checkpointFile = options.checkpointInterval > 0
+                                              ? readCheckpoint(file, options.groupDimensions, fileReport) : null;
+        final Checkpoint start;
+        final CheckpointFile.PrefixChecksum prefixChecksum;
+        final MeasureSink sink;
+        if (checkpointFile == null) {
+            start = Checkpoint.START;
+            prefixChecksum = new CheckpointFile.PrefixChecksum();
+            sink = options.newSink(fileReport);
+        } else {
+            start = checkpointFile.getCheckpoint();
+            prefixChecksum = checkpointFile.getPrefixChecksum();
+            fileReport.sourceStats = checkpointFile.getSourceStats();
+            fileReport.groupBy = checkpointFile.getGroupBy();
+            final MeasureSink stats = fileReport.groupBy == null
+                                      ? fileReport.sourceStats
+                                      : new CompositeSink(Arrays.asList(fileReport.sourceStats, fileReport.groupBy));
+            sink = fileReport.metrics == null ? stats : fileReport.metrics.countFailures(stats);
+        }
+
+        // The snapshot needs all the stations of the file, so it is not written when the file is resumed
+        final File snapshotFile = new File(file.getPath() + SnapshotWriter.EXTENSION);
+        try (SnapshotWriter snapshotWriter = options.writeSnapshots && checkpointFile == null
+                                             ? new SnapshotWriter(snapshotFile.getAbsoluteFile().getParentFile())
+                                             : null) {
+            final MeasureSink allSinks = snapshotWriter == null
+                                         ? sink : new CompositeSink(Arrays.asList(sink, snapshotWriter));
+
+            if (options.checkpointInterval > 0) {
+                fileImporter.consume(file, allSinks, start, options.checkpointInterval, checkpoint -> {
+                    try {
+                        CheckpointFile.write(file, checkpoint, prefixChecksum, fileReport.sourceStats,
+                                             fileReport.groupBy);
+                    } catch (final IOException e) {
+                        throw new ImporterException("An error occurred while writing the checkpoint of the file ["
+                                                    + file.getPath() + "]", e);
+                    }
+                });
+                CheckpointFile.delete(file);
+            } else {
+                fileImporter.consume(file, allSinks);
+            }
+            if (snapshotWriter != null) {
+                snapshotWriter.writeTo(snapshotFile);
+            }
+        }
+    }
+
+    /**
+     * Load the configuration file from the classpath
+     *
+     * @return the properties of the configuration
+     * @throws FileRunnerException if the file is not found or cannot be read
+     */
+    public static Properties loadProperties() throws FileRunnerException {
 
         final Properties properties = new Properties();
         final InputStream inputStream = FileRunner.class.getClassLoader().getResourceAsStream(PROPERTIES_FILE_NAME);
@@ -82,6 +392,234 @@ public class FileRunner
             throw new FileRunnerException("An error occurred while reading the file [" + PROPERTIES_FILE_NAME + "]", e);
         }
 
+        return properties;
+    }
+
+    /**
+     * Read the checkpoint of a file left by a previous run which was stopped. A checkpoint which cannot be resumed is
+     * a warning of the file.
+     *
+     * @param file            the file to process
+     * @param groupDimensions the dimensions of the breakdown of the file
+     * @param fileReport      the report of the file, receiving the warnings
+     * @return the checkpoint, null if the file has to be processed from its start
+     */
+    private static CheckpointFile readCheckpoint(final File file, final Set<GroupDimension> groupDimensions,
+                                                 final FileReport fileReport) {
+        try {
+            final CheckpointFile checkpointFile = CheckpointFile.read(file);
+            if (checkpointFile == null) {
+                return null;
+            }
+            final Set<GroupDimension> dimensions = checkpointFile.getGroupBy() == null
+                                                   ? EnumSet.noneOf(GroupDimension.class)
+                                                   : checkpointFile.getGroupBy().getDimensions();
+            if (!dimensions.equals(groupDimensions)) {
+                fileReport.warn("The checkpoint of the file " + file.getPath()
+                                + " has another breakdown, the file is processed from its start");
+                return null;
+            }
+            return checkpointFile;
+        } catch (final IOException e) {
+            fileReport.warn("The checkpoint of the file " + file.getPath()
+                            + " cannot be used, the file is processed from its start: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static int getThreads(final Properties properties) throws FileRunnerException {
+        final String threads = properties.getProperty(RUNNER_THREADS, "1").trim();
+        try {
+            final int value = Integer.parseInt(threads);
+            Validate.isTrue(value >= 0);
+            return value == 0 ? Runtime.getRuntime().availableProcessors() : value;
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + threads + "] of the property " + RUNNER_THREADS
+                                          + " is not valid. Valid values are 0 (number of cores) or a positive number",
+                                          e);
+        }
+    }
+
+    /**
+     * Build the cache of the stats of the files, keyed by the properties which change the result of an import
+     *
+     * @param properties the properties of the configuration
+     * @return the cache, null if it is not enabled
+     * @throws FileRunnerException if a property is not valid or the cache directory cannot be created
+     */
+    private static ResultCache buildCache(final Properties properties) throws FileRunnerException {
+        final String directory = properties.getProperty(CACHE_DIR, "").trim();
+        if (directory.isEmpty()) {
+            return null;
+        }
+
+        final String maxSize = properties.getProperty(CACHE_MAXSIZE, "67108864").trim();
+        final long maxSizeValue;
+        try {
+            maxSizeValue = Long.parseLong(maxSize);
+            Validate.isTrue(maxSizeValue > 0);
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + maxSize + "] of the property " + CACHE_MAXSIZE
+                                          + " is not valid. Valid values are a positive number of bytes", e);
+        }
+
+        final Set<String> ignored = new HashSet<>(Arrays.asList(RUNNER_THREADS, FILE_IMPORTER_PARALLEL,
+                                                                FILE_CHECKPOINT_INTERVAL, FILE_SNAPSHOT,
+                                                                REPORT_FORMAT, REPORT_OUTPUT));
+        final String configurationHash = ResultCache.configurationHash(
+            properties, name -> !ignored.contains(name) && !name.startsWith(CACHE_PREFIX)
+                                && !name.startsWith(REPORT_ASYNC)
+                                && !name.startsWith("follow.") && !name.startsWith("generator.")
+                                && !name.startsWith(METRICS_PREFIX));
+        try {
+            return new ResultCache(Paths.get(directory), maxSizeValue,
+                                   Boolean.parseBoolean(properties.getProperty(CACHE_CONTENTHASH)),
+                                   configurationHash);
+        } catch (final IOException e) {
+            throw new FileRunnerException("The cache directory [" + directory + "] cannot be created", e);
+        }
+    }
+
+    /**
+     * Build the format of the reports: TEXT for humans, JSONL (JSON Lines) or CSV for programs
+     *
+     * @param properties the properties of the configuration
+     * @return the format of the reports
+     * @throws FileRunnerException if the format is not valid
+     */
+    public static ReportFormat buildReportFormat(final Properties properties) throws FileRunnerException {
+        final String format = properties.getProperty(REPORT_FORMAT, "TEXT").trim();
+        switch (format.toUpperCase()) {
+            case "TEXT":
+                return new TextFormat();
+            case "JSONL":
+                return new JsonLinesFormat();
+            case "CSV":
+                return new CsvFormat();
+            default:
+                throw new FileRunnerException("The value [" + format + "] of the property " + REPORT_FORMAT
+                                              + " is not valid. Valid values are TEXT, JSONL and CSV");
+        }
+    }
+
+    /**
+     * Build the writer of the reports: the console or a buffered file, written on a separate thread if report.async
+     * is true. The writer must be closed at the end
+     *
+     * @param properties the properties of the configuration
+     * @return the writer of the reports
+     * @throws FileRunnerException if a property is not valid or the output file cannot be opened
+     */
+    public static Writer buildWriter(final Properties properties) throws FileRunnerException {
+        final String output = properties.getProperty(REPORT_OUTPUT, "").trim();
+        final boolean async = Boolean.parseBoolean(properties.getProperty(REPORT_ASYNC));
+
+        final int capacity;
+        final OverflowPolicy overflowPolicy;
+        final String capacityValue = properties.getProperty(REPORT_ASYNC_CAPACITY,
+                                                            String.valueOf(AsyncWriter.DEFAULT_CAPACITY)).trim();
+        try {
+            capacity = Integer.parseInt(capacityValue);
+            Validate.isTrue(capacity > 0);
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + capacityValue + "] of the property " + REPORT_ASYNC_CAPACITY
+                                          + " is not valid. Valid values are a positive number of lines", e);
+        }
+        final String overflowValue = properties.getProperty(REPORT_ASYNC_OVERFLOW, OverflowPolicy.BLOCK.name()).trim();
+        try {
+            overflowPolicy = OverflowPolicy.valueOf(overflowValue.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + overflowValue + "] of the property " + REPORT_ASYNC_OVERFLOW
+                                          + " is not valid. Valid values are BLOCK, DROP and FAIL", e);
+        }
+
+        final Writer writer;
+        if (output.isEmpty()) {
+            writer = new ConsoleWriter();
+        } else {
+            try {
+                writer = new BufferedFileWriter(Paths.get(output));
+            } catch (final IOException e) {
+                throw new FileRunnerException("The report output file [" + output + "] cannot be opened", e);
+            }
+        }
+        // The console shows the lines as soon as they are written, a file is only flushed after each report
+        return async ? new AsyncWriter(writer, capacity, overflowPolicy, output.isEmpty()) : writer;
+    }
+
+    private static ImportMetrics buildMetrics(final Properties properties) throws FileRunnerException {
+        final boolean jmx = Boolean.parseBoolean(properties.getProperty(METRICS_JMX));
+        if (!jmx && !Boolean.parseBoolean(properties.getProperty(METRICS_SUMMARY))) {
+            return null;
+        }
+
+        final ImportMetrics metrics = new ImportMetrics();
+        if (jmx) {
+            try {
+                metrics.register();
+            } catch (final JMException e) {
+                throw new FileRunnerException("The metrics cannot be registered as " + ImportMetrics.OBJECT_NAME, e);
+            }
+        }
+        return metrics;
+    }
+
+    private static Set<String> getStations(final Properties properties) {
+        final Set<String> stations = new LinkedHashSet<>();
+        for (final String station : properties.getProperty(REPORT_STATIONS, "").split(",")) {
+            if (!station.trim().isEmpty()) {
+                stations.add(station.trim());
+            }
+        }
+        return stations;
+    }
+
+    private static long getCheckpointInterval(final Properties properties) throws FileRunnerException {
+        final String interval = properties.getProperty(FILE_CHECKPOINT_INTERVAL, "0").trim();
+        try {
+            final long value = Long.parseLong(interval);
+            Validate.isTrue(value >= 0);
+            return value;
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + interval + "] of the property " + FILE_CHECKPOINT_INTERVAL
+                                          + " is not valid. Valid values are 0 (no checkpoint) or a positive number"
+                                          + " of bytes", e);
+        }
+    }
+
+    /**
+     * Read the dimensions of the breakdown of the reports
+     *
+     * @param properties the properties of the configuration
+     * @return the dimensions, empty for no breakdown
+     * @throws FileRunnerException if a dimension is not valid
+     */
+    public static Set<GroupDimension> getGroupDimensions(final Properties properties) throws FileRunnerException {
+        final Set<GroupDimension> dimensions = EnumSet.noneOf(GroupDimension.class);
+        final String property = properties.getProperty(REPORT_GROUPBY, "").trim();
+        if (property.isEmpty()) {
+            return dimensions;
+        }
+        for (final String dimension : property.split(",")) {
+            try {
+                dimensions.add(GroupDimension.valueOf(dimension.trim()));
+            } catch (final IllegalArgumentException e) {
+                throw new FileRunnerException("The dimension [" + dimension + "] of the property " + REPORT_GROUPBY
+                                              + " is not valid. Valid values are: STATION, TYPE and DAY", e);
+            }
+        }
+        return dimensions;
+    }
+
+    /**
+     * Build the importer of the files from the configuration
+     *
+     * @param properties the properties of the configuration
+     * @return the importer
+     * @throws FileRunnerException if a property is missing or not valid
+     */
+    public static FileImporter buildFileImporter(final Properties properties) throws FileRunnerException {
+
         // Build the list of measure types
         final List<MeasureType> measureTypes = new ArrayList<>();
         for (final Object key : properties.keySet()) {
@@ -126,6 +664,152 @@ public class FileRunner
             throw new FileRunnerException("Missing property: " + FILE_FIELDS_SEPARATOR);
         }
 
-        return new FileImporter(measureTypes, prefixComment, dateFormat, fieldsSeparator, fieldsPerType);
+        final FileImporter fileImporter;
+        if (Boolean.parseBoolean(properties.getProperty(FILE_IMPORTER_PARALLEL))) {
+            fileImporter = new MappedFileImporter(measureTypes, prefixComment, dateFormat, fieldsSeparator,
+                                                  fieldsPerType);
+        } else {
+            fileImporter = new FileImporter(measureTypes, prefixComment, dateFormat, fieldsSeparator, fieldsPerType);
+        }
+
+        final String maxRecordedFailures = properties.getProperty(FILE_FAILURES_MAXRECORDED);
+        if (maxRecordedFailures != null) {
+            try {
+                fileImporter.setMaxRecordedFailures(Long.parseLong(maxRecordedFailures.trim()));
+            } catch (final IllegalArgumentException e) {
+                throw new FileRunnerException(
+                    "The value [" + maxRecordedFailures + "] of the property " + FILE_FAILURES_MAXRECORDED
+                    + " is not valid. Valid values are -1 (no limit), 0 (count only) or a positive limit", e);
+            }
+        }
+
+        return fileImporter;
+    }
+
+    /**
+     * Options of the processing of the files
+     */
+    private static final class ProcessOptions
+    {
+        private final Set<GroupDimension> groupDimensions;
+        private final long checkpointInterval;
+        private final boolean writeSnapshots;
+        private final Set<String> stations;
+        private final ResultCache cache;
+        private final ImportMetrics metrics;
+        private final boolean metricsSummary;
+        private final ReportFormat reportFormat;
+
+        /**
+         * Constructor for ProcessOptions
+         *
+         * @param groupDimensions    the dimensions of the breakdown of each file, empty for no breakdown
+         * @param checkpointInterval the number of bytes between two checkpoints of each file, 0 for no checkpoint
+         * @param writeSnapshots     true to write the snapshot of each text file next to it
+         * @param stations           the names of the stations to report, empty for all the stations
+         * @param cache              the cache of the stats of the files, null for no cache
+         * @param metrics            the metrics of the files, null for no metrics
+         * @param metricsSummary     true to write the metrics of each file and their summary after the reports
+         * @param reportFormat       the format of the reports
+         */
+        private ProcessOptions(final Set<GroupDimension> groupDimensions, final long checkpointInterval,
+                               final boolean writeSnapshots, final Set<String> stations, final ResultCache cache,
+                               final ImportMetrics metrics, final boolean metricsSummary,
+                               final ReportFormat reportFormat) {
+            this.groupDimensions = groupDimensions;
+            this.checkpointInterval = checkpointInterval;
+            this.writeSnapshots = writeSnapshots;
+            this.stations = stations;
+            this.cache = cache;
+            this.metrics = metrics;
+            this.metricsSummary = metricsSummary;
+            this.reportFormat = reportFormat;
+        }
+
+        /**
+         * Create the stats of a file, and the breakdown if any
+         *
+         * @param fileReport the report of the file, which receives the stats
+         * @return the sink filling the stats, and counting the failed measures if the metrics are enabled
+         */
+        private MeasureSink newSink(final FileReport fileReport) {
+            fileReport.sourceStats = new SourceStats();
+            final MeasureSink sink;
+            if (groupDimensions.isEmpty()) {
+                sink = fileReport.sourceStats;
+            } else {
+                fileReport.groupBy = new GroupBy(groupDimensions);
+                sink = new CompositeSink(Arrays.asList(fileReport.sourceStats, fileReport.groupBy));
+            }
+            return fileReport.metrics == null ? sink : fileReport.metrics.countFailures(sink);
+        }
+    }
+
+    /**
+     * Report of a file, kept in memory until it can be written in the order of the files
+     */
+    private static final class FileReport
+    {
+        private final String filePath;
+        private final MemoryWriter output = new MemoryWriter();
+        private final FileMetrics metrics;
+        private SourceStats sourceStats;
+        private GroupBy groupBy;
+        private Exception error;
+        private final List<String> warnings = new ArrayList<>();
+
+        private FileReport(final String filePath, final boolean withMetrics) {
+            this.filePath = filePath;
+            this.metrics = withMetrics ? new FileMetrics(filePath) : null;
+        }
+
+        /**
+         * Start a phase of the processing of the file, if the metrics are enabled
+         *
+         * @param phase the phase which starts
+         */
+        private void startPhase(final Phase phase) {
+            if (metrics != null) {
+                metrics.startPhase(phase);
+            }
+        }
+
+        /**
+         * Add a warning about the processing of the file, which did not stop it. The warnings are written to the
+         * standard error with the report of the file, so that the warnings of files processed at the same time are not
+         * mixed.
+         *
+         * @param warning the message of the warning
+         */
+        private void warn(final String warning) {
+            warnings.add(warning);
+        }
+
+        /**
+         * Write the warnings, then the report or the error which occurred while processing the file
+         *
+         * @param writer       the writer of the report
+         * @param reportFormat the format of the error
+         * @param allSources   the stats of all the files, in which the stats of the file are merged
+         * @return true if the file was processed successfully
+         */
+        private boolean writeTo(final Writer writer, final ReportFormat reportFormat, final SourceStats allSources) {
+            for (final String warning : warnings) {
+                System.err.println(warning);
+            }
+            output.writeTo(writer);
+            writer.flush();
+            if (sourceStats != null) {
+                allSources.merge(sourceStats);
+            }
+            if (error != null) {
+                reportFormat.writeError(new File(filePath).getName(), String.format(
+                    "An error occurred while processing the file %s", filePath), writer);
+                writer.flush();
+                error.printStackTrace();
+                return false;
+            }
+            return true;
+        }
     }
 }
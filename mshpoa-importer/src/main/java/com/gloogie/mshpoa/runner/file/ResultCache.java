@@ -0,0 +1,259 @@
+package com.gloogie.mshpoa.runner.file;
+
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.SourceStats;
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Cache on disk of the stats of the files, so that a file which has not changed since a previous run is reported
+ * without being imported again.
+ * <p>
+ * An entry is keyed by a SHA-256 of the identity of the file (canonical path, size, modification time and optionally
+ * a SHA-256 of its content) and of a hash of the configuration of the import. It holds the stats of the file and its
+ * breakdown. The entries are files of the cache directory, the modification time of an entry is its last use: when
+ * the entries take more than the maximum size, the least recently used ones are deleted.
+ * <p>
+ * The cache can be used by several threads.
+ */
+final class ResultCache
+{
+    private static final String EXTENSION = ".stats";
+    private static final int MAGIC = 0x4D535243;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final long maxSize;
+    private final boolean contentHash;
+    private final String configurationHash;
+
+    /**
+     * Constructor for ResultCache
+     *
+     * @param directory         directory of the entries, created if it does not exist
+     * @param maxSize           maximum size of the entries in bytes
+     * @param contentHash       true to add a hash of the content of the files to their identity
+     * @param configurationHash hash of the configuration of the import
+     * @throws IOException if the directory cannot be created
+     */
+    ResultCache(final Path directory, final long maxSize, final boolean contentHash, final String configurationHash)
+        throws IOException {
+        Validate.notNull(directory, "Directory cannot be null");
+        Validate.isTrue(maxSize > 0, "Maximum size must be positive");
+        Validate.notNull(configurationHash, "Configuration hash cannot be null");
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+        this.contentHash = contentHash;
+        this.configurationHash = configurationHash;
+    }
+
+    /**
+     * Compute the key of the entry of a file in its current state
+     *
+     * @param file the file
+     * @return the key of the entry
+     * @throws IOException if the file cannot be read
+     */
+    String key(final File file) throws IOException {
+        final MessageDigest digest = sha256();
+        update(digest, file.getCanonicalPath());
+        update(digest, Long.toString(file.length()));
+        update(digest, Long.toString(file.lastModified()));
+        if (contentHash) {
+            final MessageDigest content = sha256();
+            try (InputStream input = Files.newInputStream(file.toPath())) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) > 0) {
+                    content.update(buffer, 0, read);
+                }
+            }
+            update(digest, toHex(content.digest()));
+        }
+        update(digest, configurationHash);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Get the stats of an entry, which becomes the most recently used one
+     *
+     * @param key key of the entry
+     * @return the stats and breakdown of the entry, null if there is no entry of this version for the key
+     * @throws IOException if the entry cannot be read
+     */
+    Result get(final String key) throws IOException {
+        final Path path = directory.resolve(key + EXTENSION);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            final SourceStats sourceStats = SourceStats.readFrom(input);
+            final GroupBy groupBy = input.readBoolean() ? GroupBy.readFrom(input) : null;
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Result(sourceStats, groupBy);
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Add an entry, deleting the least recently used entries if the cache becomes too big
+     *
+     * @param key         key of the entry
+     * @param sourceStats stats of the file
+     * @param groupBy     breakdown of the file, null if there is no breakdown
+     * @throws IOException if the entry cannot be written
+     */
+    void put(final String key, final SourceStats sourceStats, final GroupBy groupBy) throws IOException {
+        final Path path = directory.resolve(key + EXTENSION);
+        final Path temporary = directory.resolve(key + EXTENSION + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            sourceStats.writeTo(output);
+            output.writeBoolean(groupBy != null);
+            if (groupBy != null) {
+                groupBy.writeTo(output);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        evict();
+    }
+
+    /**
+     * Delete the least recently used entries until the entries take at most the maximum size
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    synchronized void evict() throws IOException {
+        final Map<Path, BasicFileAttributes> attributes = new TreeMap<>();
+        long size = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (final Path entry : stream) {
+                try {
+                    final BasicFileAttributes entryAttributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    attributes.put(entry, entryAttributes);
+                    size += entryAttributes.size();
+                } catch (final NoSuchFileException e) {
+                    // Deleted by another thread or process
+                }
+            }
+        }
+        if (size <= maxSize) {
+            return;
+        }
+
+        final List<Path> entries = new ArrayList<>(attributes.keySet());
+        entries.sort(Comparator.comparing(entry -> attributes.get(entry).lastModifiedTime()));
+        for (final Path entry : entries) {
+            if (size <= maxSize) {
+                break;
+            }
+            Files.deleteIfExists(entry);
+            size -= attributes.get(entry).size();
+        }
+    }
+
+    /**
+     * Compute the hash of the properties of the configuration which change the result of the import of a file
+     *
+     * @param properties    the properties of the configuration
+     * @param affectsResult test of the names of the properties which change the result
+     * @return the hash of the configuration
+     */
+    static String configurationHash(final Properties properties, final Predicate<String> affectsResult) {
+        final MessageDigest digest = sha256();
+        final Map<String, String> sorted = new TreeMap<>();
+        for (final String name : properties.stringPropertyNames()) {
+            if (affectsResult.test(name)) {
+                sorted.put(name, properties.getProperty(name).trim());
+            }
+        }
+        for (final Map.Entry<String, String> property : sorted.entrySet()) {
+            update(digest, property.getKey());
+            update(digest, property.getValue());
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // Every implementation of the Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // The length separates the values, so that two different lists of values cannot give the same bytes
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(2 * bytes.length);
+        for (final byte b : bytes) {
+            builder.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Stats of a file read from the cache
+     */
+    static final class Result
+    {
+        private final SourceStats sourceStats;
+        private final GroupBy groupBy;
+
+        private Result(final SourceStats sourceStats, final GroupBy groupBy) {
+            this.sourceStats = sourceStats;
+            this.groupBy = groupBy;
+        }
+
+        /**
+         * @return the stats of the file
+         */
+        SourceStats getSourceStats() {
+            return sourceStats;
+        }
+
+        /**
+         * @return the breakdown of the file, null if there is no breakdown
+         */
+        GroupBy getGroupBy() {
+            return groupBy;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.gloogie.mshpoa.runner.follow;
+
+import com.gloogie.mshpoa.importer.CompositeSink;
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.importer.impl.FileFollower;
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.Reporter;
+import com.gloogie.mshpoa.report.SourceStats;
+import com.gloogie.mshpoa.report.StatsComputer;
+import com.gloogie.mshpoa.report.format.ReportFormat;
+import com.gloogie.mshpoa.report.format.TextFormat;
+import com.gloogie.mshpoa.runner.file.FileRunner;
+import com.gloogie.mshpoa.runner.file.exception.FileRunnerException;
+import com.gloogie.mshpoa.writer.Writer;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class to run the program in follow mode: the files are watched and only the lines appended to them are parsed, the
+ * stats of each file are updated incrementally and the reports are written again at a regular interval.
+ * <p>
+ * The arguments are files or directories: all the files of a directory are followed, including the files created
+ * after the start. A followed file which is rotated, moved and then created again, is followed again from the start of
+ * the new file; a file which failed is followed again when it is created again. The program runs until it is stopped.
+ */
+public class FollowRunner
+{
+    public static final String FOLLOW_REPORT_INTERVAL = "follow.report.interval";
+
+    public static void main(final String[] args) {
+
+        try {
+            final Properties properties = FileRunner.loadProperties();
+            final FileImporter fileImporter = FileRunner.buildFileImporter(properties);
+            final Set<GroupDimension> groupDimensions = FileRunner.getGroupDimensions(properties);
+            final long interval = getReportInterval(properties);
+
+            Validate.isTrue(args.length >= 1,
+                            "A not empty list of file or directory paths should be passed in the arguments");
+
+            try (Writer writer = FileRunner.buildWriter(properties)) {
+                final FollowRunner runner = new FollowRunner(fileImporter, groupDimensions, writer,
+                                                             FileRunner.buildReportFormat(properties));
+                runner.follow(args, interval);
+            }
+
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private final FileImporter fileImporter;
+    private final Set<GroupDimension> groupDimensions;
+    private final Writer writer;
+    private final ReportFormat reportFormat;
+    private final Map<Path, FollowedFile> files = new LinkedHashMap<>();
+    private final Set<Path> directories = new HashSet<>();
+
+    /**
+     * Constructor for FollowRunner
+     *
+     * @param fileImporter    the importer which gives the format of the files
+     * @param groupDimensions the dimensions of the breakdown of each file, empty for no breakdown
+     * @param writer          the writer of the reports
+     */
+    public FollowRunner(final FileImporter fileImporter, final Set<GroupDimension> groupDimensions,
+                        final Writer writer) {
+        this(fileImporter, groupDimensions, writer, new TextFormat());
+    }
+
+    /**
+     * Constructor for FollowRunner
+     *
+     * @param fileImporter    the importer which gives the format of the files
+     * @param groupDimensions the dimensions of the breakdown of each file, empty for no breakdown
+     * @param writer          the writer of the reports
+     * @param reportFormat    the format of the reports, whose header is written once before the first report
+     */
+    public FollowRunner(final FileImporter fileImporter, final Set<GroupDimension> groupDimensions,
+                        final Writer writer, final ReportFormat reportFormat) {
+        Validate.notNull(fileImporter, "File importer cannot be null");
+        Validate.notNull(groupDimensions, "Group dimensions cannot be null");
+        Validate.notNull(writer, "Writer cannot be null");
+        Validate.notNull(reportFormat, "Report format cannot be null");
+        this.fileImporter = fileImporter;
+        this.groupDimensions = groupDimensions;
+        this.writer = writer;
+        this.reportFormat = reportFormat;
+    }
+
+    /**
+     * Follow the files until the thread is interrupted
+     *
+     * @param paths    paths of the files and directories to follow
+     * @param interval interval between two reports in milliseconds
+     * @throws IOException          if the files cannot be watched
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void follow(final String[] paths, final long interval) throws IOException, InterruptedException {
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+
+            // Watch the directories of the files, the events of the other files of these directories are ignored
+            final Set<Path> watched = new HashSet<>();
+            for (final String argument : paths) {
+                final Path path = Paths.get(argument).toAbsolutePath().normalize();
+                final Path directory;
+                if (Files.isDirectory(path)) {
+                    directory = path;
+                    directories.add(path);
+                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                        for (final Path file : stream) {
+                            addFile(file);
+                        }
+                    }
+                } else {
+                    directory = path.getParent();
+                    addFile(path);
+                }
+                if (watched.add(directory)) {
+                    directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                       StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+
+            reportFormat.writeHeader(writer);
+            pollAll();
+            writeReports();
+
+            long nextReport = System.currentTimeMillis() + interval;
+            while (!Thread.currentThread().isInterrupted()) {
+                final WatchKey key = watchService.poll(Math.max(1, nextReport - System.currentTimeMillis()),
+                                                       TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            pollAll();
+                        } else {
+                            final Path file = ((Path) key.watchable()).resolve((Path) event.context());
+                            fileChanged(file, event.kind() == StandardWatchEventKinds.ENTRY_CREATE);
+                        }
+                    }
+                    key.reset();
+                }
+
+                if (System.currentTimeMillis() >= nextReport) {
+                    // Some file systems do not notify all the changes, so all the files are checked before a report
+                    pollAll();
+                    writeReports();
+                    nextReport = System.currentTimeMillis() + interval;
+                }
+            }
+        } finally {
+            for (final FollowedFile followedFile : files.values()) {
+                followedFile.follower.finish();
+            }
+        }
+    }
+
+    /**
+     * Follow the specified file if it is not followed yet
+     *
+     * @param file the path of the file
+     */
+    void addFile(final Path file) {
+        if (!files.containsKey(file) && Files.isRegularFile(file)) {
+            files.put(file, new FollowedFile(file.toFile()));
+        }
+    }
+
+    /**
+     * Parse the lines appended to a file which was modified or created, following it if it is a new file of a
+     * followed directory
+     *
+     * @param file    the path of the file
+     * @param created true if the file was created
+     */
+    void fileChanged(final Path file, final boolean created) {
+        if (directories.contains(file.getParent())) {
+            addFile(file);
+        }
+        final FollowedFile followedFile = files.get(file);
+        if (followedFile != null) {
+            if (created) {
+                followedFile.rearm();
+            }
+            followedFile.poll();
+        }
+    }
+
+    /**
+     * Parse the lines appended to all the followed files
+     */
+    void pollAll() {
+        for (final FollowedFile followedFile : files.values()) {
+            followedFile.poll();
+        }
+    }
+
+    /**
+     * Write the report of each file, followed by the report of all the files when there are several files
+     */
+    void writeReports() {
+        final SourceStats allSources = new SourceStats();
+        for (final FollowedFile followedFile : files.values()) {
+            final StatsComputer statsComputer = StatsComputer.of(fileImporter.getMeasureTypes(), followedFile.stats);
+            new Reporter(statsComputer, writer, reportFormat).writeReport(followedFile.follower.getFile().getName(),
+                                                                          followedFile.groupBy);
+            allSources.merge(followedFile.stats);
+        }
+        if (files.size() > 1) {
+            final StatsComputer statsComputer = StatsComputer.of(fileImporter.getMeasureTypes(), allSources);
+            new Reporter(statsComputer, writer, reportFormat).writeReport(FileRunner.ALL_SOURCES);
+        }
+    }
+
+    private static long getReportInterval(final Properties properties) throws FileRunnerException {
+        final String interval = properties.getProperty(FOLLOW_REPORT_INTERVAL, "60").trim();
+        try {
+            final long value = Long.parseLong(interval);
+            Validate.isTrue(value > 0);
+            return TimeUnit.SECONDS.toMillis(value);
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + interval + "] of the property " + FOLLOW_REPORT_INTERVAL
+                                          + " is not valid. Valid values are a positive number of seconds", e);
+        }
+    }
+
+    /**
+     * File followed with its running stats, which are built again from the start when the file is truncated
+     */
+    private final class FollowedFile
+    {
+        private final File file;
+        private FileFollower follower;
+        private SourceStats stats;
+        private GroupBy groupBy;
+        private boolean failed;
+
+        private FollowedFile(final File file) {
+            this.file = file;
+            this.follower = new FileFollower(fileImporter, file, this::newSink);
+        }
+
+        /**
+         * Follow again from its start a file in error which was created again
+         */
+        private void rearm() {
+            if (failed) {
+                failed = false;
+                follower = new FileFollower(fileImporter, file, this::newSink);
+            }
+        }
+
+        /**
+         * Drop the stats of the previous content of the file and build the sink of the new stats
+         */
+        private MeasureSink newSink() {
+            stats = new SourceStats();
+            groupBy = groupDimensions.isEmpty() ? null : new GroupBy(groupDimensions);
+            return groupBy == null ? stats : new CompositeSink(Arrays.asList(stats, groupBy));
+        }
+
+        /**
+         * Parse the lines appended to the file, a file in error is not followed anymore until it is created again
+         */
+        private void poll() {
+            if (failed) {
+                return;
+            }
+            try {
+                follower.poll();
+            } catch (final ImporterException e) {
+                failed = true;
+                follower.finish();
+                reportFormat.writeError(follower.getFile().getName(), String.format(
+                    "An error occurred while following the file %s, it is not followed until it is created again",
+                    follower.getFile().getPath()), writer);
+                writer.flush();
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.gloogie.mshpoa.runner.generate;
+
+import com.gloogie.mshpoa.generator.DatasetGenerator;
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.runner.file.FileRunner;
+import com.gloogie.mshpoa.runner.file.exception.FileRunnerException;
+import org.apache.commons.lang3.Validate;
+
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Class to generate a file of measures in the format of the configuration, with the generator.* properties.
+ * <p>
+ * The arguments are the path of the file and its minimum size in bytes, with an optional suffix K, M or G (for
+ * example 2G).
+ */
+public class GeneratorRunner
+{
+    public static final String GENERATOR_PREFIX = "generator.";
+    public static final String GENERATOR_SEED = GENERATOR_PREFIX + "seed";
+    public static final String GENERATOR_STATIONS = GENERATOR_PREFIX + "stations";
+    public static final String GENERATOR_MEASURES = GENERATOR_PREFIX + "measures";
+    public static final String GENERATOR_WEIGHTS_PREFIX = GENERATOR_PREFIX + "weights.";
+    public static final String GENERATOR_UNITS_PREFIX = GENERATOR_PREFIX + "units.";
+    public static final String GENERATOR_ERRORRATE = GENERATOR_PREFIX + "errorrate";
+    public static final String GENERATOR_COMMENTRATE = GENERATOR_PREFIX + "commentrate";
+
+    public static void main(final String[] args) {
+
+        try {
+            Validate.isTrue(args.length == 2, "The path of the file and its size should be passed in the arguments");
+            final long size = parseSize(args[1]);
+
+            final Properties properties = FileRunner.loadProperties();
+            final DatasetGenerator generator = buildGenerator(properties);
+
+            final long start = System.currentTimeMillis();
+            final DatasetGenerator.Summary summary = generator.generate(Paths.get(args[0]), size);
+            System.out.println(String.format(
+                "%s: %d bytes, %d stations, %d measures, %d failed measures, %d comment lines in %d ms", args[0],
+                summary.getBytes(), summary.getStations(), summary.getMeasures(), summary.getFailedMeasures(),
+                summary.getCommentLines(), System.currentTimeMillis() - start));
+
+        } catch (final Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Build a generator of files in the format of the configuration
+     *
+     * @param properties the properties of the configuration
+     * @return the generator
+     * @throws FileRunnerException if a property is not valid
+     */
+    public static DatasetGenerator buildGenerator(final Properties properties) throws FileRunnerException {
+        final FileImporter format = FileRunner.buildFileImporter(properties);
+        final DatasetGenerator generator = new DatasetGenerator(format, getLong(properties, GENERATOR_SEED, "42"));
+
+        final String stations = properties.getProperty(GENERATOR_STATIONS, "10000").trim();
+        try {
+            generator.setStationNames(Integer.parseInt(stations));
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + stations + "] of the property " + GENERATOR_STATIONS
+                                          + " is not valid. Valid values are a positive number", e);
+        }
+
+        final String measures = properties.getProperty(GENERATOR_MEASURES, "2|10").trim();
+        try {
+            final String[] range = measures.split(FileRunner.FIELDS_SEPARATOR);
+            Validate.isTrue(range.length == 2);
+            generator.setMeasuresPerStation(Integer.parseInt(range[0].trim()), Integer.parseInt(range[1].trim()));
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + measures + "] of the property " + GENERATOR_MEASURES
+                                          + " is not valid. Valid values are a minimum and a maximum separated by |",
+                                          e);
+        }
+
+        for (final MeasureType type : format.getMeasureTypes()) {
+            final String weightProperty = GENERATOR_WEIGHTS_PREFIX + type.getCode();
+            final String weight = properties.getProperty(weightProperty);
+            if (weight != null) {
+                try {
+                    generator.setTypeWeight(type.getCode(), Integer.parseInt(weight.trim()));
+                } catch (final IllegalArgumentException e) {
+                    throw new FileRunnerException("The value [" + weight + "] of the property " + weightProperty
+                                                  + " is not valid. Valid values are 0 or a positive number", e);
+                }
+            }
+            final String unit = properties.getProperty(GENERATOR_UNITS_PREFIX + type.getCode());
+            if (unit != null && !unit.trim().isEmpty()) {
+                generator.setUnit(type.getCode(), unit.trim());
+            }
+        }
+
+        generator.setErrorRate(getRate(properties, GENERATOR_ERRORRATE));
+        generator.setCommentRate(getRate(properties, GENERATOR_COMMENTRATE));
+        return generator;
+    }
+
+    private static long getLong(final Properties properties, final String name, final String defaultValue)
+        throws FileRunnerException {
+        final String value = properties.getProperty(name, defaultValue).trim();
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            throw new FileRunnerException("The value [" + value + "] of the property " + name + " is not a number", e);
+        }
+    }
+
+    private static double getRate(final Properties properties, final String name) throws FileRunnerException {
+        final String rate = properties.getProperty(name, "0").trim();
+        try {
+            final double value = Double.parseDouble(rate);
+            Validate.isTrue(value >= 0 && value <= 1);
+            return value;
+        } catch (final IllegalArgumentException e) {
+            throw new FileRunnerException("The value [" + rate + "] of the property " + name
+                                          + " is not valid. Valid values are between 0 and 1", e);
+        }
+    }
+
+    /**
+     * @param size a number of bytes, with an optional suffix K, M or G
+     * @return the number of bytes
+     */
+    private static long parseSize(final String size) {
+        final String value = size.trim().toUpperCase();
+        Validate.notEmpty(value, "Size cannot be empty");
+        final int shift;
+        switch (value.charAt(value.length() - 1)) {
+            case 'K':
+                shift = 10;
+                break;
+            case 'M':
+                shift = 20;
+                break;
+            case 'G':
+                shift = 30;
+                break;
+            default:
+                return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) << shift;
+    }
+}
@@ -1,9 +1,27 @@
 package com.gloogie.mshpoa.writer;
 
 /**
- * Class to write an output
+ * Class to write an output.
+ * <p>
+ * A writer may buffer the messages: they are written once the writer is flushed, which is done at the end of each
+ * report, by the time the flush returns or, for a writer writing on another thread, later but in order. A writer must
+ * be closed once it is not used anymore, which flushes it and waits until all the messages are written.
  */
-public interface Writer
+public interface Writer extends AutoCloseable
 {
     void write(String message);
+
+    /**
+     * Write the buffered messages, if any
+     */
+    default void flush() {
+    }
+
+    /**
+     * Flush the writer and release its resources, the writer cannot be used anymore
+     */
+    @Override
+    default void close() {
+        flush();
+    }
 }
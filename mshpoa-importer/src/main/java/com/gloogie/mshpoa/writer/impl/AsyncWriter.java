@@ -0,0 +1,238 @@
+package com.gloogie.mshpoa.writer.impl;
+
+import com.gloogie.mshpoa.writer.Writer;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Writer which gives the messages to another writer on a single drain thread, so that the threads writing messages
+ * do not wait for the output.
+ * <p>
+ * The messages are kept in a bounded ring buffer until the drain thread writes them, in order, in batches. A flush
+ * does not wait for the messages to be written: it is queued with them, and the drain thread flushes the other writer
+ * once the messages written before it are written, once per batch however many flushes the batch holds. Only close
+ * waits until all the messages are written. If flushWhenIdle is set, the other writer is also flushed each time the
+ * buffer is empty: this shows the messages as soon as they are written, for a console, at the cost of a flush per
+ * batch, which for a file is a system call per batch. When the buffer is full, the overflow policy tells whether a
+ * message waits for room, is dropped or is rejected.
+ * <p>
+ * The writer is thread-safe. A message written, or a flush requested, concurrently with close is either written before
+ * the other writer is closed, or rejected: it is never lost after the close. An error of the other writer is thrown by
+ * a later flush, or by the close.
+ */
+public class AsyncWriter implements Writer
+{
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int BATCH_SIZE = 256;
+    // A flush request is not waited for, so the same one can be queued by all the writing threads
+    private static final Flush FLUSH = new Flush(false);
+
+    private final Writer writer;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean flushWhenIdle;
+    private final BlockingQueue<Object> buffer;
+    private final Thread drainThread;
+    private final AtomicLong droppedMessages = new AtomicLong();
+    // The writes and flushes check that the writer is not closed and enqueue under the read lock, so that they can run
+    // concurrently; close takes the write lock, so that no element is enqueued after its close request
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+    private volatile RuntimeException error;
+
+    /**
+     * Constructor for AsyncWriter, which starts the drain thread and only flushes the other writer when this writer is
+     * flushed or closed
+     *
+     * @param writer         the writer of the messages, only used by the drain thread
+     * @param capacity       the maximum number of messages waiting to be written
+     * @param overflowPolicy the policy when the buffer is full
+     */
+    public AsyncWriter(final Writer writer, final int capacity, final OverflowPolicy overflowPolicy) {
+        this(writer, capacity, overflowPolicy, false);
+    }
+
+    /**
+     * Constructor for AsyncWriter, which starts the drain thread
+     *
+     * @param writer         the writer of the messages, only used by the drain thread
+     * @param capacity       the maximum number of messages waiting to be written
+     * @param overflowPolicy the policy when the buffer is full
+     * @param flushWhenIdle  true to also flush the other writer each time the buffer is empty
+     */
+    public AsyncWriter(final Writer writer, final int capacity, final OverflowPolicy overflowPolicy,
+                       final boolean flushWhenIdle) {
+        Validate.notNull(writer, "Writer cannot be null");
+        Validate.isTrue(capacity > 0, "Capacity must be positive");
+        Validate.notNull(overflowPolicy, "Overflow policy cannot be null");
+        this.writer = writer;
+        this.overflowPolicy = overflowPolicy;
+        this.flushWhenIdle = flushWhenIdle;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.drainThread = new Thread(this::drain, "mshpoa-async-writer");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    @Override
+    public void write(final String message) {
+        final Lock lock = closeLock.readLock();
+        lock.lock();
+        try {
+            Validate.validState(!closed, "Writer is closed");
+            switch (overflowPolicy) {
+                case BLOCK:
+                    put(message);
+                    break;
+                case DROP:
+                    if (!buffer.offer(message)) {
+                        droppedMessages.incrementAndGet();
+                    }
+                    break;
+                case FAIL:
+                    Validate.validState(buffer.offer(message), "The buffer of %d messages is full",
+                                        buffer.remainingCapacity() + buffer.size());
+                    break;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Request the flush of the other writer once the messages written before are written, without waiting for it
+     */
+    @Override
+    public void flush() {
+        final Lock lock = closeLock.readLock();
+        lock.lock();
+        try {
+            Validate.validState(!closed, "Writer is closed");
+            put(FLUSH);
+        } finally {
+            lock.unlock();
+        }
+        checkError();
+    }
+
+    /**
+     * Write the remaining messages, flush and close the other writer, and stop the drain thread
+     */
+    @Override
+    public void close() {
+        final Flush flush = new Flush(true);
+        final Lock lock = closeLock.writeLock();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            // A writer blocked on a full buffer holds the read lock, the drain thread makes room for it
+            put(flush);
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flush.await();
+        checkError();
+    }
+
+    /**
+     * @return the number of messages dropped because the buffer was full
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    private void put(final Object element) {
+        try {
+            buffer.put(element);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the buffer", e);
+        }
+    }
+
+    private void checkError() {
+        final RuntimeException e = error;
+        if (e != null) {
+            error = null;
+            throw new IllegalStateException("An error occurred while writing the messages", e);
+        }
+    }
+
+    private void drain() {
+        final List<Object> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(buffer.take());
+            } catch (final InterruptedException e) {
+                return;
+            }
+            buffer.drainTo(batch, BATCH_SIZE - 1);
+
+            // Flushing at the end of the batch also flushes the messages written before each flush of the batch
+            boolean flushRequested = false;
+            for (final Object element : batch) {
+                if (element instanceof Flush) {
+                    final Flush flush = (Flush) element;
+                    if (flush.close) {
+                        call(writer::close);
+                        flush.done.countDown();
+                        return;
+                    }
+                    flushRequested = true;
+                } else {
+                    call(() -> writer.write((String) element));
+                }
+            }
+            batch.clear();
+
+            if (flushRequested || flushWhenIdle && buffer.isEmpty()) {
+                call(writer::flush);
+            }
+        }
+    }
+
+    private void call(final Runnable action) {
+        try {
+            action.run();
+        } catch (final RuntimeException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+    }
+
+    /**
+     * Request of a flush, or of the close of the writer, done by the drain thread after the previous messages. Only the
+     * close is waited for
+     */
+    private static final class Flush
+    {
+        private final boolean close;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Flush(final boolean close) {
+            this.close = close;
+        }
+
+        private void await() {
+            try {
+                done.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the messages to be written", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.gloogie.mshpoa.writer.impl;
+
+import com.gloogie.mshpoa.writer.Writer;
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writer in a file, or any output stream, through a large buffer: the messages are only written when the buffer is
+ * full or when the writer is flushed, so writing a message does not lock nor flush a shared stream. Each message is
+ * written on a line, in UTF-8.
+ * <p>
+ * The writer is thread-safe. The I/O errors are thrown as UncheckedIOException.
+ */
+public class BufferedFileWriter implements Writer
+{
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final java.io.Writer output;
+
+    /**
+     * Constructor for BufferedFileWriter, replacing the file if it exists
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be created
+     */
+    public BufferedFileWriter(final Path file) throws IOException {
+        this(Files.newOutputStream(Validate.notNull(file, "File cannot be null")), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor for BufferedFileWriter
+     *
+     * @param output     the stream to write, closed with the writer
+     * @param bufferSize the number of characters buffered before being written to the stream
+     */
+    public BufferedFileWriter(final OutputStream output, final int bufferSize) {
+        Validate.notNull(output, "Output cannot be null");
+        Validate.isTrue(bufferSize > 0, "Buffer size must be positive");
+        this.output = new java.io.BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), bufferSize);
+    }
+
+    @Override
+    public synchronized void write(final String message) {
+        try {
+            output.write(message);
+            output.write(LINE_SEPARATOR);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            output.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            output.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
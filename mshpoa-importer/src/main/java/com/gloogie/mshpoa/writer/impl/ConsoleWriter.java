@@ -11,4 +11,9 @@ public class ConsoleWriter implements Writer
     public void write(final String message) {
         System.out.println(message);
     }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
 }
@@ -0,0 +1,38 @@
+package com.gloogie.mshpoa.writer.impl;
+
+import com.gloogie.mshpoa.writer.Writer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writer in memory, used to build an output which is written later in another writer
+ */
+public class MemoryWriter implements Writer
+{
+    private final List<String> messages = new ArrayList<>();
+
+    @Override
+    public void write(final String message) {
+        messages.add(message);
+    }
+
+    /**
+     * @return the messages written, in order
+     */
+    public List<String> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * Write all the messages written so far in the specified writer
+     *
+     * @param writer the writer in which the messages are copied
+     */
+    public void writeTo(final Writer writer) {
+        for (final String message : messages) {
+            writer.write(message);
+        }
+    }
+}
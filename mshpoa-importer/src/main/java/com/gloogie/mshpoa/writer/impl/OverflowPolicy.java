@@ -0,0 +1,20 @@
+package com.gloogie.mshpoa.writer.impl;
+
+/**
+ * Enum for the policies of AsyncWriter when its buffer is full
+ */
+public enum OverflowPolicy
+{
+    /**
+     * Wait until the drain thread makes room for the message
+     */
+    BLOCK,
+    /**
+     * Drop the message, the dropped messages are counted
+     */
+    DROP,
+    /**
+     * Throw an IllegalStateException
+     */
+    FAIL
+}
@@ -0,0 +1,129 @@
+package com.gloogie.mshpoa.generator;
+
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.WeatherStation;
+import com.gloogie.mshpoa.report.SourceStats;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for DatasetGenerator
+ */
+public class DatasetGeneratorTest
+{
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileImporter fileImporter;
+
+    @Before
+    public void setUp() throws Exception {
+        final List<MeasureType> measureTypes = new ArrayList<>();
+        for (final String code : Arrays.asList("T", "P", "H")) {
+            final MeasureType measureType = new MeasureType();
+            measureType.setCode(code);
+            measureType.setName(code);
+            measureTypes.add(measureType);
+        }
+        final Map<String, List<MeasureField>> fieldsPerType = new LinkedHashMap<>();
+        fieldsPerType.put("T", Arrays.asList(MeasureField.UNIT, MeasureField.VALUE));
+        fieldsPerType.put("P", Arrays.asList(MeasureField.UNIT, MeasureField.DATE, MeasureField.VALUE));
+        fieldsPerType.put("H", Arrays.asList(MeasureField.VALUE));
+        fileImporter = new FileImporter(measureTypes, "#", "yyyy-MM-dd", ",", fieldsPerType);
+    }
+
+    @Test
+    public void testGenerateIsDeterministic() throws Exception {
+        final File first = temporaryFolder.newFile();
+        final File second = temporaryFolder.newFile();
+        final File otherSeed = temporaryFolder.newFile();
+        newGenerator(1).generate(first.toPath(), 100000);
+        newGenerator(1).generate(second.toPath(), 100000);
+        newGenerator(2).generate(otherSeed.toPath(), 100000);
+
+        Assert.assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        Assert.assertFalse(Arrays.equals(Files.readAllBytes(first.toPath()), Files.readAllBytes(otherSeed.toPath())));
+    }
+
+    @Test
+    public void testGenerateSize() throws Exception {
+        final File file = temporaryFolder.newFile();
+        final DatasetGenerator.Summary summary = newGenerator(1).generate(file.toPath(), 1 << 20);
+
+        Assert.assertEquals(file.length(), summary.getBytes());
+        Assert.assertTrue(summary.getBytes() >= 1 << 20);
+        // The last station adds at most a few lines
+        Assert.assertTrue(summary.getBytes() < (1 << 20) + 1000);
+        Assert.assertTrue(summary.getCommentLines() > 0);
+    }
+
+    @Test
+    public void testGeneratedFileIsImported() throws Exception {
+        final File file = temporaryFolder.newFile();
+        final DatasetGenerator.Summary summary = newGenerator(1).generateStations(file.toPath(), 5000);
+
+        final SourceStats sourceStats = new SourceStats();
+        fileImporter.consume(file, sourceStats);
+
+        Assert.assertEquals(5000, summary.getStations());
+        Assert.assertEquals(summary.getStations(), sourceStats.getNumberOfWeatherStations());
+        Assert.assertEquals(summary.getFailedMeasures(), sourceStats.getNumberOfFailedMeasures());
+        long measures = 0;
+        for (final String code : Arrays.asList("T", "P", "H")) {
+            measures += sourceStats.getAccumulators().get(code).getCount();
+        }
+        Assert.assertEquals(summary.getMeasures(), measures);
+        // About 5% of failed measures
+        final double errorRate = (double) summary.getFailedMeasures() / (summary.getFailedMeasures() + measures);
+        Assert.assertEquals(0.05, errorRate, 0.01);
+    }
+
+    @Test
+    public void testGenerateWithConfiguration() throws Exception {
+        final DatasetGenerator generator = new DatasetGenerator(fileImporter, 3);
+        generator.setStationNames(2);
+        generator.setMeasuresPerStation(3, 3);
+        generator.setTypeWeight("P", 0);
+        generator.setTypeWeight("H", 0);
+        generator.setUnit("T", "C");
+        final File file = temporaryFolder.newFile();
+        generator.generateStations(file.toPath(), 4);
+
+        final List<WeatherStation> stations = fileImporter.consume(file);
+        Assert.assertEquals(4, stations.size());
+        Assert.assertEquals("Station-0", stations.get(0).getName());
+        Assert.assertEquals("Station-1", stations.get(1).getName());
+        Assert.assertEquals("Station-0", stations.get(2).getName());
+        for (final WeatherStation station : stations) {
+            Assert.assertEquals(3, station.getMeasures().size());
+            Assert.assertTrue(station.getFailedMeasures().isEmpty());
+            Assert.assertEquals("T", station.getMeasures().get(0).getType().getCode());
+            Assert.assertEquals("C", station.getMeasures().get(0).getUnit());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownTypeWeight() {
+        new DatasetGenerator(fileImporter, 1).setTypeWeight("X", 1);
+    }
+
+    private DatasetGenerator newGenerator(final long seed) {
+        final DatasetGenerator generator = new DatasetGenerator(fileImporter, seed);
+        generator.setErrorRate(0.05);
+        generator.setCommentRate(0.01);
+        return generator;
+    }
+}
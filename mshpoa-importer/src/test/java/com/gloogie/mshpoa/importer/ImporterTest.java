@@ -0,0 +1,112 @@
+package com.gloogie.mshpoa.importer;
+
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.WeatherStation;
+import com.gloogie.mshpoa.report.SourceStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class for Importer
+ */
+public class ImporterTest
+{
+    @Test
+    public void testConsumeSinkWithListImporter() throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        new ListImporter().consume("source", sourceStats);
+
+        Assert.assertEquals(1, sourceStats.getNumberOfWeatherStations());
+        Assert.assertEquals(2, sourceStats.getAccumulators().get("T").getCount());
+        Assert.assertEquals(-3, sourceStats.getAccumulators().get("T").getMin(), 0);
+    }
+
+    @Test
+    public void testConsumeListWithListImporter() throws Exception {
+        final List<WeatherStation> stations = new ListImporter().consume("source");
+
+        Assert.assertEquals(1, stations.size());
+        Assert.assertEquals("Paris", stations.get(0).getName());
+    }
+
+    @Test
+    public void testConsumeFailedMeasuresWithListImporter() throws Exception {
+        final List<FailureReason> reasons = new ArrayList<>();
+        new ListImporter().consume("source", new MeasureSink()
+        {
+            @Override
+            public void onStationStart(final String name, final int declaredMeasures) {
+                // The two measures and the failed measure
+                Assert.assertEquals(3, declaredMeasures);
+            }
+
+            @Override
+            public void onMeasure(final MeasureType type, final double value, final long dateMillis,
+                                  final String unit) {
+                Assert.assertEquals("C", unit);
+            }
+
+            @Override
+            public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+                reasons.add(reason);
+            }
+
+            @Override
+            public void onStationEnd() {
+                // Nothing to check
+            }
+        });
+
+        Assert.assertEquals(Collections.singletonList(FailureReason.INVALID_VALUE), reasons);
+    }
+
+    @Test
+    public void testConsumeWithoutOverride() throws Exception {
+        final Importer<String> importer = new Importer<String>()
+        {
+        };
+        try {
+            importer.consume("source");
+            Assert.fail("Expected exception was not thrown");
+        } catch (final IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("must override one of the consume methods"));
+        }
+    }
+
+    /**
+     * Importer written before the sinks, which only returns the list of stations
+     */
+    private static final class ListImporter extends Importer<String>
+    {
+        @Override
+        public List<WeatherStation> consume(final String source) throws ImporterException {
+            final MeasureType typeT = new MeasureType();
+            typeT.setCode("T");
+            typeT.setName("temperature");
+            final List<Measure> measures = new ArrayList<>();
+            for (final double value : new double[]{12.5, -3}) {
+                final Measure measure = new Measure();
+                measure.setType(typeT);
+                measure.setUnit("C");
+                measure.setValue(value);
+                measures.add(measure);
+            }
+            final FailedMeasure failedMeasure = new FailedMeasure();
+            failedMeasure.setReason(FailureReason.INVALID_VALUE);
+
+            final WeatherStation station = new WeatherStation();
+            station.setName("Paris");
+            station.setMeasures(measures);
+            station.setFailedMeasures(Collections.singletonList(failedMeasure));
+            return Collections.singletonList(station);
+        }
+    }
+}
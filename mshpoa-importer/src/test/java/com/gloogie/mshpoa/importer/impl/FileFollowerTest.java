@@ -0,0 +1,208 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.WeatherStation;
+import com.gloogie.mshpoa.importer.WeatherStationCollector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for FileFollower
+ */
+public class FileFollowerTest
+{
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileImporter fileImporter;
+    private File file;
+    private List<WeatherStation> stations;
+    private FileFollower follower;
+
+    @Before
+    public void setUp() throws Exception {
+        final MeasureType measureType = new MeasureType();
+        measureType.setCode("T");
+        measureType.setName("temperature");
+        final Map<String, List<MeasureField>> fieldsPerType = new LinkedHashMap<>();
+        fieldsPerType.put("T", Arrays.asList(MeasureField.UNIT, MeasureField.VALUE));
+        fileImporter = new FileImporter(Collections.singletonList(measureType), "#", "yyyy-MM-dd", ",",
+                                        fieldsPerType);
+        file = temporaryFolder.newFile("follow.txt");
+        stations = new ArrayList<>();
+        follower = new FileFollower(fileImporter, file, new WeatherStationCollector(stations::add));
+    }
+
+    @Test
+    public void testPollAppendedLines() throws Exception {
+        Assert.assertEquals(FileFollower.PollResult.NO_NEW_LINES, follower.poll());
+
+        append("Paris,3\nT,C,10\nT,C,1");
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+        Assert.assertEquals(0, stations.size());
+        Assert.assertEquals(2, follower.getLineNumber());
+
+        // The end of the incomplete line and the end of the station are appended
+        append("1\r");
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+        append("\nT,C,X\nClapiers,1\n");
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+        Assert.assertEquals(1, stations.size());
+        Assert.assertEquals(3, stations.get(0).getMeasures().size() + stations.get(0).getFailedMeasures().size());
+        Assert.assertEquals(11, stations.get(0).getMeasures().get(1).getValue(), 0);
+        final FailedMeasure failedMeasure = stations.get(0).getFailedMeasures().get(0);
+        Assert.assertEquals(4, failedMeasure.getLineNumber());
+        Assert.assertEquals(23, failedMeasure.getOffset());
+
+        append("T,C,20\n");
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+        Assert.assertEquals(FileFollower.PollResult.NO_NEW_LINES, follower.poll());
+        Assert.assertEquals(2, stations.size());
+        Assert.assertEquals("Clapiers", stations.get(1).getName());
+        Assert.assertEquals(6, follower.getLineNumber());
+        Assert.assertEquals(file.length(), follower.getOffset());
+    }
+
+    @Test
+    public void testPollTruncatedFile() throws Exception {
+        final List<List<WeatherStation>> sinks = new ArrayList<>();
+        follower = new FileFollower(fileImporter, file, () -> {
+            final List<WeatherStation> sinkStations = new ArrayList<>();
+            sinks.add(sinkStations);
+            return new WeatherStationCollector(sinkStations::add);
+        });
+        append("Paris,1\nT,C,10\nClapiers,2\nT,C,12\n");
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+        Assert.assertEquals(1, sinks.size());
+        Assert.assertEquals(1, sinks.get(0).size());
+
+        Files.write(file.toPath(), "Lyon,1\nT,C,5\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(FileFollower.PollResult.TRUNCATED, follower.poll());
+
+        // The incomplete station of the old content ends in the old sink, the new content goes to a new sink
+        Assert.assertEquals(2, sinks.size());
+        Assert.assertEquals(2, sinks.get(0).size());
+        Assert.assertEquals("Clapiers", sinks.get(0).get(1).getName());
+        Assert.assertEquals(1, sinks.get(1).size());
+        Assert.assertEquals("Lyon", sinks.get(1).get(0).getName());
+        Assert.assertEquals(2, follower.getLineNumber());
+
+        // A file emptied is reported even if there is no line to parse
+        Files.write(file.toPath(), new byte[0]);
+        Assert.assertEquals(FileFollower.PollResult.TRUNCATED, follower.poll());
+        Assert.assertEquals(3, sinks.size());
+        Assert.assertEquals(FileFollower.PollResult.NO_NEW_LINES, follower.poll());
+    }
+
+    @Test
+    public void testPollTruncatedFileSameSink() throws Exception {
+        append("Paris,1\nT,C,10\n");
+        follower.poll();
+
+        Files.write(file.toPath(), "Lyon,1\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(FileFollower.PollResult.TRUNCATED, follower.poll());
+        append("T,C,5\n");
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+
+        Assert.assertEquals(2, stations.size());
+        Assert.assertEquals("Lyon", stations.get(1).getName());
+    }
+
+    @Test
+    public void testPollReplacedFile() throws Exception {
+        append("Paris,1\nT,C,10\n");
+        follower.poll();
+
+        // A bigger file moved in place of the followed file is parsed from its start
+        final File newFile = temporaryFolder.newFile("new.txt");
+        Files.write(newFile.toPath(), "Lyon,1\nT,C,5\nNantes,1\nT,C,7\n".getBytes(StandardCharsets.UTF_8));
+        Files.move(newFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Assert.assertEquals(FileFollower.PollResult.TRUNCATED, follower.poll());
+
+        Assert.assertEquals(3, stations.size());
+        Assert.assertEquals("Lyon", stations.get(1).getName());
+        Assert.assertEquals("Nantes", stations.get(2).getName());
+    }
+
+    @Test
+    public void testPollRotatedFile() throws Exception {
+        append("Paris,1\nT,C,10\nLyon,1\nT,C,5\n");
+        follower.poll();
+
+        // The file is missing between the move and the creation of the new file
+        Files.move(file.toPath(), temporaryFolder.getRoot().toPath().resolve("follow.old"));
+        Assert.assertEquals(FileFollower.PollResult.NO_NEW_LINES, follower.poll());
+        Assert.assertEquals(FileFollower.PollResult.NO_NEW_LINES, follower.poll());
+
+        // The new file is smaller than the offset, but would be parsed from its start even if it was not
+        Files.write(file.toPath(), "Nice,1\nT,C,7\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(FileFollower.PollResult.TRUNCATED, follower.poll());
+        Assert.assertEquals(3, stations.size());
+        Assert.assertEquals("Nice", stations.get(2).getName());
+        Assert.assertEquals(file.length(), follower.getOffset());
+    }
+
+    @Test
+    public void testPollRotatedFileBiggerThanOffset() throws Exception {
+        append("Paris,1\nT,C,10\n");
+        follower.poll();
+
+        Files.delete(file.toPath());
+        Assert.assertEquals(FileFollower.PollResult.NO_NEW_LINES, follower.poll());
+        Files.write(file.toPath(), "Lyon,1\nT,C,5\nNantes,1\nT,C,7\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(FileFollower.PollResult.TRUNCATED, follower.poll());
+
+        Assert.assertEquals(3, stations.size());
+        Assert.assertEquals("Lyon", stations.get(1).getName());
+    }
+
+    @Test
+    public void testPollLongIncompleteLine() throws Exception {
+        // The last line terminator is searched over several blocks
+        final StringBuilder comment = new StringBuilder("#");
+        for (int i = 0; i < 20000; i++) {
+            comment.append('x');
+        }
+        append("Paris,1\nT,C,10\n" + comment);
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+        Assert.assertEquals(2, follower.getLineNumber());
+        Assert.assertEquals(15, follower.getOffset());
+
+        append("\n");
+        Assert.assertEquals(FileFollower.PollResult.NEW_LINES, follower.poll());
+        Assert.assertEquals(3, follower.getLineNumber());
+        Assert.assertEquals(file.length(), follower.getOffset());
+        Assert.assertEquals(1, stations.size());
+    }
+
+    @Test
+    public void testFinish() throws Exception {
+        append("Paris,3\nT,C,10\n");
+        follower.poll();
+        follower.finish();
+
+        Assert.assertEquals(1, stations.size());
+        Assert.assertEquals(1, stations.get(0).getMeasures().size());
+    }
+
+    private void append(final String text) throws Exception {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+}
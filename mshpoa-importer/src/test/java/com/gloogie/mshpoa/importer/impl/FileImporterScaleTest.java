@@ -0,0 +1,188 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.generator.DatasetGenerator;
+import com.gloogie.mshpoa.importer.CompositeSink;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.SourceStats;
+import com.gloogie.mshpoa.report.StatsComputer;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scale test of the import and the stats of a generated file, which checks the throughput and the heap retained
+ * during the import. It is only run by the scale profile (mvn test -Pscale), with the system properties:
+ * <ul>
+ * <li>scale.size.mb: size of the generated file in MB</li>
+ * <li>scale.throughput.mb: minimum throughput of the import in MB/s</li>
+ * <li>scale.heap.mb: maximum heap in MB retained after a garbage collection during the import</li>
+ * <li>scale.dir: directory of the generated file</li>
+ * </ul>
+ */
+public class FileImporterScaleTest
+{
+    private static final long MB = 1 << 20;
+    private static final long SIZE = Long.getLong("scale.size.mb", 256) * MB;
+    private static final double MIN_THROUGHPUT = Double.parseDouble(System.getProperty("scale.throughput.mb", "5"));
+    private static final long MAX_HEAP = Long.getLong("scale.heap.mb", 128) * MB;
+
+    private static List<MeasureType> measureTypes;
+    private static Map<String, List<MeasureField>> fieldsPerType;
+    private static File file;
+    private static DatasetGenerator.Summary summary;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        measureTypes = new ArrayList<>();
+        for (final String code : Arrays.asList("T", "P", "H")) {
+            final MeasureType measureType = new MeasureType();
+            measureType.setCode(code);
+            measureType.setName(code);
+            measureTypes.add(measureType);
+        }
+        fieldsPerType = new LinkedHashMap<>();
+        fieldsPerType.put("T", Arrays.asList(MeasureField.UNIT, MeasureField.VALUE));
+        fieldsPerType.put("P", Arrays.asList(MeasureField.UNIT, MeasureField.DATE, MeasureField.VALUE));
+        fieldsPerType.put("H", Arrays.asList(MeasureField.VALUE));
+
+        final File directory = new File(System.getProperty("scale.dir", "target/scale"));
+        Files.createDirectories(directory.toPath());
+        file = new File(directory, "scale-" + SIZE + ".txt");
+
+        final DatasetGenerator generator = new DatasetGenerator(
+            new FileImporter(measureTypes, "#", "yyyy-MM-dd", ",", fieldsPerType), 42);
+        generator.setStationNames(100000);
+        generator.setErrorRate(0.01);
+        generator.setCommentRate(0.001);
+        final long start = System.nanoTime();
+        summary = generator.generate(file.toPath(), SIZE);
+        report("Generation", System.nanoTime() - start, 0);
+    }
+
+    @AfterClass
+    public static void deleteFile() throws Exception {
+        if (file != null) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void testFileImporter() throws Exception {
+        checkImport(new FileImporter(measureTypes, "#", "yyyy-MM-dd", ",", fieldsPerType), "FileImporter");
+    }
+
+    @Test
+    public void testMappedFileImporter() throws Exception {
+        checkImport(new MappedFileImporter(measureTypes, "#", "yyyy-MM-dd", ",", fieldsPerType),
+                    "MappedFileImporter");
+    }
+
+    private void checkImport(final FileImporter fileImporter, final String name) throws Exception {
+        final SourceStats sourceStats = new SourceStats();
+        final GroupBy groupBy = new GroupBy(EnumSet.of(GroupDimension.TYPE, GroupDimension.DAY));
+
+        System.gc();
+        final HeapSampler sampler = new HeapSampler();
+        sampler.start();
+        final long start = System.nanoTime();
+        fileImporter.consume(file, new CompositeSink(Arrays.asList(sourceStats, groupBy)));
+        final StatsComputer statsComputer = StatsComputer.of(measureTypes, sourceStats);
+        for (final MeasureType type : measureTypes) {
+            Assert.assertTrue(statsComputer.getMinValue(type.getCode()) <= statsComputer.getMeanValue(type.getCode()));
+            Assert.assertTrue(statsComputer.getMeanValue(type.getCode()) <= statsComputer.getMaxValue(type.getCode()));
+        }
+        final long duration = System.nanoTime() - start;
+        final long retainedHeap = sampler.finish();
+        final double throughput = report(name, duration, retainedHeap);
+
+        Assert.assertEquals(summary.getStations(), statsComputer.getNumberOfWeatherStations());
+        Assert.assertEquals(summary.getFailedMeasures(), sourceStats.getNumberOfFailedMeasures());
+        long measures = 0;
+        for (final MeasureType type : measureTypes) {
+            measures += sourceStats.getAccumulators().get(type.getCode()).getCount();
+        }
+        Assert.assertEquals(summary.getMeasures(), measures);
+
+        Assert.assertTrue(String.format("%s: throughput of %.1f MB/s under the budget of %.1f MB/s", name, throughput,
+                                        MIN_THROUGHPUT), throughput >= MIN_THROUGHPUT);
+        Assert.assertTrue(String.format("%s: retained heap of %d MB over the budget of %d MB", name,
+                                        retainedHeap / MB, MAX_HEAP / MB), retainedHeap <= MAX_HEAP);
+    }
+
+    private static double report(final String name, final long durationNanos, final long retainedHeap) {
+        final double seconds = durationNanos / 1e9;
+        final double throughput = summary.getBytes() / (double) MB / seconds;
+        System.out.println(String.format("%s of %d MB: %.2f s, %.1f MB/s, %d MB of retained heap", name,
+                                         summary.getBytes() / MB, seconds, throughput, retainedHeap / MB));
+        return throughput;
+    }
+
+    /**
+     * Sampler of the heap used after the last garbage collection, which is the heap retained by the import and not
+     * the garbage it allocates
+     */
+    private static final class HeapSampler extends Thread
+    {
+        private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+        private volatile boolean running = true;
+        private long maxRetained;
+
+        private HeapSampler() {
+            setDaemon(true);
+            for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pools.add(pool);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(10);
+                } catch (final InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private synchronized void sample() {
+            long retained = 0;
+            for (final MemoryPoolMXBean pool : pools) {
+                final MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    retained += usage.getUsed();
+                }
+            }
+            maxRetained = Math.max(maxRetained, retained);
+        }
+
+        private long finish() throws InterruptedException {
+            running = false;
+            join();
+            sample();
+            synchronized (this) {
+                return maxRetained;
+            }
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package com.gloogie.mshpoa.importer.impl;
 
+import com.gloogie.mshpoa.importer.Checkpoint;
+import com.gloogie.mshpoa.importer.MeasureSink;
 import com.gloogie.mshpoa.importer.exception.ImporterException;
 import com.gloogie.mshpoa.model.*;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +40,9 @@ public class FileImporterTest
     private final File fileUnknownType = new File(FileImporter.class.getResource("/test_unknown_type.txt").getPath());
     private final File fileNbLinesKO = new File(FileImporter.class.getResource("/test_nb_lines_ko.txt").getPath());
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private FileImporter fileImporter;
 
     @Before
@@ -142,6 +151,26 @@ public class FileImporterTest
         /** To be continued... **/
     }
 
+    @Test
+    public void testConsumeFileOKWithConsumer() throws Exception {
+        final List<String> names = new ArrayList<>();
+        final List<Integer> sizes = new ArrayList<>();
+        fileImporter.consume(fileOK, station -> {
+            names.add(station.getName());
+            sizes.add(station.getMeasures().size() + station.getFailedMeasures().size());
+        });
+
+        Assert.assertEquals(4, names.size());
+        Assert.assertEquals("Mont Aigoual", names.get(0));
+        Assert.assertEquals("Clapiers", names.get(1));
+        Assert.assertEquals("Montpellier", names.get(2));
+        Assert.assertEquals("Paris", names.get(3));
+        Assert.assertEquals(Integer.valueOf(6), sizes.get(0));
+        Assert.assertEquals(Integer.valueOf(9), sizes.get(1));
+        Assert.assertEquals(Integer.valueOf(3), sizes.get(2));
+        Assert.assertEquals(Integer.valueOf(9), sizes.get(3));
+    }
+
     @Test
     public void testConsumeFileNull() throws Exception {
         try {
@@ -218,6 +247,193 @@ public class FileImporterTest
             "The line [T,C,] is not a valid line for the measure of type temperature. Expected number of fields was 3, actual number is 2",
             failedMeasure.getException().getMessage());
         Assert.assertEquals("T,C,", failedMeasure.getValue());
+        Assert.assertEquals(FailureReason.WRONG_NUMBER_OF_FIELDS, failedMeasure.getReason());
+        Assert.assertEquals(3, failedMeasure.getLineNumber());
+        Assert.assertEquals(30, failedMeasure.getOffset());
+        Assert.assertEquals(0, failedMeasure.getException().getStackTrace().length);
+    }
+
+    @Test
+    public void testConsumeFileCountFailedMeasuresOnly() throws Exception {
+        fileImporter.setMaxRecordedFailures(0);
+
+        final List<WeatherStation> stations = fileImporter.consume(fileTKO);
+
+        Assert.assertEquals(4, stations.size());
+        final WeatherStation station = stations.get(0);
+        Assert.assertEquals(5, station.getMeasures().size());
+        Assert.assertEquals(0, station.getFailedMeasures().size());
+        Assert.assertEquals(1, station.getNumberOfFailedMeasures());
+    }
+
+    @Test
+    public void testConsumeFileWithSink() throws Exception {
+        final File file = temporaryFolder.newFile("test_sink.txt");
+        Files.write(file.toPath(), Arrays.asList("Station,3", "T,C,12.5", "P,BAR,2014-11-02,1012", "X,1"));
+        final List<String> events = new ArrayList<>();
+
+        fileImporter.consume(file, new MeasureSink()
+        {
+            @Override
+            public void onStationStart(final String name, final int declaredMeasures) {
+                events.add("start " + name + " " + declaredMeasures);
+            }
+
+            @Override
+            public void onMeasure(final MeasureType type, final double value, final long dateMillis,
+                                  final String unit) {
+                events.add(type.getCode() + " " + value + " " + (dateMillis == Measure.NO_DATE) + " " + unit);
+            }
+
+            @Override
+            public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+                events.add(reason + " " + failedMeasure.getLineNumber());
+            }
+
+            @Override
+            public void onStationEnd() {
+                events.add("end");
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList("start Station 3", "T 12.5 true C", "P 1012.0 false BAR",
+                                          "UNSUPPORTED_TYPE 4", "end"), events);
+    }
+
+    @Test
+    public void testConsumeFileSymbols() throws Exception {
+        final File file = temporaryFolder.newFile("test_symbols.txt");
+        Files.write(file.toPath(), Arrays.asList("Station,2", "T,C,12.5", "T,C,13", "Other,1", "T,C,14",
+                                                 "Station,1", "P,BAR,2014-11-02,1012"));
+
+        final List<WeatherStation> stations = fileImporter.consume(file);
+
+        // Equal names and units of a file are a single String
+        Assert.assertEquals("Station", stations.get(0).getName());
+        Assert.assertSame(stations.get(0).getName(), stations.get(2).getName());
+        Assert.assertEquals("Other", stations.get(1).getName());
+        final String unit = stations.get(0).getMeasures().get(0).getUnit();
+        Assert.assertEquals("C", unit);
+        Assert.assertSame(unit, stations.get(0).getMeasures().get(1).getUnit());
+        Assert.assertSame(unit, stations.get(1).getMeasures().get(0).getUnit());
+        Assert.assertEquals("BAR", stations.get(2).getMeasures().get(0).getUnit());
+
+        // The symbols are not kept from one file to the next
+        final List<WeatherStation> otherStations = fileImporter.consume(file);
+        Assert.assertNotSame(stations.get(0).getName(), otherStations.get(0).getName());
+    }
+
+    @Test
+    public void testConsumeFileFromCheckpoint() throws Exception {
+        final File file = temporaryFolder.newFile("test_checkpoint.txt");
+        Files.write(file.toPath(), Arrays.asList("Station1,2", "T,C,12.5", "H,45", "# comment", "Station2,2",
+                                                 "X,1", "P,BAR,2014-11-02,1012", "Station3,1", "H,abc",
+                                                 "Station4,1", "T,C,-3"));
+
+        // Full import, keeping the events received before each checkpoint
+        final List<String> events = new ArrayList<>();
+        final List<Checkpoint> checkpoints = new ArrayList<>();
+        final List<Integer> eventsAtCheckpoints = new ArrayList<>();
+        fileImporter.consume(file, new EventSink(events), Checkpoint.START, 1, checkpoint -> {
+            checkpoints.add(checkpoint);
+            eventsAtCheckpoints.add(events.size());
+        });
+
+        // A checkpoint at the start of each station except the first one
+        Assert.assertEquals(3, checkpoints.size());
+        Assert.assertEquals("Station1,2\nT,C,12.5\nH,45\n# comment\n".length(), checkpoints.get(0).getOffset());
+        Assert.assertEquals(4, checkpoints.get(0).getLineNumber());
+        Assert.assertEquals(0, checkpoints.get(0).getRecordedFailures());
+        Assert.assertEquals(7, checkpoints.get(1).getLineNumber());
+        Assert.assertEquals(1, checkpoints.get(1).getRecordedFailures());
+        Assert.assertEquals(9, checkpoints.get(2).getLineNumber());
+        Assert.assertEquals(2, checkpoints.get(2).getRecordedFailures());
+        Assert.assertEquals(Arrays.asList("start Station1 2", "T 12.5", "H 45.0", "end", "start Station2 2",
+                                          "UNSUPPORTED_TYPE 6", "P 1012.0", "end", "start Station3 1",
+                                          "INVALID_VALUE 9", "end", "start Station4 1", "T -3.0", "end"), events);
+
+        // An import resumed from any checkpoint with the state of this checkpoint gives the same events
+        for (int i = 0; i < checkpoints.size(); i++) {
+            final List<String> resumed = new ArrayList<>(events.subList(0, eventsAtCheckpoints.get(i)));
+            fileImporter.consume(file, new EventSink(resumed), checkpoints.get(i), Long.MAX_VALUE, checkpoint -> {
+            });
+            Assert.assertEquals(events, resumed);
+        }
+    }
+
+    @Test(expected = ImporterException.class)
+    public void testConsumeFileFromCheckpointAfterEnd() throws Exception {
+        fileImporter.consume(fileOK, new EventSink(new ArrayList<>()), new Checkpoint(fileOK.length() + 1, 0, 0), 1,
+                             checkpoint -> {
+                             });
+    }
+
+    @Test
+    public void testConsumeStationsWithIndex() throws Exception {
+        final File file = temporaryFolder.newFile("test_index.txt");
+        Files.write(file.toPath(), Arrays.asList("# comment", "Station1,2", "T,C,12.5", "H,45", "Station2,2", "X,1",
+                                                 "P,BAR,2014-11-02,1012", "Station1,1", "H,abc"));
+        final List<String> events = new ArrayList<>();
+
+        final StationIndex index = fileImporter.index(file, new EventSink(events));
+        Assert.assertTrue(index.writeFor(file));
+        final StationIndex readIndex = StationIndex.readFor(file);
+
+        Assert.assertEquals(3, readIndex.size());
+        Assert.assertEquals("Station2", readIndex.getName(1));
+        Assert.assertEquals("# comment\nStation1,2\nT,C,12.5\nH,45\n".length(), readIndex.getOffset(1));
+        Assert.assertEquals(5, readIndex.getLineNumber(1));
+        Assert.assertEquals(2, readIndex.getDeclaredMeasures(1));
+        Assert.assertEquals(Arrays.asList(0, 2), readIndex.find(Arrays.asList("Station1", "Unknown")));
+
+        events.clear();
+        fileImporter.consumeStations(file, readIndex, Arrays.asList("Station1"), new EventSink(events));
+
+        Assert.assertEquals(Arrays.asList("start Station1 2", "T 12.5", "H 45.0", "end", "start Station1 1",
+                                          "INVALID_VALUE 9", "end"), events);
+    }
+
+    @Test
+    public void testConsumeStationsWithOutdatedIndex() throws Exception {
+        final File file = temporaryFolder.newFile("test_index.txt");
+        Files.write(file.toPath(), Arrays.asList("Station1,1", "T,C,12.5"));
+        final StationIndex index = fileImporter.index(file, new EventSink(new ArrayList<>()));
+        index.writeFor(file);
+
+        Files.write(file.toPath(), Arrays.asList("Station1,2", "T,C,12.5", "H,45"));
+
+        Assert.assertNull(StationIndex.readFor(file));
+        try {
+            fileImporter.consumeStations(file, index, Arrays.asList("Station1"), new EventSink(new ArrayList<>()));
+            Assert.fail("Expected exception was not thrown");
+        } catch (final ImporterException e) {
+            Assert.assertEquals("The index of the file [" + file.getPath()
+                                + "] does not match its size or modification time", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConsumeFileInvalidValueAndDate() throws Exception {
+        final File file = temporaryFolder.newFile("test_invalid.txt");
+        Files.write(file.toPath(), Arrays.asList("Station,4", "T,C,abc", "P,BAR,2014-13-01,1014", "H,15", "H,20"));
+
+        final List<WeatherStation> stations = fileImporter.consume(file);
+
+        Assert.assertEquals(1, stations.size());
+        final List<FailedMeasure> failedMeasures = stations.get(0).getFailedMeasures();
+        Assert.assertEquals(2, failedMeasures.size());
+        Assert.assertEquals(FailureReason.INVALID_VALUE, failedMeasures.get(0).getReason());
+        Assert.assertEquals("Value of measure [abc] in the line [T,C,abc] is not a valid double",
+                            failedMeasures.get(0).getMessage());
+        Assert.assertEquals(2, failedMeasures.get(0).getLineNumber());
+        Assert.assertEquals(10, failedMeasures.get(0).getOffset());
+        Assert.assertEquals(FailureReason.INVALID_DATE, failedMeasures.get(1).getReason());
+        Assert.assertEquals(
+            "Date of measure [2014-13-01] in the line [P,BAR,2014-13-01,1014] is not a valid date (Expected format is yyyy-MM-dd)",
+            failedMeasures.get(1).getMessage());
+        Assert.assertEquals(3, failedMeasures.get(1).getLineNumber());
+        Assert.assertEquals(2, stations.get(0).getMeasures().size());
+        Assert.assertEquals(2, stations.get(0).getNumberOfFailedMeasures());
     }
 
     @Test
@@ -381,4 +597,36 @@ public class FileImporterTest
                 e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sink recording its events as strings
+     */
+    private static final class EventSink implements MeasureSink
+    {
+        private final List<String> events;
+
+        private EventSink(final List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void onStationStart(final String name, final int declaredMeasures) {
+            events.add("start " + name + " " + declaredMeasures);
+        }
+
+        @Override
+        public void onMeasure(final MeasureType type, final double value, final long dateMillis, final String unit) {
+            events.add(type.getCode() + " " + value);
+        }
+
+        @Override
+        public void onFailedMeasure(final FailureReason reason, final FailedMeasure failedMeasure) {
+            events.add(reason + " " + failedMeasure.getLineNumber());
+        }
+
+        @Override
+        public void onStationEnd() {
+            events.add("end");
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.generator.DatasetGenerator;
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.model.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test class for MappedFileImporter
+ */
+public class MappedFileImporterTest
+{
+    private static final String PREFIX_COMMENT = "#";
+    private static final String FIELDS_SEPARATOR = ",";
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private static final String[] FILES = {"/test_ok.txt", "/test_empty.txt", "/test_T_ko.txt", "/test_P_ko.txt",
+                                           "/test_H_ko.txt", "/test_unknown_type.txt"};
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final File fileNbLinesKO = new File(FileImporter.class.getResource("/test_nb_lines_ko.txt").getPath());
+
+    private ForkJoinPool pool;
+    private FileImporter fileImporter;
+    private MappedFileImporter mappedFileImporter;
+
+    @Before
+    public void setUp() throws Exception {
+        final List<MeasureType> measureTypes = new ArrayList<>();
+        MeasureType measureType = new MeasureType();
+        measureType.setCode("T");
+        measureType.setName("temperature");
+        measureTypes.add(measureType);
+        measureType = new MeasureType();
+        measureType.setCode("P");
+        measureType.setName("pressure");
+        measureTypes.add(measureType);
+        measureType = new MeasureType();
+        measureType.setCode("H");
+        measureType.setName("humidity");
+        measureTypes.add(measureType);
+        final Map<String, List<MeasureField>> fieldsPerType = new LinkedHashMap<>();
+        List<MeasureField> measureFields = new ArrayList<>();
+        measureFields.add(MeasureField.UNIT);
+        measureFields.add(MeasureField.VALUE);
+        fieldsPerType.put("T", measureFields);
+        measureFields = new ArrayList<>();
+        measureFields.add(MeasureField.UNIT);
+        measureFields.add(MeasureField.DATE);
+        measureFields.add(MeasureField.VALUE);
+        fieldsPerType.put("P", measureFields);
+        measureFields = new ArrayList<>();
+        measureFields.add(MeasureField.VALUE);
+        fieldsPerType.put("H", measureFields);
+        pool = new ForkJoinPool(4);
+        fileImporter = new FileImporter(measureTypes, PREFIX_COMMENT, DATE_PATTERN, FIELDS_SEPARATOR, fieldsPerType);
+        mappedFileImporter = new MappedFileImporter(measureTypes, PREFIX_COMMENT, DATE_PATTERN, FIELDS_SEPARATOR,
+                                                    fieldsPerType, pool);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testConsumeSameAsFileImporter() throws Exception {
+        for (final String path : FILES) {
+            final File file = new File(FileImporter.class.getResource(path).getPath());
+            StationAssertions.assertSameStations(path, fileImporter.consume(file), mappedFileImporter.consume(file));
+        }
+    }
+
+    @Test
+    public void testConsumeOneChunkPerStation() throws Exception {
+        mappedFileImporter.setChunkSize(1);
+        for (final String path : FILES) {
+            final File file = new File(FileImporter.class.getResource(path).getPath());
+            StationAssertions.assertSameStations(path, fileImporter.consume(file), mappedFileImporter.consume(file));
+        }
+    }
+
+    @Test
+    public void testConsumeGeneratedFile() throws Exception {
+        // Up to 100 measures per station, so some segments start after more measures lines than the speculated ones
+        final File file = temporaryFolder.newFile("generated.txt");
+        final DatasetGenerator generator = new DatasetGenerator(fileImporter, 42);
+        generator.setMeasuresPerStation(0, 100);
+        generator.setErrorRate(0.05);
+        generator.setCommentRate(0.05);
+        generator.generate(file.toPath(), 200000);
+
+        final List<WeatherStation> expected = fileImporter.consume(file);
+        for (final long size : new long[]{1, 100, 997, 4096, 65536}) {
+            mappedFileImporter.setChunkSize(size);
+            StationAssertions.assertSameStations("chunk size " + size, expected, mappedFileImporter.consume(file));
+        }
+    }
+
+    @Test
+    public void testConsumeStationLinesLikeMeasures() throws Exception {
+        // The station H and the lines of humidity H,n can only be told apart by walking the stations from the start
+        final File file = temporaryFolder.newFile("ambiguous.txt");
+        Files.write(file.toPath(), ("H,2\r\nH,1\r\nH,3\r\n# comment\r\n\r\nT,1\r\nH,0\r\nH,2\r\nH,1\r\n"
+                                    + "T,C,12\r\nH,1\r\nH,4\r\n").getBytes(StandardCharsets.UTF_8));
+
+        final List<WeatherStation> expected = fileImporter.consume(file);
+        Assert.assertEquals(Arrays.asList("H", "T", "H", "H"), names(expected));
+        for (final long size : new long[]{1, 3, 7, 11, 4096}) {
+            mappedFileImporter.setChunkSize(size);
+            StationAssertions.assertSameStations("chunk size " + size, expected, mappedFileImporter.consume(file));
+        }
+    }
+
+    @Test
+    public void testConsumeCountFailedMeasuresOnly() throws Exception {
+        fileImporter.setMaxRecordedFailures(0);
+        mappedFileImporter.setMaxRecordedFailures(0);
+        mappedFileImporter.setChunkSize(1);
+        for (final String path : FILES) {
+            final File file = new File(FileImporter.class.getResource(path).getPath());
+            StationAssertions.assertSameStations(path, fileImporter.consume(file), mappedFileImporter.consume(file));
+        }
+    }
+
+    @Test
+    public void testConsumeFileNull() throws Exception {
+        try {
+            mappedFileImporter.consume(null);
+            Assert.fail("Expected exception was not thrown");
+        } catch (final ImporterException e) {
+            Assert.assertEquals("File cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConsumeFileNotNound() throws Exception {
+        try {
+            mappedFileImporter.consume(new File("notExistPath"));
+            Assert.fail("Expected exception was not thrown");
+        } catch (final ImporterException e) {
+            Assert.assertEquals("File [notExistPath] is not found", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConsumeFileWrongNumberOfLines() throws Exception {
+        for (final long size : new long[]{1, 10, 4096}) {
+            mappedFileImporter.setChunkSize(size);
+            try {
+                mappedFileImporter.consume(fileNbLinesKO);
+                Assert.fail("Expected exception was not thrown");
+            } catch (final ImporterException e) {
+                Assert.assertEquals(
+                    "The line [P,BAR,2014-11-01,1001] is not a valid line for the station. Expected number of fields was 2, actual number is 4",
+                    e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> names(final List<WeatherStation> stations) {
+        final List<String> names = new ArrayList<>();
+        for (final WeatherStation station : stations) {
+            names.add(station.getName());
+        }
+        return names;
+    }
+}
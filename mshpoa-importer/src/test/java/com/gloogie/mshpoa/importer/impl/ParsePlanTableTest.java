@@ -0,0 +1,76 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.parser.DateParser;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.model.SymbolTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for ParsePlanTable and ParsePlan
+ */
+public class ParsePlanTableTest
+{
+    private ParsePlanTable table;
+    private ParseContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        final List<MeasureType> measureTypes = new ArrayList<>();
+        final Map<String, List<MeasureField>> fieldsPerType = new LinkedHashMap<>();
+        for (final String code : Arrays.asList("T", "TX", "Température", "P")) {
+            final MeasureType type = new MeasureType();
+            type.setCode(code);
+            type.setName(code.toLowerCase());
+            measureTypes.add(type);
+            fieldsPerType.put(code, Arrays.asList(MeasureField.UNIT, MeasureField.VALUE));
+        }
+        fieldsPerType.put("P", Arrays.asList(MeasureField.UNIT, MeasureField.DATE, MeasureField.VALUE));
+        table = new ParsePlanTable(measureTypes, fieldsPerType, new DateParser("yyyy-MM-dd"));
+        context = new ParseContext(",", new SymbolTable());
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        Assert.assertEquals("T", find("T,C,1").getCode());
+        Assert.assertEquals("TX", find(" TX ,C,1").getCode());
+        Assert.assertEquals("Température", find("Température,C,1").getCode());
+        Assert.assertEquals("P", find("P,BAR,2014-01-01,1").getCode());
+        Assert.assertNull(find("TY,C,1"));
+        Assert.assertNull(find("Tx,C,1"));
+        Assert.assertNull(find("Éclair,C,1"));
+        Assert.assertNull(find(" ,C,1"));
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        final String line = "P, BAR ,2014-01-01, 1014.5";
+        Assert.assertNull(find(line).parse(context, line));
+        Assert.assertEquals("P", context.getType().getCode());
+        Assert.assertEquals(" BAR ", context.getUnit());
+        Assert.assertEquals(1014.5, context.getValue(), 0);
+        Assert.assertEquals(new DateParser("yyyy-MM-dd").parse("2014-01-01", 0, 10), context.getDateMillis());
+        Assert.assertEquals(4, find(line).getFieldCount());
+
+        Assert.assertEquals(FailureReason.WRONG_NUMBER_OF_FIELDS, find("P,BAR,1").parse(context, "P,BAR,1"));
+        Assert.assertEquals(FailureReason.INVALID_DATE, find("P,BAR,x,y").parse(context, "P,BAR,x,y"));
+        Assert.assertEquals(2, context.getFailedField());
+        Assert.assertEquals(FailureReason.INVALID_VALUE, find("T,C,x").parse(context, "T,C,x"));
+        Assert.assertEquals(2, context.getFailedField());
+    }
+
+    private ParsePlan find(final String line) {
+        context.getTokenizer().reset(line);
+        context.clearMeasure();
+        return table.find(context.getTokenizer());
+    }
+}
@@ -0,0 +1,189 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.importer.exception.ImporterException;
+import com.gloogie.mshpoa.model.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for SnapshotWriter and SnapshotImporter
+ */
+public class SnapshotImporterTest
+{
+    private static final String PREFIX_COMMENT = "#";
+    private static final String FIELDS_SEPARATOR = ",";
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private static final String[] FILES = {"/test_ok.txt", "/test_empty.txt", "/test_T_ko.txt", "/test_P_ko.txt",
+                                           "/test_H_ko.txt", "/test_unknown_type.txt"};
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileImporter fileImporter;
+    private SnapshotImporter snapshotImporter;
+
+    @Before
+    public void setUp() throws Exception {
+        final List<MeasureType> measureTypes = new ArrayList<>();
+        MeasureType measureType = new MeasureType();
+        measureType.setCode("T");
+        measureType.setName("temperature");
+        measureTypes.add(measureType);
+        measureType = new MeasureType();
+        measureType.setCode("P");
+        measureType.setName("pressure");
+        measureTypes.add(measureType);
+        measureType = new MeasureType();
+        measureType.setCode("H");
+        measureType.setName("humidity");
+        measureTypes.add(measureType);
+        final Map<String, List<MeasureField>> fieldsPerType = new LinkedHashMap<>();
+        List<MeasureField> measureFields = new ArrayList<>();
+        measureFields.add(MeasureField.UNIT);
+        measureFields.add(MeasureField.VALUE);
+        fieldsPerType.put("T", measureFields);
+        measureFields = new ArrayList<>();
+        measureFields.add(MeasureField.UNIT);
+        measureFields.add(MeasureField.DATE);
+        measureFields.add(MeasureField.VALUE);
+        fieldsPerType.put("P", measureFields);
+        measureFields = new ArrayList<>();
+        measureFields.add(MeasureField.VALUE);
+        fieldsPerType.put("H", measureFields);
+        fileImporter = new FileImporter(measureTypes, PREFIX_COMMENT, DATE_PATTERN, FIELDS_SEPARATOR, fieldsPerType);
+        snapshotImporter = new SnapshotImporter(measureTypes);
+    }
+
+    @Test
+    public void testConsumeSameAsFileImporter() throws Exception {
+        for (final String path : FILES) {
+            final File file = new File(FileImporter.class.getResource(path).getPath());
+            StationAssertions.assertSameStations(path, fileImporter.consume(file),
+                                                 snapshotImporter.consume(writeSnapshot(file)));
+        }
+    }
+
+    @Test
+    public void testConsumeCountFailedMeasuresOnly() throws Exception {
+        fileImporter.setMaxRecordedFailures(0);
+        for (final String path : FILES) {
+            final File file = new File(FileImporter.class.getResource(path).getPath());
+            StationAssertions.assertSameStations(path, fileImporter.consume(file),
+                                                 snapshotImporter.consume(writeSnapshot(file)));
+        }
+    }
+
+    @Test
+    public void testConsumeLargeCounts() throws Exception {
+        final StringBuilder content = new StringBuilder("Paris,300\n");
+        for (int i = 0; i < 300; i++) {
+            content.append("T,C,").append(i).append('\n');
+        }
+        content.append("Lyon,1\nT,C,5\n");
+        final File file = temporaryFolder.newFile("large.txt");
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        StationAssertions.assertSameStations("large.txt", fileImporter.consume(file),
+                                             snapshotImporter.consume(writeSnapshot(file)));
+    }
+
+    @Test
+    public void testCountWidth() throws Exception {
+        Assert.assertEquals(Byte.BYTES, SnapshotWriter.countWidth(-1, Byte.MAX_VALUE));
+        Assert.assertEquals(Short.BYTES, SnapshotWriter.countWidth(0, Byte.MAX_VALUE + 1));
+        Assert.assertEquals(Short.BYTES, SnapshotWriter.countWidth(Byte.MIN_VALUE - 1, 0));
+        Assert.assertEquals(Integer.BYTES, SnapshotWriter.countWidth(0, Short.MAX_VALUE + 1));
+    }
+
+    @Test
+    public void testConsumeUnknownType() throws Exception {
+        final File file = new File(FileImporter.class.getResource("/test_ok.txt").getPath());
+        final File snapshot = writeSnapshot(file);
+
+        final List<WeatherStation> stations = new SnapshotImporter(new ArrayList<>()).consume(snapshot);
+
+        final MeasureType type = stations.get(0).getMeasures().get(0).getType();
+        Assert.assertEquals("T", type.getCode());
+        Assert.assertEquals("temperature", type.getName());
+    }
+
+    @Test
+    public void testConsumeFileNotNound() throws Exception {
+        try {
+            snapshotImporter.consume(new File("notExistPath"));
+            Assert.fail("Expected exception was not thrown");
+        } catch (final ImporterException e) {
+            Assert.assertEquals("File [notExistPath] is not found", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConsumeNotSnapshot() throws Exception {
+        final File file = new File(FileImporter.class.getResource("/test_ok.txt").getPath());
+        try {
+            snapshotImporter.consume(file);
+            Assert.fail("Expected exception was not thrown");
+        } catch (final ImporterException e) {
+            Assert.assertEquals("File [" + file.getPath() + "] is not a valid snapshot", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWriteToDeletesTemporaryFilesOnClose() throws Exception {
+        final File file = new File(FileImporter.class.getResource("/test_ok.txt").getPath());
+        final File directory = temporaryFolder.newFolder();
+        final File snapshot = temporaryFolder.newFile("test_ok.txt" + SnapshotWriter.EXTENSION);
+
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(directory)) {
+            fileImporter.consume(file, snapshotWriter);
+            Assert.assertNotEquals(0, directory.list().length);
+            snapshotWriter.writeTo(snapshot);
+        }
+
+        Assert.assertEquals(0, directory.list().length);
+        Assert.assertFalse(new File(snapshot.getPath() + ".tmp").exists());
+        StationAssertions.assertSameStations("/test_ok.txt", fileImporter.consume(file),
+                                             snapshotImporter.consume(snapshot));
+    }
+
+    @Test
+    public void testWriteToTwice() throws Exception {
+        final File file = new File(FileImporter.class.getResource("/test_ok.txt").getPath());
+        final File first = temporaryFolder.newFile("first" + SnapshotWriter.EXTENSION);
+        final File second = temporaryFolder.newFile("second" + SnapshotWriter.EXTENSION);
+
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(temporaryFolder.newFolder())) {
+            fileImporter.consume(file, snapshotWriter);
+            snapshotWriter.writeTo(first);
+            fileImporter.consume(file, snapshotWriter);
+            snapshotWriter.writeTo(second);
+        }
+
+        final List<WeatherStation> expected = fileImporter.consume(file);
+        StationAssertions.assertSameStations("first", expected, snapshotImporter.consume(first));
+        final List<WeatherStation> twice = new ArrayList<>(expected);
+        twice.addAll(expected);
+        StationAssertions.assertSameStations("second", twice, snapshotImporter.consume(second));
+    }
+
+    private File writeSnapshot(final File file) throws Exception {
+        final File snapshot = temporaryFolder.newFile(file.getName() + SnapshotWriter.EXTENSION);
+        try (SnapshotWriter snapshotWriter = new SnapshotWriter(temporaryFolder.getRoot())) {
+            fileImporter.consume(file, snapshotWriter);
+            snapshotWriter.writeTo(snapshot);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,57 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.WeatherStation;
+import org.junit.Assert;
+
+import java.util.List;
+
+/**
+ * Assertions on the stations imported by the importers, to check that an importer gives the same stations as
+ * FileImporter
+ */
+final class StationAssertions
+{
+    private StationAssertions() {
+    }
+
+    /**
+     * Assert that the stations, their measures and their failed measures are the same, in the same order
+     *
+     * @param path     the source of the stations, for the messages of the assertions
+     * @param expected the expected stations
+     * @param actual   the actual stations
+     */
+    static void assertSameStations(final String path, final List<WeatherStation> expected,
+                                   final List<WeatherStation> actual) {
+        Assert.assertEquals(path, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final WeatherStation expectedStation = expected.get(i);
+            final WeatherStation actualStation = actual.get(i);
+            Assert.assertEquals(path, expectedStation.getName(), actualStation.getName());
+            Assert.assertEquals(path, expectedStation.getMeasures().size(), actualStation.getMeasures().size());
+            for (int j = 0; j < expectedStation.getMeasures().size(); j++) {
+                final Measure expectedMeasure = expectedStation.getMeasures().get(j);
+                final Measure actualMeasure = actualStation.getMeasures().get(j);
+                Assert.assertSame(path, expectedMeasure.getType(), actualMeasure.getType());
+                Assert.assertEquals(path, expectedMeasure.getValue(), actualMeasure.getValue());
+                Assert.assertEquals(path, expectedMeasure.getUnit(), actualMeasure.getUnit());
+                Assert.assertEquals(path, expectedMeasure.getDate(), actualMeasure.getDate());
+            }
+            Assert.assertEquals(path, expectedStation.getFailedMeasures().size(),
+                                actualStation.getFailedMeasures().size());
+            Assert.assertEquals(path, expectedStation.getNumberOfFailedMeasures(),
+                                actualStation.getNumberOfFailedMeasures());
+            for (int j = 0; j < expectedStation.getFailedMeasures().size(); j++) {
+                final FailedMeasure expectedFailedMeasure = expectedStation.getFailedMeasures().get(j);
+                final FailedMeasure actualFailedMeasure = actualStation.getFailedMeasures().get(j);
+                Assert.assertEquals(path, expectedFailedMeasure.getValue(), actualFailedMeasure.getValue());
+                Assert.assertEquals(path, expectedFailedMeasure.getReason(), actualFailedMeasure.getReason());
+                Assert.assertEquals(path, expectedFailedMeasure.getMessage(), actualFailedMeasure.getMessage());
+                Assert.assertEquals(path, expectedFailedMeasure.getLineNumber(), actualFailedMeasure.getLineNumber());
+                Assert.assertEquals(path, expectedFailedMeasure.getOffset(), actualFailedMeasure.getOffset());
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.gloogie.mshpoa.importer.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test class for StreamLineSource
+ */
+public class StreamLineSourceTest
+{
+    @Test
+    public void testLineTerminators() throws Exception {
+        for (final boolean byteByByte : new boolean[]{false, true}) {
+            final LineSource source = source("a,1\nb\r\nc\r\rd\n\ne", byteByByte);
+            assertLine(source, "a,1", 1, 0);
+            assertLine(source, "b", 2, 4);
+            assertLine(source, "c", 3, 7);
+            assertLine(source, "", 4, 9);
+            assertLine(source, "d", 5, 10);
+            assertLine(source, "", 6, 12);
+            assertLine(source, "e", 7, 13);
+            Assert.assertNull(source.nextLine());
+        }
+    }
+
+    @Test
+    public void testNoTrailingEmptyLine() throws Exception {
+        final LineSource source = source("a\r\n", true);
+        assertLine(source, "a", 1, 0);
+        Assert.assertNull(source.nextLine());
+        Assert.assertNull(source("", false).nextLine());
+    }
+
+    @Test
+    public void testLongAndNonAsciiLines() throws Exception {
+        final String longLine = StringUtils.repeat("x", 3 * StreamLineSource.BUFFER_SIZE);
+        final LineSource source = source(longLine + "\nMontélimar,2\n", false);
+        assertLine(source, longLine, 1, 0);
+        assertLine(source, "Montélimar,2", 2, longLine.length() + 1);
+        Assert.assertNull(source.nextLine());
+    }
+
+    private static void assertLine(final LineSource source, final String line, final long lineNumber,
+                                   final long offset) throws IOException {
+        Assert.assertEquals(line, source.nextLine().toString());
+        Assert.assertEquals(lineNumber, source.getLineNumber());
+        Assert.assertEquals(offset, source.getOffset());
+    }
+
+    private static LineSource source(final String content, final boolean byteByByte) {
+        final InputStream inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        if (!byteByByte) {
+            return new StreamLineSource(inputStream);
+        }
+        // Stream giving one byte at a time, so that each line is split between several reads
+        return new StreamLineSource(new FilterInputStream(inputStream)
+        {
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                return super.read(b, off, Math.min(1, len));
+            }
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.gloogie.mshpoa.importer.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for DateParser
+ */
+public class DateParserTest
+{
+    private static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    @Test
+    public void testParseSameAsSimpleDateFormat() throws Exception {
+        final DateParser dateParser = new DateParser(DATE_PATTERN);
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+        for (final String date : new String[]{"2014-11-01", "2014-11-02", "2014-11-01", "1969-12-31", "2016-02-29"}) {
+            Assert.assertEquals(date, dateFormat.parse(date).getTime(), dateParser.parse(date, 0, date.length()));
+        }
+    }
+
+    @Test
+    public void testParseRange() throws Exception {
+        final DateParser dateParser = new DateParser(DATE_PATTERN, ZoneOffset.UTC);
+        final String line = "P,BAR,2014-11-01,1014";
+        Assert.assertEquals(1414800000000L, dateParser.parse(line, 6, 16));
+        // Second parse of the same text comes from the cache
+        Assert.assertEquals(1414800000000L, dateParser.parse(line, 6, 16));
+        Assert.assertEquals(1414886400000L, dateParser.parse("2014-11-02", 0, 10));
+    }
+
+    @Test
+    public void testParseDateTime() throws Exception {
+        final DateParser dateParser = new DateParser("yyyy-MM-dd HH:mm", ZoneOffset.UTC);
+        Assert.assertEquals(1414800000000L + 90 * 60 * 1000, dateParser.parse("2014-11-01 01:30", 0, 16));
+    }
+
+    @Test
+    public void testParseInvalid() throws Exception {
+        final DateParser dateParser = new DateParser(DATE_PATTERN);
+        for (final String date : new String[]{"", "2014-11", "2014-13-01", "2014-13-45", "01/11/2014", "2014-11-01T"}) {
+            try {
+                dateParser.parse(date, 0, date.length());
+                Assert.fail("Expected exception was not thrown for " + date);
+            } catch (final DateTimeParseException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseUnresolvableDate() throws Exception {
+        final DateParser dateParser = new DateParser(DATE_PATTERN);
+        // The second parse of the same text comes from the cache, with the same error
+        for (int i = 0; i < 2; i++) {
+            try {
+                dateParser.parse("2014-13-45", 0, 10);
+                Assert.fail("Expected exception was not thrown");
+            } catch (final DateTimeParseException e) {
+                Assert.assertEquals("Text '2014-13-45' is not a valid date", e.getMessage());
+                Assert.assertEquals("2014-13-45", e.getParsedString());
+                Assert.assertEquals(0, e.getStackTrace().length);
+            }
+        }
+    }
+
+    @Test
+    public void testParseInvalidAtIndex() throws Exception {
+        final DateParser dateParser = new DateParser(DATE_PATTERN);
+        try {
+            dateParser.parse("2014/11/01", 0, 10);
+            Assert.fail("Expected exception was not thrown");
+        } catch (final DateTimeParseException e) {
+            Assert.assertEquals("Text '2014/11/01' could not be parsed at index 4", e.getMessage());
+            Assert.assertEquals(4, e.getErrorIndex());
+            Assert.assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testParseConcurrently() throws Exception {
+        final DateParser dateParser = new DateParser(DATE_PATTERN, ZoneOffset.UTC);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        final int day = 1 + i % 28;
+                        final String date = String.format("2014-11-%02d", day);
+                        if (dateParser.parse(date, 0, date.length()) != 1414800000000L + (day - 1) * 86400000L) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPatternBlank() throws Exception {
+        try {
+            new DateParser(" ");
+            Assert.fail("Expected exception was not thrown");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Date pattern cannot be blank", e.getMessage());
+        }
+    }
+}
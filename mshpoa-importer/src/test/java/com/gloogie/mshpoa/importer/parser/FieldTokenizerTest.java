@@ -0,0 +1,69 @@
+package com.gloogie.mshpoa.importer.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for FieldTokenizer
+ */
+public class FieldTokenizerTest
+{
+    private static final String[] LINES = {"T,C,20.5", "H,25,", "T,C,", "Mont Aigoual,6", "P, BAR , 2014-11-01 ,1014",
+                                           ",a", "a,,b", ",,,", "", "no separator", " T ,C,  20.5  ,,", "H,25,test"};
+
+    @Test
+    public void testSameFieldsAsSplit() throws Exception {
+        final FieldTokenizer tokenizer = new FieldTokenizer(",");
+        for (final String line : LINES) {
+            final String[] expected = line.split(",");
+            Assert.assertEquals(line, expected.length, tokenizer.reset(line));
+            Assert.assertEquals(line, expected.length, tokenizer.getFieldCount());
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(line, expected[i], tokenizer.getField(i));
+                Assert.assertEquals(line, expected[i].trim(), tokenizer.getTrimmedField(i));
+                Assert.assertTrue(line, tokenizer.trimmedFieldEquals(i, expected[i].trim()));
+            }
+        }
+    }
+
+    @Test
+    public void testMultiCharactersSeparator() throws Exception {
+        final FieldTokenizer tokenizer = new FieldTokenizer("::");
+        Assert.assertEquals(3, tokenizer.reset("T::C:20.5::x"));
+        Assert.assertEquals("T", tokenizer.getField(0));
+        Assert.assertEquals("C:20.5", tokenizer.getField(1));
+        Assert.assertEquals("x", tokenizer.getField(2));
+    }
+
+    @Test
+    public void testTrimmedBounds() throws Exception {
+        final FieldTokenizer tokenizer = new FieldTokenizer(",");
+        tokenizer.reset("T,  20.5 ");
+        Assert.assertEquals(4, tokenizer.getStart(1));
+        Assert.assertEquals(8, tokenizer.getEnd(1));
+        Assert.assertFalse(tokenizer.trimmedFieldEquals(0, "P"));
+        Assert.assertFalse(tokenizer.trimmedFieldEquals(0, "TT"));
+    }
+
+    @Test
+    public void testFieldNotFound() throws Exception {
+        final FieldTokenizer tokenizer = new FieldTokenizer(",");
+        tokenizer.reset("T,C");
+        try {
+            tokenizer.getField(2);
+            Assert.fail("Expected exception was not thrown");
+        } catch (final IndexOutOfBoundsException e) {
+            Assert.assertEquals("Field 2 does not exist, the line has 2 fields", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSeparatorEmpty() throws Exception {
+        try {
+            new FieldTokenizer("");
+            Assert.fail("Expected exception was not thrown");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Separator cannot be empty", e.getMessage());
+        }
+    }
+}
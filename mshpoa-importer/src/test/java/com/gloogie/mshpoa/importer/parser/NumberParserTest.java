@@ -0,0 +1,91 @@
+package com.gloogie.mshpoa.importer.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test class for NumberParser
+ */
+public class NumberParserTest
+{
+    private static final String[] DOUBLES = {"20.5", "1014", "-50", "0", "-0", "-0.0", "+3.25", "1.", ".5", "-.5",
+                                             "0.1", "0.3", "1014.000", "999999999999999", "9007199254740991",
+                                             "9007199254740993", "123456789012345678901234567890", "1e3", "-1.5E-3",
+                                             "NaN", "-Infinity", "0x1p3", "1d", "2.5f", "0.0000000000000000000001",
+                                             "0.00000000000000000000001", "3.141592653589793",
+                                             "1.7976931348623157E308", "4.9E-324", "  20.5  "};
+
+    private static final String[] INVALID_DOUBLES = {"", "-", "+", ".", "-.", "1.2.3", "1,5", "abc", "20.5C", "--1"};
+
+    private static final String[] INTS = {"0", "6", "-6", "+6", "123456789", "999999999", "2147483647", "-2147483648",
+                                          "0000000000012"};
+
+    private static final String[] INVALID_INTS = {"", "-", "+", "1.5", "2147483648", "-2147483649", "abc", "12a"};
+
+    @Test
+    public void testParseDoubleCorpus() throws Exception {
+        for (final String value : DOUBLES) {
+            assertSameDouble(value.trim());
+        }
+    }
+
+    @Test
+    public void testParseDoubleRandomDecimals() throws Exception {
+        final Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            final long integerPart = random.nextInt(100000) - 50000;
+            final int decimals = random.nextInt(8);
+            final StringBuilder value = new StringBuilder().append(integerPart);
+            if (decimals > 0) {
+                value.append('.');
+                for (int j = 0; j < decimals; j++) {
+                    value.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            assertSameDouble(value.toString());
+        }
+    }
+
+    @Test
+    public void testParseDoubleRange() throws Exception {
+        Assert.assertEquals(20.5, NumberParser.parseDouble("T,C,20.5,x", 4, 8), 0);
+    }
+
+    @Test
+    public void testParseDoubleInvalid() throws Exception {
+        for (final String value : INVALID_DOUBLES) {
+            try {
+                NumberParser.parseDouble(value, 0, value.length());
+                Assert.fail("Expected exception was not thrown for " + value);
+            } catch (final NumberFormatException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseIntCorpus() throws Exception {
+        for (final String value : INTS) {
+            Assert.assertEquals(value, Integer.parseInt(value), NumberParser.parseInt(value, 0, value.length()));
+        }
+    }
+
+    @Test
+    public void testParseIntInvalid() throws Exception {
+        for (final String value : INVALID_INTS) {
+            try {
+                NumberParser.parseInt(value, 0, value.length());
+                Assert.fail("Expected exception was not thrown for " + value);
+            } catch (final NumberFormatException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static void assertSameDouble(final String value) {
+        Assert.assertEquals(value, Double.doubleToRawLongBits(Double.parseDouble(value)),
+                            Double.doubleToRawLongBits(NumberParser.parseDouble(value, 0, value.length())));
+    }
+}
@@ -0,0 +1,125 @@
+package com.gloogie.mshpoa.metrics;
+
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.model.FailureReason;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.SourceStats;
+import com.gloogie.mshpoa.writer.impl.MemoryWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Test class for ImportMetrics and FileMetrics
+ */
+public class ImportMetricsTest
+{
+    @Test
+    public void testFileMetrics() throws Exception {
+        final FileMetrics fileMetrics = newFileMetrics("file.txt");
+
+        Assert.assertEquals(2, fileMetrics.getStations());
+        Assert.assertEquals(3, fileMetrics.getMeasures());
+        Assert.assertEquals(Long.valueOf(2), fileMetrics.getMeasuresPerType().get("T"));
+        Assert.assertEquals(Long.valueOf(1), fileMetrics.getMeasuresPerType().get("H"));
+        Assert.assertEquals(1, fileMetrics.getFailedMeasures(FailureReason.INVALID_VALUE));
+        Assert.assertEquals(0, fileMetrics.getFailedMeasures(FailureReason.INVALID_DATE));
+        Assert.assertEquals(1, fileMetrics.getFailedMeasures());
+        Assert.assertEquals(6, fileMetrics.getLines());
+        Assert.assertTrue(fileMetrics.getPhaseNanos(Phase.IMPORT) > 0);
+        Assert.assertEquals(0, fileMetrics.getPhaseNanos(Phase.CACHE));
+        if (FileMetrics.currentThreadAllocatedBytes() >= 0) {
+            Assert.assertTrue(fileMetrics.getAllocatedBytes() > 0);
+        }
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        final ImportMetrics metrics = new ImportMetrics();
+        metrics.add(newFileMetrics("first.txt"));
+        metrics.add(newFileMetrics("second.txt"));
+        final FileMetrics cached = new FileMetrics("cached.txt");
+        cached.setCached();
+        cached.finish();
+        metrics.add(cached);
+        final FileMetrics failed = new FileMetrics("failed.txt");
+        failed.setBytes(1000);
+        failed.setFailed();
+        failed.finish();
+        metrics.add(failed);
+
+        Assert.assertEquals(4, metrics.getFiles());
+        Assert.assertEquals(1, metrics.getCachedFiles());
+        Assert.assertEquals(1, metrics.getFailedFiles());
+        Assert.assertEquals(200, metrics.getBytes());
+        Assert.assertEquals(4, metrics.getStations());
+        Assert.assertEquals(12, metrics.getLines());
+        Assert.assertEquals(Long.valueOf(4), metrics.getMeasuresPerType().get("T"));
+        Assert.assertEquals(Long.valueOf(2), metrics.getFailedMeasuresPerReason().get("INVALID_VALUE"));
+        Assert.assertTrue(metrics.getBytesPerSecond() > 0);
+        Assert.assertTrue(metrics.getLinesPerSecond() > 0);
+
+        final MemoryWriter writer = new MemoryWriter();
+        metrics.writeSummary(writer);
+        ImportMetrics.writeFileMetrics(cached, writer);
+        final List<String> lines = writer.getMessages();
+        Assert.assertTrue(lines.get(0).startsWith("Metrics: 4 files (1 from the cache, 1 failed)"));
+        Assert.assertTrue(lines.get(lines.size() - 1).startsWith("Metrics of cached.txt: read from the cache"));
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getFiles());
+        Assert.assertEquals(0, metrics.getLines());
+        Assert.assertEquals(0, metrics.getBytesPerSecond(), 0);
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        final ImportMetrics metrics = new ImportMetrics();
+        metrics.add(newFileMetrics("file.txt"));
+        metrics.register();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(ImportMetrics.OBJECT_NAME);
+        try {
+            Assert.assertEquals(1L, server.getAttribute(name, "Files"));
+            Assert.assertEquals(6L, server.getAttribute(name, "Lines"));
+            Assert.assertNotNull(server.getAttribute(name, "MeasuresPerType"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            Assert.assertEquals(0L, server.getAttribute(name, "Files"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private static FileMetrics newFileMetrics(final String source) throws InterruptedException {
+        final MeasureType temperature = new MeasureType();
+        temperature.setCode("T");
+        final MeasureType humidity = new MeasureType();
+        humidity.setCode("H");
+
+        final FileMetrics fileMetrics = new FileMetrics(source);
+        fileMetrics.setBytes(100);
+        fileMetrics.startPhase(Phase.IMPORT);
+        final SourceStats sourceStats = new SourceStats();
+        final MeasureSink sink = fileMetrics.countFailures(sourceStats);
+        sink.onStationStart("Station", 3);
+        sink.onMeasure(temperature, 1, 0, "C");
+        sink.onMeasure(temperature, 2, 0, "C");
+        sink.onFailedMeasure(FailureReason.INVALID_VALUE, null);
+        sink.onStationEnd();
+        sink.onStationStart("Other", 1);
+        sink.onMeasure(humidity, 50, 0, null);
+        sink.onStationEnd();
+        fileMetrics.addStats(sourceStats);
+        Thread.sleep(1);
+        fileMetrics.finish();
+
+        // The calls are given to the wrapped sink
+        Assert.assertEquals(2, sourceStats.getNumberOfWeatherStations());
+        Assert.assertEquals(1, sourceStats.getNumberOfFailedMeasures());
+        return fileMetrics;
+    }
+}
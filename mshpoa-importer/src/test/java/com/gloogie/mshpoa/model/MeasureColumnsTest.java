@@ -0,0 +1,92 @@
+package com.gloogie.mshpoa.model;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for MeasureColumns
+ */
+public class MeasureColumnsTest
+{
+    private MeasureType typeT;
+    private MeasureType typeH;
+
+    @Before
+    public void setUp() throws Exception {
+        typeT = new MeasureType();
+        typeT.setCode("T");
+        typeT.setName("temperature");
+        typeH = new MeasureType();
+        typeH.setCode("H");
+        typeH.setName("humidity");
+    }
+
+    @Test
+    public void testAddAndGet() throws Exception {
+        final MeasureColumns columns = new MeasureColumns(1);
+        columns.add(typeT, 20.5, 1000L, "C");
+        columns.add(typeH, 50, Measure.NO_DATE, null);
+        columns.add(typeT, -3, 2000L, "C");
+
+        Assert.assertEquals(3, columns.size());
+        Assert.assertEquals(2, columns.getTypes().size());
+        Assert.assertEquals(0, columns.indexOfType("T"));
+        Assert.assertEquals(1, columns.indexOfType("H"));
+        Assert.assertEquals(MeasureColumns.NO_TYPE, columns.indexOfType("P"));
+        Assert.assertSame(typeT, columns.getType(2));
+        Assert.assertEquals(-3, columns.getValue(2), 0);
+        Assert.assertEquals(2000L, columns.getDateMillis(2));
+        Assert.assertEquals("C", columns.getUnit(2));
+        Assert.assertNull(columns.getUnit(1));
+        Assert.assertEquals(Measure.NO_DATE, columns.getDateMillis(1));
+    }
+
+    @Test
+    public void testAsList() throws Exception {
+        final List<Measure> measures = new ArrayList<>();
+        Measure measure = new Measure();
+        measure.setType(typeT);
+        measure.setUnit("C");
+        measure.setValue(20.5);
+        measures.add(measure);
+        measure = new Measure();
+        measure.setType(typeH);
+        measures.add(measure);
+
+        final List<Measure> list = MeasureColumns.of(measures).asList();
+
+        Assert.assertEquals(2, list.size());
+        Assert.assertSame(typeT, list.get(0).getType());
+        Assert.assertEquals("C", list.get(0).getUnit());
+        Assert.assertEquals(Double.valueOf(20.5), list.get(0).getValue());
+        Assert.assertNull(list.get(0).getDate());
+        Assert.assertSame(typeH, list.get(1).getType());
+        Assert.assertNull(list.get(1).getValue());
+        Assert.assertNull(list.get(1).getUnit());
+    }
+
+    @Test
+    public void testTrimToSize() throws Exception {
+        final MeasureColumns columns = new MeasureColumns();
+        columns.add(typeT, 1, Measure.NO_DATE, "C");
+        columns.trimToSize();
+        columns.add(typeT, 2, Measure.NO_DATE, "C");
+
+        Assert.assertEquals(2, columns.size());
+        Assert.assertEquals(2, columns.getValue(1), 0);
+    }
+
+    @Test
+    public void testGetOutOfBounds() throws Exception {
+        try {
+            new MeasureColumns().getValue(0);
+            Assert.fail("Expected exception was not thrown");
+        } catch (final IndexOutOfBoundsException e) {
+            Assert.assertEquals("Measure 0 does not exist, there are 0 measures", e.getMessage());
+        }
+    }
+}
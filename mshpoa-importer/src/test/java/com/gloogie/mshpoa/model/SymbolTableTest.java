@@ -0,0 +1,120 @@
+package com.gloogie.mshpoa.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for SymbolTable
+ */
+public class SymbolTableTest
+{
+    @Test
+    public void testIntern() throws Exception {
+        final SymbolTable table = new SymbolTable();
+
+        Assert.assertEquals(0, table.intern("C"));
+        Assert.assertEquals(1, table.intern("BAR"));
+        Assert.assertEquals(0, table.intern("C"));
+        Assert.assertEquals(1, table.intern("line,BAR,12", 5, 8));
+        Assert.assertEquals(2, table.intern("line,%,12", 5, 6));
+        Assert.assertEquals(3, table.intern(""));
+        Assert.assertEquals(4, table.size());
+
+        Assert.assertEquals("C", table.get(0));
+        Assert.assertEquals("BAR", table.get(1));
+        Assert.assertEquals("%", table.get(2));
+        Assert.assertEquals("", table.get(3));
+    }
+
+    @Test
+    public void testInternSameInstance() throws Exception {
+        final SymbolTable table = new SymbolTable();
+        final String symbol = "Station";
+
+        final int id = table.intern(symbol);
+        Assert.assertSame(symbol, table.get(id));
+        Assert.assertEquals(id, table.intern(new String("Station")));
+        Assert.assertEquals(id, table.intern(new StringBuilder("Station,3"), 0, 7));
+        Assert.assertSame(symbol, table.get(id));
+    }
+
+    @Test
+    public void testInternRangeOfSymbol() throws Exception {
+        final SymbolTable table = new SymbolTable();
+        final String symbol = "Station";
+        Assert.assertEquals(0, table.intern(symbol));
+
+        // A range of a String of the table is another symbol
+        Assert.assertEquals(1, table.intern(symbol, 0, 4));
+        Assert.assertEquals("Stat", table.get(1));
+        Assert.assertEquals(2, table.intern(symbol, 1, 7));
+        Assert.assertEquals("tation", table.get(2));
+        Assert.assertEquals(0, table.intern(symbol, 0, symbol.length()));
+        Assert.assertEquals(1, table.intern(table.get(0), 0, 4));
+        Assert.assertEquals(3, table.size());
+    }
+
+    @Test
+    public void testInternNull() throws Exception {
+        try {
+            new SymbolTable().intern(null);
+            Assert.fail("An exception should be thrown");
+        } catch (final NullPointerException e) {
+            Assert.assertEquals("Symbol cannot be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetUnknownId() throws Exception {
+        final SymbolTable table = new SymbolTable();
+        table.intern("C");
+        for (final int id : new int[]{-1, 1}) {
+            try {
+                table.get(id);
+                Assert.fail("An exception should be thrown");
+            } catch (final IndexOutOfBoundsException e) {
+                Assert.assertEquals("Symbol " + id + " does not exist, there are 1 symbols", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testInternManySymbols() throws Exception {
+        final SymbolTable table = new SymbolTable();
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertEquals(i, table.intern("Station " + i));
+        }
+        // "Aa" and "BB" have the same hash
+        Assert.assertEquals(10000, table.intern("Aa"));
+        Assert.assertEquals(10001, table.intern("BB"));
+
+        Assert.assertEquals(10002, table.size());
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertEquals(i, table.intern("Station " + i));
+            Assert.assertEquals("Station " + i, table.get(i));
+        }
+        Assert.assertEquals(10000, table.intern("Aa"));
+        Assert.assertEquals(10001, table.intern("BB"));
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        final SymbolTable table = new SymbolTable();
+        final SymbolTable.Cache cache = table.newCache();
+        Assert.assertSame(table, cache.getTable());
+
+        final String unit = cache.symbol("T,C,12.5", 2, 3);
+        Assert.assertEquals("C", unit);
+        Assert.assertSame(unit, cache.symbol("T,C,13", 2, 3));
+        Assert.assertSame(unit, table.get(table.intern("C")));
+        Assert.assertEquals(0, cache.intern("C", 0, 1));
+
+        // Another cache, or a symbol evicted from the cache, gives the same instance
+        Assert.assertSame(unit, table.newCache().symbol("C", 0, 1));
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i + 1, cache.intern("Station " + i, 0, ("Station " + i).length()));
+        }
+        Assert.assertSame(unit, cache.symbol("C", 0, 1));
+        Assert.assertEquals(1001, table.size());
+    }
+}
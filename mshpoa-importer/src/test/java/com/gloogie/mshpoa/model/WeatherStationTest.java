@@ -0,0 +1,44 @@
+package com.gloogie.mshpoa.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class for WeatherStation
+ */
+public class WeatherStationTest
+{
+    @Test
+    public void testGetMeasuresSameList() throws Exception {
+        final MeasureType typeT = new MeasureType();
+        typeT.setCode("T");
+        final MeasureColumns columns = new MeasureColumns();
+        columns.add(typeT, 20.5, Measure.NO_DATE, "C");
+        final WeatherStation station = new WeatherStation();
+        station.setMeasureColumns(columns);
+
+        final List<Measure> measures = station.getMeasures();
+        Assert.assertSame(measures, station.getMeasures());
+        Assert.assertSame(measures.get(0), station.getMeasures().get(0));
+        Assert.assertEquals(20.5, measures.get(0).getValue(), 0);
+
+        // The list is built again when the measures are set
+        final Measure measure = new Measure();
+        measure.setType(typeT);
+        measure.setValue(-3.0);
+        station.setMeasures(Collections.singletonList(measure));
+        Assert.assertEquals(-3, station.getMeasures().get(0).getValue(), 0);
+        station.setMeasureColumns(null);
+        Assert.assertNull(station.getMeasures());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetMeasuresReadOnly() throws Exception {
+        final WeatherStation station = new WeatherStation();
+        station.setMeasureColumns(new MeasureColumns());
+        station.getMeasures().add(new Measure());
+    }
+}
@@ -0,0 +1,148 @@
+package com.gloogie.mshpoa.report;
+
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Test class for GroupBy
+ */
+public class GroupByTest
+{
+    private static final ZoneId ZONE = ZoneOffset.ofHours(1);
+
+    private MeasureType typeT;
+    private MeasureType typeP;
+
+    @Before
+    public void setUp() throws Exception {
+        typeT = new MeasureType();
+        typeT.setCode("T");
+        typeT.setName("temperature");
+        typeP = new MeasureType();
+        typeP.setCode("P");
+        typeP.setName("pressure");
+    }
+
+    @Test
+    public void testGroupByStationAndType() throws Exception {
+        final GroupBy groupBy = new GroupBy(EnumSet.of(GroupDimension.STATION, GroupDimension.TYPE), ZONE);
+        fill(groupBy);
+
+        final List<GroupStats> groups = groupBy.getGroups();
+
+        Assert.assertEquals(3, groups.size());
+        assertGroup(groups.get(0), "Clapiers", typeT, null, 1, 15, 15);
+        assertGroup(groups.get(1), "Paris", typeP, null, 2, 1010, 1014);
+        assertGroup(groups.get(2), "Paris", typeT, null, 3, -2, 12);
+        Assert.assertEquals(5, groups.get(2).getMean(), 1e-12);
+    }
+
+    @Test
+    public void testGroupByDay() throws Exception {
+        final GroupBy groupBy = new GroupBy(EnumSet.of(GroupDimension.DAY), ZONE);
+        fill(groupBy);
+
+        final List<GroupStats> groups = groupBy.getGroups();
+
+        Assert.assertEquals(3, groups.size());
+        assertGroup(groups.get(0), null, null, null, 3, -2, 15);
+        assertGroup(groups.get(1), null, null, LocalDate.of(2014, 11, 2), 1, 1010, 1010);
+        // 23:30 UTC is already the next day in the zone of the group by
+        assertGroup(groups.get(2), null, null, LocalDate.of(2014, 11, 3), 2, 12, 1014);
+    }
+
+    @Test
+    public void testNoDimension() throws Exception {
+        final GroupBy groupBy = new GroupBy(EnumSet.noneOf(GroupDimension.class), ZONE);
+        fill(groupBy);
+
+        final List<GroupStats> groups = groupBy.getGroups();
+
+        Assert.assertEquals(1, groups.size());
+        assertGroup(groups.get(0), null, null, null, 6, -2, 1014);
+    }
+
+    @Test
+    public void testManyGroups() throws Exception {
+        final GroupBy groupBy = new GroupBy(EnumSet.of(GroupDimension.STATION), ZONE);
+        for (int i = 0; i < 1000; i++) {
+            groupBy.onStationStart(String.format("station%04d", i), 2);
+            groupBy.onMeasure(typeT, i, Measure.NO_DATE, "C");
+            groupBy.onMeasure(typeT, i + 1, Measure.NO_DATE, "C");
+            groupBy.onStationEnd();
+        }
+
+        final List<GroupStats> groups = groupBy.getGroups();
+
+        Assert.assertEquals(1000, groups.size());
+        assertGroup(groups.get(999), "station0999", null, null, 2, 999, 1000);
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final GroupBy groupBy = new GroupBy(EnumSet.of(GroupDimension.STATION, GroupDimension.TYPE), ZONE);
+        fill(groupBy);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        groupBy.writeTo(new DataOutputStream(bytes));
+
+        final GroupBy read = GroupBy.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        // The measures of a type read back are added to the groups of this type
+        read.onStationStart("Clapiers", 1);
+        read.onMeasure(typeT, 20, Measure.NO_DATE, "C");
+        read.onStationEnd();
+
+        final List<GroupStats> groups = read.getGroups();
+
+        Assert.assertEquals(EnumSet.of(GroupDimension.STATION, GroupDimension.TYPE), read.getDimensions());
+        Assert.assertEquals(3, groups.size());
+        Assert.assertEquals("Clapiers", groups.get(0).getStation());
+        Assert.assertEquals("T", groups.get(0).getType().getCode());
+        Assert.assertEquals("temperature", groups.get(0).getType().getName());
+        Assert.assertEquals(2, groups.get(0).getCount());
+        Assert.assertEquals(20, groups.get(0).getMax(), 0);
+        Assert.assertEquals("P", groups.get(1).getType().getCode());
+        Assert.assertEquals(1010, groups.get(1).getMin(), 0);
+        Assert.assertEquals(3, groups.get(2).getCount());
+        Assert.assertEquals(5, groups.get(2).getMean(), 1e-12);
+    }
+
+    private void fill(final GroupBy groupBy) {
+        final long day2 = LocalDate.of(2014, 11, 2).atStartOfDay(ZONE).toInstant().toEpochMilli();
+        final long day2Late = LocalDate.of(2014, 11, 2).atTime(23, 30).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        groupBy.onStationStart("Paris", 5);
+        groupBy.onMeasure(typeT, 5, Measure.NO_DATE, "C");
+        groupBy.onMeasure(typeP, 1010, day2, "BAR");
+        groupBy.onMeasure(typeT, -2, Measure.NO_DATE, "C");
+        groupBy.onMeasure(typeP, 1014, day2Late, "BAR");
+        groupBy.onMeasure(typeT, 12, day2Late, "C");
+        groupBy.onMeasure(typeT, Double.NaN, Measure.NO_DATE, null);
+        groupBy.onStationEnd();
+        groupBy.onStationStart("Clapiers", 1);
+        groupBy.onMeasure(typeT, 15, Measure.NO_DATE, "C");
+        groupBy.onStationEnd();
+    }
+
+    private static void assertGroup(final GroupStats group, final String station, final MeasureType type,
+                                    final LocalDate day, final long count, final double min, final double max) {
+        Assert.assertEquals(station, group.getStation());
+        Assert.assertSame(type, group.getType());
+        Assert.assertEquals(day, group.getDay());
+        Assert.assertEquals(count, group.getCount());
+        Assert.assertEquals(min, group.getMin(), 0);
+        Assert.assertEquals(max, group.getMax(), 0);
+    }
+}
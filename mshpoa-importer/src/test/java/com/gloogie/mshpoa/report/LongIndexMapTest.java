@@ -0,0 +1,25 @@
+package com.gloogie.mshpoa.report;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for LongIndexMap
+ */
+public class LongIndexMapTest
+{
+    @Test
+    public void testIndexOf() throws Exception {
+        final LongIndexMap map = new LongIndexMap();
+        for (long key = 0; key < 10000; key++) {
+            Assert.assertEquals(key, map.indexOf(key << 32 | 7));
+        }
+        map.indexOf(Long.MIN_VALUE);
+
+        Assert.assertEquals(10001, map.size());
+        Assert.assertEquals(1234, map.indexOf(1234L << 32 | 7));
+        Assert.assertEquals(10000, map.indexOf(Long.MIN_VALUE));
+        Assert.assertEquals(42L << 32 | 7, map.keyAt(42));
+        Assert.assertEquals(10001, map.size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.gloogie.mshpoa.report;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test class for QuantileSketch
+ */
+public class QuantileSketchTest
+{
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.95, 0.99, 1};
+
+    @Test
+    public void testEmpty() throws Exception {
+        Assert.assertTrue(Double.isNaN(new QuantileSketch().getQuantile(0.5)));
+    }
+
+    @Test
+    public void testRelativeAccuracy() throws Exception {
+        final Random random = new Random(42);
+        final double[] values = new double[100000];
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Temperatures around 0, with negative values, zeros and positive values
+            values[i] = i % 100 == 0 ? 0 : random.nextGaussian() * 20;
+            sketch.add(values[i]);
+        }
+        sketch.add(Double.NaN);
+
+        assertQuantiles(values, sketch);
+        Assert.assertEquals(values.length, sketch.getCount());
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final Random random = new Random(7);
+        final double[] values = new double[10000];
+        final QuantileSketch first = new QuantileSketch();
+        final QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 950 + random.nextDouble() * 100;
+            (i % 3 == 0 ? first : second).add(values[i]);
+        }
+
+        final QuantileSketch merged = new QuantileSketch();
+        merged.merge(first);
+        merged.merge(second);
+
+        assertQuantiles(values, merged);
+        Assert.assertEquals(first.getCount() + second.getCount(), merged.getCount());
+    }
+
+    @Test
+    public void testMaxBuckets() throws Exception {
+        final QuantileSketch sketch = new QuantileSketch(0.01, 10);
+        sketch.add(1);
+        sketch.add(1000);
+        sketch.add(1e6);
+
+        // The lowest values are collapsed, the highest one keeps its accuracy
+        Assert.assertEquals(1e6, sketch.getQuantile(1), 1e6 * 0.01);
+        Assert.assertEquals(3, sketch.getCount());
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        final QuantileSketch sketch = new QuantileSketch();
+        sketch.add(10);
+        final QuantileSketch copy = sketch.copy();
+        sketch.add(1000);
+
+        Assert.assertEquals(1, copy.getCount());
+        Assert.assertEquals(10, copy.getQuantile(1), 0.1);
+    }
+
+    @Test
+    public void testMergeDifferentAccuracy() throws Exception {
+        try {
+            new QuantileSketch().merge(new QuantileSketch(0.05, 100));
+            Assert.fail("Expected exception was not thrown");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Sketches with different relative accuracies cannot be merged", e.getMessage());
+        }
+    }
+
+    private static void assertQuantiles(final double[] values, final QuantileSketch sketch) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (final double quantile : QUANTILES) {
+            final double expected = sorted[(int) (quantile * (sorted.length - 1))];
+            Assert.assertEquals("Quantile " + quantile, expected, sketch.getQuantile(quantile),
+                                Math.abs(expected) * sketch.getRelativeAccuracy() + 1e-12);
+        }
+    }
+}
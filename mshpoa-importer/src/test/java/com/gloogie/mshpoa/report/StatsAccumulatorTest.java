@@ -0,0 +1,101 @@
+package com.gloogie.mshpoa.report;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+
+/**
+ * Test class for StatsAccumulator
+ */
+public class StatsAccumulatorTest
+{
+    @Test
+    public void testAdd() throws Exception {
+        final StatsAccumulator accumulator = new StatsAccumulator();
+        for (final double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            accumulator.add(value);
+        }
+        accumulator.add(Double.NaN);
+
+        Assert.assertEquals(8, accumulator.getCount());
+        Assert.assertEquals(40, accumulator.getSum(), 0);
+        Assert.assertEquals(2, accumulator.getMin(), 0);
+        Assert.assertEquals(9, accumulator.getMax(), 0);
+        Assert.assertEquals(5, accumulator.getMean(), 1e-12);
+        Assert.assertEquals(4, accumulator.getVariance(), 1e-12);
+        Assert.assertEquals(2, accumulator.toMeasureStats("T").getStandardDeviation(), 1e-12);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final MeasureStats stats = new StatsAccumulator().toMeasureStats("T");
+
+        Assert.assertEquals(0, stats.getCount());
+        Assert.assertEquals(Double.MAX_VALUE, stats.getMin(), 0);
+        Assert.assertEquals(Double.MIN_VALUE, stats.getMax(), 0);
+        Assert.assertEquals(0, stats.getMean(), 0);
+        Assert.assertEquals(0, stats.getStandardDeviation(), 0);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final Random random = new Random(42);
+        final StatsAccumulator all = new StatsAccumulator();
+        final StatsAccumulator first = new StatsAccumulator();
+        final StatsAccumulator second = new StatsAccumulator();
+        for (int i = 0; i < 1000; i++) {
+            final double value = 1000 + random.nextGaussian() * 10;
+            all.add(value);
+            (i < 300 ? first : second).add(value);
+        }
+
+        final StatsAccumulator merged = new StatsAccumulator();
+        merged.merge(first);
+        merged.merge(new StatsAccumulator());
+        merged.merge(second);
+
+        Assert.assertEquals(all.getCount(), merged.getCount());
+        Assert.assertEquals(all.getMin(), merged.getMin(), 0);
+        Assert.assertEquals(all.getMax(), merged.getMax(), 0);
+        Assert.assertEquals(all.getMean(), merged.getMean(), 1e-9);
+        Assert.assertEquals(all.getVariance(), merged.getVariance(), 1e-9);
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final Random random = new Random(42);
+        final StatsAccumulator accumulator = new StatsAccumulator();
+        for (int i = 0; i < 1000; i++) {
+            accumulator.add(random.nextGaussian() * 10);
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        accumulator.writeTo(new DataOutputStream(bytes));
+
+        final StatsAccumulator read =
+            StatsAccumulator.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        final MeasureStats expected = accumulator.toMeasureStats("T");
+        final MeasureStats stats = read.toMeasureStats("T");
+        Assert.assertEquals(expected.getCount(), stats.getCount());
+        Assert.assertEquals(expected.getMin(), stats.getMin(), 0);
+        Assert.assertEquals(expected.getMax(), stats.getMax(), 0);
+        Assert.assertEquals(expected.getMean(), stats.getMean(), 0);
+        Assert.assertEquals(expected.getStandardDeviation(), stats.getStandardDeviation(), 0);
+        Assert.assertEquals(expected.getQuantile(0.95), stats.getQuantile(0.95), 0);
+    }
+
+    @Test
+    public void testMergeNull() throws Exception {
+        try {
+            new StatsAccumulator().merge(null);
+            Assert.fail("Expected exception was not thrown");
+        } catch (final NullPointerException e) {
+            Assert.assertEquals("Accumulator cannot be null", e.getMessage());
+        }
+    }
+}
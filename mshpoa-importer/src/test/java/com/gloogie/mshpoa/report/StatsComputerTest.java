@@ -1,6 +1,7 @@
 package com.gloogie.mshpoa.report;
 
 import com.gloogie.mshpoa.model.FailedMeasure;
+import com.gloogie.mshpoa.model.FailureReason;
 import com.gloogie.mshpoa.model.Measure;
 import com.gloogie.mshpoa.model.MeasureType;
 import com.gloogie.mshpoa.model.WeatherStation;
@@ -10,7 +11,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Test class for StatsComputer
@@ -169,4 +172,59 @@ public class StatsComputerTest
         Assert.assertEquals(1013.0, statsComputer.getMeanValue("P"), 0.001);
         Assert.assertEquals(50.0, statsComputer.getMeanValue("H"), 0.001);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testComputeStats() throws Exception {
+        final Map<String, MeasureStats> stats = statsComputer.computeStats();
+
+        Assert.assertEquals(3, stats.size());
+        Assert.assertEquals(3, stats.get("T").getCount());
+        Assert.assertEquals(85.5, stats.get("T").getSum(), 0.001);
+        Assert.assertEquals(3, stats.get("H").getCount());
+        Assert.assertSame(stats, statsComputer.computeStats());
+    }
+
+    @Test
+    public void testGetStatsUnknownType() throws Exception {
+        final MeasureStats stats = statsComputer.getStats("X");
+
+        Assert.assertEquals(0, stats.getCount());
+        Assert.assertEquals(Double.MAX_VALUE, stats.getMin(), 0);
+        Assert.assertEquals(Double.MIN_VALUE, stats.getMax(), 0);
+        Assert.assertEquals(0, stats.getMean(), 0);
+    }
+
+    @Test
+    public void testGetMaxValueNegative() throws Exception {
+        final Measure measure = new Measure();
+        measure.setType(types.get(0));
+        measure.setValue(-5.0);
+        final WeatherStation station = new WeatherStation();
+        station.setMeasures(Collections.singletonList(measure));
+
+        final StatsComputer computer = new StatsComputer(types, Collections.singletonList(station));
+
+        Assert.assertEquals(-5.0, computer.getMaxValue("T"), 0);
+    }
+
+    @Test
+    public void testMergedSourceStats() throws Exception {
+        final SourceStats first = new SourceStats();
+        first.addStation(stations.get(0));
+        final SourceStats second = new SourceStats();
+        second.onStationStart("station3", 2);
+        second.onMeasure(types.get(0), -10.0, Measure.NO_DATE, "C");
+        second.onFailedMeasure(FailureReason.INVALID_VALUE, null);
+        second.onStationEnd();
+        first.merge(second);
+
+        final StatsComputer computer = StatsComputer.of(types, first);
+
+        Assert.assertEquals(2, computer.getNumberOfWeatherStations());
+        Assert.assertEquals(1, computer.getNumberOfSensorsInError());
+        Assert.assertEquals(-10.0, computer.getMinValue("T"), 0);
+        Assert.assertEquals(20.5, computer.getMaxValue("T"), 0);
+        Assert.assertEquals(5.25, computer.getMeanValue("T"), 1e-12);
+        Assert.assertEquals(15.25, computer.getStats("T").getStandardDeviation(), 1e-12);
+    }
+}
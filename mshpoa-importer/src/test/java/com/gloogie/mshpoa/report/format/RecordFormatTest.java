@@ -0,0 +1,104 @@
+package com.gloogie.mshpoa.report.format;
+
+import com.gloogie.mshpoa.importer.CompositeSink;
+import com.gloogie.mshpoa.importer.MeasureSink;
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.Reporter;
+import com.gloogie.mshpoa.report.SourceStats;
+import com.gloogie.mshpoa.report.StatsComputer;
+import com.gloogie.mshpoa.writer.impl.MemoryWriter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Test class for JsonLinesFormat and CsvFormat
+ */
+public class RecordFormatTest
+{
+    private StatsComputer statsComputer;
+    private GroupBy groupBy;
+
+    @Before
+    public void setUp() throws Exception {
+        final MeasureType typeT = new MeasureType();
+        typeT.setCode("T");
+        typeT.setName("temperature");
+        final MeasureType typeH = new MeasureType();
+        typeH.setCode("H");
+        typeH.setName("humidity");
+
+        final SourceStats sourceStats = new SourceStats();
+        groupBy = new GroupBy(EnumSet.of(GroupDimension.STATION));
+        final MeasureSink sink = new CompositeSink(Arrays.asList(sourceStats, groupBy));
+        sink.onStationStart("Paris", 2);
+        sink.onMeasure(typeT, 10, Measure.NO_DATE, "C");
+        sink.onMeasure(typeT, 20, Measure.NO_DATE, "C");
+        sink.onStationEnd();
+        sink.onStationStart("Saint-Jean, \"Le Port\"", 1);
+        sink.onMeasure(typeT, 30, Measure.NO_DATE, "C");
+        sink.onStationEnd();
+        statsComputer = StatsComputer.of(Arrays.asList(typeT, typeH), sourceStats);
+    }
+
+    @Test
+    public void testJsonLines() throws Exception {
+        final MemoryWriter writer = new MemoryWriter();
+        final ReportFormat format = new JsonLinesFormat();
+        format.writeHeader(writer);
+        new Reporter(statsComputer, writer, format).writeReport("file.txt", groupBy);
+
+        final List<String> lines = writer.getMessages();
+        Assert.assertEquals(5, lines.size());
+        Assert.assertEquals("{\"record\":\"source\",\"source\":\"file.txt\",\"stations\":2,\"failedMeasures\":0}",
+                            lines.get(0));
+        Assert.assertTrue(lines.get(1), lines.get(1).startsWith(
+            "{\"record\":\"type\",\"source\":\"file.txt\",\"type\":\"T\",\"name\":\"temperature\",\"count\":3,"
+            + "\"min\":10.0,\"max\":30.0,\"mean\":20.0,\"standardDeviation\":"));
+        Assert.assertEquals("{\"record\":\"type\",\"source\":\"file.txt\",\"type\":\"H\",\"name\":\"humidity\","
+                            + "\"count\":0,\"min\":null,\"max\":null,\"mean\":null,\"standardDeviation\":null,"
+                            + "\"p50\":null,\"p95\":null,\"p99\":null}", lines.get(2));
+        Assert.assertEquals("{\"record\":\"group\",\"source\":\"file.txt\",\"station\":\"Paris\",\"count\":2,"
+                            + "\"min\":10.0,\"max\":20.0,\"mean\":15.0}", lines.get(3));
+        Assert.assertEquals("{\"record\":\"group\",\"source\":\"file.txt\",\"station\":\"Saint-Jean, \\\"Le Port\\\"\","
+                            + "\"count\":1,\"min\":30.0,\"max\":30.0,\"mean\":30.0}", lines.get(4));
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        final MemoryWriter writer = new MemoryWriter();
+        final ReportFormat format = new CsvFormat();
+        format.writeHeader(writer);
+        new Reporter(statsComputer, writer, format).writeReport("file.txt", groupBy);
+
+        final List<String> lines = writer.getMessages();
+        Assert.assertEquals(6, lines.size());
+        Assert.assertEquals(CsvFormat.HEADER, lines.get(0));
+        Assert.assertEquals("source,file.txt,,,,2,0,,,,,,,,,", lines.get(1));
+        Assert.assertTrue(lines.get(2), lines.get(2).startsWith("type,file.txt,,T,,,,3,10.0,30.0,20.0,"));
+        Assert.assertEquals("type,file.txt,,H,,,,0,,,,,,,,", lines.get(3));
+        Assert.assertEquals("group,file.txt,Paris,,,,,2,10.0,20.0,15.0,,,,,", lines.get(4));
+        Assert.assertEquals("group,file.txt,\"Saint-Jean, \"\"Le Port\"\"\",,,,,1,30.0,30.0,30.0,,,,,", lines.get(5));
+        for (final String line : lines.subList(1, 5)) {
+            Assert.assertEquals(line, 15, line.length() - line.replace(",", "").length());
+        }
+    }
+
+    @Test
+    public void testError() throws Exception {
+        final MemoryWriter writer = new MemoryWriter();
+        new JsonLinesFormat().writeError("file.txt", "Line 1\nLine 2", writer);
+        new CsvFormat().writeError("file.txt", "Error, \"quoted\"", writer);
+
+        Assert.assertEquals(Arrays.asList(
+            "{\"record\":\"error\",\"source\":\"file.txt\",\"message\":\"Line 1\\nLine 2\"}",
+            "error,file.txt,,,,,,,,,,,,,,\"Error, \"\"quoted\"\"\""), writer.getMessages());
+    }
+}
@@ -0,0 +1,102 @@
+package com.gloogie.mshpoa.runner.file;
+
+import com.gloogie.mshpoa.importer.Checkpoint;
+import com.gloogie.mshpoa.report.SourceStats;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Test class for CheckpointFile
+ */
+public class CheckpointFileTest
+{
+    private static final String CONTENT = "Paris,2\nT,C,10\nT,C,20\nLyon,1\nT,C,5\n";
+    private static final Checkpoint CHECKPOINT = new Checkpoint(22, 3, 0);
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = temporaryFolder.newFile("checkpoint.txt");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadUnchangedFile() throws Exception {
+        CheckpointFile.write(file, CHECKPOINT, new CheckpointFile.PrefixChecksum(), new SourceStats(), null);
+
+        final CheckpointFile checkpointFile = CheckpointFile.read(file);
+
+        Assert.assertEquals(22, checkpointFile.getCheckpoint().getOffset());
+        Assert.assertEquals(3, checkpointFile.getCheckpoint().getLineNumber());
+        Assert.assertNull(checkpointFile.getGroupBy());
+    }
+
+    @Test
+    public void testReadAppendedFile() throws Exception {
+        CheckpointFile.write(file, CHECKPOINT, new CheckpointFile.PrefixChecksum(), new SourceStats(), null);
+        Files.write(file.toPath(), "Nice,1\nT,C,15\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        Assert.assertEquals(22, CheckpointFile.read(file).getCheckpoint().getOffset());
+    }
+
+    @Test
+    public void testReadFileChangedBeforeOffset() throws Exception {
+        CheckpointFile.write(file, CHECKPOINT, new CheckpointFile.PrefixChecksum(), new SourceStats(), null);
+        // Same size, only the first byte differs, far from the offset
+        Files.write(file.toPath(), ("B" + CONTENT.substring(1) + "Nice,0\n").getBytes(StandardCharsets.UTF_8));
+
+        assertNotResumed("The checkpoint [" + file.getPath() + ".ckpt] does not match the content of the file");
+    }
+
+    @Test
+    public void testReadFileChangedWithSameSize() throws Exception {
+        CheckpointFile.write(file, CHECKPOINT, new CheckpointFile.PrefixChecksum(), new SourceStats(), null);
+        final FileTime lastModified = Files.getLastModifiedTime(file.toPath());
+        Files.write(file.toPath(), ("B" + CONTENT.substring(1)).getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(lastModified.toMillis() + 1000));
+
+        assertNotResumed("The checkpoint [" + file.getPath() + ".ckpt] does not match the content of the file");
+    }
+
+    @Test
+    public void testReadTruncatedFile() throws Exception {
+        CheckpointFile.write(file, CHECKPOINT, new CheckpointFile.PrefixChecksum(), new SourceStats(), null);
+        // The bytes before the offset are the same, but the file was not only appended to
+        Files.write(file.toPath(), CONTENT.substring(0, 30).getBytes(StandardCharsets.UTF_8));
+
+        assertNotResumed("The file [" + file.getPath() + "] is smaller than at its checkpoint");
+    }
+
+    @Test
+    public void testPrefixChecksumExtended() throws Exception {
+        final CheckpointFile.PrefixChecksum extended = new CheckpointFile.PrefixChecksum();
+        extended.update(file, 8);
+        extended.update(file, 22);
+
+        Assert.assertEquals(new CheckpointFile.PrefixChecksum().update(file, 22), extended.update(file, 22));
+        Assert.assertEquals(new CheckpointFile.PrefixChecksum().update(file, 8), extended.update(file, 8));
+    }
+
+    private void assertNotResumed(final String message) {
+        try {
+            CheckpointFile.read(file);
+            Assert.fail("Expected exception was not thrown");
+        } catch (final IOException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.gloogie.mshpoa.runner.file;
+
+import com.gloogie.mshpoa.model.Measure;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupBy;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.SourceStats;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Properties;
+
+/**
+ * Test class for ResultCache
+ */
+public class ResultCacheTest
+{
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MeasureType typeT;
+    private SourceStats sourceStats;
+
+    @Before
+    public void setUp() throws Exception {
+        typeT = new MeasureType();
+        typeT.setCode("T");
+        typeT.setName("temperature");
+        sourceStats = new SourceStats();
+        sourceStats.onStationStart("Paris", 2);
+        sourceStats.onMeasure(typeT, 12.5, Measure.NO_DATE, "C");
+        sourceStats.onMeasure(typeT, -3, Measure.NO_DATE, "C");
+        sourceStats.onStationEnd();
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        final ResultCache cache = new ResultCache(temporaryFolder.newFolder().toPath(), 1 << 20, false, "config");
+        final GroupBy groupBy = new GroupBy(EnumSet.of(GroupDimension.STATION));
+        groupBy.onStationStart("Paris", 1);
+        groupBy.onMeasure(typeT, 12.5, Measure.NO_DATE, "C");
+
+        Assert.assertNull(cache.get("key"));
+        cache.put("key", sourceStats, groupBy);
+        final ResultCache.Result result = cache.get("key");
+
+        Assert.assertEquals(1, result.getSourceStats().getNumberOfWeatherStations());
+        Assert.assertEquals(2, result.getSourceStats().getAccumulators().get("T").getCount());
+        Assert.assertEquals(-3, result.getSourceStats().getAccumulators().get("T").getMin(), 0);
+        Assert.assertEquals("Paris", result.getGroupBy().getGroups().get(0).getStation());
+    }
+
+    @Test(expected = IOException.class)
+    public void testGetTruncatedEntry() throws Exception {
+        final Path directory = temporaryFolder.newFolder().toPath();
+        final ResultCache cache = new ResultCache(directory, 1 << 20, false, "config");
+        cache.put("key", sourceStats, null);
+        final Path entry = directory.resolve("key.stats");
+        Files.write(entry, Arrays.copyOf(Files.readAllBytes(entry), 12));
+
+        cache.get("key");
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        final File file = temporaryFolder.newFile("test.txt");
+        Files.write(file.toPath(), Collections.singletonList("Station,1"));
+        final ResultCache cache = new ResultCache(temporaryFolder.newFolder().toPath(), 1 << 20, true, "config");
+        final String key = cache.key(file);
+
+        Assert.assertEquals(key, cache.key(file));
+        Assert.assertNotEquals(key, new ResultCache(temporaryFolder.newFolder().toPath(), 1 << 20, true, "other")
+            .key(file));
+
+        // Same size and modification time, but another content
+        final FileTime lastModified = Files.getLastModifiedTime(file.toPath());
+        Files.write(file.toPath(), Collections.singletonList("Station,2"));
+        Files.setLastModifiedTime(file.toPath(), lastModified);
+        Assert.assertNotEquals(key, cache.key(file));
+    }
+
+    @Test
+    public void testConfigurationHash() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("measure.types.T", "temperature");
+        properties.setProperty("runner.threads", "1");
+        final String hash = ResultCache.configurationHash(properties, name -> !name.startsWith("runner."));
+
+        properties.setProperty("runner.threads", "4");
+        Assert.assertEquals(hash, ResultCache.configurationHash(properties, name -> !name.startsWith("runner.")));
+        properties.setProperty("measure.types.T", "temp");
+        Assert.assertNotEquals(hash, ResultCache.configurationHash(properties, name -> !name.startsWith("runner.")));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        final Path directory = temporaryFolder.newFolder().toPath();
+        final ResultCache unbounded = new ResultCache(directory, Long.MAX_VALUE, false, "config");
+        unbounded.put("a", sourceStats, null);
+        final long entrySize = Files.size(directory.resolve("a.stats"));
+        unbounded.put("b", sourceStats, null);
+        unbounded.put("c", sourceStats, null);
+        int age = 3;
+        for (final String key : Arrays.asList("a", "b", "c")) {
+            Files.setLastModifiedTime(directory.resolve(key + ".stats"),
+                                      FileTime.fromMillis(System.currentTimeMillis() - 60000L * age--));
+        }
+
+        // Reading an entry makes it the most recently used one
+        final ResultCache cache = new ResultCache(directory, 2 * entrySize, false, "config");
+        Assert.assertNotNull(cache.get("a"));
+        cache.evict();
+
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertNotNull(cache.get("c"));
+    }
+}
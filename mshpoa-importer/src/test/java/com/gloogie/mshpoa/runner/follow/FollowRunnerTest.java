@@ -0,0 +1,140 @@
+package com.gloogie.mshpoa.runner.follow;
+
+import com.gloogie.mshpoa.importer.impl.FileImporter;
+import com.gloogie.mshpoa.model.MeasureField;
+import com.gloogie.mshpoa.model.MeasureType;
+import com.gloogie.mshpoa.report.GroupDimension;
+import com.gloogie.mshpoa.report.format.JsonLinesFormat;
+import com.gloogie.mshpoa.writer.impl.MemoryWriter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for FollowRunner
+ */
+public class FollowRunnerTest
+{
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MemoryWriter writer;
+    private FollowRunner runner;
+
+    @Before
+    public void setUp() throws Exception {
+        final MeasureType measureType = new MeasureType();
+        measureType.setCode("T");
+        measureType.setName("temperature");
+        final Map<String, List<MeasureField>> fieldsPerType = new LinkedHashMap<>();
+        fieldsPerType.put("T", Arrays.asList(MeasureField.UNIT, MeasureField.VALUE));
+        final FileImporter fileImporter = new FileImporter(Collections.singletonList(measureType), "#", "yyyy-MM-dd",
+                                                           ",", fieldsPerType);
+        writer = new MemoryWriter();
+        runner = new FollowRunner(fileImporter, EnumSet.of(GroupDimension.STATION), writer, new JsonLinesFormat());
+    }
+
+    @Test
+    public void testReportAfterAppend() throws Exception {
+        final File file = temporaryFolder.newFile("follow.txt");
+        write(file, "Paris,2\nT,C,10\nT,C,20\n", StandardOpenOption.APPEND);
+        runner.addFile(file.toPath());
+        runner.pollAll();
+
+        write(file, "Lyon,1\nT,C,X\n", StandardOpenOption.APPEND);
+        runner.pollAll();
+        runner.writeReports();
+
+        Assert.assertEquals(Arrays.asList(
+            "{\"record\":\"source\",\"source\":\"follow.txt\",\"stations\":2,\"failedMeasures\":1}",
+            "{\"record\":\"group\",\"source\":\"follow.txt\",\"station\":\"Paris\",\"count\":2,\"min\":10.0,"
+            + "\"max\":20.0,\"mean\":15.0}"), reportWithoutTypes());
+    }
+
+    @Test
+    public void testReportAfterTruncation() throws Exception {
+        final File file = temporaryFolder.newFile("follow.txt");
+        write(file, "Paris,2\nT,C,10\nT,C,20\nClapiers,1\nT,C,X\n", StandardOpenOption.APPEND);
+        runner.addFile(file.toPath());
+        runner.pollAll();
+
+        // The stats of the old content are dropped, the new content is only counted once
+        write(file, "Lyon,1\nT,C,5\n", StandardOpenOption.TRUNCATE_EXISTING);
+        runner.pollAll();
+        runner.writeReports();
+
+        Assert.assertEquals(Arrays.asList(
+            "{\"record\":\"source\",\"source\":\"follow.txt\",\"stations\":1,\"failedMeasures\":0}",
+            "{\"record\":\"group\",\"source\":\"follow.txt\",\"station\":\"Lyon\",\"count\":1,\"min\":5.0,"
+            + "\"max\":5.0,\"mean\":5.0}"), reportWithoutTypes());
+        Assert.assertTrue(writer.getMessages().get(1), writer.getMessages().get(1).startsWith(
+            "{\"record\":\"type\",\"source\":\"follow.txt\",\"type\":\"T\",\"name\":\"temperature\",\"count\":1,"));
+    }
+
+    @Test
+    public void testReportAfterRotation() throws Exception {
+        final File file = temporaryFolder.newFile("follow.txt");
+        write(file, "Paris,2\nT,C,10\nT,C,20\n", StandardOpenOption.APPEND);
+        runner.addFile(file.toPath());
+        runner.pollAll();
+
+        Files.move(file.toPath(), temporaryFolder.getRoot().toPath().resolve("follow.old"));
+        runner.pollAll();
+        write(file, "Lyon,1\nT,C,5\n", StandardOpenOption.CREATE_NEW);
+        runner.fileChanged(file.toPath(), true);
+        runner.writeReports();
+
+        Assert.assertEquals(Arrays.asList(
+            "{\"record\":\"source\",\"source\":\"follow.txt\",\"stations\":1,\"failedMeasures\":0}",
+            "{\"record\":\"group\",\"source\":\"follow.txt\",\"station\":\"Lyon\",\"count\":1,\"min\":5.0,"
+            + "\"max\":5.0,\"mean\":5.0}"), reportWithoutTypes());
+    }
+
+    @Test
+    public void testFollowAgainFailedFileCreatedAgain() throws Exception {
+        final File file = temporaryFolder.newFile("follow.txt");
+        write(file, "Paris,X\n", StandardOpenOption.APPEND);
+        runner.addFile(file.toPath());
+        runner.pollAll();
+        Assert.assertEquals(1, writer.getMessages().size());
+        Assert.assertTrue(writer.getMessages().get(0), writer.getMessages().get(0).startsWith("{\"record\":\"error\""));
+
+        Files.delete(file.toPath());
+        write(file, "Lyon,1\nT,C,5\n", StandardOpenOption.CREATE_NEW);
+        runner.fileChanged(file.toPath(), true);
+        runner.writeReports();
+
+        Assert.assertEquals(Arrays.asList(
+            "{\"record\":\"source\",\"source\":\"follow.txt\",\"stations\":1,\"failedMeasures\":0}",
+            "{\"record\":\"group\",\"source\":\"follow.txt\",\"station\":\"Lyon\",\"count\":1,\"min\":5.0,"
+            + "\"max\":5.0,\"mean\":5.0}"), reportWithoutTypes().subList(1, 3));
+    }
+
+    private static void write(final File file, final String text, final StandardOpenOption option) throws Exception {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.WRITE, option);
+    }
+
+    /**
+     * @return the records of the reports written, without the records of the types whose deviation and quantiles
+     * are checked elsewhere
+     */
+    private List<String> reportWithoutTypes() {
+        final List<String> records = new ArrayList<>(writer.getMessages());
+        records.removeIf(record -> record.startsWith("{\"record\":\"type\""));
+        return records;
+    }
+}
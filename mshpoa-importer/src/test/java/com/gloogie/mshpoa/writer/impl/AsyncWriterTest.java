@@ -0,0 +1,236 @@
+package com.gloogie.mshpoa.writer.impl;
+
+import com.gloogie.mshpoa.writer.Writer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for AsyncWriter
+ */
+public class AsyncWriterTest
+{
+    @Test
+    public void testWriteInOrder() throws Exception {
+        final RecordingWriter delegate = new RecordingWriter(null);
+        final AsyncWriter writer = new AsyncWriter(delegate, 16, OverflowPolicy.BLOCK);
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            writer.write("message " + i);
+            expected.add("message " + i);
+        }
+        writer.flush();
+        awaitFlushes(delegate, 1);
+        Assert.assertEquals(expected, delegate.getMessages());
+
+        writer.write("last");
+        writer.close();
+        Assert.assertEquals("last", delegate.getMessages().get(1000));
+        Assert.assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void testFlushOnlyWhenFlushed() throws Exception {
+        final RecordingWriter delegate = new RecordingWriter(null);
+        final AsyncWriter writer = new AsyncWriter(delegate, 16, OverflowPolicy.BLOCK);
+        writer.write("message");
+        awaitMessages(delegate, 1);
+        Assert.assertEquals(0, delegate.flushes);
+
+        writer.flush();
+        awaitFlushes(delegate, 1);
+        Assert.assertEquals(1, delegate.flushes);
+        writer.close();
+    }
+
+    @Test
+    public void testFlushDoesNotWait() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingWriter delegate = new RecordingWriter(release);
+        final AsyncWriter writer = new AsyncWriter(delegate, 16, OverflowPolicy.BLOCK);
+        writer.write("blocked");
+        delegate.started.await(10, TimeUnit.SECONDS);
+        writer.write("message");
+        writer.flush();
+        writer.flush();
+        Assert.assertEquals(0, delegate.flushes);
+
+        release.countDown();
+        awaitFlushes(delegate, 1);
+        Assert.assertEquals(2, delegate.getMessages().size());
+        writer.close();
+        // The flushes queued in the same batch are done once
+        Assert.assertEquals(1, delegate.flushes);
+    }
+
+    @Test
+    public void testFlushWhenIdle() throws Exception {
+        final RecordingWriter delegate = new RecordingWriter(null);
+        final AsyncWriter writer = new AsyncWriter(delegate, 16, OverflowPolicy.BLOCK, true);
+        writer.write("message");
+        awaitFlushes(delegate, 1);
+        Assert.assertEquals(1, delegate.flushes);
+        writer.close();
+    }
+
+    @Test
+    public void testDrop() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingWriter delegate = new RecordingWriter(release);
+        final AsyncWriter writer = new AsyncWriter(delegate, 2, OverflowPolicy.DROP);
+        writer.write("blocked");
+        delegate.started.await(10, TimeUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            writer.write("message " + i);
+        }
+        Assert.assertEquals(3, writer.getDroppedMessages());
+
+        release.countDown();
+        writer.close();
+        Assert.assertEquals(3, delegate.getMessages().size());
+    }
+
+    @Test
+    public void testFail() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingWriter delegate = new RecordingWriter(release);
+        final AsyncWriter writer = new AsyncWriter(delegate, 1, OverflowPolicy.FAIL);
+        writer.write("blocked");
+        delegate.started.await(10, TimeUnit.SECONDS);
+        writer.write("message");
+        try {
+            writer.write("rejected");
+            Assert.fail("The buffer should be full");
+        } catch (final IllegalStateException e) {
+            // Expected
+        }
+
+        release.countDown();
+        writer.close();
+        Assert.assertEquals(2, delegate.getMessages().size());
+    }
+
+    @Test
+    public void testError() throws Exception {
+        final AsyncWriter writer = new AsyncWriter(message -> {
+            throw new IllegalArgumentException(message);
+        }, 4, OverflowPolicy.BLOCK);
+        writer.write("error");
+        try {
+            writer.close();
+            Assert.fail("The error of the writer should be thrown");
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals("error", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteAfterClose() throws Exception {
+        final AsyncWriter writer = new AsyncWriter(new RecordingWriter(null), 4, OverflowPolicy.BLOCK);
+        writer.close();
+        writer.close();
+        writer.write("closed");
+    }
+
+    @Test
+    public void testWriteConcurrentlyWithClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final RecordingWriter delegate = new RecordingWriter(null);
+            final AsyncWriter writer = new AsyncWriter(delegate, 2, OverflowPolicy.BLOCK);
+            final AtomicInteger accepted = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                final Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        while (true) {
+                            writer.write("message");
+                            accepted.incrementAndGet();
+                        }
+                    } catch (final IllegalStateException | InterruptedException e) {
+                        // Closed
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            Thread.sleep(1);
+            writer.close();
+            for (final Thread thread : threads) {
+                thread.join(10000);
+                Assert.assertFalse(thread.isAlive());
+            }
+
+            // Each write which did not fail was written before the close
+            Assert.assertEquals(accepted.get(), delegate.getMessages().size());
+            Assert.assertTrue(delegate.closed);
+        }
+    }
+
+    private static void awaitMessages(final RecordingWriter delegate, final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (delegate.getMessages().size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(count, delegate.getMessages().size());
+    }
+
+    private static void awaitFlushes(final RecordingWriter delegate, final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (delegate.flushes < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(count, delegate.flushes);
+    }
+
+    /**
+     * Writer which records the messages, and which can wait for a latch before writing the first one
+     */
+    private static final class RecordingWriter implements Writer
+    {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch release;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile int flushes;
+        private volatile boolean closed;
+
+        private RecordingWriter(final CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void write(final String message) {
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messages.add(message);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private List<String> getMessages() {
+            return new ArrayList<>(messages);
+        }
+    }
+}
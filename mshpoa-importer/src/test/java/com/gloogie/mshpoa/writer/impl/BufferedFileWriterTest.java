@@ -0,0 +1,31 @@
+package com.gloogie.mshpoa.writer.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test class for BufferedFileWriter
+ */
+public class BufferedFileWriterTest
+{
+    @Test
+    public void testFlush() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final BufferedFileWriter writer = new BufferedFileWriter(output, 1024);
+        writer.write("first");
+        writer.write("seconde été");
+        Assert.assertEquals(0, output.size());
+
+        writer.flush();
+        final String separator = System.lineSeparator();
+        Assert.assertEquals("first" + separator + "seconde été" + separator,
+                            new String(output.toByteArray(), StandardCharsets.UTF_8));
+
+        writer.write("third");
+        writer.close();
+        Assert.assertTrue(new String(output.toByteArray(), StandardCharsets.UTF_8).endsWith("third" + separator));
+    }
+}